@@ -0,0 +1,71 @@
+package ru.yakovlev.walletapp.jmh;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.yakovlev.walletapp.dto.WalletDTORequest;
+import ru.yakovlev.walletapp.dto.WalletDTOResponse;
+import ru.yakovlev.walletapp.entity.Wallet;
+import ru.yakovlev.walletapp.util.WalletMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonRoundTripBenchmark {
+
+    private ObjectReader requestReader;
+
+    private ObjectWriter responseWriter;
+
+    private ValidatorFactory validatorFactory;
+
+    private Validator validator;
+
+    private byte[] requestBody;
+
+    private Wallet wallet;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        requestReader = objectMapper.readerFor(WalletDTORequest.class);
+        responseWriter = objectMapper.writerFor(WalletDTOResponse.class);
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        requestBody = ("{\"id\":\"" + UUID.randomUUID() + "\",\"operationType\":\"DEPOSIT\",\"amount\":1000.50}")
+                .getBytes(StandardCharsets.UTF_8);
+        wallet = new Wallet();
+        wallet.setId(UUID.randomUUID());
+        wallet.setBalance(12345678L);
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<WalletDTORequest>> readAndValidateRequest() throws Exception {
+        WalletDTORequest request = requestReader.readValue(requestBody);
+        return validator.validate(request);
+    }
+
+    @Benchmark
+    public byte[] mapAndWriteResponse() throws Exception {
+        return responseWriter.writeValueAsBytes(WalletMapper.toWalletDTOResponse(wallet));
+    }
+}
@@ -0,0 +1,50 @@
+package ru.yakovlev.walletapp.jmh;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yakovlev.walletapp.WalletAppApplication;
+import ru.yakovlev.walletapp.service.WalletService;
+
+import java.io.IOException;
+
+@State(Scope.Benchmark)
+public class WalletApplicationState {
+
+    private EmbeddedPostgres postgres;
+
+    private ConfigurableApplicationContext context;
+
+    private WalletService walletService;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        String url = System.getProperty("jmh.datasource.url");
+        if (url == null) {
+            postgres = EmbeddedPostgres.start();
+            url = postgres.getJdbcUrl("postgres", "postgres");
+        }
+        context = new SpringApplicationBuilder(WalletAppApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + url, "--spring.jpa.show-sql=false");
+        walletService = context.getBean(WalletService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws IOException {
+        context.close();
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+
+    public WalletService getWalletService() {
+        return walletService;
+    }
+}
@@ -0,0 +1,71 @@
+package ru.yakovlev.walletapp.jmh;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yakovlev.walletapp.dto.WalletDTORequest;
+import ru.yakovlev.walletapp.dto.WalletDTOResponse;
+import ru.yakovlev.walletapp.entity.OperationType;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class WalletServiceBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class SharedWallet {
+
+        @Param({"HOT_WALLET", "WALLET_PER_THREAD"})
+        public String layout;
+
+        UUID hotWalletId;
+
+        @Setup(Level.Trial)
+        public void create(WalletApplicationState application) {
+            hotWalletId = application.getWalletService().createNewWallet().getId();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadOperations {
+
+        private WalletDTORequest deposit;
+
+        private WalletDTORequest withdraw;
+
+        private boolean depositNext = true;
+
+        @Setup(Level.Trial)
+        public void create(WalletApplicationState application, SharedWallet sharedWallet) {
+            UUID walletId = "HOT_WALLET".equals(sharedWallet.layout)
+                    ? sharedWallet.hotWalletId
+                    : application.getWalletService().createNewWallet().getId();
+            deposit = new WalletDTORequest(walletId, OperationType.DEPOSIT, BigDecimal.TEN);
+            withdraw = new WalletDTORequest(walletId, OperationType.WITHDRAW, BigDecimal.TEN);
+        }
+
+        WalletDTORequest next() {
+            WalletDTORequest request = depositNext ? deposit : withdraw;
+            depositNext = !depositNext;
+            return request;
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public WalletDTOResponse depositOrWithdraw(WalletApplicationState application, ThreadOperations operations)
+            throws Exception {
+        return application.getWalletService().depositOrWithdraw(operations.next());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public WalletDTOResponse depositOrWithdrawContended(WalletApplicationState application,
+                                                       ThreadOperations operations) throws Exception {
+        return application.getWalletService().depositOrWithdraw(operations.next());
+    }
+}
@@ -0,0 +1,73 @@
+package ru.yakovlev.walletapp.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+public class LoadGenerator {
+
+    private final HttpClient client;
+
+    private final URI baseUri;
+
+    private final List<UUID> wallets;
+
+    private final UUID hotWalletId;
+
+    public LoadGenerator(HttpClient client, URI baseUri, List<UUID> wallets, UUID hotWalletId) {
+        this.client = client;
+        this.baseUri = baseUri;
+        this.wallets = wallets;
+        this.hotWalletId = hotWalletId;
+    }
+
+    public LoadTestRun run(TrafficMix mix, double rate, Duration duration) throws InterruptedException {
+        LoadTestRun run = new LoadTestRun();
+        Semaphore inFlight = new Semaphore(LoadTestSettings.MAX_IN_FLIGHT);
+        long begin = System.nanoTime();
+        long deadline = begin + duration.toNanos();
+        long meanInterval = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long scheduled = 0;
+        long next = begin;
+        while (next < deadline) {
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            scheduled++;
+            long intended = next;
+            next += LoadTestSettings.POISSON
+                    ? (long) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * meanInterval)
+                    : meanInterval;
+            if (!inFlight.tryAcquire()) {
+                run.recordDropped();
+                continue;
+            }
+            RequestKind kind = mix.next();
+            HttpRequest request = HttpRequest.newBuilder(kind.create(baseUri, wallets, hotWalletId),
+                            (name, value) -> true)
+                    .timeout(LoadTestSettings.TIMEOUT)
+                    .build();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, failure) -> {
+                long latency = System.nanoTime() - intended;
+                if (failure != null) {
+                    run.recordFailure(kind, failure, latency);
+                } else {
+                    run.recordResponse(kind, response.statusCode(), latency);
+                }
+                inFlight.release();
+            });
+        }
+        inFlight.acquire(LoadTestSettings.MAX_IN_FLIGHT);
+        run.finish(scheduled, (System.nanoTime() - begin) / 1e9);
+        return run;
+    }
+}
@@ -0,0 +1,104 @@
+package ru.yakovlev.walletapp.loadtest;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yakovlev.walletapp.WalletAppApplication;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class LoadTestMain {
+
+    private static final Pattern WALLET_ID = Pattern.compile("\"id\"\\s*:\\s*\"([0-9a-f-]{36})\"");
+
+    public static void main(String[] args) throws Exception {
+        EmbeddedPostgres postgres = null;
+        ConfigurableApplicationContext context = null;
+        try {
+            URI baseUri;
+            if (LoadTestSettings.BASE_URL.isEmpty()) {
+                String url = LoadTestSettings.DATASOURCE_URL;
+                if (url.isEmpty()) {
+                    postgres = EmbeddedPostgres.start();
+                    url = postgres.getJdbcUrl("postgres", "postgres");
+                }
+                context = new SpringApplicationBuilder(WalletAppApplication.class)
+                        .web(WebApplicationType.SERVLET)
+                        .run("--spring.datasource.url=" + url, "--spring.jpa.show-sql=false", "--server.port=0",
+                                "--logging.level.root=WARN");
+                baseUri = URI.create("http://localhost:"
+                        + context.getEnvironment().getProperty("local.server.port") + "/api/v1/");
+            } else {
+                baseUri = URI.create(LoadTestSettings.BASE_URL.endsWith("/")
+                        ? LoadTestSettings.BASE_URL : LoadTestSettings.BASE_URL + "/");
+            }
+
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            List<UUID> wallets = new ArrayList<>(LoadTestSettings.WALLETS);
+            for (int i = 0; i < LoadTestSettings.WALLETS; i++) {
+                wallets.add(createWallet(client, baseUri));
+            }
+            UUID hotWalletId = wallets.get(0);
+            deposit(client, baseUri, hotWalletId);
+
+            LoadGenerator generator = new LoadGenerator(client, baseUri, wallets, hotWalletId);
+            LoadTestReport report = new LoadTestReport();
+            System.out.printf("Mix %s (%s), %.0f req/s %s arrivals against %s%n", LoadTestSettings.MIX.getName(),
+                    LoadTestSettings.MIX, LoadTestSettings.RATE, LoadTestSettings.POISSON ? "poisson" : "constant",
+                    baseUri);
+            System.out.println("Warm-up: " + report.describe(
+                    generator.run(LoadTestSettings.MIX, LoadTestSettings.RATE, LoadTestSettings.WARMUP)));
+
+            Instant startedAt = Instant.now();
+            LoadTestRun run = generator.run(LoadTestSettings.MIX, LoadTestSettings.RATE, LoadTestSettings.MEASUREMENT);
+            System.out.println("Measurement: " + report.describe(run));
+            Path file = report.write(LoadTestSettings.OUTPUT_DIR, startedAt, LoadTestSettings.MIX,
+                    LoadTestSettings.RATE, run);
+            System.out.println("Report written to " + file.toAbsolutePath());
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+            if (postgres != null) {
+                postgres.close();
+            }
+        }
+    }
+
+    private static UUID createWallet(HttpClient client, URI baseUri) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(baseUri.resolve("wallet"))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build(), HttpResponse.BodyHandlers.ofString());
+        Matcher matcher = WALLET_ID.matcher(response.body());
+        if (response.statusCode() != 201 || !matcher.find()) {
+            throw new IllegalStateException("Wallet creation failed with status " + response.statusCode()
+                    + ": " + response.body());
+        }
+        return UUID.fromString(matcher.group(1));
+    }
+
+    private static void deposit(HttpClient client, URI baseUri, UUID walletId)
+            throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(baseUri.resolve("wallet"))
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(
+                        "{\"id\":\"" + walletId + "\",\"operationType\":\"DEPOSIT\",\"amount\":1000000}"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Hot wallet deposit failed with status " + response.statusCode()
+                    + ": " + response.body());
+        }
+    }
+}
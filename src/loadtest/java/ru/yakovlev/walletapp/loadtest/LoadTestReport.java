@@ -0,0 +1,98 @@
+package ru.yakovlev.walletapp.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+public class LoadTestReport {
+
+    private static final DateTimeFormatter RUN_ID_FORMAT =
+            DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC);
+
+    private static final String CSV_HEADER =
+            "runId,mix,weights,arrivals,targetRate,seconds,scheduled,completed,dropped,throughput,"
+                    + "p50Ms,p99Ms,p999Ms,maxMs,errors";
+
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    public Path write(Path directory, Instant startedAt, TrafficMix mix, double rate, LoadTestRun run)
+            throws IOException {
+        String runId = RUN_ID_FORMAT.format(startedAt) + "-" + mix.getName();
+        Map<String, Object> totals = summary(run.sortedLatencies(), run.outcomes(), run.getSeconds());
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("runId", runId);
+        report.put("startedAt", startedAt.toString());
+        report.put("mix", mix.getName());
+        report.put("weights", mix.toString());
+        report.put("arrivals", LoadTestSettings.POISSON ? "poisson" : "constant");
+        report.put("targetRate", rate);
+        report.put("seconds", run.getSeconds());
+        report.put("scheduled", run.getScheduled());
+        report.put("dropped", run.getDropped());
+        report.put("total", totals);
+        Map<String, Object> byKind = new LinkedHashMap<>();
+        for (RequestKind kind : mix.getWeights().keySet()) {
+            byKind.put(kind.getKey(), summary(run.sortedLatencies(kind), run.outcomes(kind), run.getSeconds()));
+        }
+        report.put("byKind", byKind);
+
+        Files.createDirectories(directory);
+        Path file = directory.resolve(runId + ".json");
+        objectMapper.writeValue(file.toFile(), report);
+
+        Path csv = directory.resolve("summary.csv");
+        if (Files.notExists(csv)) {
+            Files.writeString(csv, CSV_HEADER + System.lineSeparator());
+        }
+        Files.writeString(csv, String.join(",", runId, mix.getName(), "\"" + mix + "\"",
+                        (String) report.get("arrivals"), format(rate), format(run.getSeconds()),
+                        String.valueOf(run.getScheduled()), String.valueOf(totals.get("completed")),
+                        String.valueOf(run.getDropped()), format((Double) totals.get("throughput")),
+                        format((Double) totals.get("p50Ms")), format((Double) totals.get("p99Ms")),
+                        format((Double) totals.get("p999Ms")), format((Double) totals.get("maxMs")),
+                        String.valueOf(totals.get("errors"))) + System.lineSeparator(),
+                StandardOpenOption.APPEND);
+        return file;
+    }
+
+    public String describe(LoadTestRun run) {
+        long[] latencies = run.sortedLatencies();
+        return String.format(Locale.ROOT, "%d completed, %d dropped: %.0f req/s, p50 %.1f ms, p99 %.1f ms, "
+                        + "p999 %.1f ms, outcomes %s",
+                latencies.length, run.getDropped(), latencies.length / run.getSeconds(),
+                LoadTestRun.percentile(latencies, 0.50), LoadTestRun.percentile(latencies, 0.99),
+                LoadTestRun.percentile(latencies, 0.999), run.outcomes());
+    }
+
+    private static Map<String, Object> summary(long[] sortedNanos, Map<String, Long> outcomes, double seconds) {
+        long errors = outcomes.entrySet().stream()
+                .filter(entry -> !entry.getKey().startsWith("2"))
+                .mapToLong(Map.Entry::getValue)
+                .sum();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("completed", (long) sortedNanos.length);
+        summary.put("throughput", sortedNanos.length / seconds);
+        summary.put("p50Ms", LoadTestRun.percentile(sortedNanos, 0.50));
+        summary.put("p99Ms", LoadTestRun.percentile(sortedNanos, 0.99));
+        summary.put("p999Ms", LoadTestRun.percentile(sortedNanos, 0.999));
+        summary.put("maxMs", LoadTestRun.percentile(sortedNanos, 1.0));
+        summary.put("errors", errors);
+        summary.put("outcomes", outcomes);
+        return summary;
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+}
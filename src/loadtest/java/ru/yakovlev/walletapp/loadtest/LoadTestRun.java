@@ -0,0 +1,92 @@
+package ru.yakovlev.walletapp.loadtest;
+
+import java.net.http.HttpTimeoutException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+public class LoadTestRun {
+
+    private final Map<RequestKind, ConcurrentLinkedQueue<Long>> latencies = new EnumMap<>(RequestKind.class);
+
+    private final Map<RequestKind, Map<String, LongAdder>> outcomes = new EnumMap<>(RequestKind.class);
+
+    private final LongAdder dropped = new LongAdder();
+
+    private long scheduled;
+
+    private double seconds;
+
+    public LoadTestRun() {
+        for (RequestKind kind : RequestKind.values()) {
+            latencies.put(kind, new ConcurrentLinkedQueue<>());
+            outcomes.put(kind, new ConcurrentHashMap<>());
+        }
+    }
+
+    void recordResponse(RequestKind kind, int status, long latencyNanos) {
+        latencies.get(kind).add(latencyNanos);
+        outcomes.get(kind).computeIfAbsent(String.valueOf(status), key -> new LongAdder()).increment();
+    }
+
+    void recordFailure(RequestKind kind, Throwable failure, long latencyNanos) {
+        latencies.get(kind).add(latencyNanos);
+        String outcome = failure instanceof HttpTimeoutException || failure.getCause() instanceof HttpTimeoutException
+                ? "timeout" : "io-error";
+        outcomes.get(kind).computeIfAbsent(outcome, key -> new LongAdder()).increment();
+    }
+
+    void recordDropped() {
+        dropped.increment();
+    }
+
+    void finish(long scheduled, double seconds) {
+        this.scheduled = scheduled;
+        this.seconds = seconds;
+    }
+
+    public long[] sortedLatencies(RequestKind kind) {
+        return latencies.get(kind).stream().mapToLong(Long::longValue).sorted().toArray();
+    }
+
+    public long[] sortedLatencies() {
+        return latencies.values().stream().flatMap(ConcurrentLinkedQueue::stream)
+                .mapToLong(Long::longValue).sorted().toArray();
+    }
+
+    public Map<String, Long> outcomes(RequestKind kind) {
+        Map<String, Long> counts = new TreeMap<>();
+        outcomes.get(kind).forEach((outcome, count) -> counts.put(outcome, count.sum()));
+        return counts;
+    }
+
+    public Map<String, Long> outcomes() {
+        Map<String, Long> counts = new TreeMap<>();
+        for (RequestKind kind : RequestKind.values()) {
+            outcomes(kind).forEach((outcome, count) -> counts.merge(outcome, count, Long::sum));
+        }
+        return counts;
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public long getScheduled() {
+        return scheduled;
+    }
+
+    public double getSeconds() {
+        return seconds;
+    }
+
+    public static double percentile(long[] sortedNanos, double quantile) {
+        if (sortedNanos.length == 0) {
+            return Double.NaN;
+        }
+        return sortedNanos[(int) Math.min(sortedNanos.length - 1, quantile * sortedNanos.length)] / 1e6;
+    }
+}
@@ -0,0 +1,31 @@
+package ru.yakovlev.walletapp.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+public class LoadTestSettings {
+
+    public static final String BASE_URL = System.getProperty("loadtest.baseUrl", "");
+
+    public static final String DATASOURCE_URL = System.getProperty("loadtest.datasource.url", "");
+
+    public static final TrafficMix MIX = TrafficMix.parse(System.getProperty("loadtest.mix", "production"));
+
+    public static final double RATE = Double.parseDouble(System.getProperty("loadtest.rate", "200"));
+
+    public static final boolean POISSON = "poisson".equals(System.getProperty("loadtest.arrivals", "poisson"));
+
+    public static final Duration WARMUP = Duration.ofSeconds(Long.getLong("loadtest.warmupSeconds", 10));
+
+    public static final Duration MEASUREMENT = Duration.ofSeconds(Long.getLong("loadtest.seconds", 60));
+
+    public static final Duration TIMEOUT = Duration.ofSeconds(Long.getLong("loadtest.timeoutSeconds", 10));
+
+    public static final int WALLETS = Integer.getInteger("loadtest.wallets", 1000);
+
+    public static final int LIST_LIMIT = Integer.getInteger("loadtest.listLimit", 50);
+
+    public static final int MAX_IN_FLIGHT = Integer.getInteger("loadtest.maxInFlight", 10000);
+
+    public static final Path OUTPUT_DIR = Path.of(System.getProperty("loadtest.outputDir", "target/loadtest"));
+}
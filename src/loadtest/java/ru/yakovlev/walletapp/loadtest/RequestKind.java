@@ -0,0 +1,66 @@
+package ru.yakovlev.walletapp.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+public enum RequestKind {
+
+    READ("read") {
+        @Override
+        HttpRequest create(URI baseUri, List<UUID> wallets, UUID hotWalletId) {
+            UUID walletId = wallets.get(ThreadLocalRandom.current().nextInt(wallets.size()));
+            return HttpRequest.newBuilder(baseUri.resolve("wallets/" + walletId)).GET().build();
+        }
+    },
+    HOT_WRITE("hot") {
+        @Override
+        HttpRequest create(URI baseUri, List<UUID> wallets, UUID hotWalletId) {
+            String operationType = ThreadLocalRandom.current().nextBoolean() ? "DEPOSIT" : "WITHDRAW";
+            return HttpRequest.newBuilder(baseUri.resolve("wallet"))
+                    .header("Content-Type", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofString("{\"id\":\"" + hotWalletId
+                            + "\",\"operationType\":\"" + operationType + "\",\"amount\":1}"))
+                    .build();
+        }
+    },
+    CREATE("create") {
+        @Override
+        HttpRequest create(URI baseUri, List<UUID> wallets, UUID hotWalletId) {
+            return HttpRequest.newBuilder(baseUri.resolve("wallet"))
+                    .POST(HttpRequest.BodyPublishers.noBody())
+                    .build();
+        }
+    },
+    LIST("list") {
+        @Override
+        HttpRequest create(URI baseUri, List<UUID> wallets, UUID hotWalletId) {
+            return HttpRequest.newBuilder(baseUri.resolve("wallets?limit=" + LoadTestSettings.LIST_LIMIT))
+                    .GET()
+                    .build();
+        }
+    };
+
+    private final String key;
+
+    RequestKind(String key) {
+        this.key = key;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public static RequestKind fromKey(String key) {
+        for (RequestKind kind : values()) {
+            if (kind.key.equals(key)) {
+                return kind;
+            }
+        }
+        throw new IllegalArgumentException("Unknown request kind " + key + ". Allowed values: read, hot, create, list");
+    }
+
+    abstract HttpRequest create(URI baseUri, List<UUID> wallets, UUID hotWalletId);
+}
@@ -0,0 +1,222 @@
+package ru.yakovlev.walletapp.loadtest;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+public class StartupComparisonMain {
+
+    private static final Path JAR = Path.of(System.getProperty("faststart.jar", "target/WalletApp-0.0.1-SNAPSHOT.jar"))
+            .toAbsolutePath();
+
+    private static final Path DIRECTORY = Path.of(System.getProperty("faststart.directory", "target/faststart"))
+            .toAbsolutePath();
+
+    private static final int RUNS = Integer.getInteger("faststart.runs", 5);
+
+    private static final int REQUESTS = Integer.getInteger("faststart.requests", 100);
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(3);
+
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(10);
+
+    private static final HttpClient CLIENT = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(1))
+            .build();
+
+    public static void main(String[] args) throws Exception {
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.start()) {
+            String url = postgres.getJdbcUrl("postgres", "postgres");
+            migrate(url);
+            Map<Variant, List<Sample>> samples = new EnumMap<>(Variant.class);
+            for (int run = 1; run <= RUNS; run++) {
+                for (Variant variant : Variant.values()) {
+                    Sample sample = measure(variant, url, run);
+                    System.out.printf(Locale.ROOT, "Run %d %-9s %s%n", run, variant.key, sample);
+                    samples.computeIfAbsent(variant, key -> new ArrayList<>()).add(sample);
+                }
+            }
+            System.out.printf(Locale.ROOT, "%nMedian of %d runs, first %d requests after readiness%n", RUNS, REQUESTS);
+            System.out.printf(Locale.ROOT, "%-9s %14s %12s %12s %12s%n",
+                    "variant", "first 200 ms", "ready ms", "mean ms", "max ms");
+            samples.forEach((variant, list) -> System.out.printf(Locale.ROOT, "%-9s %14.0f %12.0f %12.2f %12.1f%n",
+                    variant.key, median(list, Sample::firstResponseMs), median(list, Sample::readyMs),
+                    median(list, Sample::meanLatencyMs), median(list, Sample::maxLatencyMs)));
+        }
+    }
+
+    private static void migrate(String url) throws IOException, InterruptedException {
+        Files.createDirectories(DIRECTORY);
+        List<String> command = new ArrayList<>(List.of(java(), "-jar", JAR.toString(),
+                "--spring.profiles.active=migrate"));
+        command.addAll(datasource(url));
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(DIRECTORY.resolve("migrate.log").toFile())
+                .start();
+        if (!process.waitFor(STARTUP_TIMEOUT.toSeconds(), TimeUnit.SECONDS) || process.exitValue() != 0) {
+            process.destroyForcibly();
+            throw new IllegalStateException("Migration failed, see " + DIRECTORY.resolve("migrate.log"));
+        }
+    }
+
+    private static Sample measure(Variant variant, String url, int run) throws IOException, InterruptedException {
+        int port = freePort();
+        URI baseUri = URI.create("http://localhost:" + port + "/");
+        List<String> command = variant.command();
+        command.addAll(datasource(url));
+        command.add("--server.port=" + port);
+        command.add("--management.endpoint.health.probes.enabled=true");
+        ProcessBuilder builder = new ProcessBuilder(command)
+                .directory(DIRECTORY.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(DIRECTORY.resolve(variant.key + "-" + run + ".log").toFile());
+
+        long started = System.nanoTime();
+        Process process = builder.start();
+        try {
+            long firstResponse = awaitOk(process, baseUri.resolve("api/v1/wallets?limit=1")) - started;
+            long ready = awaitOk(process, baseUri.resolve("actuator/health/readiness")) - started;
+            long[] latencies = new long[REQUESTS];
+            for (int i = 0; i < REQUESTS; i++) {
+                URI uri = i % 2 == 0
+                        ? baseUri.resolve("api/v1/wallets?limit=10")
+                        : baseUri.resolve("api/v1/wallets/" + UUID.randomUUID());
+                long sent = System.nanoTime();
+                CLIENT.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.discarding());
+                latencies[i] = System.nanoTime() - sent;
+            }
+            return new Sample(firstResponse, ready, latencies);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private static long awaitOk(Process process, URI uri) throws InterruptedException {
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(5)).build();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Application exited with code " + process.exitValue()
+                        + ", see logs in " + DIRECTORY);
+            }
+            if (isOk(request)) {
+                return System.nanoTime();
+            }
+            Thread.sleep(POLL_INTERVAL.toMillis());
+        }
+        throw new IllegalStateException("No 200 from " + uri + " within " + STARTUP_TIMEOUT);
+    }
+
+    private static boolean isOk(HttpRequest request) throws InterruptedException {
+        try {
+            return CLIENT.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static List<String> datasource(String url) {
+        return List.of("--spring.datasource.url=" + url, "--spring.datasource.username=postgres",
+                "--spring.datasource.password=postgres");
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static String java() {
+        return Path.of(System.getProperty("java.home"), "bin", "java").toString();
+    }
+
+    private static double median(List<Sample> samples, ToDoubleFunction<Sample> metric) {
+        double[] values = samples.stream().mapToDouble(metric).sorted().toArray();
+        int middle = values.length / 2;
+        return values.length % 2 == 1 ? values[middle] : (values[middle - 1] + values[middle]) / 2;
+    }
+
+    private enum Variant {
+        BASELINE("baseline") {
+            @Override
+            List<String> command() {
+                return new ArrayList<>(List.of(java(), "-jar", JAR.toString()));
+            }
+        },
+        FASTSTART("faststart") {
+            @Override
+            List<String> command() {
+                return new ArrayList<>(List.of(java(), "-XX:SharedArchiveFile=application.jsa",
+                        "-Dspring.aot.enabled=true", "-jar", JAR.getFileName().toString(),
+                        "--spring.profiles.active=faststart"));
+            }
+        };
+
+        private final String key;
+
+        Variant(String key) {
+            this.key = key;
+        }
+
+        abstract List<String> command();
+    }
+
+    private static final class Sample {
+
+        private final long firstResponseNanos;
+
+        private final long readyNanos;
+
+        private final long[] latencies;
+
+        private Sample(long firstResponseNanos, long readyNanos, long[] latencies) {
+            this.firstResponseNanos = firstResponseNanos;
+            this.readyNanos = readyNanos;
+            this.latencies = latencies;
+        }
+
+        double firstResponseMs() {
+            return firstResponseNanos / 1_000_000.0;
+        }
+
+        double readyMs() {
+            return readyNanos / 1_000_000.0;
+        }
+
+        double meanLatencyMs() {
+            return Arrays.stream(latencies).average().orElse(0) / 1_000_000.0;
+        }
+
+        double maxLatencyMs() {
+            return Arrays.stream(latencies).max().orElse(0) / 1_000_000.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "first 200 %.0f ms, ready %.0f ms, mean %.2f ms, max %.1f ms",
+                    firstResponseMs(), readyMs(), meanLatencyMs(), maxLatencyMs());
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package ru.yakovlev.walletapp.loadtest;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+public class TrafficMix {
+
+    private static final Map<String, String> PRESETS = Map.of(
+            "production", "read=70,hot=15,create=5,list=10",
+            "read-heavy", "read=95,hot=5",
+            "hot-wallet", "hot=90,read=10",
+            "creation-burst", "create=80,read=20",
+            "listing", "list=70,read=30");
+
+    private final String name;
+
+    private final Map<RequestKind, Integer> weights;
+
+    private final RequestKind[] table;
+
+    private TrafficMix(String name, Map<RequestKind, Integer> weights) {
+        this.name = name;
+        this.weights = weights;
+        this.table = weights.entrySet().stream()
+                .flatMap(entry -> Stream.generate(entry::getKey).limit(entry.getValue()))
+                .toArray(RequestKind[]::new);
+    }
+
+    public static TrafficMix parse(String value) {
+        String spec = PRESETS.getOrDefault(value, value);
+        Map<RequestKind, Integer> weights = new EnumMap<>(RequestKind.class);
+        for (String part : spec.split(",")) {
+            String[] pair = part.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Invalid mix entry " + part + ". Expected <kind>=<weight>");
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Mix weight must not be negative: " + part);
+            }
+            if (weight > 0) {
+                weights.merge(RequestKind.fromKey(pair[0].trim()), weight, Integer::sum);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("Mix " + value + " has no positive weights");
+        }
+        return new TrafficMix(PRESETS.containsKey(value) ? value : "custom", weights);
+    }
+
+    public RequestKind next() {
+        return table[ThreadLocalRandom.current().nextInt(table.length)];
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Map<RequestKind, Integer> getWeights() {
+        return weights;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        weights.forEach((kind, weight) -> builder.append(builder.length() == 0 ? "" : ",")
+                .append(kind.getKey()).append('=').append(weight));
+        return builder.toString();
+    }
+}
@@ -2,12 +2,22 @@ package ru.yakovlev.walletapp;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
+@EnableScheduling
 public class WalletAppApplication {
 
+    public static final String MIGRATE_PROFILE = "migrate";
+
     public static void main(String[] args) {
-        SpringApplication.run(WalletAppApplication.class, args);
+        ConfigurableApplicationContext context = SpringApplication.run(WalletAppApplication.class, args);
+        if (context.getEnvironment().matchesProfiles(MIGRATE_PROFILE)) {
+            System.exit(SpringApplication.exit(context));
+        }
     }
 
 }
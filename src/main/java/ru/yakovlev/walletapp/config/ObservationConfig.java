@@ -0,0 +1,17 @@
+package ru.yakovlev.walletapp.config;
+
+import io.micrometer.observation.ObservationPredicate;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import ru.yakovlev.walletapp.util.WarmupRequests;
+
+@Configuration(proxyBeanMethods = false)
+public class ObservationConfig {
+
+    @Bean
+    public ObservationPredicate skipWarmupRequests() {
+        return (name, context) -> !(context instanceof ServerRequestObservationContext serverContext)
+                || !WarmupRequests.isWarmup(serverContext.getCarrier());
+    }
+}
@@ -0,0 +1,51 @@
+package ru.yakovlev.walletapp.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+public class ReplicaDataSources implements AutoCloseable {
+
+    private final Map<String, HikariDataSource> pools = new LinkedHashMap<>();
+
+    private final Map<String, DataSource> dataSources = new LinkedHashMap<>();
+
+    public ReplicaDataSources(Map<String, WalletProperties.Replica> replicas) {
+        replicas.forEach((name, replica) -> {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("replica-" + name);
+            dataSource.setJdbcUrl(replica.getUrl());
+            dataSource.setUsername(replica.getUsername());
+            dataSource.setPassword(replica.getPassword());
+            dataSource.setMaximumPoolSize(replica.getMaximumPoolSize());
+            dataSource.setReadOnly(true);
+            pools.put(name, dataSource);
+            dataSources.put(name, dataSource);
+        });
+    }
+
+    public void decorate(UnaryOperator<DataSource> decorator) {
+        dataSources.replaceAll((name, dataSource) -> decorator.apply(dataSource));
+    }
+
+    public DataSource get(String replica) {
+        DataSource dataSource = dataSources.get(replica);
+        if (dataSource == null) {
+            throw new IllegalArgumentException("Unknown replica " + replica);
+        }
+        return dataSource;
+    }
+
+    public Map<String, DataSource> asMap() {
+        return Collections.unmodifiableMap(dataSources);
+    }
+
+    @Override
+    public void close() {
+        pools.values().forEach(HikariDataSource::close);
+    }
+}
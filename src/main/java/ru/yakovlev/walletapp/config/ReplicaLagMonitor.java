@@ -0,0 +1,119 @@
+package ru.yakovlev.walletapp.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Slf4j
+public class ReplicaLagMonitor {
+
+    private static final String PRIMARY_LSN_SQL = "SELECT CAST(pg_current_wal_flush_lsn() AS text)";
+
+    private static final String REPLAY_LSN_SQL = "SELECT CAST(pg_last_wal_replay_lsn() AS text)";
+
+    private static final int MAX_HISTORY = 10_000;
+
+    private final JdbcTemplate primary;
+
+    private final Map<String, JdbcTemplate> replicas = new LinkedHashMap<>();
+
+    private final WalletReplicaRouter walletReplicaRouter;
+
+    private final Deque<WalPosition> history = new ArrayDeque<>();
+
+    public ReplicaLagMonitor(DataSource primary, ReplicaDataSources replicaDataSources,
+                             WalletReplicaRouter walletReplicaRouter) {
+        this.primary = new JdbcTemplate(primary);
+        this.walletReplicaRouter = walletReplicaRouter;
+        replicaDataSources.asMap().forEach((name, dataSource) -> replicas.put(name, new JdbcTemplate(dataSource)));
+    }
+
+    @Scheduled(fixedDelayString = "${wallet.replicas.lag-check-interval:200ms}")
+    public synchronized void checkLag() {
+        long primaryLsn;
+        try {
+            primaryLsn = WalletReplicaRouter.parseLsn(primary.queryForObject(PRIMARY_LSN_SQL, String.class));
+        } catch (DataAccessException e) {
+            log.warn("Could not read WAL position of primary", e);
+            return;
+        }
+        long now = System.nanoTime();
+        WalPosition latest = history.peekLast();
+        if (latest != null && latest.lsn == primaryLsn) {
+            latest.lastSeen = now;
+        } else {
+            history.addLast(new WalPosition(primaryLsn, now));
+        }
+
+        long oldestReplay = -1L;
+        for (Map.Entry<String, JdbcTemplate> replica : replicas.entrySet()) {
+            String replayLsn;
+            try {
+                replayLsn = replica.getValue().queryForObject(REPLAY_LSN_SQL, String.class);
+            } catch (DataAccessException e) {
+                log.warn("Could not read replay position of replica {}", replica.getKey(), e);
+                walletReplicaRouter.markUnavailable(replica.getKey());
+                continue;
+            }
+            if (replayLsn == null) {
+                walletReplicaRouter.markUnavailable(replica.getKey());
+                continue;
+            }
+            long replay = WalletReplicaRouter.parseLsn(replayLsn);
+            Long lagNanos = lagOf(replay, now);
+            if (lagNanos == null) {
+                walletReplicaRouter.markUnavailable(replica.getKey());
+            } else {
+                walletReplicaRouter.recordLag(replica.getKey(), replay, lagNanos);
+            }
+            if (Long.compareUnsigned(replay, oldestReplay) < 0) {
+                oldestReplay = replay;
+            }
+        }
+        trimHistory(oldestReplay);
+    }
+
+    private Long lagOf(long replay, long now) {
+        Iterator<WalPosition> positions = history.descendingIterator();
+        while (positions.hasNext()) {
+            WalPosition position = positions.next();
+            if (Long.compareUnsigned(position.lsn, replay) <= 0) {
+                return now - position.lastSeen;
+            }
+        }
+        return null;
+    }
+
+    private void trimHistory(long oldestReplay) {
+        while (history.size() > MAX_HISTORY) {
+            history.removeFirst();
+        }
+        while (history.size() > 1) {
+            WalPosition oldest = history.removeFirst();
+            if (Long.compareUnsigned(history.getFirst().lsn, oldestReplay) > 0) {
+                history.addFirst(oldest);
+                return;
+            }
+        }
+    }
+
+    private static final class WalPosition {
+
+        private final long lsn;
+
+        private long lastSeen;
+
+        private WalPosition(long lsn, long lastSeen) {
+            this.lsn = lsn;
+            this.lastSeen = lastSeen;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package ru.yakovlev.walletapp.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    private final DataSource primary;
+
+    private final ReplicaDataSources replicaDataSources;
+
+    private final WalletReplicaRouter walletReplicaRouter;
+
+    public ReplicaRoutingDataSource(DataSource primary, ReplicaDataSources replicaDataSources,
+                                    WalletReplicaRouter walletReplicaRouter) {
+        this.primary = primary;
+        this.replicaDataSources = replicaDataSources;
+        this.walletReplicaRouter = walletReplicaRouter;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        String replica = walletReplicaRouter.selectReplica();
+        if (replica != null) {
+            try {
+                return replicaDataSources.get(replica).getConnection();
+            } catch (SQLException e) {
+                log.warn("Replica {} is unavailable, reading from primary", replica, e);
+                walletReplicaRouter.markUnavailable(replica);
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection();
+    }
+}
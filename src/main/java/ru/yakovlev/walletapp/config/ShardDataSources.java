@@ -0,0 +1,50 @@
+package ru.yakovlev.walletapp.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+public class ShardDataSources implements AutoCloseable {
+
+    private final Map<String, HikariDataSource> pools = new LinkedHashMap<>();
+
+    private final Map<String, DataSource> dataSources = new LinkedHashMap<>();
+
+    public ShardDataSources(Map<String, WalletProperties.Shard> shards) {
+        shards.forEach((name, shard) -> {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("shard-" + name);
+            dataSource.setJdbcUrl(shard.getUrl());
+            dataSource.setUsername(shard.getUsername());
+            dataSource.setPassword(shard.getPassword());
+            dataSource.setMaximumPoolSize(shard.getMaximumPoolSize());
+            pools.put(name, dataSource);
+            dataSources.put(name, dataSource);
+        });
+    }
+
+    public void decorate(UnaryOperator<DataSource> decorator) {
+        dataSources.replaceAll((name, dataSource) -> decorator.apply(dataSource));
+    }
+
+    public DataSource get(String shard) {
+        DataSource dataSource = dataSources.get(shard);
+        if (dataSource == null) {
+            throw new IllegalArgumentException("Unknown shard " + shard);
+        }
+        return dataSource;
+    }
+
+    public Map<String, DataSource> asMap() {
+        return Collections.unmodifiableMap(dataSources);
+    }
+
+    @Override
+    public void close() {
+        pools.values().forEach(HikariDataSource::close);
+    }
+}
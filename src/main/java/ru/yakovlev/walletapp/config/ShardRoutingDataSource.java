@@ -0,0 +1,23 @@
+package ru.yakovlev.walletapp.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.util.HashMap;
+
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final WalletShardRouter walletShardRouter;
+
+    public ShardRoutingDataSource(ShardDataSources shardDataSources, WalletShardRouter walletShardRouter) {
+        this.walletShardRouter = walletShardRouter;
+        setTargetDataSources(new HashMap<>(shardDataSources.asMap()));
+        setDefaultTargetDataSource(shardDataSources.get(walletShardRouter.getShards().get(0)));
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return walletShardRouter.currentShard();
+    }
+}
@@ -0,0 +1,23 @@
+package ru.yakovlev.walletapp.config;
+
+import liquibase.exception.LiquibaseException;
+import liquibase.integration.spring.SpringLiquibase;
+
+import javax.sql.DataSource;
+
+public class ShardedSpringLiquibase extends SpringLiquibase {
+
+    private final ShardDataSources shardDataSources;
+
+    public ShardedSpringLiquibase(ShardDataSources shardDataSources) {
+        this.shardDataSources = shardDataSources;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws LiquibaseException {
+        for (DataSource dataSource : shardDataSources.asMap().values()) {
+            setDataSource(dataSource);
+            super.afterPropertiesSet();
+        }
+    }
+}
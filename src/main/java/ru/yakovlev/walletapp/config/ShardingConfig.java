@@ -0,0 +1,41 @@
+package ru.yakovlev.walletapp.config;
+
+import liquibase.integration.spring.SpringLiquibase;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "wallet.sharding.enabled", havingValue = "true")
+public class ShardingConfig {
+
+    @Bean
+    public ShardDataSources shardDataSources(WalletProperties walletProperties) {
+        return new ShardDataSources(walletProperties.getSharding().getShards());
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardDataSources shardDataSources, WalletShardRouter walletShardRouter,
+                                 @Value("${spring.jpa.open-in-view:true}") boolean openInView) {
+        if (openInView) {
+            throw new IllegalStateException("Sharding requires spring.jpa.open-in-view=false");
+        }
+        return new LazyConnectionDataSourceProxy(new ShardRoutingDataSource(shardDataSources, walletShardRouter));
+    }
+
+    @Bean
+    public SpringLiquibase liquibase(ShardDataSources shardDataSources,
+                                     @Value("${spring.liquibase.change-log}") String changeLog,
+                                     @Value("${spring.liquibase.default-schema:#{null}}") String defaultSchema) {
+        SpringLiquibase liquibase = new ShardedSpringLiquibase(shardDataSources);
+        liquibase.setChangeLog(changeLog);
+        liquibase.setDefaultSchema(defaultSchema);
+        return liquibase;
+    }
+}
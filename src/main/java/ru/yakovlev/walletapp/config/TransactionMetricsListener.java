@@ -0,0 +1,41 @@
+package ru.yakovlev.walletapp.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yakovlev.walletapp.util.WarmupRequests;
+
+@Component
+public class TransactionMetricsListener implements TransactionExecutionListener {
+
+    private final MeterRegistry meterRegistry;
+
+    public TransactionMetricsListener(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void afterBegin(TransactionExecution transaction, Throwable beginFailure) {
+        if (beginFailure != null || !TransactionSynchronizationManager.isSynchronizationActive()
+                || WarmupRequests.isCurrentWarmup()) {
+            return;
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String readOnly = String.valueOf(transaction.isReadOnly());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                sample.stop(Timer.builder("wallet.transactions")
+                        .description("Transaction duration from begin to commit or rollback")
+                        .tag("read_only", readOnly)
+                        .tag("outcome", status == STATUS_COMMITTED ? "commit" : "rollback")
+                        .publishPercentileHistogram()
+                        .register(meterRegistry));
+            }
+        });
+    }
+}
@@ -0,0 +1,56 @@
+package ru.yakovlev.walletapp.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadsConfig {
+
+    private static final int DEFAULT_POOL_SIZE = 10;
+
+    @Bean
+    public static BeanPostProcessor connectionPermitPostProcessor(Environment environment) {
+        WalletProperties.VirtualThreads settings = Binder.get(environment)
+                .bindOrCreate("wallet.virtual-threads", WalletProperties.VirtualThreads.class);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof ShardDataSources shardDataSources) {
+                    shardDataSources.decorate(dataSource -> withPermits(dataSource, settings));
+                    return bean;
+                }
+                if (bean instanceof ReplicaDataSources replicaDataSources) {
+                    replicaDataSources.decorate(dataSource -> withPermits(dataSource, settings));
+                    return bean;
+                }
+                if (!(bean instanceof DataSource dataSource) || isProxy(dataSource)) {
+                    return bean;
+                }
+                return withPermits(dataSource, settings);
+            }
+        };
+    }
+
+    private static boolean isProxy(DataSource dataSource) {
+        return dataSource instanceof DelegatingDataSource || dataSource instanceof AbstractRoutingDataSource
+                || dataSource instanceof ReplicaRoutingDataSource;
+    }
+
+    private static DataSource withPermits(DataSource dataSource, WalletProperties.VirtualThreads settings) {
+        int permits = settings.getConnectionPermits() != null
+                ? settings.getConnectionPermits()
+                : dataSource instanceof HikariDataSource hikari ? hikari.getMaximumPoolSize() : DEFAULT_POOL_SIZE;
+        return new ConnectionPermitDataSource(dataSource, permits, settings.getAcquireTimeout());
+    }
+}
@@ -0,0 +1,173 @@
+package ru.yakovlev.walletapp.config;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import ru.yakovlev.walletapp.dto.WalletDTORequest;
+import ru.yakovlev.walletapp.dto.WalletDTOResponse;
+import ru.yakovlev.walletapp.entity.OperationType;
+import ru.yakovlev.walletapp.exception.RequestBodyError;
+import ru.yakovlev.walletapp.exception.WalletRequestNotReadableException;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class WalletJsonHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+    private static final OperationType[] OPERATION_TYPES = OperationType.values();
+
+    private static final int UUID_LENGTH = 36;
+
+    private final JsonFactory jsonFactory;
+
+    public WalletJsonHttpMessageConverter(ObjectMapper objectMapper) {
+        super(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return clazz == WalletDTORequest.class || clazz == WalletDTOResponse.class;
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return clazz == WalletDTORequest.class && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return clazz == WalletDTOResponse.class && canWrite(mediaType);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(inputMessage.getBody())) {
+            return readRequest(parser, inputMessage);
+        } catch (JsonProcessingException e) {
+            throw new WalletRequestNotReadableException(RequestBodyError.MALFORMED, e, inputMessage);
+        }
+    }
+
+    @Override
+    protected void writeInternal(Object value, HttpOutputMessage outputMessage) throws IOException {
+        WalletDTOResponse response = (WalletDTOResponse) value;
+        try (JsonGenerator generator = jsonFactory.createGenerator(
+                StreamUtils.nonClosing(outputMessage.getBody()), JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeFieldName("id");
+            if (response.getId() != null) {
+                generator.writeString(response.getId().toString());
+            } else {
+                generator.writeNull();
+            }
+            generator.writeFieldName("balance");
+            if (response.getBalance() != null) {
+                generator.writeNumber(response.getBalance());
+            } else {
+                generator.writeNull();
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    private WalletDTORequest readRequest(JsonParser parser, HttpInputMessage inputMessage) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            throw new WalletRequestNotReadableException(RequestBodyError.MALFORMED, null, inputMessage);
+        }
+        WalletDTORequest request = new WalletDTORequest();
+        while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            token = parser.nextToken();
+            switch (field) {
+                case "id" -> request.setId(readId(parser, token, inputMessage));
+                case "operationType" -> request.setOperationType(readOperationType(parser, token, inputMessage));
+                case "amount" -> request.setAmount(readAmount(parser, token, inputMessage));
+                default -> parser.skipChildren();
+            }
+        }
+        if (token != JsonToken.END_OBJECT) {
+            throw new WalletRequestNotReadableException(RequestBodyError.MALFORMED, null, inputMessage);
+        }
+        return request;
+    }
+
+    private static UUID readId(JsonParser parser, JsonToken token, HttpInputMessage inputMessage) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            String text = parser.getText();
+            if (text.length() == UUID_LENGTH && text.charAt(8) == '-' && text.charAt(13) == '-'
+                    && text.charAt(18) == '-' && text.charAt(23) == '-') {
+                try {
+                    return UUID.fromString(text);
+                } catch (IllegalArgumentException e) {
+                    throw new WalletRequestNotReadableException(RequestBodyError.INVALID_UUID, e, inputMessage);
+                }
+            }
+        }
+        throw new WalletRequestNotReadableException(RequestBodyError.INVALID_UUID, null, inputMessage);
+    }
+
+    private static OperationType readOperationType(JsonParser parser, JsonToken token, HttpInputMessage inputMessage)
+            throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            String text = parser.getText();
+            for (OperationType operationType : OPERATION_TYPES) {
+                if (operationType.name().equals(text)) {
+                    return operationType;
+                }
+            }
+        } else if (token == JsonToken.VALUE_NUMBER_INT && parser.getNumberType() == JsonParser.NumberType.INT) {
+            int index = parser.getIntValue();
+            if (index >= 0 && index < OPERATION_TYPES.length) {
+                return OPERATION_TYPES[index];
+            }
+        }
+        throw new WalletRequestNotReadableException(RequestBodyError.INVALID_OPERATION_TYPE, null, inputMessage);
+    }
+
+    private static BigDecimal readAmount(JsonParser parser, JsonToken token, HttpInputMessage inputMessage)
+            throws IOException {
+        if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+            return parser.getDecimalValue();
+        }
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            String text = parser.getText().trim();
+            if (text.isEmpty()) {
+                return null;
+            }
+            try {
+                return new BigDecimal(text);
+            } catch (NumberFormatException e) {
+                throw new WalletRequestNotReadableException(RequestBodyError.MALFORMED, e, inputMessage);
+            }
+        }
+        throw new WalletRequestNotReadableException(RequestBodyError.MALFORMED, null, inputMessage);
+    }
+}
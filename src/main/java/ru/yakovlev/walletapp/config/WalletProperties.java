@@ -0,0 +1,288 @@
+package ru.yakovlev.walletapp.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "wallet")
+public class WalletProperties {
+
+    private Engine engine = new Engine();
+
+    private Coalescing coalescing = new Coalescing();
+
+    private Batch batch = new Batch();
+
+    private Listing listing = new Listing();
+
+    private Ledger ledger = new Ledger();
+
+    private Idempotency idempotency = new Idempotency();
+
+    private BalanceCache balanceCache = new BalanceCache();
+
+    private VirtualThreads virtualThreads = new VirtualThreads();
+
+    private Metrics metrics = new Metrics();
+
+    private Sharding sharding = new Sharding();
+
+    private WriteBehind writeBehind = new WriteBehind();
+
+    private Provisioning provisioning = new Provisioning();
+
+    private Events events = new Events();
+
+    private Warmup warmup = new Warmup();
+
+    private Admission admission = new Admission();
+
+    private Replicas replicas = new Replicas();
+
+    private Stats stats = new Stats();
+
+    private Tiering tiering = new Tiering();
+
+    @Getter
+    @Setter
+    public static class Engine {
+
+        private EngineMode mode = EngineMode.ATOMIC;
+    }
+
+    @Getter
+    @Setter
+    public static class Coalescing {
+
+        private boolean enabled = false;
+
+        private int maxBatchSize = 64;
+
+        private Duration maxLinger = Duration.ofMillis(1);
+    }
+
+    @Getter
+    @Setter
+    public static class Batch {
+
+        private int chunkSize = 500;
+    }
+
+    @Getter
+    @Setter
+    public static class Listing {
+
+        private int maxPageSize = 1000;
+    }
+
+    @Getter
+    @Setter
+    public static class Ledger {
+
+        private int partitionsAhead = 2;
+    }
+
+    @Getter
+    @Setter
+    public static class Idempotency {
+
+        private long maximumSize = 100_000;
+
+        private Duration cacheTtl = Duration.ofMinutes(10);
+
+        private Duration retention = Duration.ofHours(24);
+    }
+
+    @Getter
+    @Setter
+    public static class BalanceCache {
+
+        private long maximumSize = 100_000;
+
+        private Duration ttl = Duration.ofSeconds(30);
+    }
+
+    @Getter
+    @Setter
+    public static class VirtualThreads {
+
+        private Integer connectionPermits;
+
+        private Duration acquireTimeout = Duration.ofSeconds(30);
+    }
+
+    @Getter
+    @Setter
+    public static class Metrics {
+
+        private long trackedWallets = 10_000;
+
+        private int hotWallets = 10;
+
+        private Duration hotWalletsRefresh = Duration.ofSeconds(15);
+    }
+
+    @Getter
+    @Setter
+    public static class Sharding {
+
+        private boolean enabled = false;
+
+        private int virtualNodes = 256;
+
+        private int rebalanceBatchSize = 500;
+
+        private Map<String, Shard> shards = new LinkedHashMap<>();
+    }
+
+    @Getter
+    @Setter
+    public static class Shard {
+
+        private String url;
+
+        private String username;
+
+        private String password;
+
+        private int maximumPoolSize = 10;
+
+        private boolean joining = false;
+    }
+
+    @Getter
+    @Setter
+    public static class WriteBehind {
+
+        private boolean enabled = false;
+
+        private String logId = "local";
+
+        private Path directory = Path.of("data", "write-behind");
+
+        private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+        private Duration flushInterval = Duration.ofMillis(200);
+
+        private int flushBatchSize = 10_000;
+    }
+
+    @Getter
+    @Setter
+    public static class Provisioning {
+
+        private int chunkSize = 10_000;
+
+        private Duration leaseDuration = Duration.ofMinutes(1);
+    }
+
+    @Getter
+    @Setter
+    public static class Events {
+
+        private int maxSubscriptions = 10_000;
+
+        private int bufferSize = 64;
+
+        private int dispatcherThreads = 4;
+
+        private Duration timeout = Duration.ofMinutes(30);
+
+        private Duration heartbeatInterval = Duration.ofSeconds(15);
+    }
+
+    @Getter
+    @Setter
+    public static class Warmup {
+
+        private boolean enabled = false;
+
+        private int iterations = 200;
+
+        private Duration maxDuration = Duration.ofSeconds(5);
+    }
+
+    @Getter
+    @Setter
+    public static class Admission {
+
+        private boolean enabled = false;
+
+        private int initialLimit = 20;
+
+        private int minLimit = 4;
+
+        private int maxLimit = 200;
+
+        private double latencyTolerance = 2.0;
+
+        private double smoothing = 0.2;
+
+        private int perWalletLimit = 4;
+
+        private Duration retryAfter = Duration.ofSeconds(1);
+    }
+
+    @Getter
+    @Setter
+    public static class Replicas {
+
+        private boolean enabled = false;
+
+        private Duration maxLag = Duration.ofSeconds(1);
+
+        private Duration lagCheckInterval = Duration.ofMillis(200);
+
+        private Map<String, Replica> nodes = new LinkedHashMap<>();
+    }
+
+    @Getter
+    @Setter
+    public static class Replica {
+
+        private String url;
+
+        private String username;
+
+        private String password;
+
+        private int maximumPoolSize = 10;
+    }
+
+    @Getter
+    @Setter
+    public static class Stats {
+
+        private Duration flushInterval = Duration.ofSeconds(1);
+
+        private Duration verifyInterval = Duration.ofMinutes(10);
+
+        private int verifyChunkSize = 10_000;
+    }
+
+    @Getter
+    @Setter
+    public static class Tiering {
+
+        private boolean enabled = false;
+
+        private Duration dormantAfter = Duration.ofDays(90);
+
+        private Duration archiveInterval = Duration.ofHours(1);
+
+        private int batchSize = 1_000;
+    }
+
+    public enum EngineMode {
+        JPA,
+        ATOMIC
+    }
+}
@@ -0,0 +1,171 @@
+package ru.yakovlev.walletapp.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Component
+public class WalletReplicaRouter {
+
+    public static final String SESSION_TOKEN_HEADER = "Wallet-Session-Token";
+
+    private static final int STALE_AFTER_CHECKS = 3;
+
+    private final ThreadLocal<Long> requiredLsn = new ThreadLocal<>();
+
+    private final boolean enabled;
+
+    private final List<String> replicas;
+
+    private final long maxLagNanos;
+
+    private final long staleAfterNanos;
+
+    private final Map<String, ReplicaState> states = new ConcurrentHashMap<>();
+
+    private final Map<String, Counter> replicaReads = new LinkedHashMap<>();
+
+    private final Counter primaryReads;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    public WalletReplicaRouter(WalletProperties walletProperties, MeterRegistry meterRegistry) {
+        WalletProperties.Replicas settings = walletProperties.getReplicas();
+        this.enabled = settings.isEnabled();
+        if (enabled && walletProperties.getSharding().isEnabled()) {
+            throw new IllegalStateException("Read replicas are not supported together with sharding");
+        }
+        if (enabled && settings.getNodes().isEmpty()) {
+            throw new IllegalStateException("At least one read replica must be configured");
+        }
+        this.replicas = enabled ? List.copyOf(settings.getNodes().keySet()) : List.of();
+        this.maxLagNanos = settings.getMaxLag().toNanos();
+        this.staleAfterNanos = settings.getMaxLag().toNanos()
+                + STALE_AFTER_CHECKS * settings.getLagCheckInterval().toNanos();
+        for (String replica : replicas) {
+            Gauge.builder("wallet.replicas.lag", states, current -> lagSeconds(current.get(replica)))
+                    .description("Replication lag of a read replica")
+                    .tag("replica", replica)
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+            replicaReads.put(replica, readsCounter(meterRegistry, replica));
+        }
+        this.primaryReads = readsCounter(meterRegistry, "primary");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public List<String> getReplicas() {
+        return replicas;
+    }
+
+    public Binding readAfter(String sessionToken) {
+        Long previous = requiredLsn.get();
+        if (sessionToken != null) {
+            long lsn;
+            try {
+                lsn = parseLsn(sessionToken);
+            } catch (IllegalArgumentException e) {
+                lsn = Long.MAX_VALUE;
+            }
+            requiredLsn.set(previous == null ? lsn : Math.max(previous, lsn));
+        }
+        return new Binding(previous);
+    }
+
+    public String selectReplica() {
+        long now = System.nanoTime();
+        Long required = requiredLsn.get();
+        long minLsn = required == null ? 0 : required;
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(replicas.size(), 1));
+        for (int i = 0; i < replicas.size(); i++) {
+            String replica = replicas.get((start + i) % replicas.size());
+            ReplicaState state = states.get(replica);
+            if (state != null && now - state.checkedAt <= staleAfterNanos && state.lagNanos <= maxLagNanos
+                    && Long.compareUnsigned(state.replayLsn, minLsn) >= 0) {
+                replicaReads.get(replica).increment();
+                return replica;
+            }
+        }
+        primaryReads.increment();
+        return null;
+    }
+
+    public void recordLag(String replica, long replayLsn, long lagNanos) {
+        states.put(replica, new ReplicaState(replayLsn, lagNanos, System.nanoTime()));
+    }
+
+    public void markUnavailable(String replica) {
+        states.remove(replica);
+    }
+
+    public static long parseLsn(String text) {
+        int separator = text.indexOf('/');
+        if (separator <= 0 || separator == text.length() - 1 || separator > 8 || text.length() - separator > 9) {
+            throw new IllegalArgumentException("Invalid LSN " + text);
+        }
+        try {
+            return Long.parseLong(text, 0, separator, 16) << 32
+                    | Long.parseLong(text, separator + 1, text.length(), 16);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid LSN " + text, e);
+        }
+    }
+
+    public static String formatLsn(long lsn) {
+        return Long.toHexString(lsn >>> 32).toUpperCase() + "/" + Long.toHexString(lsn & 0xFFFFFFFFL).toUpperCase();
+    }
+
+    private static double lagSeconds(ReplicaState state) {
+        return state == null ? Double.NaN : state.lagNanos / 1e9;
+    }
+
+    private static Counter readsCounter(MeterRegistry meterRegistry, String target) {
+        return Counter.builder("wallet.replicas.reads")
+                .description("Read-only connections by routing target")
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+
+    private static final class ReplicaState {
+
+        private final long replayLsn;
+
+        private final long lagNanos;
+
+        private final long checkedAt;
+
+        private ReplicaState(long replayLsn, long lagNanos, long checkedAt) {
+            this.replayLsn = replayLsn;
+            this.lagNanos = lagNanos;
+            this.checkedAt = checkedAt;
+        }
+    }
+
+    public final class Binding implements AutoCloseable {
+
+        private final Long previous;
+
+        private Binding(Long previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (previous == null) {
+                requiredLsn.remove();
+            } else {
+                requiredLsn.set(previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package ru.yakovlev.walletapp.config;
+
+import org.springframework.stereotype.Component;
+import ru.yakovlev.walletapp.util.ConsistentHashRing;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+@Component
+public class WalletShardRouter {
+
+    public static final String DEFAULT_SHARD = "default";
+
+    private final ThreadLocal<String> currentShard = new ThreadLocal<>();
+
+    private final List<String> shards;
+
+    private final ConsistentHashRing ring;
+
+    private final ConsistentHashRing previousRing;
+
+    public WalletShardRouter(WalletProperties walletProperties) {
+        WalletProperties.Sharding sharding = walletProperties.getSharding();
+        if (!sharding.isEnabled()) {
+            this.shards = List.of(DEFAULT_SHARD);
+            this.ring = null;
+            this.previousRing = null;
+            return;
+        }
+        Map<String, WalletProperties.Shard> configured = sharding.getShards();
+        this.shards = configured.keySet().stream().sorted().toList();
+        List<String> settled = configured.entrySet().stream()
+                .filter(entry -> !entry.getValue().isJoining())
+                .map(Map.Entry::getKey)
+                .sorted()
+                .collect(Collectors.toList());
+        if (settled.isEmpty()) {
+            throw new IllegalStateException("At least one shard must not be joining");
+        }
+        this.ring = new ConsistentHashRing(shards, sharding.getVirtualNodes());
+        this.previousRing = settled.size() < shards.size()
+                ? new ConsistentHashRing(settled, sharding.getVirtualNodes())
+                : null;
+    }
+
+    public boolean isSharded() {
+        return ring != null;
+    }
+
+    public List<String> getShards() {
+        return shards;
+    }
+
+    public boolean isRebalancing() {
+        return previousRing != null;
+    }
+
+    public String shardOf(UUID walletId) {
+        return ring == null ? DEFAULT_SHARD : ring.nodeFor(walletId);
+    }
+
+    public List<String> candidateShards(UUID walletId) {
+        String owner = shardOf(walletId);
+        if (previousRing == null) {
+            return List.of(owner);
+        }
+        String previousOwner = previousRing.nodeFor(walletId);
+        return owner.equals(previousOwner) ? List.of(owner) : List.of(owner, previousOwner, owner);
+    }
+
+    public String currentShard() {
+        return currentShard.get();
+    }
+
+    public Binding bind(UUID walletId) {
+        return bind(shardOf(walletId));
+    }
+
+    public Binding bind(String shard) {
+        String previous = currentShard.get();
+        currentShard.set(shard);
+        return new Binding(previous);
+    }
+
+    public void forEachShard(Consumer<String> action) {
+        for (String shard : shards) {
+            try (Binding ignored = bind(shard)) {
+                action.accept(shard);
+            }
+        }
+    }
+
+    public final class Binding implements AutoCloseable {
+
+        private final String previous;
+
+        private Binding(String previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (previous == null) {
+                currentShard.remove();
+            } else {
+                currentShard.set(previous);
+            }
+        }
+    }
+}
@@ -1,55 +1,361 @@
 package ru.yakovlev.walletapp.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yakovlev.walletapp.config.WalletReplicaRouter;
+import ru.yakovlev.walletapp.dto.BatchAtomicity;
+import ru.yakovlev.walletapp.dto.BulkWalletDTORequest;
+import ru.yakovlev.walletapp.dto.OperationStatus;
+import ru.yakovlev.walletapp.dto.PageDTOResponse;
+import ru.yakovlev.walletapp.dto.ProvisioningJobDTOResponse;
+import ru.yakovlev.walletapp.dto.TransferDTORequest;
+import ru.yakovlev.walletapp.dto.TransferDTOResponse;
+import ru.yakovlev.walletapp.dto.UnreadableWalletDTORequest;
 import ru.yakovlev.walletapp.dto.WalletDTORequest;
 import ru.yakovlev.walletapp.dto.WalletDTOResponse;
+import ru.yakovlev.walletapp.dto.WalletOperationDTOResponse;
+import ru.yakovlev.walletapp.dto.WalletOperationResultDTO;
+import ru.yakovlev.walletapp.dto.WalletStatsDTOResponse;
+import ru.yakovlev.walletapp.exception.CrossShardTransferException;
+import ru.yakovlev.walletapp.exception.EventSubscriptionLimitException;
+import ru.yakovlev.walletapp.exception.IdempotencyKeyReusedException;
+import ru.yakovlev.walletapp.exception.InvalidCursorException;
+import ru.yakovlev.walletapp.exception.ProvisioningJobConflictException;
+import ru.yakovlev.walletapp.exception.ProvisioningJobNotFoundException;
+import ru.yakovlev.walletapp.exception.ProvisioningNotSupportedException;
+import ru.yakovlev.walletapp.exception.RequestBodyError;
 import ru.yakovlev.walletapp.exception.WalletNotEnoughBalance;
 import ru.yakovlev.walletapp.exception.WalletNotFoundException;
+import ru.yakovlev.walletapp.exception.WalletOverloadedException;
+import ru.yakovlev.walletapp.service.ProvisioningLease;
+import ru.yakovlev.walletapp.service.WalletAdmissionControl;
+import ru.yakovlev.walletapp.service.WalletBatchService;
+import ru.yakovlev.walletapp.service.WalletEventBroadcaster;
+import ru.yakovlev.walletapp.service.WalletProvisioningService;
 import ru.yakovlev.walletapp.service.WalletService;
+import ru.yakovlev.walletapp.service.WalletStatistics;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api/v1")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class WalletController {
 
     private final WalletService walletService;
 
-    public WalletController(WalletService walletService) {
+    private final WalletBatchService walletBatchService;
+
+    private final WalletProvisioningService walletProvisioningService;
+
+    private final WalletEventBroadcaster walletEventBroadcaster;
+
+    private final WalletAdmissionControl walletAdmissionControl;
+
+    private final WalletReplicaRouter walletReplicaRouter;
+
+    private final WalletStatistics walletStatistics;
+
+    private final ObjectMapper objectMapper;
+
+    public WalletController(WalletService walletService, WalletBatchService walletBatchService,
+                            WalletProvisioningService walletProvisioningService,
+                            WalletEventBroadcaster walletEventBroadcaster,
+                            WalletAdmissionControl walletAdmissionControl,
+                            WalletReplicaRouter walletReplicaRouter, WalletStatistics walletStatistics,
+                            ObjectMapper objectMapper) {
         this.walletService = walletService;
+        this.walletBatchService = walletBatchService;
+        this.walletProvisioningService = walletProvisioningService;
+        this.walletEventBroadcaster = walletEventBroadcaster;
+        this.walletAdmissionControl = walletAdmissionControl;
+        this.walletReplicaRouter = walletReplicaRouter;
+        this.walletStatistics = walletStatistics;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping("/wallets")
     @ResponseStatus(HttpStatus.OK)
-    public List<WalletDTOResponse> getAllWallets() {
-        return walletService.getAllWallets();
+    public List<WalletDTOResponse> getAllWallets(
+            @RequestHeader(name = WalletReplicaRouter.SESSION_TOKEN_HEADER, required = false) String sessionToken)
+            throws WalletOverloadedException {
+        try (WalletAdmissionControl.Permit ignored = walletAdmissionControl.admit();
+             WalletReplicaRouter.Binding readAfter = walletReplicaRouter.readAfter(sessionToken)) {
+            return walletService.getAllWallets();
+        }
+    }
+
+    @GetMapping(value = "/wallets", params = "limit")
+    @ResponseStatus(HttpStatus.OK)
+    public PageDTOResponse<WalletDTOResponse> getWalletsPage(
+            @RequestParam @Positive int limit,
+            @RequestParam(required = false) String cursor,
+            @RequestHeader(name = WalletReplicaRouter.SESSION_TOKEN_HEADER, required = false) String sessionToken)
+            throws InvalidCursorException, WalletOverloadedException {
+        try (WalletAdmissionControl.Permit ignored = walletAdmissionControl.admit();
+             WalletReplicaRouter.Binding readAfter = walletReplicaRouter.readAfter(sessionToken)) {
+            return walletService.getWalletsPage(cursor, limit);
+        }
+    }
+
+    @GetMapping(value = "/wallets", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllWallets() throws WalletOverloadedException {
+        ObjectWriter writer = objectMapper.writerFor(WalletDTOResponse.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        WalletAdmissionControl.Permit permit = walletAdmissionControl.admitStream();
+        StreamingResponseBody body = outputStream -> {
+            try (permit) {
+                walletService.forEachWallet(wallet -> {
+                    try {
+                        writer.writeValue(outputStream, wallet);
+                        outputStream.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    @GetMapping("/wallets/stats")
+    @ResponseStatus(HttpStatus.OK)
+    public WalletStatsDTOResponse getWalletStats() throws WalletOverloadedException {
+        try (WalletAdmissionControl.Permit ignored = walletAdmissionControl.admit()) {
+            return walletStatistics.getStats();
+        }
     }
 
     @GetMapping("/wallets/{WALLET_UUID}")
     @ResponseStatus(HttpStatus.OK)
-    public WalletDTOResponse getWalletById(@PathVariable UUID WALLET_UUID)  throws WalletNotFoundException {
-        return walletService.getWalletById(WALLET_UUID);
+    public WalletDTOResponse getWalletById(
+            @PathVariable UUID WALLET_UUID,
+            @RequestHeader(name = WalletReplicaRouter.SESSION_TOKEN_HEADER, required = false) String sessionToken)
+            throws WalletNotFoundException, WalletOverloadedException {
+        try (WalletAdmissionControl.Permit ignored = walletAdmissionControl.admit();
+             WalletReplicaRouter.Binding readAfter = walletReplicaRouter.readAfter(sessionToken)) {
+            return walletService.getWalletById(WALLET_UUID);
+        }
+    }
+
+    @GetMapping(value = "/wallets/{WALLET_UUID}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamWalletEvents(@PathVariable UUID WALLET_UUID,
+                                         @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId)
+            throws WalletNotFoundException, EventSubscriptionLimitException {
+        return walletEventBroadcaster.subscribe(List.of(WALLET_UUID),
+                lastEventId != null ? Map.of(WALLET_UUID, lastEventId) : Map.of());
+    }
+
+    @GetMapping(value = "/wallets/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamWalletsEvents(
+            @RequestParam @NotEmpty @Size(max = WalletEventBroadcaster.MAX_SUBSCRIBED_WALLETS) List<UUID> ids)
+            throws WalletNotFoundException, EventSubscriptionLimitException {
+        return walletEventBroadcaster.subscribe(ids, Map.of());
+    }
+
+    @GetMapping("/wallets/{WALLET_UUID}/operations")
+    @ResponseStatus(HttpStatus.OK)
+    public PageDTOResponse<WalletOperationDTOResponse> getWalletOperations(
+            @PathVariable UUID WALLET_UUID,
+            @RequestParam(defaultValue = "50") @Positive int limit,
+            @RequestParam(required = false) String cursor,
+            @RequestHeader(name = WalletReplicaRouter.SESSION_TOKEN_HEADER, required = false) String sessionToken)
+            throws WalletNotFoundException, InvalidCursorException, WalletOverloadedException {
+        try (WalletAdmissionControl.Permit ignored = walletAdmissionControl.admit();
+             WalletReplicaRouter.Binding readAfter = walletReplicaRouter.readAfter(sessionToken)) {
+            return walletService.getWalletOperations(WALLET_UUID, cursor, limit);
+        }
     }
 
     @PostMapping("/wallet")
-    @ResponseStatus(HttpStatus.CREATED)
-    public WalletDTOResponse createWallet() {
-        return walletService.createNewWallet();
+    public ResponseEntity<WalletDTOResponse> createWallet() throws WalletOverloadedException {
+        try (WalletAdmissionControl.Permit ignored = walletAdmissionControl.admit()) {
+            WalletDTOResponse wallet = walletService.createNewWallet();
+            return withSessionToken(ResponseEntity.status(HttpStatus.CREATED)).body(wallet);
+        }
     }
 
-    @DeleteMapping("/wallet")
+    @PostMapping(value = "/wallets/bulk", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> provisionWallets(@RequestBody @Valid BulkWalletDTORequest bulkDTO)
+            throws ProvisioningJobConflictException, ProvisioningNotSupportedException, WalletOverloadedException {
+        WalletAdmissionControl.Permit permit = walletAdmissionControl.admitStream();
+        ProvisioningLease lease;
+        try {
+            lease = walletProvisioningService.start(bulkDTO);
+        } catch (Exception e) {
+            permit.close();
+            throw e;
+        }
+        ObjectWriter writer = objectMapper.writerFor(WalletDTOResponse.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        StreamingResponseBody body = outputStream -> {
+            try (permit) {
+                walletProvisioningService.provision(lease, wallets -> {
+                    try {
+                        for (WalletDTOResponse wallet : wallets) {
+                            writer.writeValue(outputStream, wallet);
+                            outputStream.write('\n');
+                        }
+                        outputStream.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .location(URI.create("/api/v1/wallets/bulk/" + lease.getJob().getJobId()))
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    @GetMapping("/wallets/bulk/{jobId}")
     @ResponseStatus(HttpStatus.OK)
-    public void deleteWalletById(@RequestBody UUID WALLET_UUID)  throws WalletNotFoundException {
-        walletService.deleteWalletById(WALLET_UUID);
+    public ProvisioningJobDTOResponse getProvisioningJob(@PathVariable String jobId)
+            throws ProvisioningJobNotFoundException {
+        return walletProvisioningService.getJob(jobId);
+    }
+
+    @DeleteMapping("/wallet")
+    public ResponseEntity<Void> deleteWalletById(@RequestBody UUID WALLET_UUID)
+            throws WalletNotFoundException, WalletOverloadedException {
+        try (WalletAdmissionControl.Permit ignored = walletAdmissionControl.admit(WALLET_UUID)) {
+            walletService.deleteWalletById(WALLET_UUID);
+            return withSessionToken(ResponseEntity.ok()).build();
+        }
     }
 
     @PutMapping("/wallet")
-    @ResponseStatus(HttpStatus.OK)
-    public WalletDTOResponse depositOrWithdrawal(@RequestBody @Valid WalletDTORequest walletDTO)
-            throws WalletNotFoundException, WalletNotEnoughBalance {
-        return walletService.depositOrWithdraw(walletDTO);
+    public ResponseEntity<WalletDTOResponse> depositOrWithdrawal(@RequestBody @Valid WalletDTORequest walletDTO,
+                                                 @RequestHeader(name = "Idempotency-Key", required = false)
+                                                 @Size(min = 1, max = 255) String idempotencyKey)
+            throws WalletNotFoundException, WalletNotEnoughBalance, IdempotencyKeyReusedException,
+            WalletOverloadedException {
+        try (WalletAdmissionControl.Permit ignored = walletAdmissionControl.admit(walletDTO.getId())) {
+            WalletDTOResponse wallet = idempotencyKey == null
+                    ? walletService.depositOrWithdraw(walletDTO)
+                    : walletService.depositOrWithdraw(idempotencyKey, walletDTO);
+            return withSessionToken(ResponseEntity.ok()).body(wallet);
+        }
+    }
+
+    @PostMapping("/transfers")
+    public ResponseEntity<TransferDTOResponse> transfer(@RequestBody @Valid TransferDTORequest transferDTO)
+            throws WalletNotFoundException, WalletNotEnoughBalance, CrossShardTransferException,
+            WalletOverloadedException {
+        try (WalletAdmissionControl.Permit ignored = walletAdmissionControl.admit(
+                List.of(transferDTO.getFromWalletId(), transferDTO.getToWalletId()))) {
+            TransferDTOResponse transfer = walletService.transfer(transferDTO);
+            return withSessionToken(ResponseEntity.ok()).body(transfer);
+        }
+    }
+
+    @PostMapping("/transfers/batch")
+    public ResponseEntity<List<WalletDTOResponse>> transferAll(
+            @RequestBody List<@Valid TransferDTORequest> transferDTOs)
+            throws WalletNotFoundException, WalletNotEnoughBalance, CrossShardTransferException,
+            WalletOverloadedException {
+        try (WalletAdmissionControl.Permit ignored = walletAdmissionControl.admit(transferDTOs.stream()
+                .filter(Objects::nonNull)
+                .flatMap(transfer -> Stream.of(transfer.getFromWalletId(), transfer.getToWalletId()))
+                .filter(Objects::nonNull)
+                .toList())) {
+            List<WalletDTOResponse> wallets = walletService.transferAll(transferDTOs);
+            return withSessionToken(ResponseEntity.ok()).body(wallets);
+        }
+    }
+
+    @PostMapping(value = "/wallets/operations", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<WalletOperationResultDTO>> applyOperations(
+            @RequestBody List<@Valid WalletDTORequest> walletDTOs,
+            @RequestParam(defaultValue = "BEST_EFFORT") BatchAtomicity atomicity) throws WalletOverloadedException {
+        List<WalletOperationResultDTO> results;
+        try (WalletAdmissionControl.Permit ignored = walletAdmissionControl.admit(walletDTOs.stream()
+                .filter(Objects::nonNull)
+                .map(WalletDTORequest::getId)
+                .filter(Objects::nonNull)
+                .toList())) {
+            results = walletBatchService.applyAll(walletDTOs, atomicity);
+        }
+        boolean rolledBack = results.stream()
+                .anyMatch(result -> result.getStatus() == OperationStatus.ROLLED_BACK);
+        return withSessionToken(ResponseEntity.status(rolledBack ? HttpStatus.CONFLICT : HttpStatus.OK)).body(results);
+    }
+
+    @PostMapping(value = "/wallets/operations",
+            consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> applyOperationsStream(
+            InputStream body,
+            @RequestParam(defaultValue = "BEST_EFFORT") BatchAtomicity atomicity) throws WalletOverloadedException {
+        ObjectWriter writer = objectMapper.writerFor(WalletOperationResultDTO.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        ObjectReader reader = objectMapper.readerFor(WalletDTORequest.class);
+        WalletAdmissionControl.Permit permit = walletAdmissionControl.admitStream();
+        StreamingResponseBody stream = outputStream -> {
+            try (permit;
+                 BufferedReader lines = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+                Iterator<WalletDTORequest> walletDTOs = lines.lines()
+                        .filter(line -> !line.isBlank())
+                        .map(line -> readOperation(reader, line))
+                        .iterator();
+                walletBatchService.apply(walletDTOs, atomicity, results -> {
+                    try {
+                        for (WalletOperationResultDTO result : results) {
+                            writer.writeValue(outputStream, result);
+                            outputStream.write('\n');
+                        }
+                        outputStream.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(stream);
+    }
+
+    private static WalletDTORequest readOperation(ObjectReader reader, String line) {
+        try {
+            WalletDTORequest walletDTO = reader.readValue(line);
+            if (walletDTO == null) {
+                return new UnreadableWalletDTORequest(RequestBodyError.MALFORMED.getMessage());
+            }
+            return walletDTO;
+        } catch (JsonProcessingException e) {
+            return new UnreadableWalletDTORequest(RequestBodyError.of(e).getMessage());
+        }
+    }
+
+    private ResponseEntity.BodyBuilder withSessionToken(ResponseEntity.BodyBuilder response) {
+        if (!walletReplicaRouter.isEnabled()) {
+            return response;
+        }
+        return response.header(WalletReplicaRouter.SESSION_TOKEN_HEADER, walletService.getSessionToken());
     }
 }
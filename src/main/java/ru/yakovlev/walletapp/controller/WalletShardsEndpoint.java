@@ -0,0 +1,46 @@
+package ru.yakovlev.walletapp.controller;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.yakovlev.walletapp.config.WalletProperties;
+import ru.yakovlev.walletapp.config.WalletShardRouter;
+import ru.yakovlev.walletapp.service.WalletShardRebalancer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Component
+@Endpoint(id = "shards")
+@ConditionalOnProperty(name = "wallet.sharding.enabled", havingValue = "true")
+public class WalletShardsEndpoint {
+
+    private final WalletShardRouter walletShardRouter;
+
+    private final WalletShardRebalancer walletShardRebalancer;
+
+    private final WalletProperties walletProperties;
+
+    public WalletShardsEndpoint(WalletShardRouter walletShardRouter,
+                                WalletShardRebalancer walletShardRebalancer,
+                                WalletProperties walletProperties) {
+        this.walletShardRouter = walletShardRouter;
+        this.walletShardRebalancer = walletShardRebalancer;
+        this.walletProperties = walletProperties;
+    }
+
+    @ReadOperation
+    public Map<String, Object> shards() {
+        Map<String, Object> shards = new LinkedHashMap<>();
+        walletShardRouter.getShards().forEach(shard -> shards.put(shard,
+                walletProperties.getSharding().getShards().get(shard).isJoining() ? "joining" : "active"));
+        return Map.of("rebalancing", walletShardRouter.isRebalancing(), "shards", shards);
+    }
+
+    @WriteOperation
+    public Map<String, Integer> rebalance() {
+        return walletShardRebalancer.rebalance();
+    }
+}
@@ -0,0 +1,21 @@
+package ru.yakovlev.walletapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceBucketDTOResponse {
+
+    private BigDecimal from;
+
+    private BigDecimal to;
+
+    private long walletCount;
+
+    private BigDecimal totalBalance;
+}
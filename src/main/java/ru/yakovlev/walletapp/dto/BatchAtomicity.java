@@ -0,0 +1,6 @@
+package ru.yakovlev.walletapp.dto;
+
+public enum BatchAtomicity {
+    ALL_OR_NOTHING,
+    BEST_EFFORT
+}
@@ -0,0 +1,36 @@
+package ru.yakovlev.walletapp.dto;
+
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.yakovlev.walletapp.util.Money;
+
+import java.math.BigDecimal;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkWalletDTORequest {
+
+    public static final int MAX_COUNT = 1_000_000;
+
+    @Pattern(regexp = "[A-Za-z0-9._:-]{1,64}",
+            message = "Job ID must be 1-64 characters of letters, digits, '.', '_', ':' or '-'")
+    private String jobId;
+
+    @NotNull(message = "Count is required")
+    @Positive(message = "Count must be positive")
+    @Max(value = MAX_COUNT, message = "Count must be at most " + MAX_COUNT)
+    private Integer count;
+
+    @PositiveOrZero(message = "Initial balance must not be negative")
+    @Digits(integer = Money.MAX_INTEGER_DIGITS, fraction = Money.SCALE,
+            message = "Initial balance must have at most " + Money.SCALE + " decimal places")
+    private BigDecimal initialBalance;
+}
@@ -0,0 +1,10 @@
+package ru.yakovlev.walletapp.dto;
+
+public enum OperationStatus {
+    APPLIED,
+    NOT_FOUND,
+    NOT_ENOUGH_BALANCE,
+    BALANCE_OVERFLOW,
+    INVALID,
+    ROLLED_BACK
+}
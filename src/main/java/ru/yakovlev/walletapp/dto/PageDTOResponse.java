@@ -0,0 +1,17 @@
+package ru.yakovlev.walletapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageDTOResponse<T> {
+
+    private List<T> items;
+
+    private String nextCursor;
+}
@@ -0,0 +1,23 @@
+package ru.yakovlev.walletapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProvisioningJobDTOResponse {
+
+    private String jobId;
+
+    private int requestedCount;
+
+    private int createdCount;
+
+    private BigDecimal initialBalance;
+
+    private boolean completed;
+}
@@ -0,0 +1,38 @@
+package ru.yakovlev.walletapp.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.yakovlev.walletapp.util.Money;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransferDTORequest {
+
+    @NotNull(message = "Source wallet ID is required")
+    private UUID fromWalletId;
+
+    @NotNull(message = "Target wallet ID is required")
+    private UUID toWalletId;
+
+    @NotNull(message = "Amount is required")
+    @Positive(message = "Amount must be positive")
+    @Digits(integer = Money.MAX_INTEGER_DIGITS, fraction = Money.SCALE,
+            message = "Amount must have at most " + Money.SCALE + " decimal places")
+    private BigDecimal amount;
+
+    @JsonIgnore
+    @AssertTrue(message = "Source and target wallets must differ")
+    public boolean isDistinctWallets() {
+        return fromWalletId == null || !fromWalletId.equals(toWalletId);
+    }
+}
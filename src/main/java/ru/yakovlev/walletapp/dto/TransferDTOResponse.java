@@ -0,0 +1,15 @@
+package ru.yakovlev.walletapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransferDTOResponse {
+
+    private WalletDTOResponse fromWallet;
+
+    private WalletDTOResponse toWallet;
+}
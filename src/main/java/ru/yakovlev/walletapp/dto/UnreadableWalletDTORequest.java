@@ -0,0 +1,13 @@
+package ru.yakovlev.walletapp.dto;
+
+import lombok.Getter;
+
+@Getter
+public class UnreadableWalletDTORequest extends WalletDTORequest {
+
+    private final String error;
+
+    public UnreadableWalletDTORequest(String error) {
+        this.error = error;
+    }
+}
@@ -1,5 +1,6 @@
 package ru.yakovlev.walletapp.dto;
 
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import lombok.AllArgsConstructor;
@@ -7,6 +8,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.Value;
 import ru.yakovlev.walletapp.entity.OperationType;
+import ru.yakovlev.walletapp.util.Money;
 
 import java.math.BigDecimal;
 import java.util.UUID;
@@ -24,5 +26,7 @@ public class WalletDTORequest {
 
     @NotNull(message = "Amount is required")
     @Positive(message = "Amount must be positive")
+    @Digits(integer = Money.MAX_INTEGER_DIGITS, fraction = Money.SCALE,
+            message = "Amount must have at most " + Money.SCALE + " decimal places")
     private BigDecimal amount;
 }
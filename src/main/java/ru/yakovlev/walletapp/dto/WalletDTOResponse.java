@@ -3,6 +3,7 @@ package ru.yakovlev.walletapp.dto;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import ru.yakovlev.walletapp.util.Money;
 
 import java.math.BigDecimal;
 import java.util.UUID;
@@ -15,4 +16,7 @@ public class WalletDTOResponse {
 
     private BigDecimal balance;
 
+    public WalletDTOResponse(UUID id, long balance) {
+        this(id, Money.fromMinorUnits(balance));
+    }
 }
@@ -0,0 +1,21 @@
+package ru.yakovlev.walletapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WalletEventDTOResponse {
+    private UUID id;
+
+    private BigDecimal balance;
+
+    private Long version;
+
+    private boolean deleted;
+}
@@ -0,0 +1,25 @@
+package ru.yakovlev.walletapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.yakovlev.walletapp.entity.OperationType;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WalletOperationDTOResponse {
+
+    private Long operationId;
+
+    private OperationType operationType;
+
+    private BigDecimal amount;
+
+    private BigDecimal balanceAfter;
+
+    private Instant createdAt;
+}
@@ -0,0 +1,27 @@
+package ru.yakovlev.walletapp.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class WalletOperationResultDTO {
+
+    private int index;
+
+    private UUID id;
+
+    private OperationStatus status;
+
+    private BigDecimal balance;
+
+    private Map<String, String> errors;
+}
@@ -0,0 +1,20 @@
+package ru.yakovlev.walletapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WalletStatsDTOResponse {
+
+    private long walletCount;
+
+    private BigDecimal totalBalance;
+
+    private List<BalanceBucketDTOResponse> distribution;
+}
@@ -0,0 +1,32 @@
+package ru.yakovlev.walletapp.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Entity
+@Table(name = "wallets_cold")
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class ArchivedWallet {
+
+    @Id
+    @Column(name = "wallet_id")
+    private UUID id;
+
+    @Column(name = "balance")
+    private long balance;
+
+    @Column(name = "version")
+    private long version;
+
+    @Column(name = "archived_at")
+    private Instant archivedAt;
+}
@@ -0,0 +1,39 @@
+package ru.yakovlev.walletapp.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Entity
+@Table(name = "idempotency_keys")
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class IdempotencyRecord {
+
+    @Id
+    @Column(name = "idempotency_key")
+    private String key;
+
+    @Column(name = "wallet_id")
+    private UUID walletId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "operation_type")
+    private OperationType operationType;
+
+    @Column(name = "amount")
+    private long amount;
+
+    @Column(name = "balance")
+    private long balance;
+
+    @Column(name = "created_at")
+    private Instant createdAt;
+}
@@ -5,8 +5,9 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.UuidGenerator;
+import ru.yakovlev.walletapp.util.UuidV7Generator;
 
-import java.math.BigDecimal;
 import java.util.UUID;
 
 @Entity
@@ -18,11 +19,16 @@ import java.util.UUID;
 public class Wallet {
 
     @Id
-    @GeneratedValue(strategy= GenerationType.UUID)
+    @GeneratedValue
+    @UuidGenerator(algorithm = UuidV7Generator.class)
     @Column(name = "wallet_id")
     private UUID id;
 
     @Column(name = "balance")
-    private BigDecimal balance =  BigDecimal.ZERO;
+    private long balance;
+
+    @Version
+    @Column(name = "version")
+    private long version;
 
 }
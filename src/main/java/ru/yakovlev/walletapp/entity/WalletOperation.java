@@ -0,0 +1,46 @@
+package ru.yakovlev.walletapp.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Entity
+@Table(name = "wallet_operations")
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class WalletOperation {
+
+    @Id
+    @Column(name = "operation_id")
+    private Long id;
+
+    @Column(name = "wallet_id")
+    private UUID walletId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "operation_type")
+    private OperationType operationType;
+
+    @Column(name = "amount")
+    private long amount;
+
+    @Column(name = "balance_after")
+    private long balanceAfter;
+
+    @Column(name = "created_at")
+    private Instant createdAt;
+
+    public WalletOperation(UUID walletId, OperationType operationType, long amount, long balanceAfter) {
+        this.walletId = walletId;
+        this.operationType = operationType;
+        this.amount = amount;
+        this.balanceAfter = balanceAfter;
+    }
+}
@@ -0,0 +1,40 @@
+package ru.yakovlev.walletapp.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "wallet_provisioning_jobs")
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class WalletProvisioningJob {
+
+    @Id
+    @Column(name = "job_id")
+    private String jobId;
+
+    @Column(name = "requested_count")
+    private int requestedCount;
+
+    @Column(name = "initial_balance")
+    private long initialBalance;
+
+    @Column(name = "created_count")
+    private int createdCount;
+
+    @Column(name = "created_at")
+    private Instant createdAt;
+
+    @Column(name = "lease_token")
+    private String leaseToken;
+
+    @Column(name = "lease_expires_at")
+    private Instant leaseExpiresAt;
+}
@@ -0,0 +1,23 @@
+package ru.yakovlev.walletapp.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Entity
+@Table(name = "write_behind_checkpoints")
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class WriteBehindCheckpoint {
+
+    @Id
+    @Column(name = "log_id")
+    private String logId;
+
+    @Column(name = "applied_sequence")
+    private long appliedSequence;
+}
@@ -0,0 +1,7 @@
+package ru.yakovlev.walletapp.exception;
+
+public class CrossShardTransferException extends Exception {
+    public CrossShardTransferException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package ru.yakovlev.walletapp.exception;
+
+public class EventSubscriptionLimitException extends Exception {
+    public EventSubscriptionLimitException(String message) {
+        super(message);
+    }
+}
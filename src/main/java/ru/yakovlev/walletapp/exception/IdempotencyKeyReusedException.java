@@ -0,0 +1,7 @@
+package ru.yakovlev.walletapp.exception;
+
+public class IdempotencyKeyReusedException extends Exception {
+    public IdempotencyKeyReusedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package ru.yakovlev.walletapp.exception;
+
+public class InvalidCursorException extends Exception {
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package ru.yakovlev.walletapp.exception;
+
+public class ProvisioningJobConflictException extends Exception {
+    public ProvisioningJobConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package ru.yakovlev.walletapp.exception;
+
+public class ProvisioningJobNotFoundException extends Exception {
+    public ProvisioningJobNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package ru.yakovlev.walletapp.exception;
+
+public class ProvisioningNotSupportedException extends Exception {
+    public ProvisioningNotSupportedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,40 @@
+package ru.yakovlev.walletapp.exception;
+
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import ru.yakovlev.walletapp.entity.OperationType;
+
+import java.util.UUID;
+
+public enum RequestBodyError {
+    INVALID_UUID("Invalid UUID format"),
+    INVALID_OPERATION_TYPE("Invalid operation type. Allowed values: DEPOSIT, WITHDRAW"),
+    MALFORMED("Invalid request body format");
+
+    private final String message;
+
+    RequestBodyError(String message) {
+        this.message = message;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public static RequestBodyError of(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof WalletRequestNotReadableException notReadable) {
+                return notReadable.getError();
+            }
+            if (cause instanceof MismatchedInputException mismatched) {
+                Class<?> targetType = mismatched.getTargetType();
+                if (targetType == UUID.class) {
+                    return INVALID_UUID;
+                }
+                if (targetType == OperationType.class) {
+                    return INVALID_OPERATION_TYPE;
+                }
+            }
+        }
+        return MALFORMED;
+    }
+}
@@ -0,0 +1,12 @@
+package ru.yakovlev.walletapp.exception;
+
+public class WalletBalanceOverflowException extends ArithmeticException {
+    public WalletBalanceOverflowException(String message) {
+        super(message);
+    }
+
+    @Override
+    public Throwable fillInStackTrace() {
+        return this;
+    }
+}
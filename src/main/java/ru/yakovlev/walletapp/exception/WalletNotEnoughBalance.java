@@ -4,4 +4,9 @@ public class WalletNotEnoughBalance extends Exception {
     public WalletNotEnoughBalance(String message) {
         super(message);
     }
+
+    @Override
+    public Throwable fillInStackTrace() {
+        return this;
+    }
 }
@@ -4,4 +4,9 @@ public class WalletNotFoundException extends Exception {
     public WalletNotFoundException(String message) {
         super(message);
     }
+
+    @Override
+    public Throwable fillInStackTrace() {
+        return this;
+    }
 }
@@ -0,0 +1,22 @@
+package ru.yakovlev.walletapp.exception;
+
+import java.time.Duration;
+
+public class WalletOverloadedException extends Exception {
+
+    private final Duration retryAfter;
+
+    public WalletOverloadedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    @Override
+    public Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,23 @@
+package ru.yakovlev.walletapp.exception;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+public class WalletRequestNotReadableException extends HttpMessageNotReadableException {
+
+    private final RequestBodyError error;
+
+    public WalletRequestNotReadableException(RequestBodyError error, Throwable cause, HttpInputMessage inputMessage) {
+        super(error.getMessage(), cause, inputMessage);
+        this.error = error;
+    }
+
+    public RequestBodyError getError() {
+        return error;
+    }
+
+    @Override
+    public Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,32 @@
+package ru.yakovlev.walletapp.repository;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import ru.yakovlev.walletapp.dto.WalletDTOResponse;
+import ru.yakovlev.walletapp.entity.ArchivedWallet;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+public interface ArchivedWalletRepository extends JpaRepository<ArchivedWallet, UUID> {
+
+    @Query("select new ru.yakovlev.walletapp.dto.WalletDTOResponse(w.id, w.balance) from ArchivedWallet w "
+            + "order by w.id")
+    List<WalletDTOResponse> findPage(Limit limit);
+
+    @Query("select new ru.yakovlev.walletapp.dto.WalletDTOResponse(w.id, w.balance) from ArchivedWallet w "
+            + "where w.id > :cursor order by w.id")
+    List<WalletDTOResponse> findPageAfter(UUID cursor, Limit limit);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new ru.yakovlev.walletapp.dto.WalletDTOResponse(w.id, w.balance) from ArchivedWallet w")
+    Stream<WalletDTOResponse> streamAll();
+}
@@ -0,0 +1,8 @@
+package ru.yakovlev.walletapp.repository;
+
+public interface BalanceSnapshot {
+
+    long getBalance();
+
+    long getVersion();
+}
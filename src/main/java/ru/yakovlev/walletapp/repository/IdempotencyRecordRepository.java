@@ -0,0 +1,25 @@
+package ru.yakovlev.walletapp.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yakovlev.walletapp.entity.IdempotencyRecord;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_keys (idempotency_key, wallet_id, operation_type, amount, balance) "
+            + "VALUES (:key, :walletId, :operationType, :amount, :balance) "
+            + "ON CONFLICT (idempotency_key) DO NOTHING",
+            nativeQuery = true)
+    int insertIfAbsent(String key, UUID walletId, String operationType, long amount, long balance);
+
+    @Modifying
+    @Transactional
+    @Query("delete from IdempotencyRecord r where r.createdAt < :createdBefore")
+    int deleteCreatedBefore(Instant createdBefore);
+}
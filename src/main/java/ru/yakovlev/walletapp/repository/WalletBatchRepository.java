@@ -0,0 +1,12 @@
+package ru.yakovlev.walletapp.repository;
+
+import ru.yakovlev.walletapp.entity.Wallet;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public interface WalletBatchRepository {
+
+    List<Wallet> creditAll(Map<UUID, Long> amounts);
+}
@@ -0,0 +1,46 @@
+package ru.yakovlev.walletapp.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yakovlev.walletapp.entity.Wallet;
+
+import java.sql.Connection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public class WalletBatchRepositoryImpl implements WalletBatchRepository {
+
+    private static final String LOCK_ALL_SQL = "SELECT wallet_id FROM wallets "
+            + "WHERE wallet_id = ANY(?::uuid[]) ORDER BY wallet_id FOR NO KEY UPDATE";
+
+    private static final String CREDIT_ALL_SQL = "UPDATE wallets w "
+            + "SET balance = w.balance + c.amount, version = w.version + 1 "
+            + "FROM unnest(?::uuid[], ?::bigint[]) AS c(wallet_id, amount) "
+            + "WHERE w.wallet_id = c.wallet_id "
+            + "RETURNING w.wallet_id, w.balance, w.version";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public WalletBatchRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<Wallet> creditAll(Map<UUID, Long> amounts) {
+        if (amounts.isEmpty()) {
+            return List.of();
+        }
+        UUID[] walletIds = amounts.keySet().toArray(new UUID[0]);
+        Long[] credits = amounts.values().toArray(new Long[0]);
+
+        jdbcTemplate.query(LOCK_ALL_SQL, ps -> ps.setArray(1, ps.getConnection().createArrayOf("uuid", walletIds)),
+                rs -> {
+                });
+        return jdbcTemplate.query(CREDIT_ALL_SQL, ps -> {
+            Connection connection = ps.getConnection();
+            ps.setArray(1, connection.createArrayOf("uuid", walletIds));
+            ps.setArray(2, connection.createArrayOf("bigint", credits));
+        }, (rs, rowNum) -> new Wallet(rs.getObject("wallet_id", UUID.class), rs.getLong("balance"),
+                rs.getLong("version")));
+    }
+}
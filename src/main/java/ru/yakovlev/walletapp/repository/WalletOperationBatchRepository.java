@@ -0,0 +1,10 @@
+package ru.yakovlev.walletapp.repository;
+
+import ru.yakovlev.walletapp.entity.WalletOperation;
+
+import java.util.List;
+
+public interface WalletOperationBatchRepository {
+
+    void appendAll(List<WalletOperation> operations);
+}
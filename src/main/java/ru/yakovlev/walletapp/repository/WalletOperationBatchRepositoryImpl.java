@@ -0,0 +1,54 @@
+package ru.yakovlev.walletapp.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yakovlev.walletapp.entity.WalletOperation;
+
+import java.sql.Connection;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.UUID;
+
+public class WalletOperationBatchRepositoryImpl implements WalletOperationBatchRepository {
+
+    private static final String APPEND_ALL_SQL = "INSERT INTO wallet_operations "
+            + "(wallet_id, operation_type, amount, balance_after, created_at) "
+            + "SELECT wallet_id, operation_type, amount, balance_after, coalesce(created_at, now()) "
+            + "FROM unnest(?::uuid[], ?::varchar[], ?::bigint[], ?::bigint[], ?::timestamptz[]) "
+            + "AS o(wallet_id, operation_type, amount, balance_after, created_at)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public WalletOperationBatchRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void appendAll(List<WalletOperation> operations) {
+        if (operations.isEmpty()) {
+            return;
+        }
+        int size = operations.size();
+        UUID[] walletIds = new UUID[size];
+        String[] operationTypes = new String[size];
+        Long[] amounts = new Long[size];
+        Long[] balances = new Long[size];
+        Timestamp[] createdAt = new Timestamp[size];
+        for (int i = 0; i < size; i++) {
+            WalletOperation operation = operations.get(i);
+            walletIds[i] = operation.getWalletId();
+            operationTypes[i] = operation.getOperationType().name();
+            amounts[i] = operation.getAmount();
+            balances[i] = operation.getBalanceAfter();
+            createdAt[i] = operation.getCreatedAt() != null ? Timestamp.from(operation.getCreatedAt()) : null;
+        }
+
+        jdbcTemplate.update(APPEND_ALL_SQL, ps -> {
+            Connection connection = ps.getConnection();
+            ps.setArray(1, connection.createArrayOf("uuid", walletIds));
+            ps.setArray(2, connection.createArrayOf("varchar", operationTypes));
+            ps.setArray(3, connection.createArrayOf("bigint", amounts));
+            ps.setArray(4, connection.createArrayOf("bigint", balances));
+            ps.setArray(5, connection.createArrayOf("timestamptz", createdAt));
+        });
+    }
+}
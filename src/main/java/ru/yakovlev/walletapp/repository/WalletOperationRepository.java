@@ -0,0 +1,26 @@
+package ru.yakovlev.walletapp.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yakovlev.walletapp.entity.WalletOperation;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+public interface WalletOperationRepository extends JpaRepository<WalletOperation, Long>, WalletOperationBatchRepository {
+
+    @Transactional(readOnly = true)
+    @Query(value = "SELECT * FROM wallet_operations WHERE wallet_id = :walletId "
+            + "ORDER BY created_at DESC, operation_id DESC LIMIT :limit",
+            nativeQuery = true)
+    List<WalletOperation> findLatest(UUID walletId, int limit);
+
+    @Transactional(readOnly = true)
+    @Query(value = "SELECT * FROM wallet_operations WHERE wallet_id = :walletId AND created_at <= :createdAt "
+            + "AND (created_at, operation_id) < (:createdAt, :operationId) "
+            + "ORDER BY created_at DESC, operation_id DESC LIMIT :limit",
+            nativeQuery = true)
+    List<WalletOperation> findLatestBefore(UUID walletId, Instant createdAt, long operationId, int limit);
+}
@@ -0,0 +1,43 @@
+package ru.yakovlev.walletapp.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import ru.yakovlev.walletapp.entity.WalletProvisioningJob;
+
+public interface WalletProvisioningJobRepository extends JpaRepository<WalletProvisioningJob, String> {
+
+    @Modifying
+    @Query(value = "INSERT INTO wallet_provisioning_jobs (job_id, requested_count, initial_balance) "
+            + "VALUES (:jobId, :requestedCount, :initialBalance) "
+            + "ON CONFLICT (job_id) DO NOTHING",
+            nativeQuery = true)
+    int insertIfAbsent(String jobId, int requestedCount, long initialBalance);
+
+    @Modifying
+    @Query(value = "UPDATE wallet_provisioning_jobs "
+            + "SET lease_token = :token, lease_expires_at = now() + :leaseMillis * INTERVAL '1 millisecond' "
+            + "WHERE job_id = :jobId AND (lease_token IS NULL OR lease_expires_at < now())",
+            nativeQuery = true)
+    int claim(String jobId, String token, long leaseMillis);
+
+    @Modifying
+    @Query(value = "UPDATE wallet_provisioning_jobs "
+            + "SET lease_expires_at = now() + :leaseMillis * INTERVAL '1 millisecond' "
+            + "WHERE job_id = :jobId AND lease_token = :token",
+            nativeQuery = true)
+    int renew(String jobId, String token, long leaseMillis);
+
+    @Modifying
+    @Query(value = "UPDATE wallet_provisioning_jobs SET created_count = created_count + :created, "
+            + "lease_expires_at = now() + :leaseMillis * INTERVAL '1 millisecond' "
+            + "WHERE job_id = :jobId AND created_count = :expected AND lease_token = :token",
+            nativeQuery = true)
+    int advance(String jobId, String token, int expected, int created, long leaseMillis);
+
+    @Modifying
+    @Query(value = "UPDATE wallet_provisioning_jobs SET lease_token = NULL, lease_expires_at = NULL "
+            + "WHERE job_id = :jobId AND lease_token = :token",
+            nativeQuery = true)
+    int release(String jobId, String token);
+}
@@ -1,9 +1,64 @@
 package ru.yakovlev.walletapp.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import ru.yakovlev.walletapp.dto.WalletDTOResponse;
 import ru.yakovlev.walletapp.entity.Wallet;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
-public interface WalletRepository extends JpaRepository<Wallet, UUID> {
+public interface WalletRepository extends JpaRepository<Wallet, UUID>, WalletBatchRepository {
+
+    @Query("select new ru.yakovlev.walletapp.dto.WalletDTOResponse(w.id, w.balance) from Wallet w order by w.id")
+    List<WalletDTOResponse> findPage(Limit limit);
+
+    @Query("select new ru.yakovlev.walletapp.dto.WalletDTOResponse(w.id, w.balance) from Wallet w "
+            + "where w.id > :cursor order by w.id")
+    List<WalletDTOResponse> findPageAfter(UUID cursor, Limit limit);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new ru.yakovlev.walletapp.dto.WalletDTOResponse(w.id, w.balance) from Wallet w")
+    Stream<WalletDTOResponse> streamAll();
+
+    @Query(value = "WITH updated AS ("
+            + "UPDATE wallets SET balance = balance + :amount, version = version + 1 "
+            + "WHERE wallet_id = :id AND balance <= 9223372036854775807 - :amount "
+            + "RETURNING wallet_id, balance, version"
+            + "), logged AS ("
+            + "INSERT INTO wallet_operations (wallet_id, operation_type, amount, balance_after) "
+            + "SELECT wallet_id, 'DEPOSIT', :amount, balance FROM updated"
+            + ") SELECT balance, version FROM updated",
+            nativeQuery = true)
+    Optional<BalanceSnapshot> deposit(UUID id, long amount);
+
+    @Query(value = "WITH updated AS ("
+            + "UPDATE wallets SET balance = balance - :amount, version = version + 1 "
+            + "WHERE wallet_id = :id AND balance >= :amount "
+            + "RETURNING wallet_id, balance, version"
+            + "), logged AS ("
+            + "INSERT INTO wallet_operations (wallet_id, operation_type, amount, balance_after) "
+            + "SELECT wallet_id, 'WITHDRAW', :amount, balance FROM updated"
+            + ") SELECT balance, version FROM updated",
+            nativeQuery = true)
+    Optional<BalanceSnapshot> withdraw(UUID id, long amount);
+
+    @Query(value = "SELECT CAST(pg_current_wal_insert_lsn() AS text)", nativeQuery = true)
+    String currentWalInsertLsn();
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select w from Wallet w where w.id in :ids order by w.id")
+    List<Wallet> findAllByIdForUpdate(Collection<UUID> ids);
 }
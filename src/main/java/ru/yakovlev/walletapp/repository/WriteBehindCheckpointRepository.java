@@ -0,0 +1,16 @@
+package ru.yakovlev.walletapp.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import ru.yakovlev.walletapp.entity.WriteBehindCheckpoint;
+
+public interface WriteBehindCheckpointRepository extends JpaRepository<WriteBehindCheckpoint, String> {
+
+    @Modifying
+    @Query(value = "INSERT INTO write_behind_checkpoints (log_id, applied_sequence) "
+            + "VALUES (:logId, :appliedSequence) "
+            + "ON CONFLICT (log_id) DO UPDATE SET applied_sequence = excluded.applied_sequence",
+            nativeQuery = true)
+    int upsert(String logId, long appliedSequence);
+}
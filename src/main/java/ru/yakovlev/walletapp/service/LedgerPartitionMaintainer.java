@@ -0,0 +1,60 @@
+package ru.yakovlev.walletapp.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yakovlev.walletapp.config.WalletProperties;
+import ru.yakovlev.walletapp.config.WalletShardRouter;
+
+import java.time.Clock;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+
+@Slf4j
+@Component
+public class LedgerPartitionMaintainer {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final WalletProperties walletProperties;
+
+    private final WalletShardRouter walletShardRouter;
+
+    private final Clock clock = Clock.systemUTC();
+
+    public LedgerPartitionMaintainer(JdbcTemplate jdbcTemplate, WalletProperties walletProperties,
+                                     WalletShardRouter walletShardRouter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.walletProperties = walletProperties;
+        this.walletShardRouter = walletShardRouter;
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    @Scheduled(cron = "0 0 3 * * *", zone = "UTC")
+    public void createUpcomingPartitions() {
+        YearMonth current = YearMonth.now(clock);
+        walletShardRouter.forEachShard(shard -> {
+            for (int i = 0; i <= walletProperties.getLedger().getPartitionsAhead(); i++) {
+                createPartition(current.plusMonths(i));
+            }
+        });
+    }
+
+    private void createPartition(YearMonth month) {
+        String sql = String.format(
+                "CREATE TABLE IF NOT EXISTS wallet_operations_%d_%02d PARTITION OF wallet_operations "
+                        + "FOR VALUES FROM ('%s') TO ('%s')",
+                month.getYear(), month.getMonthValue(),
+                month.atDay(1).atStartOfDay().atOffset(ZoneOffset.UTC),
+                month.plusMonths(1).atDay(1).atStartOfDay().atOffset(ZoneOffset.UTC));
+        try {
+            jdbcTemplate.execute(sql);
+        } catch (DataAccessException e) {
+            log.warn("Could not create ledger partition for {}", month, e);
+        }
+    }
+}
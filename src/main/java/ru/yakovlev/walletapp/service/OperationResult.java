@@ -0,0 +1,54 @@
+package ru.yakovlev.walletapp.service;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.yakovlev.walletapp.dto.OperationStatus;
+import ru.yakovlev.walletapp.dto.WalletDTOResponse;
+import ru.yakovlev.walletapp.exception.WalletBalanceOverflowException;
+import ru.yakovlev.walletapp.exception.WalletNotEnoughBalance;
+import ru.yakovlev.walletapp.exception.WalletNotFoundException;
+import ru.yakovlev.walletapp.util.Money;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class OperationResult {
+
+    private final UUID walletId;
+
+    private final OperationStatus status;
+
+    private final BigDecimal balance;
+
+    public static OperationResult applied(UUID walletId, long balance) {
+        return new OperationResult(walletId, OperationStatus.APPLIED, Money.fromMinorUnits(balance));
+    }
+
+    public static OperationResult notFound(UUID walletId) {
+        return new OperationResult(walletId, OperationStatus.NOT_FOUND, null);
+    }
+
+    public static OperationResult notEnoughBalance(UUID walletId) {
+        return new OperationResult(walletId, OperationStatus.NOT_ENOUGH_BALANCE, null);
+    }
+
+    public static OperationResult balanceOverflow(UUID walletId) {
+        return new OperationResult(walletId, OperationStatus.BALANCE_OVERFLOW, null);
+    }
+
+    public WalletDTOResponse toWalletDTOResponse() throws WalletNotFoundException, WalletNotEnoughBalance {
+        switch (status) {
+            case NOT_FOUND:
+                throw new WalletNotFoundException("Wallet with id " + walletId + " not found");
+            case NOT_ENOUGH_BALANCE:
+                throw new WalletNotEnoughBalance("Wallet with id " + walletId + " not enough balance");
+            case BALANCE_OVERFLOW:
+                throw new WalletBalanceOverflowException("Wallet with id " + walletId + " balance overflow");
+            default:
+                return new WalletDTOResponse(walletId, balance);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package ru.yakovlev.walletapp.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.yakovlev.walletapp.dto.ProvisioningJobDTOResponse;
+
+@Getter
+@AllArgsConstructor
+public class ProvisioningLease {
+
+    private final ProvisioningJobDTOResponse job;
+
+    private final String token;
+}
@@ -0,0 +1,62 @@
+package ru.yakovlev.walletapp.service;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yakovlev.walletapp.config.WalletShardRouter;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+@Component
+public class ShardScatterGather {
+
+    private final WalletShardRouter walletShardRouter;
+
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    private final Executor executor;
+
+    public ShardScatterGather(WalletShardRouter walletShardRouter,
+                              TransactionTemplate transactionTemplate,
+                              @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+                              Executor executor) {
+        this.walletShardRouter = walletShardRouter;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.readOnlyTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.executor = executor;
+    }
+
+    public <T> List<T> gather(Supplier<T> query) {
+        if (!walletShardRouter.isSharded()) {
+            return List.of(query.get());
+        }
+        List<CompletableFuture<T>> results = walletShardRouter.getShards().stream()
+                .map(shard -> CompletableFuture.supplyAsync(() -> {
+                    try (WalletShardRouter.Binding ignored = walletShardRouter.bind(shard)) {
+                        return readOnlyTransactionTemplate.execute(status -> query.get());
+                    }
+                }, executor))
+                .toList();
+        return results.stream().map(CompletableFuture::join).toList();
+    }
+
+    public <T> T onShard(String shard, Supplier<T> query) {
+        try (WalletShardRouter.Binding ignored = walletShardRouter.bind(shard)) {
+            return readOnlyTransactionTemplate.execute(status -> query.get());
+        }
+    }
+
+    public void forEachShard(Runnable query) {
+        if (!walletShardRouter.isSharded()) {
+            query.run();
+            return;
+        }
+        walletShardRouter.forEachShard(shard -> readOnlyTransactionTemplate.executeWithoutResult(status -> query.run()));
+    }
+}
@@ -0,0 +1,205 @@
+package ru.yakovlev.walletapp.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import ru.yakovlev.walletapp.config.WalletProperties;
+import ru.yakovlev.walletapp.exception.WalletOverloadedException;
+import ru.yakovlev.walletapp.util.WarmupRequests;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Component
+public class WalletAdmissionControl {
+
+    private static final double LONG_RTT_WINDOW = 600;
+
+    private static final double RTT_RECOVERY_RATIO = 2.0;
+
+    private static final double RTT_RECOVERY_DECAY = 0.95;
+
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final WalletProperties.Admission settings;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final ConcurrentMap<UUID, Integer> inFlightByWallet = new ConcurrentHashMap<>();
+
+    private final Counter limitRejections;
+
+    private final Counter walletRejections;
+
+    private final Permit unlimited = new Permit(List.of(), 0, false, false);
+
+    private final LongAdder sampledRttNanos = new LongAdder();
+
+    private final LongAdder samples = new LongAdder();
+
+    private final AtomicInteger sampledInFlight = new AtomicInteger();
+
+    private final ReentrantLock limitLock = new ReentrantLock();
+
+    private long drainedRttNanos;
+
+    private long drainedSamples;
+
+    private double estimatedLimit;
+
+    private double longRttNanos;
+
+    private volatile int limit;
+
+    public WalletAdmissionControl(WalletProperties walletProperties, MeterRegistry meterRegistry) {
+        this.settings = walletProperties.getAdmission();
+        this.estimatedLimit = settings.getInitialLimit();
+        this.limit = settings.getInitialLimit();
+        Gauge.builder("wallet.admission.limit", this, WalletAdmissionControl::getLimit)
+                .description("Adaptive limit of concurrently admitted wallet requests")
+                .register(meterRegistry);
+        Gauge.builder("wallet.admission.in_flight", inFlight, AtomicInteger::get)
+                .description("Wallet requests currently admitted")
+                .register(meterRegistry);
+        this.limitRejections = Counter.builder("wallet.admission.rejected")
+                .description("Wallet requests shed by admission control")
+                .tag("reason", "limit")
+                .register(meterRegistry);
+        this.walletRejections = Counter.builder("wallet.admission.rejected")
+                .description("Wallet requests shed by admission control")
+                .tag("reason", "wallet")
+                .register(meterRegistry);
+    }
+
+    public Permit admit() throws WalletOverloadedException {
+        return admit(List.of());
+    }
+
+    public Permit admit(UUID walletId) throws WalletOverloadedException {
+        return admit(List.of(walletId));
+    }
+
+    public Permit admit(Collection<UUID> walletIds) throws WalletOverloadedException {
+        return admit(walletIds, true);
+    }
+
+    public Permit admitStream() throws WalletOverloadedException {
+        return admit(List.of(), false);
+    }
+
+    private Permit admit(Collection<UUID> walletIds, boolean sampled) throws WalletOverloadedException {
+        if (!settings.isEnabled()) {
+            return unlimited;
+        }
+        List<UUID> acquired = new ArrayList<>(walletIds.size());
+        for (UUID id : Set.copyOf(walletIds)) {
+            if (inFlightByWallet.merge(id, 1, Integer::sum) > settings.getPerWalletLimit()) {
+                releaseWallet(id);
+                acquired.forEach(this::releaseWallet);
+                walletRejections.increment();
+                throw new WalletOverloadedException("Too many requests in flight for wallet " + id
+                        + ", please retry later", settings.getRetryAfter());
+            }
+            acquired.add(id);
+        }
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= limit) {
+                acquired.forEach(this::releaseWallet);
+                limitRejections.increment();
+                throw new WalletOverloadedException("Too many requests in flight, please retry later",
+                        settings.getRetryAfter());
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return new Permit(acquired, current + 1, true, sampled && !WarmupRequests.isCurrentWarmup());
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    void onSample(long rttNanos, int inFlightAtStart) {
+        sampledRttNanos.add(Math.max(rttNanos, 1));
+        samples.increment();
+        sampledInFlight.accumulateAndGet(inFlightAtStart, Math::max);
+        if (!limitLock.tryLock()) {
+            return;
+        }
+        try {
+            long count = samples.sum() - drainedSamples;
+            if (count == 0) {
+                return;
+            }
+            long rttTotal = sampledRttNanos.sum() - drainedRttNanos;
+            drainedSamples += count;
+            drainedRttNanos += rttTotal;
+            updateLimit(Math.max((double) rttTotal / count, 1), sampledInFlight.getAndSet(0));
+        } finally {
+            limitLock.unlock();
+        }
+    }
+
+    private void updateLimit(double rtt, int inFlightAtStart) {
+        longRttNanos = longRttNanos == 0 ? rtt : longRttNanos + (rtt - longRttNanos) / LONG_RTT_WINDOW;
+        if (longRttNanos > rtt * RTT_RECOVERY_RATIO) {
+            longRttNanos *= RTT_RECOVERY_DECAY;
+        }
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, settings.getLatencyTolerance() * longRttNanos / rtt));
+        if (gradient >= 1.0 && inFlightAtStart < estimatedLimit / 2) {
+            return;
+        }
+        double target = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        estimatedLimit = Math.max(settings.getMinLimit(), Math.min(settings.getMaxLimit(),
+                estimatedLimit * (1 - settings.getSmoothing()) + target * settings.getSmoothing()));
+        limit = (int) estimatedLimit;
+    }
+
+    private void releaseWallet(UUID id) {
+        inFlightByWallet.computeIfPresent(id, (key, count) -> count == 1 ? null : count - 1);
+    }
+
+    public final class Permit implements AutoCloseable {
+
+        private final List<UUID> walletIds;
+
+        private final int inFlightAtStart;
+
+        private final boolean tracked;
+
+        private final boolean sampled;
+
+        private final long startedAt = System.nanoTime();
+
+        private boolean closed;
+
+        private Permit(List<UUID> walletIds, int inFlightAtStart, boolean tracked, boolean sampled) {
+            this.walletIds = walletIds;
+            this.inFlightAtStart = inFlightAtStart;
+            this.tracked = tracked;
+            this.sampled = sampled;
+        }
+
+        @Override
+        public void close() {
+            if (!tracked || closed) {
+                return;
+            }
+            closed = true;
+            walletIds.forEach(WalletAdmissionControl.this::releaseWallet);
+            inFlight.decrementAndGet();
+            if (sampled) {
+                onSample(System.nanoTime() - startedAt, inFlightAtStart);
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package ru.yakovlev.walletapp.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.yakovlev.walletapp.config.WalletProperties;
+import ru.yakovlev.walletapp.util.Money;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Component
+public class WalletBalanceCache {
+
+    private final Cache<UUID, CachedBalance> balances;
+
+    public WalletBalanceCache(WalletProperties walletProperties, MeterRegistry meterRegistry) {
+        this.balances = Caffeine.newBuilder()
+                .maximumSize(walletProperties.getBalanceCache().getMaximumSize())
+                .expireAfterWrite(walletProperties.getBalanceCache().getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, balances, "wallet.balances");
+    }
+
+    public CachedBalance get(UUID id) {
+        return balances.getIfPresent(id);
+    }
+
+    public void offer(UUID id, long balance, long version) {
+        merge(id, new CachedBalance(Money.fromMinorUnits(balance), version));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWalletChanged(WalletChangedEvent event) {
+        merge(event.getWalletId(), event.isDeleted()
+                ? CachedBalance.DELETED
+                : new CachedBalance(Money.fromMinorUnits(event.getBalance()), event.getVersion()));
+    }
+
+    private void merge(UUID id, CachedBalance candidate) {
+        balances.asMap().merge(id, candidate,
+                (current, offered) -> offered.version > current.version ? offered : current);
+    }
+
+    public static final class CachedBalance {
+
+        private static final CachedBalance DELETED = new CachedBalance(null, Long.MAX_VALUE);
+
+        private final BigDecimal balance;
+
+        private final long version;
+
+        private CachedBalance(BigDecimal balance, long version) {
+            this.balance = balance;
+            this.version = version;
+        }
+
+        public boolean isDeleted() {
+            return this == DELETED;
+        }
+
+        public BigDecimal getBalance() {
+            return balance;
+        }
+    }
+}
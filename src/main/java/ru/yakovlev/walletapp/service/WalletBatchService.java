@@ -0,0 +1,193 @@
+package ru.yakovlev.walletapp.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yakovlev.walletapp.config.WalletProperties;
+import ru.yakovlev.walletapp.config.WalletShardRouter;
+import ru.yakovlev.walletapp.dto.BatchAtomicity;
+import ru.yakovlev.walletapp.dto.OperationStatus;
+import ru.yakovlev.walletapp.dto.UnreadableWalletDTORequest;
+import ru.yakovlev.walletapp.dto.WalletDTORequest;
+import ru.yakovlev.walletapp.dto.WalletOperationResultDTO;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+@Service
+public class WalletBatchService {
+
+    private final WalletOperationService walletOperationService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final EntityManager entityManager;
+
+    private final Validator validator;
+
+    private final WalletShardRouter walletShardRouter;
+
+    private final WalletWriteBehind walletWriteBehind;
+
+    private final int chunkSize;
+
+    public WalletBatchService(WalletOperationService walletOperationService,
+                              TransactionTemplate transactionTemplate,
+                              EntityManager entityManager,
+                              Validator validator,
+                              WalletShardRouter walletShardRouter,
+                              WalletProperties walletProperties,
+                              WalletWriteBehind walletWriteBehind) {
+        this.walletOperationService = walletOperationService;
+        this.transactionTemplate = transactionTemplate;
+        this.entityManager = entityManager;
+        this.validator = validator;
+        this.walletShardRouter = walletShardRouter;
+        this.walletWriteBehind = walletWriteBehind;
+        this.chunkSize = walletProperties.getBatch().getChunkSize();
+    }
+
+    public List<WalletOperationResultDTO> applyAll(List<WalletDTORequest> walletDTORequests,
+                                                   BatchAtomicity atomicity) {
+        List<WalletOperationResultDTO> results = new ArrayList<>(walletDTORequests.size());
+        apply(walletDTORequests.iterator(), atomicity, results::addAll);
+        return results;
+    }
+
+    public void apply(Iterator<WalletDTORequest> walletDTORequests, BatchAtomicity atomicity,
+                      Consumer<List<WalletOperationResultDTO>> resultConsumer) {
+        walletWriteBehind.settle();
+        if (atomicity == BatchAtomicity.BEST_EFFORT) {
+            int offset = 0;
+            while (walletDTORequests.hasNext()) {
+                List<WalletDTORequest> chunk = nextChunk(walletDTORequests);
+                resultConsumer.accept(applyChunkOnShards(chunk, offset));
+                offset += chunk.size();
+            }
+            return;
+        }
+
+        List<WalletOperationResultDTO> results = new ArrayList<>();
+        List<WalletDTORequest> firstChunk = nextChunk(walletDTORequests);
+        String shard = firstChunk.isEmpty() ? walletShardRouter.getShards().get(0)
+                : candidateShards(firstChunk.get(0)).get(0);
+        try (WalletShardRouter.Binding ignored = walletShardRouter.bind(shard)) {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<WalletDTORequest> chunk = firstChunk;
+                while (!chunk.isEmpty()) {
+                    results.addAll(applyChunk(chunk, results.size(), shard));
+                    chunk = nextChunk(walletDTORequests);
+                }
+                if (results.stream().anyMatch(result -> result.getStatus() != OperationStatus.APPLIED)) {
+                    status.setRollbackOnly();
+                    results.stream()
+                            .filter(result -> result.getStatus() == OperationStatus.APPLIED)
+                            .forEach(result -> {
+                                result.setStatus(OperationStatus.ROLLED_BACK);
+                                result.setBalance(null);
+                            });
+                }
+            });
+        }
+        resultConsumer.accept(results);
+    }
+
+    private List<WalletDTORequest> nextChunk(Iterator<WalletDTORequest> walletDTORequests) {
+        List<WalletDTORequest> chunk = new ArrayList<>(chunkSize);
+        while (chunk.size() < chunkSize && walletDTORequests.hasNext()) {
+            chunk.add(walletDTORequests.next());
+        }
+        return chunk;
+    }
+
+    private List<WalletOperationResultDTO> applyChunkOnShards(List<WalletDTORequest> chunk, int offset) {
+        WalletOperationResultDTO[] results = new WalletOperationResultDTO[chunk.size()];
+        List<Integer> pending = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            pending.add(i);
+        }
+        for (int attempt = 0; !pending.isEmpty(); attempt++) {
+            Map<String, List<Integer>> byShard = new LinkedHashMap<>();
+            for (int index : pending) {
+                byShard.computeIfAbsent(candidateShards(chunk.get(index)).get(attempt), shard -> new ArrayList<>())
+                        .add(index);
+            }
+            pending = new ArrayList<>();
+            for (Map.Entry<String, List<Integer>> group : byShard.entrySet()) {
+                List<WalletDTORequest> requests = group.getValue().stream().map(chunk::get).toList();
+                List<WalletOperationResultDTO> applied;
+                try (WalletShardRouter.Binding ignored = walletShardRouter.bind(group.getKey())) {
+                    applied = transactionTemplate.execute(status -> applyChunk(requests, 0, null));
+                }
+                for (int i = 0; i < applied.size(); i++) {
+                    int index = group.getValue().get(i);
+                    WalletOperationResultDTO result = applied.get(i);
+                    if (result.getStatus() == OperationStatus.NOT_FOUND
+                            && attempt + 1 < candidateShards(chunk.get(index)).size()) {
+                        pending.add(index);
+                    } else {
+                        result.setIndex(offset + index);
+                        results[index] = result;
+                    }
+                }
+            }
+        }
+        return List.of(results);
+    }
+
+    private List<String> candidateShards(WalletDTORequest walletDTORequest) {
+        return walletDTORequest.getId() == null
+                ? List.of(walletShardRouter.getShards().get(0))
+                : walletShardRouter.candidateShards(walletDTORequest.getId());
+    }
+
+    private List<WalletOperationResultDTO> applyChunk(List<WalletDTORequest> chunk, int offset, String shard) {
+        WalletOperationResultDTO[] results = new WalletOperationResultDTO[chunk.size()];
+        List<WalletDTORequest> valid = new ArrayList<>(chunk.size());
+        List<Integer> validIndexes = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            WalletDTORequest walletDTORequest = chunk.get(i);
+            Map<String, String> errors = validate(walletDTORequest, shard);
+            if (errors.isEmpty()) {
+                valid.add(walletDTORequest);
+                validIndexes.add(i);
+            } else {
+                results[i] = new WalletOperationResultDTO(offset + i, walletDTORequest.getId(),
+                        OperationStatus.INVALID, null, errors);
+            }
+        }
+
+        List<OperationResult> applied = walletOperationService.applyInOrder(valid);
+        for (int i = 0; i < applied.size(); i++) {
+            OperationResult result = applied.get(i);
+            int index = validIndexes.get(i);
+            results[index] = new WalletOperationResultDTO(offset + index, result.getWalletId(),
+                    result.getStatus(), result.getBalance(), null);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return List.of(results);
+    }
+
+    private Map<String, String> validate(WalletDTORequest walletDTORequest, String shard) {
+        if (walletDTORequest instanceof UnreadableWalletDTORequest unreadable) {
+            return Map.of("request", unreadable.getError());
+        }
+        Set<ConstraintViolation<WalletDTORequest>> violations = validator.validate(walletDTORequest);
+        Map<String, String> errors = new HashMap<>();
+        violations.forEach(violation -> errors.put(violation.getPropertyPath().toString(), violation.getMessage()));
+        if (shard != null && walletDTORequest.getId() != null
+                && !shard.equals(walletShardRouter.shardOf(walletDTORequest.getId()))) {
+            errors.put("id", "Wallet is stored on another shard than the rest of the all-or-nothing batch");
+        }
+        return errors;
+    }
+}
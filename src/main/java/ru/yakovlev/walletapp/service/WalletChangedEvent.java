@@ -0,0 +1,37 @@
+package ru.yakovlev.walletapp.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.UUID;
+
+@Getter
+@AllArgsConstructor
+public class WalletChangedEvent {
+
+    private final UUID walletId;
+
+    private final long balance;
+
+    private final long version;
+
+    private final boolean deleted;
+
+    private final Long previousBalance;
+
+    public static WalletChangedEvent created(UUID walletId, long balance, long version) {
+        return new WalletChangedEvent(walletId, balance, version, false, null);
+    }
+
+    public static WalletChangedEvent updated(UUID walletId, long previousBalance, long balance, long version) {
+        return new WalletChangedEvent(walletId, balance, version, false, previousBalance);
+    }
+
+    public static WalletChangedEvent snapshot(UUID walletId, long balance, long version) {
+        return updated(walletId, balance, balance, version);
+    }
+
+    public static WalletChangedEvent deleted(UUID walletId, long previousBalance) {
+        return new WalletChangedEvent(walletId, 0, Long.MAX_VALUE, true, previousBalance);
+    }
+}
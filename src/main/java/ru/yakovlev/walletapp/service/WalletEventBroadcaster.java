@@ -0,0 +1,324 @@
+package ru.yakovlev.walletapp.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.yakovlev.walletapp.config.WalletProperties;
+import ru.yakovlev.walletapp.config.WalletShardRouter;
+import ru.yakovlev.walletapp.dto.WalletEventDTOResponse;
+import ru.yakovlev.walletapp.entity.Wallet;
+import ru.yakovlev.walletapp.exception.EventSubscriptionLimitException;
+import ru.yakovlev.walletapp.exception.WalletNotFoundException;
+import ru.yakovlev.walletapp.util.Money;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class WalletEventBroadcaster {
+
+    public static final int MAX_SUBSCRIBED_WALLETS = 100;
+
+    static final String BALANCE_EVENT = "balance";
+
+    static final String SNAPSHOT_EVENT = "snapshot";
+
+    static final String DELETED_EVENT = "deleted";
+
+    private static final Message HEARTBEAT = new Message(null, null);
+
+    private final WalletTiering walletTiering;
+
+    private final WalletShardRouter walletShardRouter;
+
+    private final WalletProperties.Events settings;
+
+    private final Map<UUID, Set<Subscription>> subscribers = new ConcurrentHashMap<>();
+
+    private final Set<Subscription> open = ConcurrentHashMap.newKeySet();
+
+    private final ExecutorService dispatcher;
+
+    public WalletEventBroadcaster(WalletTiering walletTiering, WalletShardRouter walletShardRouter,
+                                  WalletProperties walletProperties, MeterRegistry meterRegistry) {
+        this.walletTiering = walletTiering;
+        this.walletShardRouter = walletShardRouter;
+        this.settings = walletProperties.getEvents();
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("wallet-events-");
+        threadFactory.setDaemon(true);
+        this.dispatcher = Executors.newFixedThreadPool(settings.getDispatcherThreads(), threadFactory);
+        Gauge.builder("wallet.events.subscriptions", open, Set::size)
+                .description("Open wallet balance event streams")
+                .register(meterRegistry);
+    }
+
+    public SseEmitter subscribe(Collection<UUID> walletIds, Map<UUID, Long> lastVersions)
+            throws WalletNotFoundException, EventSubscriptionLimitException {
+        if (open.size() >= settings.getMaxSubscriptions()) {
+            throw new EventSubscriptionLimitException("Too many open event streams, please retry later");
+        }
+        Subscription subscription = new Subscription(new SseEmitter(settings.getTimeout().toMillis()),
+                new LinkedHashSet<>(walletIds), lastVersions);
+        subscription.emitter.onCompletion(() -> close(subscription));
+        subscription.emitter.onTimeout(() -> close(subscription));
+        subscription.emitter.onError(error -> close(subscription));
+        subscription.walletIds.forEach(id -> subscribers.compute(id, (key, subscriptions) -> {
+            Set<Subscription> current = subscriptions != null ? subscriptions : ConcurrentHashMap.newKeySet();
+            current.add(subscription);
+            return current;
+        }));
+        open.add(subscription);
+        try {
+            for (UUID id : subscription.walletIds) {
+                Wallet wallet = findWallet(id);
+                offer(subscription, SNAPSHOT_EVENT,
+                        WalletChangedEvent.snapshot(id, wallet.getBalance(), wallet.getVersion()));
+            }
+        } catch (WalletNotFoundException e) {
+            close(subscription);
+            throw e;
+        }
+        return subscription.emitter;
+    }
+
+    @TransactionalEventListener
+    public void onWalletChanged(WalletChangedEvent event) {
+        Set<Subscription> subscriptions = subscribers.get(event.getWalletId());
+        if (subscriptions != null) {
+            String name = event.isDeleted() ? DELETED_EVENT : BALANCE_EVENT;
+            subscriptions.forEach(subscription -> offer(subscription, name, event));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${wallet.events.heartbeat-interval:15s}")
+    public void sendHeartbeats() {
+        open.forEach(subscription -> {
+            if (subscription.requestHeartbeat()) {
+                dispatch(subscription);
+            }
+        });
+    }
+
+    public int subscriptionCount() {
+        return open.size();
+    }
+
+    @PreDestroy
+    public void stop() {
+        open.forEach(subscription -> subscription.emitter.complete());
+        dispatcher.shutdownNow();
+    }
+
+    private void offer(Subscription subscription, String name, WalletChangedEvent event) {
+        if (subscription.offer(new Message(name, event), settings.getBufferSize())) {
+            dispatch(subscription);
+        }
+    }
+
+    private void dispatch(Subscription subscription) {
+        try {
+            dispatcher.execute(() -> drain(subscription));
+        } catch (RejectedExecutionException e) {
+            close(subscription);
+        }
+    }
+
+    private void drain(Subscription subscription) {
+        List<Message> batch;
+        while (!(batch = subscription.take()).isEmpty()) {
+            try {
+                for (Message message : batch) {
+                    send(subscription, message);
+                }
+            } catch (IOException | IllegalStateException e) {
+                close(subscription);
+                return;
+            }
+        }
+    }
+
+    private void send(Subscription subscription, Message message) throws IOException {
+        SseEmitter emitter = subscription.emitter;
+        if (message == HEARTBEAT) {
+            emitter.send(SseEmitter.event().comment("heartbeat"));
+            return;
+        }
+        WalletChangedEvent event = message.event;
+        if (!subscription.deliver(event.getWalletId(), event.getVersion())) {
+            return;
+        }
+        if (event.isDeleted()) {
+            emitter.send(SseEmitter.event().name(DELETED_EVENT)
+                    .data(new WalletEventDTOResponse(event.getWalletId(), null, null, true),
+                            MediaType.APPLICATION_JSON));
+            if (subscription.walletIds.size() == 1) {
+                emitter.complete();
+            }
+            return;
+        }
+        SseEmitter.SseEventBuilder builder = SseEmitter.event().name(message.name)
+                .data(new WalletEventDTOResponse(event.getWalletId(), Money.fromMinorUnits(event.getBalance()),
+                        event.getVersion(), false), MediaType.APPLICATION_JSON);
+        if (subscription.walletIds.size() == 1) {
+            builder.id(Long.toString(event.getVersion()));
+        }
+        emitter.send(builder);
+    }
+
+    private void close(Subscription subscription) {
+        if (!subscription.close()) {
+            return;
+        }
+        open.remove(subscription);
+        subscription.walletIds.forEach(id -> subscribers.computeIfPresent(id, (key, subscriptions) -> {
+            subscriptions.remove(subscription);
+            return subscriptions.isEmpty() ? null : subscriptions;
+        }));
+    }
+
+    private Wallet findWallet(UUID id) throws WalletNotFoundException {
+        for (String shard : walletShardRouter.candidateShards(id)) {
+            try (WalletShardRouter.Binding ignored = walletShardRouter.bind(shard)) {
+                Optional<Wallet> wallet = walletTiering.findById(id);
+                if (wallet.isPresent()) {
+                    return wallet.get();
+                }
+            }
+        }
+        throw new WalletNotFoundException("Wallet with id " + id + " not found");
+    }
+
+    private static final class Message {
+
+        private final String name;
+
+        private final WalletChangedEvent event;
+
+        private Message(String name, WalletChangedEvent event) {
+            this.name = name;
+            this.event = event;
+        }
+    }
+
+    private static final class Subscription {
+
+        private final SseEmitter emitter;
+
+        private final Set<UUID> walletIds;
+
+        private final Map<UUID, Long> deliveredVersions;
+
+        private final ArrayDeque<Message> queue = new ArrayDeque<>();
+
+        private final Map<UUID, WalletChangedEvent> latest = new LinkedHashMap<>();
+
+        private boolean lagging;
+
+        private boolean heartbeat;
+
+        private boolean scheduled;
+
+        private boolean closed;
+
+        private Subscription(SseEmitter emitter, Set<UUID> walletIds, Map<UUID, Long> lastVersions) {
+            this.emitter = emitter;
+            this.walletIds = walletIds;
+            this.deliveredVersions = new HashMap<>(lastVersions);
+        }
+
+        synchronized boolean offer(Message message, int bufferSize) {
+            if (closed) {
+                return false;
+            }
+            latest.merge(message.event.getWalletId(), message.event,
+                    (current, offered) -> offered.getVersion() > current.getVersion() ? offered : current);
+            if (!lagging) {
+                if (queue.size() >= bufferSize) {
+                    lagging = true;
+                    queue.clear();
+                } else {
+                    queue.add(message);
+                }
+            }
+            return schedule();
+        }
+
+        synchronized boolean requestHeartbeat() {
+            if (closed) {
+                return false;
+            }
+            heartbeat = true;
+            return schedule();
+        }
+
+        synchronized List<Message> take() {
+            List<Message> batch;
+            if (closed) {
+                batch = List.of();
+            } else if (lagging) {
+                batch = new ArrayList<>(latest.size());
+                for (WalletChangedEvent event : latest.values()) {
+                    batch.add(new Message(event.isDeleted() ? DELETED_EVENT : SNAPSHOT_EVENT, event));
+                }
+                lagging = false;
+            } else if (!queue.isEmpty()) {
+                batch = new ArrayList<>(queue);
+                queue.clear();
+            } else if (heartbeat) {
+                batch = List.of(HEARTBEAT);
+            } else {
+                batch = List.of();
+            }
+            heartbeat = false;
+            scheduled = !batch.isEmpty();
+            return batch;
+        }
+
+        boolean deliver(UUID walletId, long version) {
+            Long delivered = deliveredVersions.get(walletId);
+            if (delivered != null && delivered >= version) {
+                return false;
+            }
+            deliveredVersions.put(walletId, version);
+            return true;
+        }
+
+        synchronized boolean close() {
+            if (closed) {
+                return false;
+            }
+            closed = true;
+            return true;
+        }
+
+        private boolean schedule() {
+            if (scheduled) {
+                return false;
+            }
+            scheduled = true;
+            return true;
+        }
+    }
+}
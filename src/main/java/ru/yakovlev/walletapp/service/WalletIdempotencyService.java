@@ -0,0 +1,137 @@
+package ru.yakovlev.walletapp.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.yakovlev.walletapp.config.WalletProperties;
+import ru.yakovlev.walletapp.config.WalletShardRouter;
+import ru.yakovlev.walletapp.dto.WalletDTORequest;
+import ru.yakovlev.walletapp.dto.WalletDTOResponse;
+import ru.yakovlev.walletapp.entity.IdempotencyRecord;
+import ru.yakovlev.walletapp.exception.IdempotencyKeyReusedException;
+import ru.yakovlev.walletapp.exception.WalletNotEnoughBalance;
+import ru.yakovlev.walletapp.exception.WalletNotFoundException;
+import ru.yakovlev.walletapp.repository.IdempotencyRecordRepository;
+import ru.yakovlev.walletapp.util.Money;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+@Service
+public class WalletIdempotencyService {
+
+    private final WalletOperationService walletOperationService;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+
+    private final WalletProperties walletProperties;
+
+    private final WalletShardRouter walletShardRouter;
+
+    private final Cache<String, IdempotencyRecord> completed;
+
+    private final ConcurrentMap<String, CompletableFuture<IdempotencyRecord>> inFlight = new ConcurrentHashMap<>();
+
+    public WalletIdempotencyService(WalletOperationService walletOperationService,
+                                    IdempotencyRecordRepository idempotencyRecordRepository,
+                                    WalletProperties walletProperties,
+                                    WalletShardRouter walletShardRouter,
+                                    MeterRegistry meterRegistry) {
+        this.walletOperationService = walletOperationService;
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.walletProperties = walletProperties;
+        this.walletShardRouter = walletShardRouter;
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(walletProperties.getIdempotency().getMaximumSize())
+                .expireAfterWrite(walletProperties.getIdempotency().getCacheTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, completed, "wallet.idempotency");
+    }
+
+    public WalletDTOResponse execute(String idempotencyKey, WalletDTORequest walletDTORequest)
+            throws WalletNotFoundException, WalletNotEnoughBalance, IdempotencyKeyReusedException {
+        IdempotencyRecord record = completed.getIfPresent(idempotencyKey);
+        if (record == null) {
+            record = executeOrAwait(idempotencyKey, walletDTORequest);
+        }
+        if (!record.getWalletId().equals(walletDTORequest.getId())
+                || record.getOperationType() != walletDTORequest.getOperationType()
+                || record.getAmount() != Money.toMinorUnits(walletDTORequest.getAmount())) {
+            throw new IdempotencyKeyReusedException(
+                    "Idempotency key " + idempotencyKey + " was already used for a different operation");
+        }
+        return new WalletDTOResponse(record.getWalletId(), record.getBalance());
+    }
+
+    @Scheduled(cron = "0 30 * * * *", zone = "UTC")
+    public void purgeExpired() {
+        Instant createdBefore = Instant.now().minus(walletProperties.getIdempotency().getRetention());
+        walletShardRouter.forEachShard(shard -> idempotencyRecordRepository.deleteCreatedBefore(createdBefore));
+    }
+
+    private IdempotencyRecord executeOrAwait(String idempotencyKey, WalletDTORequest walletDTORequest)
+            throws WalletNotFoundException, WalletNotEnoughBalance {
+        CompletableFuture<IdempotencyRecord> execution = new CompletableFuture<>();
+        CompletableFuture<IdempotencyRecord> running = inFlight.putIfAbsent(idempotencyKey, execution);
+        if (running != null) {
+            return await(running);
+        }
+        try {
+            IdempotencyRecord record = executeOnce(idempotencyKey, walletDTORequest);
+            completed.put(idempotencyKey, record);
+            execution.complete(record);
+            return record;
+        } catch (Throwable e) {
+            execution.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(idempotencyKey, execution);
+        }
+    }
+
+    private IdempotencyRecord executeOnce(String idempotencyKey, WalletDTORequest walletDTORequest)
+            throws WalletNotFoundException, WalletNotEnoughBalance {
+        Optional<IdempotencyRecord> stored = idempotencyRecordRepository.findById(idempotencyKey);
+        if (stored.isPresent()) {
+            return stored.get();
+        }
+        Optional<WalletDTOResponse> response = walletOperationService.applyOnce(idempotencyKey, walletDTORequest);
+        if (response.isEmpty()) {
+            return idempotencyRecordRepository.findById(idempotencyKey)
+                    .orElseThrow(() -> new IllegalStateException("Idempotency key " + idempotencyKey + " vanished"));
+        }
+        return new IdempotencyRecord(idempotencyKey, walletDTORequest.getId(), walletDTORequest.getOperationType(),
+                Money.toMinorUnits(walletDTORequest.getAmount()), Money.toMinorUnits(response.get().getBalance()),
+                Instant.now());
+    }
+
+    private static IdempotencyRecord await(CompletableFuture<IdempotencyRecord> running)
+            throws WalletNotFoundException, WalletNotEnoughBalance {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof WalletNotFoundException notFound) {
+                throw notFound;
+            }
+            if (cause instanceof WalletNotEnoughBalance notEnoughBalance) {
+                throw notEnoughBalance;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package ru.yakovlev.walletapp.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yakovlev.walletapp.config.WalletProperties;
+import ru.yakovlev.walletapp.dto.WalletDTORequest;
+import ru.yakovlev.walletapp.exception.IdempotencyKeyReusedException;
+import ru.yakovlev.walletapp.exception.WalletBalanceOverflowException;
+import ru.yakovlev.walletapp.exception.WalletNotEnoughBalance;
+import ru.yakovlev.walletapp.exception.WalletNotFoundException;
+import ru.yakovlev.walletapp.util.WarmupRequests;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+@Component
+public class WalletMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    private final WalletProperties walletProperties;
+
+    private final ConcurrentMap<String, Timer> operationTimers = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<UUID, Integer> inFlight = new ConcurrentHashMap<>();
+
+    private final Cache<UUID, LongAdder> contentionByWallet;
+
+    private final Counter contention;
+
+    private final MultiGauge hotWallets;
+
+    public WalletMetrics(MeterRegistry meterRegistry, WalletProperties walletProperties) {
+        this.meterRegistry = meterRegistry;
+        this.walletProperties = walletProperties;
+        this.contentionByWallet = Caffeine.newBuilder()
+                .maximumSize(walletProperties.getMetrics().getTrackedWallets())
+                .build();
+        this.contention = Counter.builder("wallet.contention")
+                .description("Operations that started while another operation on the same wallet was in flight")
+                .register(meterRegistry);
+        this.hotWallets = MultiGauge.builder("wallet.contention.hot")
+                .description("Contended operations of the most contended wallets")
+                .register(meterRegistry);
+    }
+
+    public OperationSample start(WalletDTORequest walletDTORequest) {
+        if (WarmupRequests.isCurrentWarmup()) {
+            return new OperationSample(walletDTORequest, null);
+        }
+        UUID id = walletDTORequest.getId();
+        if (inFlight.merge(id, 1, Integer::sum) > 1) {
+            contention.increment();
+            contentionByWallet.get(id, key -> new LongAdder()).increment();
+        }
+        return new OperationSample(walletDTORequest, Timer.start(meterRegistry));
+    }
+
+    @Scheduled(fixedDelayString = "${wallet.metrics.hot-wallets-refresh:15s}")
+    public void publishHotWallets() {
+        Map<UUID, LongAdder> snapshot = contentionByWallet.asMap();
+        hotWallets.register(snapshot.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<UUID, LongAdder> entry) -> entry.getValue().sum())
+                        .reversed())
+                .limit(walletProperties.getMetrics().getHotWallets())
+                .map(entry -> MultiGauge.Row.of(Tags.of("wallet", entry.getKey().toString()),
+                        entry.getValue().sum()))
+                .collect(Collectors.toList()), true);
+    }
+
+    private Timer operationTimer(String type, String outcome) {
+        return operationTimers.computeIfAbsent(type + ':' + outcome, key -> Timer.builder("wallet.operations")
+                .description("Deposit and withdraw latency by operation type and outcome")
+                .tag("type", type)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    private static String outcomeOf(Throwable failure) {
+        if (failure == null) {
+            return "applied";
+        }
+        if (failure instanceof WalletNotFoundException) {
+            return "not_found";
+        }
+        if (failure instanceof WalletNotEnoughBalance) {
+            return "not_enough_balance";
+        }
+        if (failure instanceof WalletBalanceOverflowException) {
+            return "balance_overflow";
+        }
+        if (failure instanceof IdempotencyKeyReusedException) {
+            return "rejected";
+        }
+        return "error";
+    }
+
+    public final class OperationSample {
+
+        private final WalletDTORequest walletDTORequest;
+
+        private final Timer.Sample sample;
+
+        private OperationSample(WalletDTORequest walletDTORequest, Timer.Sample sample) {
+            this.walletDTORequest = walletDTORequest;
+            this.sample = sample;
+        }
+
+        public void applied() {
+            stop(null);
+        }
+
+        public void failed(Throwable failure) {
+            stop(failure);
+        }
+
+        private void stop(Throwable failure) {
+            if (sample == null) {
+                return;
+            }
+            inFlight.computeIfPresent(walletDTORequest.getId(), (id, count) -> count == 1 ? null : count - 1);
+            sample.stop(operationTimer(walletDTORequest.getOperationType().name(), outcomeOf(failure)));
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package ru.yakovlev.walletapp.service;
+
+import org.springframework.stereotype.Component;
+import ru.yakovlev.walletapp.config.WalletProperties;
+import ru.yakovlev.walletapp.dto.WalletDTORequest;
+import ru.yakovlev.walletapp.dto.WalletDTOResponse;
+import ru.yakovlev.walletapp.exception.WalletNotEnoughBalance;
+import ru.yakovlev.walletapp.exception.WalletNotFoundException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+@Component
+public class WalletOperationCoalescer {
+
+    private static final long MIN_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final WalletOperationService walletOperationService;
+
+    private final int maxBatchSize;
+
+    private final long maxLingerNanos;
+
+    private final ConcurrentMap<UUID, Lane> lanes = new ConcurrentHashMap<>();
+
+    public WalletOperationCoalescer(WalletOperationService walletOperationService,
+                                    WalletProperties walletProperties) {
+        this.walletOperationService = walletOperationService;
+        this.maxBatchSize = walletProperties.getCoalescing().getMaxBatchSize();
+        this.maxLingerNanos = walletProperties.getCoalescing().getMaxLinger().toNanos();
+    }
+
+    public WalletDTOResponse submit(WalletDTORequest walletDTORequest)
+            throws WalletNotFoundException, WalletNotEnoughBalance {
+        PendingOperation operation = new PendingOperation(walletDTORequest, Thread.currentThread());
+        Lane lane = lanes.computeIfAbsent(walletDTORequest.getId(), id -> new Lane());
+        lane.enqueue(operation);
+
+        while (!operation.isDone()) {
+            if (lane.tryLead()) {
+                try {
+                    lead(lane, operation);
+                } finally {
+                    lane.release();
+                }
+                handOver(walletDTORequest.getId(), lane);
+            } else {
+                LockSupport.parkNanos(this, Math.max(maxLingerNanos, MIN_PARK_NANOS));
+            }
+        }
+        return operation.getResult();
+    }
+
+    private void lead(Lane lane, PendingOperation own) {
+        while (!own.isDone()) {
+            if (lane.lastBatchSize > 1) {
+                lane.linger(maxBatchSize, maxLingerNanos);
+            }
+            List<PendingOperation> batch = lane.drain(maxBatchSize);
+            if (batch.isEmpty()) {
+                return;
+            }
+            lane.lastBatchSize = batch.size();
+            apply(batch);
+        }
+    }
+
+    private void apply(List<PendingOperation> batch) {
+        List<WalletDTORequest> requests = new ArrayList<>(batch.size());
+        batch.forEach(operation -> requests.add(operation.request));
+        try {
+            List<OperationResult> results = walletOperationService.applyInOrder(requests);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).complete(results.get(i), null);
+            }
+        } catch (RuntimeException e) {
+            batch.forEach(operation -> operation.complete(null, e));
+        }
+    }
+
+    private void handOver(UUID id, Lane lane) {
+        PendingOperation next = lane.peek();
+        if (next != null) {
+            LockSupport.unpark(next.thread);
+        } else {
+            lanes.remove(id, lane);
+        }
+    }
+
+    private static final class Lane {
+
+        private final Queue<PendingOperation> queue = new ConcurrentLinkedQueue<>();
+
+        private final AtomicInteger size = new AtomicInteger();
+
+        private final AtomicBoolean leading = new AtomicBoolean();
+
+        private volatile Thread leader;
+
+        private int lastBatchSize;
+
+        void enqueue(PendingOperation operation) {
+            queue.add(operation);
+            size.incrementAndGet();
+            Thread current = leader;
+            if (current != null) {
+                LockSupport.unpark(current);
+            }
+        }
+
+        boolean tryLead() {
+            if (leading.compareAndSet(false, true)) {
+                leader = Thread.currentThread();
+                return true;
+            }
+            return false;
+        }
+
+        void release() {
+            leader = null;
+            leading.set(false);
+        }
+
+        void linger(int maxBatchSize, long maxLingerNanos) {
+            long deadline = System.nanoTime() + maxLingerNanos;
+            long remaining = maxLingerNanos;
+            while (size.get() < maxBatchSize && remaining > 0) {
+                LockSupport.parkNanos(this, remaining);
+                remaining = deadline - System.nanoTime();
+            }
+        }
+
+        List<PendingOperation> drain(int maxBatchSize) {
+            List<PendingOperation> batch = new ArrayList<>(Math.min(size.get(), maxBatchSize));
+            PendingOperation operation;
+            while (batch.size() < maxBatchSize && (operation = queue.poll()) != null) {
+                size.decrementAndGet();
+                batch.add(operation);
+            }
+            return batch;
+        }
+
+        PendingOperation peek() {
+            return queue.peek();
+        }
+    }
+
+    private static final class PendingOperation {
+
+        private final WalletDTORequest request;
+
+        private final Thread thread;
+
+        private volatile boolean done;
+
+        private OperationResult result;
+
+        private RuntimeException failure;
+
+        PendingOperation(WalletDTORequest request, Thread thread) {
+            this.request = request;
+            this.thread = thread;
+        }
+
+        void complete(OperationResult result, RuntimeException failure) {
+            this.result = result;
+            this.failure = failure;
+            this.done = true;
+            LockSupport.unpark(thread);
+        }
+
+        boolean isDone() {
+            return done;
+        }
+
+        WalletDTOResponse getResult() throws WalletNotFoundException, WalletNotEnoughBalance {
+            if (failure != null) {
+                throw failure;
+            }
+            return result.toWalletDTOResponse();
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package ru.yakovlev.walletapp.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+public class WalletOperationLog implements AutoCloseable {
+
+    static final int RECORD_SIZE = 48;
+
+    private static final int APPENDED_AT_OFFSET = 32;
+
+    private static final int CHECKSUM_OFFSET = 40;
+
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+
+    private final int segmentSize;
+
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+
+    private final List<Entry> recovered = new ArrayList<>();
+
+    private final ReentrantLock syncLock = new ReentrantLock();
+
+    private Segment active;
+
+    private long lastSequence;
+
+    private volatile long durableSequence;
+
+    public WalletOperationLog(Path directory, long segmentSize, long appliedSequence) throws IOException {
+        this.directory = directory;
+        this.segmentSize = (int) (Math.min(segmentSize, Integer.MAX_VALUE) / RECORD_SIZE * RECORD_SIZE);
+        if (this.segmentSize == 0) {
+            throw new IllegalArgumentException("Segment size must hold at least one record");
+        }
+        Files.createDirectories(directory);
+        lastSequence = appliedSequence;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX)).toList()) {
+                String name = file.getFileName().toString();
+                long firstSequence = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                segments.put(firstSequence, new Segment(file, firstSequence, Files.size(file)));
+            }
+        }
+        for (Segment segment : segments.values()) {
+            segment.recover(appliedSequence);
+            lastSequence = Math.max(lastSequence, segment.lastSequence);
+        }
+        durableSequence = lastSequence;
+        if (!segments.isEmpty() && segments.lastEntry().getValue().hasRoom()
+                && segments.lastEntry().getValue().lastSequence == lastSequence) {
+            active = segments.lastEntry().getValue();
+        }
+    }
+
+    public List<Entry> recoveredEntries() {
+        return recovered;
+    }
+
+    public synchronized long append(UUID walletId, long amount, Instant appendedAt) {
+        if (active == null || !active.hasRoom()) {
+            rotate();
+        }
+        long sequence = lastSequence + 1;
+        active.write(sequence, walletId, amount, appendedAt);
+        lastSequence = sequence;
+        return sequence;
+    }
+
+    public void sync(long sequence) {
+        if (durableSequence >= sequence) {
+            return;
+        }
+        syncLock.lock();
+        try {
+            if (durableSequence >= sequence) {
+                return;
+            }
+            long target;
+            Segment segment;
+            synchronized (this) {
+                target = lastSequence;
+                segment = active;
+            }
+            segment.buffer.force();
+            durableSequence = target;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    public synchronized void truncate(long appliedSequence) {
+        Iterator<Map.Entry<Long, Segment>> iterator = segments.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Segment segment = iterator.next().getValue();
+            if (segment == active || segment.lastSequence > appliedSequence) {
+                return;
+            }
+            try {
+                Files.deleteIfExists(segment.file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            iterator.remove();
+        }
+    }
+
+    public synchronized int segmentCount() {
+        return segments.size();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (active != null) {
+            active.buffer.force();
+        }
+    }
+
+    private void rotate() {
+        if (active != null) {
+            active.buffer.force();
+        }
+        long firstSequence = lastSequence + 1;
+        active = new Segment(directory.resolve(String.format("%020d%s", firstSequence, SEGMENT_SUFFIX)),
+                firstSequence, segmentSize);
+        segments.put(firstSequence, active);
+    }
+
+    private static long checksum(MappedByteBuffer buffer, int offset) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(offset, CHECKSUM_OFFSET));
+        return crc.getValue();
+    }
+
+    private final class Segment {
+
+        private final Path file;
+
+        private final MappedByteBuffer buffer;
+
+        private final int capacity;
+
+        private int position;
+
+        private long lastSequence;
+
+        Segment(Path file, long firstSequence, long size) {
+            this.file = file;
+            this.capacity = (int) (Math.min(size, Integer.MAX_VALUE) / RECORD_SIZE * RECORD_SIZE);
+            this.lastSequence = firstSequence - 1;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void recover(long appliedSequence) {
+            while (hasRoom()) {
+                long sequence = buffer.getLong(position);
+                if (sequence != lastSequence + 1
+                        || (int) checksum(buffer, position) != buffer.getInt(position + CHECKSUM_OFFSET)) {
+                    break;
+                }
+                if (sequence > appliedSequence) {
+                    recovered.add(new Entry(sequence,
+                            new UUID(buffer.getLong(position + 8), buffer.getLong(position + 16)),
+                            buffer.getLong(position + 24),
+                            Instant.EPOCH.plus(buffer.getLong(position + APPENDED_AT_OFFSET), ChronoUnit.MICROS)));
+                }
+                lastSequence = sequence;
+                position += RECORD_SIZE;
+            }
+            for (int offset = position; offset < Math.min(position + RECORD_SIZE, capacity); offset++) {
+                buffer.put(offset, (byte) 0);
+            }
+        }
+
+        boolean hasRoom() {
+            return position + RECORD_SIZE <= capacity;
+        }
+
+        void write(long sequence, UUID walletId, long amount, Instant appendedAt) {
+            buffer.putLong(position, sequence);
+            buffer.putLong(position + 8, walletId.getMostSignificantBits());
+            buffer.putLong(position + 16, walletId.getLeastSignificantBits());
+            buffer.putLong(position + 24, amount);
+            buffer.putLong(position + APPENDED_AT_OFFSET, ChronoUnit.MICROS.between(Instant.EPOCH, appendedAt));
+            buffer.putInt(position + CHECKSUM_OFFSET, (int) checksum(buffer, position));
+            lastSequence = sequence;
+            position += RECORD_SIZE;
+        }
+    }
+
+    public static final class Entry {
+
+        private final long sequence;
+
+        private final UUID walletId;
+
+        private final long amount;
+
+        private final Instant appendedAt;
+
+        Entry(long sequence, UUID walletId, long amount, Instant appendedAt) {
+            this.sequence = sequence;
+            this.walletId = walletId;
+            this.amount = amount;
+            this.appendedAt = appendedAt;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public UUID getWalletId() {
+            return walletId;
+        }
+
+        public long getAmount() {
+            return amount;
+        }
+
+        public Instant getAppendedAt() {
+            return appendedAt;
+        }
+    }
+}
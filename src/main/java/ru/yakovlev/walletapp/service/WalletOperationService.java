@@ -0,0 +1,231 @@
+package ru.yakovlev.walletapp.service;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import ru.yakovlev.walletapp.config.WalletProperties;
+import ru.yakovlev.walletapp.config.WalletProperties.EngineMode;
+import ru.yakovlev.walletapp.dto.WalletDTORequest;
+import ru.yakovlev.walletapp.dto.WalletDTOResponse;
+import ru.yakovlev.walletapp.entity.OperationType;
+import ru.yakovlev.walletapp.entity.Wallet;
+import ru.yakovlev.walletapp.entity.WalletOperation;
+import ru.yakovlev.walletapp.exception.WalletBalanceOverflowException;
+import ru.yakovlev.walletapp.exception.WalletNotEnoughBalance;
+import ru.yakovlev.walletapp.exception.WalletNotFoundException;
+import ru.yakovlev.walletapp.repository.BalanceSnapshot;
+import ru.yakovlev.walletapp.repository.IdempotencyRecordRepository;
+import ru.yakovlev.walletapp.repository.WalletOperationRepository;
+import ru.yakovlev.walletapp.repository.WalletRepository;
+import ru.yakovlev.walletapp.util.Money;
+import ru.yakovlev.walletapp.util.TransferNetting;
+import ru.yakovlev.walletapp.util.WalletMapper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@Transactional
+public class WalletOperationService {
+
+    private final WalletRepository walletRepository;
+
+    private final WalletOperationRepository walletOperationRepository;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+
+    private final WalletTiering walletTiering;
+
+    private final WalletProperties walletProperties;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public WalletOperationService(WalletRepository walletRepository,
+                                  WalletOperationRepository walletOperationRepository,
+                                  IdempotencyRecordRepository idempotencyRecordRepository,
+                                  WalletTiering walletTiering,
+                                  WalletProperties walletProperties,
+                                  ApplicationEventPublisher eventPublisher) {
+        this.walletRepository = walletRepository;
+        this.walletOperationRepository = walletOperationRepository;
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.walletTiering = walletTiering;
+        this.walletProperties = walletProperties;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public WalletDTOResponse apply(WalletDTORequest walletDTORequest)
+            throws WalletNotFoundException, WalletNotEnoughBalance {
+        if (walletProperties.getEngine().getMode() == EngineMode.ATOMIC) {
+            return applyAtomically(walletDTORequest);
+        }
+        Wallet exsistWallet = walletTiering.findById(walletDTORequest.getId())
+                .orElseThrow(() -> new WalletNotFoundException("Wallet with id " + walletDTORequest.getId() + " not found"));
+
+        long amount = Money.toMinorUnits(walletDTORequest.getAmount());
+        long previousBalance = exsistWallet.getBalance();
+        if (walletDTORequest.getOperationType() == OperationType.DEPOSIT) {
+            exsistWallet.setBalance(deposit(exsistWallet, amount));
+        } else if (walletDTORequest.getOperationType() == OperationType.WITHDRAW) {
+            if (exsistWallet.getBalance() < amount) {
+                throw new WalletNotEnoughBalance("Wallet with id " + walletDTORequest.getId() + " not enough balance");
+            }
+            exsistWallet.setBalance(exsistWallet.getBalance() - amount);
+        }
+        walletRepository.saveAndFlush(exsistWallet);
+        eventPublisher.publishEvent(WalletChangedEvent.updated(exsistWallet.getId(), previousBalance,
+                exsistWallet.getBalance(), exsistWallet.getVersion()));
+        walletOperationRepository.appendAll(List.of(new WalletOperation(exsistWallet.getId(),
+                walletDTORequest.getOperationType(), amount, exsistWallet.getBalance())));
+        return WalletMapper.toWalletDTOResponse(exsistWallet);
+    }
+
+    public Optional<WalletDTOResponse> applyOnce(String idempotencyKey, WalletDTORequest walletDTORequest)
+            throws WalletNotFoundException, WalletNotEnoughBalance {
+        WalletDTOResponse response = apply(walletDTORequest);
+        int recorded = idempotencyRecordRepository.insertIfAbsent(idempotencyKey, response.getId(),
+                walletDTORequest.getOperationType().name(), Money.toMinorUnits(walletDTORequest.getAmount()),
+                Money.toMinorUnits(response.getBalance()));
+        if (recorded == 0) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return Optional.empty();
+        }
+        return Optional.of(response);
+    }
+
+    public List<OperationResult> applyInOrder(List<WalletDTORequest> walletDTORequests) {
+        if (walletDTORequests.isEmpty()) {
+            return List.of();
+        }
+        Set<UUID> ids = walletDTORequests.stream()
+                .map(WalletDTORequest::getId)
+                .collect(Collectors.toSet());
+        Map<UUID, Wallet> wallets = findAllForUpdate(ids).stream()
+                .collect(Collectors.toMap(Wallet::getId, Function.identity()));
+
+        List<OperationResult> results = new ArrayList<>(walletDTORequests.size());
+        List<WalletOperation> ledger = new ArrayList<>(walletDTORequests.size());
+        Map<UUID, Wallet> changed = new LinkedHashMap<>();
+        Map<UUID, Long> previousBalances = new HashMap<>();
+        for (WalletDTORequest walletDTORequest : walletDTORequests) {
+            UUID id = walletDTORequest.getId();
+            Wallet wallet = wallets.get(id);
+            long amount = Money.toMinorUnits(walletDTORequest.getAmount());
+            boolean deposit = walletDTORequest.getOperationType() == OperationType.DEPOSIT;
+            if (wallet == null) {
+                results.add(OperationResult.notFound(id));
+            } else if (!deposit && wallet.getBalance() < amount) {
+                results.add(OperationResult.notEnoughBalance(id));
+            } else if (deposit && wallet.getBalance() > Long.MAX_VALUE - amount) {
+                results.add(OperationResult.balanceOverflow(id));
+            } else {
+                previousBalances.putIfAbsent(id, wallet.getBalance());
+                wallet.setBalance(deposit ? wallet.getBalance() + amount : wallet.getBalance() - amount);
+                results.add(OperationResult.applied(id, wallet.getBalance()));
+                ledger.add(new WalletOperation(id, walletDTORequest.getOperationType(), amount, wallet.getBalance()));
+                changed.put(id, wallet);
+            }
+        }
+        if (!changed.isEmpty()) {
+            walletRepository.flush();
+            changed.values().forEach(wallet -> eventPublisher.publishEvent(WalletChangedEvent.updated(
+                    wallet.getId(), previousBalances.get(wallet.getId()), wallet.getBalance(), wallet.getVersion())));
+        }
+        walletOperationRepository.appendAll(ledger);
+        return results;
+    }
+
+    public List<WalletDTOResponse> applyNetted(Map<UUID, Long> deltas)
+            throws WalletNotFoundException, WalletNotEnoughBalance {
+        List<Wallet> wallets = findAllForUpdate(deltas.keySet());
+        if (wallets.size() < deltas.size()) {
+            Set<UUID> found = wallets.stream().map(Wallet::getId).collect(Collectors.toSet());
+            UUID missing = deltas.keySet().stream().filter(id -> !found.contains(id)).findFirst().orElseThrow();
+            throw new WalletNotFoundException("Wallet with id " + missing + " not found");
+        }
+        long[] balances = new long[wallets.size()];
+        for (int i = 0; i < wallets.size(); i++) {
+            Wallet wallet = wallets.get(i);
+            balances[i] = TransferNetting.apply(wallet.getId(), wallet.getBalance(), deltas.get(wallet.getId()));
+        }
+
+        List<WalletOperation> ledger = new ArrayList<>(wallets.size());
+        for (int i = 0; i < wallets.size(); i++) {
+            Wallet wallet = wallets.get(i);
+            long delta = deltas.get(wallet.getId());
+            if (delta != 0) {
+                wallet.setBalance(balances[i]);
+                ledger.add(new WalletOperation(wallet.getId(),
+                        delta > 0 ? OperationType.DEPOSIT : OperationType.WITHDRAW, Math.abs(delta), balances[i]));
+            }
+        }
+        if (!ledger.isEmpty()) {
+            walletRepository.flush();
+            wallets.forEach(wallet -> eventPublisher.publishEvent(WalletChangedEvent.updated(wallet.getId(),
+                    wallet.getBalance() - deltas.get(wallet.getId()), wallet.getBalance(), wallet.getVersion())));
+        }
+        walletOperationRepository.appendAll(ledger);
+        return wallets.stream().map(WalletMapper::toWalletDTOResponse).collect(Collectors.toList());
+    }
+
+    private WalletDTOResponse applyAtomically(WalletDTORequest walletDTORequest)
+            throws WalletNotFoundException, WalletNotEnoughBalance {
+        UUID id = walletDTORequest.getId();
+        long amount = Money.toMinorUnits(walletDTORequest.getAmount());
+        Optional<BalanceSnapshot> snapshot = updateBalance(walletDTORequest.getOperationType(), id, amount);
+        if (snapshot.isEmpty() && !walletRepository.existsById(id)) {
+            walletTiering.promote(List.of(id));
+            snapshot = updateBalance(walletDTORequest.getOperationType(), id, amount);
+        }
+
+        if (snapshot.isEmpty()) {
+            if (!walletRepository.existsById(id)) {
+                throw new WalletNotFoundException("Wallet with id " + id + " not found");
+            }
+            if (walletDTORequest.getOperationType() == OperationType.DEPOSIT) {
+                throw new WalletBalanceOverflowException("Wallet with id " + id + " balance overflow");
+            }
+            throw new WalletNotEnoughBalance("Wallet with id " + id + " not enough balance");
+        }
+        long balance = snapshot.get().getBalance();
+        long previousBalance = walletDTORequest.getOperationType() == OperationType.DEPOSIT
+                ? balance - amount
+                : balance + amount;
+        eventPublisher.publishEvent(WalletChangedEvent.updated(id, previousBalance, balance,
+                snapshot.get().getVersion()));
+        return new WalletDTOResponse(id, snapshot.get().getBalance());
+    }
+
+    private Optional<BalanceSnapshot> updateBalance(OperationType operationType, UUID id, long amount) {
+        return operationType == OperationType.DEPOSIT
+                ? walletRepository.deposit(id, amount)
+                : walletRepository.withdraw(id, amount);
+    }
+
+    private List<Wallet> findAllForUpdate(Set<UUID> ids) {
+        List<Wallet> wallets = walletRepository.findAllByIdForUpdate(ids);
+        if (wallets.size() < ids.size()) {
+            Set<UUID> found = wallets.stream().map(Wallet::getId).collect(Collectors.toSet());
+            walletTiering.promote(ids.stream().filter(id -> !found.contains(id)).toList());
+            wallets = walletRepository.findAllByIdForUpdate(ids);
+        }
+        return wallets;
+    }
+
+    private static long deposit(Wallet wallet, long amount) {
+        try {
+            return Math.addExact(wallet.getBalance(), amount);
+        } catch (ArithmeticException e) {
+            throw new WalletBalanceOverflowException("Wallet with id " + wallet.getId() + " balance overflow");
+        }
+    }
+}
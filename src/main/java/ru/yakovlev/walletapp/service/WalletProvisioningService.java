@@ -0,0 +1,192 @@
+package ru.yakovlev.walletapp.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yakovlev.walletapp.config.WalletProperties;
+import ru.yakovlev.walletapp.config.WalletShardRouter;
+import ru.yakovlev.walletapp.dto.BulkWalletDTORequest;
+import ru.yakovlev.walletapp.dto.ProvisioningJobDTOResponse;
+import ru.yakovlev.walletapp.dto.WalletDTOResponse;
+import ru.yakovlev.walletapp.entity.OperationType;
+import ru.yakovlev.walletapp.entity.WalletOperation;
+import ru.yakovlev.walletapp.entity.WalletProvisioningJob;
+import ru.yakovlev.walletapp.exception.ProvisioningJobConflictException;
+import ru.yakovlev.walletapp.exception.ProvisioningJobNotFoundException;
+import ru.yakovlev.walletapp.exception.ProvisioningNotSupportedException;
+import ru.yakovlev.walletapp.repository.WalletOperationRepository;
+import ru.yakovlev.walletapp.repository.WalletProvisioningJobRepository;
+import ru.yakovlev.walletapp.util.Money;
+import ru.yakovlev.walletapp.util.UuidV7Generator;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+@Slf4j
+@Service
+public class WalletProvisioningService {
+
+    private static final String COPY_WALLETS_SQL =
+            "COPY wallets (wallet_id, balance, version, provisioning_job_id) FROM STDIN";
+
+    private static final String FIND_CREATED_SQL = "SELECT wallet_id, balance FROM wallets "
+            + "WHERE provisioning_job_id = ? AND wallet_id > ? "
+            + "UNION ALL SELECT wallet_id, balance FROM wallets_cold "
+            + "WHERE provisioning_job_id = ? AND wallet_id > ? ORDER BY wallet_id LIMIT ?";
+
+    private static final UUID MIN_UUID = new UUID(0, 0);
+
+    private final WalletProvisioningJobRepository jobRepository;
+
+    private final WalletOperationRepository walletOperationRepository;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final WalletShardRouter walletShardRouter;
+
+    private final WalletStatistics walletStatistics;
+
+    private final WalletProperties.Provisioning settings;
+
+    public WalletProvisioningService(WalletProvisioningJobRepository jobRepository,
+                                     WalletOperationRepository walletOperationRepository,
+                                     JdbcTemplate jdbcTemplate,
+                                     TransactionTemplate transactionTemplate,
+                                     WalletShardRouter walletShardRouter,
+                                     WalletStatistics walletStatistics,
+                                     WalletProperties walletProperties) {
+        this.jobRepository = jobRepository;
+        this.walletOperationRepository = walletOperationRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.walletShardRouter = walletShardRouter;
+        this.walletStatistics = walletStatistics;
+        this.settings = walletProperties.getProvisioning();
+    }
+
+    public ProvisioningJobDTOResponse getJob(String jobId) throws ProvisioningJobNotFoundException {
+        return jobRepository.findById(jobId)
+                .map(WalletProvisioningService::toDTO)
+                .orElseThrow(() -> new ProvisioningJobNotFoundException("Provisioning job " + jobId + " not found"));
+    }
+
+    public ProvisioningLease start(BulkWalletDTORequest request)
+            throws ProvisioningJobConflictException, ProvisioningNotSupportedException {
+        if (walletShardRouter.isSharded()) {
+            throw new ProvisioningNotSupportedException("Bulk provisioning is not supported with sharding");
+        }
+        String jobId = request.getJobId() != null ? request.getJobId() : UUID.randomUUID().toString();
+        long initialBalance = request.getInitialBalance() != null
+                ? Money.toMinorUnits(request.getInitialBalance()) : 0;
+
+        WalletProvisioningJob job = transactionTemplate.execute(status -> {
+            jobRepository.insertIfAbsent(jobId, request.getCount(), initialBalance);
+            return jobRepository.findById(jobId).orElseThrow();
+        });
+        if (job.getRequestedCount() != request.getCount() || job.getInitialBalance() != initialBalance) {
+            throw new ProvisioningJobConflictException("Provisioning job " + jobId
+                    + " was already started with different parameters");
+        }
+        String token = UUID.randomUUID().toString();
+        WalletProvisioningJob claimed = transactionTemplate.execute(status ->
+                jobRepository.claim(jobId, token, settings.getLeaseDuration().toMillis()) == 0
+                        ? null : jobRepository.findById(jobId).orElseThrow());
+        if (claimed == null) {
+            throw new ProvisioningJobConflictException("Provisioning job " + jobId + " is already running");
+        }
+        return new ProvisioningLease(toDTO(claimed), token);
+    }
+
+    public void provision(ProvisioningLease lease, Consumer<List<WalletDTOResponse>> consumer) {
+        ProvisioningJobDTOResponse job = lease.getJob();
+        try {
+            replayCreated(lease, consumer);
+            int created = job.getCreatedCount();
+            long initialBalance = Money.toMinorUnits(job.getInitialBalance());
+            while (created < job.getRequestedCount()) {
+                int size = Math.min(settings.getChunkSize(), job.getRequestedCount() - created);
+                int expected = created;
+                List<WalletDTOResponse> chunk = transactionTemplate.execute(status ->
+                        createChunk(lease, expected, size, initialBalance));
+                created += chunk.size();
+                walletStatistics.recordCreated(chunk.size(), initialBalance);
+                log.info("Provisioning job {}: {}/{} wallets created", job.getJobId(), created,
+                        job.getRequestedCount());
+                consumer.accept(chunk);
+            }
+        } finally {
+            release(lease);
+        }
+    }
+
+    private void release(ProvisioningLease lease) {
+        transactionTemplate.executeWithoutResult(status ->
+                jobRepository.release(lease.getJob().getJobId(), lease.getToken()));
+    }
+
+    private void replayCreated(ProvisioningLease lease, Consumer<List<WalletDTOResponse>> consumer) {
+        String jobId = lease.getJob().getJobId();
+        UUID after = MIN_UUID;
+        while (true) {
+            Integer renewed = transactionTemplate.execute(status ->
+                    jobRepository.renew(jobId, lease.getToken(), settings.getLeaseDuration().toMillis()));
+            if (renewed == 0) {
+                throw new IllegalStateException("Provisioning job " + jobId + " lease expired");
+            }
+            List<WalletDTOResponse> page = jdbcTemplate.query(FIND_CREATED_SQL,
+                    (rs, rowNum) -> new WalletDTOResponse(rs.getObject("wallet_id", UUID.class),
+                            rs.getLong("balance")),
+                    jobId, after, jobId, after, settings.getChunkSize());
+            if (page.isEmpty()) {
+                return;
+            }
+            after = page.get(page.size() - 1).getId();
+            consumer.accept(page);
+        }
+    }
+
+    private List<WalletDTOResponse> createChunk(ProvisioningLease lease, int expected, int size,
+                                                long initialBalance) {
+        String jobId = lease.getJob().getJobId();
+        if (jobRepository.advance(jobId, lease.getToken(), expected, size,
+                settings.getLeaseDuration().toMillis()) == 0) {
+            throw new IllegalStateException("Provisioning job " + jobId + " lease expired");
+        }
+        List<WalletDTOResponse> wallets = new ArrayList<>(size);
+        List<WalletOperation> ledger = new ArrayList<>(initialBalance > 0 ? size : 0);
+        StringBuilder rows = new StringBuilder(size * 80);
+        for (int i = 0; i < size; i++) {
+            UUID id = UuidV7Generator.next();
+            rows.append(id).append('\t').append(initialBalance).append("\t0\t").append(jobId).append('\n');
+            wallets.add(new WalletDTOResponse(id, initialBalance));
+            if (initialBalance > 0) {
+                ledger.add(new WalletOperation(id, OperationType.DEPOSIT, initialBalance, initialBalance));
+            }
+        }
+        jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            try {
+                return connection.unwrap(PGConnection.class).getCopyAPI()
+                        .copyIn(COPY_WALLETS_SQL, new StringReader(rows.toString()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        walletOperationRepository.appendAll(ledger);
+        return wallets;
+    }
+
+    private static ProvisioningJobDTOResponse toDTO(WalletProvisioningJob job) {
+        return new ProvisioningJobDTOResponse(job.getJobId(), job.getRequestedCount(), job.getCreatedCount(),
+                Money.fromMinorUnits(job.getInitialBalance()), job.getCreatedCount() >= job.getRequestedCount());
+    }
+}
@@ -1,71 +1,413 @@
 package ru.yakovlev.walletapp.service;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yakovlev.walletapp.config.WalletProperties;
+import ru.yakovlev.walletapp.config.WalletShardRouter;
+import ru.yakovlev.walletapp.dto.PageDTOResponse;
+import ru.yakovlev.walletapp.dto.TransferDTORequest;
+import ru.yakovlev.walletapp.dto.TransferDTOResponse;
 import ru.yakovlev.walletapp.dto.WalletDTORequest;
 import ru.yakovlev.walletapp.dto.WalletDTOResponse;
-import ru.yakovlev.walletapp.entity.OperationType;
+import ru.yakovlev.walletapp.dto.WalletOperationDTOResponse;
 import ru.yakovlev.walletapp.entity.Wallet;
+import ru.yakovlev.walletapp.entity.WalletOperation;
+import ru.yakovlev.walletapp.exception.CrossShardTransferException;
+import ru.yakovlev.walletapp.exception.IdempotencyKeyReusedException;
+import ru.yakovlev.walletapp.exception.InvalidCursorException;
 import ru.yakovlev.walletapp.exception.WalletNotEnoughBalance;
 import ru.yakovlev.walletapp.exception.WalletNotFoundException;
+import ru.yakovlev.walletapp.repository.ArchivedWalletRepository;
+import ru.yakovlev.walletapp.repository.WalletOperationRepository;
 import ru.yakovlev.walletapp.repository.WalletRepository;
+import ru.yakovlev.walletapp.util.CursorCodec;
+import ru.yakovlev.walletapp.util.TransferNetting;
 import ru.yakovlev.walletapp.util.WalletMapper;
 
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Transactional(readOnly = true)
 public class WalletService {
 
+    private static final Comparator<WalletDTOResponse> BY_WALLET_ID = Comparator.comparing(WalletDTOResponse::getId,
+            Comparator.comparing((UUID id) -> id.getMostSignificantBits(), Long::compareUnsigned)
+                    .thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned));
+
     private final WalletRepository walletRepository;
 
-    public WalletService(WalletRepository walletRepository) {
+    private final ArchivedWalletRepository archivedWalletRepository;
+
+    private final WalletOperationRepository walletOperationRepository;
+
+    private final WalletOperationService walletOperationService;
+
+    private final WalletOperationCoalescer walletOperationCoalescer;
+
+    private final WalletIdempotencyService walletIdempotencyService;
+
+    private final WalletBalanceCache walletBalanceCache;
+
+    private final WalletMetrics walletMetrics;
+
+    private final WalletProperties walletProperties;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final WalletShardRouter walletShardRouter;
+
+    private final ShardScatterGather shardScatterGather;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final WalletWriteBehind walletWriteBehind;
+
+    private final WalletTiering walletTiering;
+
+    public WalletService(WalletRepository walletRepository,
+                         ArchivedWalletRepository archivedWalletRepository,
+                         WalletOperationRepository walletOperationRepository,
+                         WalletOperationService walletOperationService,
+                         WalletOperationCoalescer walletOperationCoalescer,
+                         WalletIdempotencyService walletIdempotencyService,
+                         WalletBalanceCache walletBalanceCache,
+                         WalletMetrics walletMetrics,
+                         WalletProperties walletProperties,
+                         ApplicationEventPublisher eventPublisher,
+                         WalletShardRouter walletShardRouter,
+                         ShardScatterGather shardScatterGather,
+                         TransactionTemplate transactionTemplate,
+                         WalletWriteBehind walletWriteBehind,
+                         WalletTiering walletTiering) {
         this.walletRepository = walletRepository;
+        this.archivedWalletRepository = archivedWalletRepository;
+        this.walletOperationRepository = walletOperationRepository;
+        this.walletOperationService = walletOperationService;
+        this.walletOperationCoalescer = walletOperationCoalescer;
+        this.walletIdempotencyService = walletIdempotencyService;
+        this.walletBalanceCache = walletBalanceCache;
+        this.walletMetrics = walletMetrics;
+        this.walletProperties = walletProperties;
+        this.eventPublisher = eventPublisher;
+        this.walletShardRouter = walletShardRouter;
+        this.shardScatterGather = shardScatterGather;
+        this.transactionTemplate = transactionTemplate;
+        this.walletWriteBehind = walletWriteBehind;
+        this.walletTiering = walletTiering;
     }
 
     public List<WalletDTOResponse> getAllWallets() {
-        return walletRepository.findAll().stream()
-                .map(WalletMapper::toWalletDTOResponse)
+        return deduplicate(shardScatterGather.gather(() -> {
+            try (Stream<WalletDTOResponse> wallets = streamAll()) {
+                return wallets.collect(Collectors.toList());
+            }
+        }));
+    }
+
+    public PageDTOResponse<WalletDTOResponse> getWalletsPage(String cursor, int limit) throws InvalidCursorException {
+        int pageSize = Math.min(limit, walletProperties.getListing().getMaxPageSize());
+        Limit fetchLimit = Limit.of(pageSize + 1);
+        UUID after = cursor == null ? null : CursorCodec.decode(cursor);
+        List<WalletDTOResponse> wallets = deduplicate(shardScatterGather.gather(() -> findPage(after, fetchLimit)))
+                .stream()
+                .sorted(BY_WALLET_ID)
+                .limit(pageSize + 1)
                 .collect(Collectors.toList());
+
+        String nextCursor = null;
+        if (wallets.size() > pageSize) {
+            wallets = wallets.subList(0, pageSize);
+            nextCursor = CursorCodec.encode(wallets.get(pageSize - 1).getId());
+        }
+        return new PageDTOResponse<>(wallets, nextCursor);
     }
 
+    public void forEachWallet(Consumer<WalletDTOResponse> consumer) {
+        Map<String, Map<UUID, WalletDTOResponse>> misplaced = new LinkedHashMap<>();
+        shardScatterGather.forEachShard(() -> {
+            try (Stream<WalletDTOResponse> wallets = streamAll()) {
+                wallets.forEach(wallet -> {
+                    String owner = walletShardRouter.shardOf(wallet.getId());
+                    if (!walletShardRouter.isSharded() || owner.equals(walletShardRouter.currentShard())) {
+                        consumer.accept(wallet);
+                    } else {
+                        misplaced.computeIfAbsent(owner, shard -> new LinkedHashMap<>()).put(wallet.getId(), wallet);
+                    }
+                });
+            }
+        });
+        misplaced.forEach((owner, wallets) -> {
+            Set<UUID> owned = shardScatterGather.onShard(owner, () -> findExistingIds(wallets.keySet()));
+            wallets.values().stream().filter(wallet -> !owned.contains(wallet.getId())).forEach(consumer);
+        });
+    }
+
+    private List<WalletDTOResponse> deduplicate(List<List<WalletDTOResponse>> perShard) {
+        Map<UUID, WalletDTOResponse> wallets = new LinkedHashMap<>();
+        List<String> shards = walletShardRouter.getShards();
+        for (int i = 0; i < perShard.size(); i++) {
+            String shard = shards.get(i);
+            for (WalletDTOResponse wallet : perShard.get(i)) {
+                if (wallets.putIfAbsent(wallet.getId(), wallet) != null
+                        && shard.equals(walletShardRouter.shardOf(wallet.getId()))) {
+                    wallets.put(wallet.getId(), wallet);
+                }
+            }
+        }
+        return new ArrayList<>(wallets.values());
+    }
+
+    private Set<UUID> findExistingIds(Collection<UUID> ids) {
+        Set<UUID> existing = new HashSet<>();
+        List<UUID> pending = new ArrayList<>(ids);
+        int chunkSize = walletProperties.getSharding().getRebalanceBatchSize();
+        for (int from = 0; from < pending.size(); from += chunkSize) {
+            List<UUID> chunk = pending.subList(from, Math.min(from + chunkSize, pending.size()));
+            walletRepository.findAllById(chunk).forEach(wallet -> existing.add(wallet.getId()));
+            archivedWalletRepository.findAllById(chunk).forEach(wallet -> existing.add(wallet.getId()));
+        }
+        return existing;
+    }
+
+    private Stream<WalletDTOResponse> streamAll() {
+        return Stream.concat(walletRepository.streamAll(), archivedWalletRepository.streamAll());
+    }
+
+    private List<WalletDTOResponse> findPage(UUID after, Limit limit) {
+        List<WalletDTOResponse> wallets = new ArrayList<>(after == null
+                ? walletRepository.findPage(limit)
+                : walletRepository.findPageAfter(after, limit));
+        wallets.addAll(after == null
+                ? archivedWalletRepository.findPage(limit)
+                : archivedWalletRepository.findPageAfter(after, limit));
+        return wallets;
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public PageDTOResponse<WalletOperationDTOResponse> getWalletOperations(UUID id, String cursor, int limit)
+            throws WalletNotFoundException, InvalidCursorException {
+        Iterator<String> shards = walletShardRouter.candidateShards(id).iterator();
+        while (true) {
+            try (WalletShardRouter.Binding ignored = walletShardRouter.bind(shards.next())) {
+                return findWalletOperations(id, cursor, limit);
+            } catch (WalletNotFoundException e) {
+                if (!shards.hasNext()) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private PageDTOResponse<WalletOperationDTOResponse> findWalletOperations(UUID id, String cursor, int limit)
+            throws WalletNotFoundException, InvalidCursorException {
+        if (!walletRepository.existsById(id) && !walletTiering.isArchived(id)) {
+            throw new WalletNotFoundException("Wallet with id " + id + " not found");
+        }
+        int pageSize = Math.min(limit, walletProperties.getListing().getMaxPageSize());
+        List<WalletOperation> operations;
+        if (cursor == null) {
+            operations = walletOperationRepository.findLatest(id, pageSize + 1);
+        } else {
+            long[] position = CursorCodec.decodePair(cursor);
+            operations = walletOperationRepository.findLatestBefore(id,
+                    Instant.EPOCH.plus(position[0], ChronoUnit.MICROS), position[1], pageSize + 1);
+        }
+
+        String nextCursor = null;
+        if (operations.size() > pageSize) {
+            operations = operations.subList(0, pageSize);
+            WalletOperation last = operations.get(pageSize - 1);
+            nextCursor = CursorCodec.encode(ChronoUnit.MICROS.between(Instant.EPOCH, last.getCreatedAt()), last.getId());
+        }
+        return new PageDTOResponse<>(operations.stream()
+                .map(WalletMapper::toWalletOperationDTOResponse)
+                .collect(Collectors.toList()), nextCursor);
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
     public WalletDTOResponse getWalletById(UUID id) throws WalletNotFoundException {
-        Wallet walletById = walletRepository.findById(id)
-                .orElseThrow(() -> new WalletNotFoundException("Wallet with id " + id + " not found"));
-        return WalletMapper.toWalletDTOResponse(walletById);
+        if (walletWriteBehind.hasPending(id)) {
+            return walletWriteBehind.getWalletById(id);
+        }
+        WalletBalanceCache.CachedBalance cached = walletBalanceCache.get(id);
+        if (cached != null) {
+            if (cached.isDeleted()) {
+                throw new WalletNotFoundException("Wallet with id " + id + " not found");
+            }
+            return new WalletDTOResponse(id, cached.getBalance());
+        }
+        for (String shard : walletShardRouter.candidateShards(id)) {
+            try (WalletShardRouter.Binding ignored = walletShardRouter.bind(shard)) {
+                Optional<Wallet> walletById = walletTiering.findById(id);
+                if (walletById.isPresent()) {
+                    walletBalanceCache.offer(id, walletById.get().getBalance(), walletById.get().getVersion());
+                    return WalletMapper.toWalletDTOResponse(walletById.get());
+                }
+            }
+        }
+        throw new WalletNotFoundException("Wallet with id " + id + " not found");
     }
 
     @Transactional
     public WalletDTOResponse createNewWallet() {
         Wallet walletToSave = new Wallet();
         walletRepository.save(walletToSave);
+        try (WalletShardRouter.Binding ignored = walletShardRouter.bind(walletToSave.getId())) {
+            walletRepository.flush();
+        }
+        eventPublisher.publishEvent(WalletChangedEvent.created(walletToSave.getId(),
+                walletToSave.getBalance(), walletToSave.getVersion()));
         return WalletMapper.toWalletDTOResponse(walletToSave);
     }
 
     @Transactional
+    public String getSessionToken() {
+        return walletRepository.currentWalInsertLsn();
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
     public void deleteWalletById(UUID id) throws WalletNotFoundException {
-        Wallet walletToId = walletRepository.findById(id)
-                .orElseThrow(() -> new WalletNotFoundException("Wallet with id " + id + " not found"));
-        walletRepository.delete(walletToId);
+        walletWriteBehind.settle(List.of(id));
+        for (String shard : walletShardRouter.candidateShards(id)) {
+            try (WalletShardRouter.Binding ignored = walletShardRouter.bind(shard)) {
+                Boolean deleted = transactionTemplate.execute(status -> walletTiering.findById(id)
+                        .map(walletToId -> {
+                            walletRepository.delete(walletToId);
+                            eventPublisher.publishEvent(WalletChangedEvent.deleted(id, walletToId.getBalance()));
+                            return true;
+                        })
+                        .orElse(false));
+                if (Boolean.TRUE.equals(deleted)) {
+                    return;
+                }
+            }
+        }
+        throw new WalletNotFoundException("Wallet with id " + id + " not found");
     }
 
-    @Transactional
+    @Transactional(propagation = Propagation.SUPPORTS)
     public WalletDTOResponse depositOrWithdraw(WalletDTORequest walletDTORequest)
             throws WalletNotFoundException, WalletNotEnoughBalance {
-        Wallet exsistWallet = walletRepository.findById(walletDTORequest.getId())
-                .orElseThrow(() -> new WalletNotFoundException("Wallet with id " + walletDTORequest.getId() + " not found"));
-
-        if (walletDTORequest.getOperationType() == OperationType.DEPOSIT) {
-            exsistWallet.setBalance(exsistWallet.getBalance().add(walletDTORequest.getAmount()));
-        } else if (walletDTORequest.getOperationType() == OperationType.WITHDRAW) {
-            if (exsistWallet.getBalance().compareTo(walletDTORequest.getAmount()) < 0) {
-                throw new WalletNotEnoughBalance("Wallet with id " + walletDTORequest.getId() + " not enough balance");
+        WalletMetrics.OperationSample sample = walletMetrics.start(walletDTORequest);
+        try {
+            WalletDTOResponse response = applyOnOwningShard(walletDTORequest);
+            sample.applied();
+            return response;
+        } catch (Exception e) {
+            sample.failed(e);
+            throw e;
+        }
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public WalletDTOResponse depositOrWithdraw(String idempotencyKey, WalletDTORequest walletDTORequest)
+            throws WalletNotFoundException, WalletNotEnoughBalance, IdempotencyKeyReusedException {
+        WalletMetrics.OperationSample sample = walletMetrics.start(walletDTORequest);
+        try {
+            WalletDTOResponse response = applyOnceOnOwningShard(idempotencyKey, walletDTORequest);
+            sample.applied();
+            return response;
+        } catch (Exception e) {
+            sample.failed(e);
+            throw e;
+        }
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public TransferDTOResponse transfer(TransferDTORequest transferDTORequest)
+            throws WalletNotFoundException, WalletNotEnoughBalance, CrossShardTransferException {
+        List<WalletDTOResponse> wallets = applyNettedOnOwningShard(TransferNetting.net(List.of(transferDTORequest)));
+        Map<UUID, WalletDTOResponse> byId = wallets.stream()
+                .collect(Collectors.toMap(WalletDTOResponse::getId, Function.identity()));
+        return new TransferDTOResponse(byId.get(transferDTORequest.getFromWalletId()),
+                byId.get(transferDTORequest.getToWalletId()));
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<WalletDTOResponse> transferAll(List<TransferDTORequest> transferDTORequests)
+            throws WalletNotFoundException, WalletNotEnoughBalance, CrossShardTransferException {
+        if (transferDTORequests.isEmpty()) {
+            return List.of();
+        }
+        return applyNettedOnOwningShard(TransferNetting.net(transferDTORequests));
+    }
+
+    private List<WalletDTOResponse> applyNettedOnOwningShard(Map<UUID, Long> deltas)
+            throws WalletNotFoundException, WalletNotEnoughBalance, CrossShardTransferException {
+        walletWriteBehind.settle(deltas.keySet());
+        UUID first = deltas.keySet().iterator().next();
+        if (walletShardRouter.isSharded() && deltas.keySet().stream()
+                .anyMatch(id -> !walletShardRouter.shardOf(id).equals(walletShardRouter.shardOf(first)))) {
+            throw new CrossShardTransferException("Transferred wallets are stored on different shards");
+        }
+        Iterator<String> shards = walletShardRouter.candidateShards(first).iterator();
+        while (true) {
+            try (WalletShardRouter.Binding ignored = walletShardRouter.bind(shards.next())) {
+                return walletOperationService.applyNetted(deltas);
+            } catch (WalletNotFoundException e) {
+                if (!shards.hasNext()) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private WalletDTOResponse applyOnOwningShard(WalletDTORequest walletDTORequest)
+            throws WalletNotFoundException, WalletNotEnoughBalance {
+        if (walletWriteBehind.accepts(walletDTORequest)
+                && !TransactionSynchronizationManager.isActualTransactionActive()) {
+            return walletWriteBehind.deposit(walletDTORequest);
+        }
+        walletWriteBehind.settle(List.of(walletDTORequest.getId()));
+        Iterator<String> shards = walletShardRouter.candidateShards(walletDTORequest.getId()).iterator();
+        while (true) {
+            try (WalletShardRouter.Binding ignored = walletShardRouter.bind(shards.next())) {
+                return walletProperties.getCoalescing().isEnabled()
+                        && !walletShardRouter.isRebalancing()
+                        && !TransactionSynchronizationManager.isActualTransactionActive()
+                        ? walletOperationCoalescer.submit(walletDTORequest)
+                        : walletOperationService.apply(walletDTORequest);
+            } catch (WalletNotFoundException e) {
+                if (!shards.hasNext()) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private WalletDTOResponse applyOnceOnOwningShard(String idempotencyKey, WalletDTORequest walletDTORequest)
+            throws WalletNotFoundException, WalletNotEnoughBalance, IdempotencyKeyReusedException {
+        walletWriteBehind.settle(List.of(walletDTORequest.getId()));
+        Iterator<String> shards = walletShardRouter.candidateShards(walletDTORequest.getId()).iterator();
+        while (true) {
+            try (WalletShardRouter.Binding ignored = walletShardRouter.bind(shards.next())) {
+                return walletIdempotencyService.execute(idempotencyKey, walletDTORequest);
+            } catch (WalletNotFoundException e) {
+                if (!shards.hasNext()) {
+                    throw e;
+                }
             }
-            exsistWallet.setBalance(exsistWallet.getBalance().subtract(walletDTORequest.getAmount()));
         }
-        walletRepository.save(exsistWallet);
-        return WalletMapper.toWalletDTOResponse(exsistWallet);
     }
 }
@@ -0,0 +1,151 @@
+package ru.yakovlev.walletapp.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yakovlev.walletapp.config.ShardDataSources;
+import ru.yakovlev.walletapp.config.WalletProperties;
+import ru.yakovlev.walletapp.config.WalletShardRouter;
+
+import java.sql.Connection;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "wallet.sharding.enabled", havingValue = "true")
+public class WalletShardRebalancer {
+
+    private static final String COPY_OPERATIONS_SQL = "INSERT INTO wallet_operations "
+            + "(wallet_id, operation_type, amount, balance_after, created_at) "
+            + "SELECT ?::uuid, * FROM unnest(?::varchar[], ?::bigint[], ?::bigint[], ?::timestamptz[])";
+
+    private final WalletShardRouter walletShardRouter;
+
+    private final WalletStatistics walletStatistics;
+
+    private final Map<String, JdbcTemplate> jdbcTemplates = new HashMap<>();
+
+    private final Map<String, TransactionTemplate> transactionTemplates = new HashMap<>();
+
+    private final int batchSize;
+
+    public WalletShardRebalancer(ShardDataSources shardDataSources,
+                                 WalletShardRouter walletShardRouter,
+                                 WalletStatistics walletStatistics,
+                                 WalletProperties walletProperties) {
+        this.walletShardRouter = walletShardRouter;
+        this.walletStatistics = walletStatistics;
+        shardDataSources.asMap().forEach((shard, dataSource) -> {
+            jdbcTemplates.put(shard, new JdbcTemplate(dataSource));
+            transactionTemplates.put(shard, new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+        });
+        this.batchSize = walletProperties.getSharding().getRebalanceBatchSize();
+    }
+
+    public Map<String, Integer> rebalance() {
+        Map<String, Integer> moved = new LinkedHashMap<>();
+        for (String source : walletShardRouter.getShards()) {
+            JdbcTemplate sourceJdbc = jdbcTemplates.get(source);
+            int count = 0;
+            UUID after = new UUID(0, 0);
+            List<UUID> ids;
+            do {
+                ids = sourceJdbc.queryForList("SELECT wallet_id FROM wallets WHERE wallet_id > ? "
+                        + "UNION ALL SELECT wallet_id FROM wallets_cold WHERE wallet_id > ? "
+                        + "ORDER BY wallet_id LIMIT ?", UUID.class, after, after, batchSize);
+                for (UUID id : ids) {
+                    String owner = walletShardRouter.shardOf(id);
+                    if (owner.equals(source)) {
+                        continue;
+                    }
+                    Long balance = move(id, source, owner);
+                    if (balance != null) {
+                        walletStatistics.recordMoved(source, owner, balance);
+                        count++;
+                    }
+                }
+                if (!ids.isEmpty()) {
+                    after = ids.get(ids.size() - 1);
+                }
+            } while (ids.size() == batchSize);
+            log.info("Moved {} wallets off shard {}", count, source);
+            moved.put(source, count);
+        }
+        return moved;
+    }
+
+    private Long move(UUID id, String source, String target) {
+        JdbcTemplate sourceJdbc = jdbcTemplates.get(source);
+        JdbcTemplate targetJdbc = jdbcTemplates.get(target);
+        return transactionTemplates.get(source).execute(status -> {
+            sourceJdbc.update(WalletTiering.PROMOTE_SQL,
+                    ps -> ps.setArray(1, ps.getConnection().createArrayOf("uuid", new UUID[]{id})));
+            List<Map<String, Object>> wallet = sourceJdbc.queryForList(
+                    "SELECT balance, version, created_at FROM wallets WHERE wallet_id = ? FOR UPDATE", id);
+            if (wallet.isEmpty()) {
+                return null;
+            }
+            List<Map<String, Object>> operations = sourceJdbc.queryForList("SELECT operation_type, amount, "
+                    + "balance_after, created_at FROM wallet_operations WHERE wallet_id = ? "
+                    + "ORDER BY created_at, operation_id", id);
+            List<Map<String, Object>> idempotencyKeys = sourceJdbc.queryForList("SELECT idempotency_key, "
+                    + "operation_type, amount, balance, created_at FROM idempotency_keys WHERE wallet_id = ?", id);
+
+            transactionTemplates.get(target).executeWithoutResult(targetStatus -> {
+                int inserted = targetJdbc.update("INSERT INTO wallets (wallet_id, balance, version, created_at) "
+                        + "VALUES (?, ?, ?, ?) ON CONFLICT (wallet_id) DO NOTHING", id, wallet.get(0).get("balance"),
+                        wallet.get(0).get("version"), wallet.get(0).get("created_at"));
+                if (inserted == 0) {
+                    return;
+                }
+                copyOperations(targetJdbc, id, operations);
+                for (Map<String, Object> key : idempotencyKeys) {
+                    targetJdbc.update("INSERT INTO idempotency_keys "
+                                    + "(idempotency_key, wallet_id, operation_type, amount, balance, created_at) "
+                                    + "VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT (idempotency_key) DO NOTHING",
+                            key.get("idempotency_key"), id, key.get("operation_type"), key.get("amount"),
+                            key.get("balance"), key.get("created_at"));
+                }
+            });
+
+            sourceJdbc.update("DELETE FROM idempotency_keys WHERE wallet_id = ?", id);
+            sourceJdbc.update("DELETE FROM wallet_operations WHERE wallet_id = ?", id);
+            sourceJdbc.update("DELETE FROM wallets WHERE wallet_id = ?", id);
+            return ((Number) wallet.get(0).get("balance")).longValue();
+        });
+    }
+
+    private static void copyOperations(JdbcTemplate targetJdbc, UUID id, List<Map<String, Object>> operations) {
+        if (operations.isEmpty()) {
+            return;
+        }
+        int size = operations.size();
+        String[] operationTypes = new String[size];
+        Long[] amounts = new Long[size];
+        Long[] balances = new Long[size];
+        Timestamp[] createdAt = new Timestamp[size];
+        for (int i = 0; i < size; i++) {
+            Map<String, Object> operation = operations.get(i);
+            operationTypes[i] = (String) operation.get("operation_type");
+            amounts[i] = ((Number) operation.get("amount")).longValue();
+            balances[i] = ((Number) operation.get("balance_after")).longValue();
+            createdAt[i] = (Timestamp) operation.get("created_at");
+        }
+        targetJdbc.update(COPY_OPERATIONS_SQL, ps -> {
+            Connection connection = ps.getConnection();
+            ps.setObject(1, id);
+            ps.setArray(2, connection.createArrayOf("varchar", operationTypes));
+            ps.setArray(3, connection.createArrayOf("bigint", amounts));
+            ps.setArray(4, connection.createArrayOf("bigint", balances));
+            ps.setArray(5, connection.createArrayOf("timestamptz", createdAt));
+        });
+    }
+}
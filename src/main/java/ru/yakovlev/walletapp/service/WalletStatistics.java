@@ -0,0 +1,312 @@
+package ru.yakovlev.walletapp.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yakovlev.walletapp.config.WalletProperties;
+import ru.yakovlev.walletapp.config.WalletShardRouter;
+import ru.yakovlev.walletapp.dto.BalanceBucketDTOResponse;
+import ru.yakovlev.walletapp.dto.WalletStatsDTOResponse;
+import ru.yakovlev.walletapp.util.Money;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Slf4j
+@Component
+public class WalletStatistics {
+
+    private static final long[] LOWER_BOUNDS = {
+            0, 1, 100, 1_000, 10_000, 100_000, 1_000_000, 10_000_000, 100_000_000
+    };
+
+    private static final int BUCKETS = LOWER_BOUNDS.length;
+
+    private static final String BUCKET_SQL =
+            "CASE WHEN balance = 0 THEN 0 ELSE LEAST(GREATEST(length(balance::text) - 1, 1), 8) END";
+
+    private static final String INCREMENT_SQL = "INSERT INTO wallet_stats (bucket, wallet_count, balance_sum) "
+            + "VALUES (?, ?, ?) ON CONFLICT (bucket) DO UPDATE SET "
+            + "wallet_count = wallet_stats.wallet_count + excluded.wallet_count, "
+            + "balance_sum = wallet_stats.balance_sum + excluded.balance_sum";
+
+    private static final String FIND_ALL_SQL = "SELECT bucket, wallet_count, balance_sum FROM wallet_stats";
+
+    private static final String COUNT_CHUNK_SQL = "WITH chunk AS ("
+            + "SELECT wallet_id, balance FROM (SELECT wallet_id, balance FROM wallets WHERE wallet_id > ? "
+            + "UNION ALL SELECT wallet_id, balance FROM wallets_cold WHERE wallet_id > ?) w "
+            + "ORDER BY wallet_id LIMIT ?"
+            + ") SELECT " + BUCKET_SQL + " AS bucket, count(*) AS wallet_count, sum(balance) AS balance_sum, "
+            + "(SELECT max(wallet_id::text) FROM chunk) AS last_wallet_id "
+            + "FROM chunk GROUP BY 1";
+
+    private static final UUID MIN_UUID = new UUID(0, 0);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    private final WalletShardRouter walletShardRouter;
+
+    private final ShardScatterGather shardScatterGather;
+
+    private final WalletProperties.Stats settings;
+
+    private final Map<String, Stripes> pending = new ConcurrentHashMap<>();
+
+    private final Map<String, Totals> suspectedDrift = new ConcurrentHashMap<>();
+
+    private final ReadWriteLock flushLock = new ReentrantReadWriteLock();
+
+    private final Counter repairs;
+
+    public WalletStatistics(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                            WalletShardRouter walletShardRouter, ShardScatterGather shardScatterGather,
+                            WalletProperties walletProperties, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.walletShardRouter = walletShardRouter;
+        this.shardScatterGather = shardScatterGather;
+        this.settings = walletProperties.getStats();
+        this.repairs = Counter.builder("wallet.stats.repairs")
+                .description("Wallet statistics corrected by background verification")
+                .register(meterRegistry);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWalletChanged(WalletChangedEvent event) {
+        String shard = walletShardRouter.currentShard();
+        Stripes stripes = stripes(shard != null ? shard : walletShardRouter.shardOf(event.getWalletId()));
+        if (event.getPreviousBalance() != null) {
+            stripes.add(bucketOf(event.getPreviousBalance()), -1, -event.getPreviousBalance());
+        }
+        if (!event.isDeleted()) {
+            stripes.add(bucketOf(event.getBalance()), 1, event.getBalance());
+        }
+    }
+
+    public void recordCreated(int count, long balance) {
+        stripes(WalletShardRouter.DEFAULT_SHARD).add(bucketOf(balance), count, count * balance);
+    }
+
+    public void recordMoved(String source, String target, long balance) {
+        int bucket = bucketOf(balance);
+        stripes(source).add(bucket, -1, -balance);
+        stripes(target).add(bucket, 1, balance);
+    }
+
+    public WalletStatsDTOResponse getStats() {
+        Totals totals = new Totals();
+        flushLock.readLock().lock();
+        try {
+            shardScatterGather.gather(this::readRecorded).forEach(totals::add);
+            pending.values().forEach(stripes -> totals.add(stripes.snapshot()));
+        } finally {
+            flushLock.readLock().unlock();
+        }
+
+        List<BalanceBucketDTOResponse> distribution = new ArrayList<>(BUCKETS);
+        BigDecimal totalBalance = BigDecimal.ZERO;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            BigDecimal balance = totals.sums[bucket].movePointLeft(Money.SCALE);
+            distribution.add(new BalanceBucketDTOResponse(Money.fromMinorUnits(LOWER_BOUNDS[bucket]),
+                    bucket + 1 < BUCKETS ? Money.fromMinorUnits(LOWER_BOUNDS[bucket + 1]) : null,
+                    totals.counts[bucket], balance));
+            totalBalance = totalBalance.add(balance);
+        }
+        return new WalletStatsDTOResponse(Arrays.stream(totals.counts).sum(), totalBalance, distribution);
+    }
+
+    @Scheduled(fixedDelayString = "${wallet.stats.flush-interval:1s}")
+    public void flush() {
+        flushLock.writeLock().lock();
+        try {
+            pending.forEach((shard, stripes) -> {
+                Totals deltas = stripes.snapshot();
+                if (deltas.isZero()) {
+                    return;
+                }
+                try (WalletShardRouter.Binding ignored = walletShardRouter.bind(shard)) {
+                    transactionTemplate.executeWithoutResult(status -> increment(deltas));
+                } catch (RuntimeException e) {
+                    log.warn("Could not flush wallet statistics of shard {}, will retry", shard, e);
+                    return;
+                }
+                stripes.subtract(deltas);
+            });
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+    }
+
+    @Scheduled(initialDelayString = "${wallet.stats.verify-interval:10m}",
+            fixedDelayString = "${wallet.stats.verify-interval:10m}")
+    public void verify() {
+        walletShardRouter.forEachShard(this::verify);
+    }
+
+    private void verify(String shard) {
+        Totals actual = new Totals();
+        UUID after = MIN_UUID;
+        while (after != null) {
+            after = countChunk(after, actual);
+        }
+        flush();
+        Totals drift = actual.minus(readRecorded());
+        if (drift.isZero()) {
+            suspectedDrift.remove(shard);
+            return;
+        }
+        Totals previous = suspectedDrift.put(shard, drift);
+        if (drift.sameAs(previous)) {
+            transactionTemplate.executeWithoutResult(status -> increment(drift));
+            suspectedDrift.remove(shard);
+            repairs.increment();
+            log.warn("Repaired wallet statistics of shard {} by {}", shard, drift);
+        }
+    }
+
+    private UUID countChunk(UUID after, Totals actual) {
+        return readOnlyTransactionTemplate.execute(status -> {
+            String[] last = new String[1];
+            jdbcTemplate.query(COUNT_CHUNK_SQL, rs -> {
+                actual.add(rs.getInt("bucket"), rs.getLong("wallet_count"), rs.getBigDecimal("balance_sum"));
+                last[0] = rs.getString("last_wallet_id");
+            }, after, after, settings.getVerifyChunkSize());
+            return last[0] == null ? null : UUID.fromString(last[0]);
+        });
+    }
+
+    private Totals readRecorded() {
+        Totals recorded = new Totals();
+        jdbcTemplate.query(FIND_ALL_SQL, rs -> {
+            recorded.add(rs.getInt("bucket"), rs.getLong("wallet_count"), rs.getBigDecimal("balance_sum"));
+        });
+        return recorded;
+    }
+
+    private void increment(Totals deltas) {
+        List<Object[]> rows = new ArrayList<>(BUCKETS);
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            if (deltas.counts[bucket] != 0 || deltas.sums[bucket].signum() != 0) {
+                rows.add(new Object[]{bucket, deltas.counts[bucket], deltas.sums[bucket]});
+            }
+        }
+        jdbcTemplate.batchUpdate(INCREMENT_SQL, rows);
+    }
+
+    private Stripes stripes(String shard) {
+        return pending.computeIfAbsent(shard, key -> new Stripes());
+    }
+
+    static int bucketOf(long balance) {
+        int bucket = BUCKETS - 1;
+        while (balance < LOWER_BOUNDS[bucket]) {
+            bucket--;
+        }
+        return bucket;
+    }
+
+    private static final class Stripes {
+
+        private final LongAdder[] counts = new LongAdder[BUCKETS];
+
+        private final LongAdder[] sums = new LongAdder[BUCKETS];
+
+        private Stripes() {
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                counts[bucket] = new LongAdder();
+                sums[bucket] = new LongAdder();
+            }
+        }
+
+        private void add(int bucket, long count, long sum) {
+            counts[bucket].add(count);
+            sums[bucket].add(sum);
+        }
+
+        private Totals snapshot() {
+            Totals totals = new Totals();
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                totals.add(bucket, counts[bucket].sum(), BigDecimal.valueOf(sums[bucket].sum()));
+            }
+            return totals;
+        }
+
+        private void subtract(Totals flushed) {
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                counts[bucket].add(-flushed.counts[bucket]);
+                sums[bucket].add(-flushed.sums[bucket].longValueExact());
+            }
+        }
+    }
+
+    private static final class Totals {
+
+        private final long[] counts = new long[BUCKETS];
+
+        private final BigDecimal[] sums = new BigDecimal[BUCKETS];
+
+        private Totals() {
+            Arrays.fill(sums, BigDecimal.ZERO);
+        }
+
+        private void add(int bucket, long count, BigDecimal sum) {
+            counts[bucket] += count;
+            sums[bucket] = sums[bucket].add(sum);
+        }
+
+        private void add(Totals other) {
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                add(bucket, other.counts[bucket], other.sums[bucket]);
+            }
+        }
+
+        private Totals minus(Totals other) {
+            Totals difference = new Totals();
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                difference.add(bucket, counts[bucket] - other.counts[bucket],
+                        sums[bucket].subtract(other.sums[bucket]));
+            }
+            return difference;
+        }
+
+        private boolean isZero() {
+            return sameAs(new Totals());
+        }
+
+        private boolean sameAs(Totals other) {
+            if (other == null) {
+                return false;
+            }
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                if (counts[bucket] != other.counts[bucket] || sums[bucket].compareTo(other.sums[bucket]) != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return "counts " + Arrays.toString(counts) + ", sums " + Arrays.toString(sums);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package ru.yakovlev.walletapp.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yakovlev.walletapp.config.WalletProperties;
+import ru.yakovlev.walletapp.config.WalletShardRouter;
+import ru.yakovlev.walletapp.entity.Wallet;
+import ru.yakovlev.walletapp.repository.ArchivedWalletRepository;
+import ru.yakovlev.walletapp.repository.WalletRepository;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+@Component
+public class WalletTiering {
+
+    static final String PROMOTE_SQL = "WITH promoted AS ("
+            + "DELETE FROM wallets_cold WHERE wallet_id = ANY(?::uuid[]) "
+            + "RETURNING wallet_id, balance, version, provisioning_job_id, created_at"
+            + ") INSERT INTO wallets (wallet_id, balance, version, provisioning_job_id, created_at, promoted_at) "
+            + "SELECT wallet_id, balance, version, provisioning_job_id, created_at, now() FROM promoted";
+
+    private static final String SCAN_SQL = "SELECT wallet_id FROM wallets WHERE wallet_id > ? AND created_at < ? "
+            + "ORDER BY wallet_id LIMIT ?";
+
+    private static final String ARCHIVE_SQL = "WITH dormant AS ("
+            + "SELECT w.wallet_id FROM wallets w "
+            + "WHERE w.wallet_id = ANY(?::uuid[]) AND (w.promoted_at IS NULL OR w.promoted_at < ?) "
+            + "AND NOT EXISTS (SELECT 1 FROM wallet_operations o "
+            + "WHERE o.wallet_id = w.wallet_id AND o.created_at >= ?) "
+            + "FOR UPDATE OF w SKIP LOCKED"
+            + "), archived AS ("
+            + "DELETE FROM wallets w USING dormant d WHERE w.wallet_id = d.wallet_id "
+            + "RETURNING w.wallet_id, w.balance, w.version, w.provisioning_job_id, w.created_at"
+            + ") INSERT INTO wallets_cold (wallet_id, balance, version, provisioning_job_id, created_at) "
+            + "SELECT wallet_id, balance, version, provisioning_job_id, created_at FROM archived";
+
+    private static final String SIZES_SQL = "SELECT relname, pg_total_relation_size(oid) AS bytes, "
+            + "GREATEST(reltuples, 0)::bigint AS wallets FROM pg_class "
+            + "WHERE oid IN ('wallets'::regclass, 'wallets_cold'::regclass)";
+
+    private static final UUID MIN_UUID = new UUID(0, 0);
+
+    private final WalletRepository walletRepository;
+
+    private final ArchivedWalletRepository archivedWalletRepository;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final WalletShardRouter walletShardRouter;
+
+    private final ShardScatterGather shardScatterGather;
+
+    private final WalletProperties.Tiering settings;
+
+    private final Clock clock = Clock.systemUTC();
+
+    private final Map<String, AtomicLong> bytes = Map.of("hot", new AtomicLong(), "cold", new AtomicLong());
+
+    private final Map<String, AtomicLong> wallets = Map.of("hot", new AtomicLong(), "cold", new AtomicLong());
+
+    private final Counter archived;
+
+    private final Counter promoted;
+
+    public WalletTiering(WalletRepository walletRepository, ArchivedWalletRepository archivedWalletRepository,
+                         JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                         WalletShardRouter walletShardRouter, ShardScatterGather shardScatterGather,
+                         WalletProperties walletProperties, MeterRegistry meterRegistry) {
+        this.walletRepository = walletRepository;
+        this.archivedWalletRepository = archivedWalletRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.walletShardRouter = walletShardRouter;
+        this.shardScatterGather = shardScatterGather;
+        this.settings = walletProperties.getTiering();
+        for (String tier : List.of("hot", "cold")) {
+            Gauge.builder("wallet.tiering.size", bytes.get(tier), AtomicLong::get)
+                    .description("Disk size of a wallet storage tier")
+                    .tag("tier", tier)
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+            Gauge.builder("wallet.tiering.wallets", wallets.get(tier), AtomicLong::get)
+                    .description("Estimated number of wallets in a storage tier")
+                    .tag("tier", tier)
+                    .register(meterRegistry);
+        }
+        this.archived = Counter.builder("wallet.tiering.archived")
+                .description("Dormant wallets moved to the cold tier")
+                .register(meterRegistry);
+        this.promoted = Counter.builder("wallet.tiering.promoted")
+                .description("Archived wallets moved back to the hot tier on access")
+                .register(meterRegistry);
+    }
+
+    public Optional<Wallet> findById(UUID id) {
+        Optional<Wallet> wallet = walletRepository.findById(id);
+        if (wallet.isPresent()) {
+            return wallet;
+        }
+        promote(List.of(id));
+        return walletRepository.findById(id);
+    }
+
+    public int promote(Collection<UUID> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        UUID[] walletIds = ids.toArray(new UUID[0]);
+        int moved = jdbcTemplate.update(PROMOTE_SQL,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("uuid", walletIds)));
+        promoted.increment(moved);
+        return moved;
+    }
+
+    public boolean isArchived(UUID id) {
+        return archivedWalletRepository.existsById(id);
+    }
+
+    @Scheduled(initialDelayString = "${wallet.tiering.archive-interval:1h}",
+            fixedDelayString = "${wallet.tiering.archive-interval:1h}")
+    public void archive() {
+        if (settings.isEnabled()) {
+            Instant activeSince = clock.instant().minus(settings.getDormantAfter());
+            walletShardRouter.forEachShard(shard -> {
+                try {
+                    int count = archiveDormant(activeSince);
+                    if (count > 0) {
+                        log.info("Archived {} dormant wallets on shard {}", count, shard);
+                    }
+                } catch (DataAccessException e) {
+                    log.warn("Could not archive dormant wallets on shard {}", shard, e);
+                }
+            });
+        }
+        refreshSizes();
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void refreshSizes() {
+        long[] totals = new long[4];
+        try {
+            shardScatterGather.gather(this::readSizes).forEach(sizes -> {
+                for (int i = 0; i < totals.length; i++) {
+                    totals[i] += sizes[i];
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Could not read wallet tier sizes", e);
+            return;
+        }
+        bytes.get("hot").set(totals[0]);
+        wallets.get("hot").set(totals[1]);
+        bytes.get("cold").set(totals[2]);
+        wallets.get("cold").set(totals[3]);
+    }
+
+    private int archiveDormant(Instant activeSince) {
+        Timestamp since = Timestamp.from(activeSince);
+        int count = 0;
+        UUID after = MIN_UUID;
+        List<UUID> ids;
+        do {
+            ids = jdbcTemplate.queryForList(SCAN_SQL, UUID.class, after, since, settings.getBatchSize());
+            if (!ids.isEmpty()) {
+                UUID[] batch = ids.toArray(new UUID[0]);
+                Integer moved = transactionTemplate.execute(status -> jdbcTemplate.update(ARCHIVE_SQL, ps -> {
+                    ps.setArray(1, ps.getConnection().createArrayOf("uuid", batch));
+                    ps.setTimestamp(2, since);
+                    ps.setTimestamp(3, since);
+                }));
+                archived.increment(moved);
+                count += moved;
+                after = ids.get(ids.size() - 1);
+            }
+        } while (ids.size() == settings.getBatchSize());
+        return count;
+    }
+
+    private long[] readSizes() {
+        long[] sizes = new long[4];
+        jdbcTemplate.query(SIZES_SQL, rs -> {
+            int offset = "wallets".equals(rs.getString("relname")) ? 0 : 2;
+            sizes[offset] = rs.getLong("bytes");
+            sizes[offset + 1] = rs.getLong("wallets");
+        });
+        return sizes;
+    }
+}
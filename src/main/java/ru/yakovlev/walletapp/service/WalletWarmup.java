@@ -0,0 +1,83 @@
+package ru.yakovlev.walletapp.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.env.Environment;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+import ru.yakovlev.walletapp.config.WalletProperties;
+import ru.yakovlev.walletapp.entity.OperationType;
+import ru.yakovlev.walletapp.util.WarmupRequests;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class WalletWarmup implements ApplicationRunner {
+
+    private static final String OPERATION_BODY = "{\"id\":\"%s\",\"operationType\":\"%s\",\"amount\":1}";
+
+    private final WalletProperties.Warmup settings;
+
+    private final Environment environment;
+
+    private volatile int completedIterations;
+
+    public WalletWarmup(WalletProperties walletProperties, Environment environment) {
+        this.settings = walletProperties.getWarmup();
+        this.environment = environment;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        String port = environment.getProperty("local.server.port");
+        if (!settings.isEnabled() || port == null) {
+            return;
+        }
+        RestClient client = RestClient.builder()
+                .requestFactory(new JdkClientHttpRequestFactory())
+                .baseUrl("http://localhost:" + port + "/api/v1")
+                .defaultHeader(WarmupRequests.HEADER, WarmupRequests.TOKEN)
+                .build();
+        long started = System.nanoTime();
+        long deadline = started + settings.getMaxDuration().toNanos();
+        int iterations = 0;
+        try {
+            while (iterations < settings.getIterations() && System.nanoTime() < deadline) {
+                exercise(client, UUID.randomUUID());
+                completedIterations = ++iterations;
+            }
+        } catch (RestClientException e) {
+            log.warn("Warm-up stopped after {} iterations", iterations, e);
+        }
+        log.info("Warm-up finished: {} iterations in {} ms", iterations,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    int getCompletedIterations() {
+        return completedIterations;
+    }
+
+    private void exercise(RestClient client, UUID missingWalletId) {
+        exchange(client.get().uri("/wallets/{id}", missingWalletId));
+        exchange(client.get().uri("/wallets/{id}/operations?limit=10", missingWalletId));
+        exchange(client.get().uri("/wallets?limit=10"));
+        for (OperationType operationType : OperationType.values()) {
+            exchange(client.put().uri("/wallet")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(String.format(OPERATION_BODY, missingWalletId, operationType)));
+        }
+        exchange(client.put().uri("/wallet").contentType(MediaType.APPLICATION_JSON).body("{}"));
+    }
+
+    private static void exchange(RestClient.RequestHeadersSpec<?> request) {
+        request.exchange((clientRequest, response) -> response.getStatusCode());
+    }
+}
@@ -0,0 +1,297 @@
+package ru.yakovlev.walletapp.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yakovlev.walletapp.config.WalletProperties;
+import ru.yakovlev.walletapp.config.WalletShardRouter;
+import ru.yakovlev.walletapp.dto.WalletDTORequest;
+import ru.yakovlev.walletapp.dto.WalletDTOResponse;
+import ru.yakovlev.walletapp.entity.OperationType;
+import ru.yakovlev.walletapp.entity.Wallet;
+import ru.yakovlev.walletapp.entity.WalletOperation;
+import ru.yakovlev.walletapp.entity.WriteBehindCheckpoint;
+import ru.yakovlev.walletapp.exception.WalletBalanceOverflowException;
+import ru.yakovlev.walletapp.exception.WalletNotFoundException;
+import ru.yakovlev.walletapp.repository.WalletOperationRepository;
+import ru.yakovlev.walletapp.repository.WalletRepository;
+import ru.yakovlev.walletapp.repository.WriteBehindCheckpointRepository;
+import ru.yakovlev.walletapp.util.Money;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Slf4j
+@Component
+public class WalletWriteBehind {
+
+    private final WalletRepository walletRepository;
+
+    private final WalletOperationRepository walletOperationRepository;
+
+    private final WriteBehindCheckpointRepository checkpointRepository;
+
+    private final WalletBalanceCache walletBalanceCache;
+
+    private final WalletTiering walletTiering;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final WalletProperties.WriteBehind settings;
+
+    private final boolean enabled;
+
+    private final Queue<WalletOperationLog.Entry> unflushed = new ConcurrentLinkedQueue<>();
+
+    private final Map<UUID, Long> pending = new ConcurrentHashMap<>();
+
+    private final ReadWriteLock flushLock = new ReentrantReadWriteLock();
+
+    private final ReentrantLock drainLock = new ReentrantLock();
+
+    private WalletOperationLog operationLog;
+
+    private ScheduledExecutorService flusher;
+
+    public WalletWriteBehind(WalletRepository walletRepository,
+                             WalletOperationRepository walletOperationRepository,
+                             WriteBehindCheckpointRepository checkpointRepository,
+                             WalletBalanceCache walletBalanceCache,
+                             WalletTiering walletTiering,
+                             ApplicationEventPublisher eventPublisher,
+                             PlatformTransactionManager transactionManager,
+                             WalletProperties walletProperties,
+                             WalletShardRouter walletShardRouter) {
+        this.walletRepository = walletRepository;
+        this.walletOperationRepository = walletOperationRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.walletBalanceCache = walletBalanceCache;
+        this.walletTiering = walletTiering;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.settings = walletProperties.getWriteBehind();
+        this.enabled = settings.isEnabled() && !walletShardRouter.isSharded();
+        if (settings.isEnabled() && walletShardRouter.isSharded()) {
+            log.warn("Write-behind deposits are not supported with sharding and stay disabled");
+        }
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        long applied = checkpointRepository.findById(settings.getLogId())
+                .map(WriteBehindCheckpoint::getAppliedSequence)
+                .orElse(0L);
+        operationLog = new WalletOperationLog(settings.getDirectory(), settings.getSegmentSize().toBytes(), applied);
+        for (WalletOperationLog.Entry entry : operationLog.recoveredEntries()) {
+            pending.merge(entry.getWalletId(), entry.getAmount(), Math::addExact);
+            unflushed.add(entry);
+        }
+        if (!unflushed.isEmpty()) {
+            log.info("Replaying {} write-behind deposits after sequence {}", unflushed.size(), applied);
+        }
+        flush();
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "wallet-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = settings.getFlushInterval().toMillis();
+        flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (!enabled) {
+            return;
+        }
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(settings.getFlushInterval().toMillis() * 10, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushQuietly();
+        operationLog.close();
+    }
+
+    public boolean accepts(WalletDTORequest walletDTORequest) {
+        return enabled && walletDTORequest.getOperationType() == OperationType.DEPOSIT;
+    }
+
+    public WalletDTOResponse deposit(WalletDTORequest walletDTORequest) throws WalletNotFoundException {
+        UUID id = walletDTORequest.getId();
+        long amount = Money.toMinorUnits(walletDTORequest.getAmount());
+        long sequence;
+        long balance;
+        flushLock.readLock().lock();
+        try {
+            long flushed = flushedBalance(id);
+            long credited = pending.merge(id, amount, Math::addExact);
+            try {
+                balance = Math.addExact(flushed, credited);
+            } catch (ArithmeticException e) {
+                pending.merge(id, -amount, (current, delta) -> current + delta == 0 ? null : current + delta);
+                throw new WalletBalanceOverflowException("Wallet with id " + id + " balance overflow");
+            }
+            Instant appendedAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+            synchronized (unflushed) {
+                sequence = operationLog.append(id, amount, appendedAt);
+                unflushed.add(new WalletOperationLog.Entry(sequence, id, amount, appendedAt));
+            }
+        } finally {
+            flushLock.readLock().unlock();
+        }
+        operationLog.sync(sequence);
+        return new WalletDTOResponse(id, balance);
+    }
+
+    public boolean hasPending(UUID id) {
+        return enabled && pending.containsKey(id);
+    }
+
+    public WalletDTOResponse getWalletById(UUID id) throws WalletNotFoundException {
+        flushLock.readLock().lock();
+        try {
+            return new WalletDTOResponse(id, Math.addExact(flushedBalance(id), pending.getOrDefault(id, 0L)));
+        } finally {
+            flushLock.readLock().unlock();
+        }
+    }
+
+    public void settle(Collection<UUID> ids) {
+        if (enabled && ids.stream().anyMatch(pending::containsKey)) {
+            flush();
+        }
+    }
+
+    public void settle() {
+        if (enabled && !pending.isEmpty()) {
+            flush();
+        }
+    }
+
+    public void flush() {
+        drainLock.lock();
+        try {
+            while (!unflushed.isEmpty()) {
+                List<WalletOperationLog.Entry> batch = new ArrayList<>();
+                Iterator<WalletOperationLog.Entry> entries = unflushed.iterator();
+                while (batch.size() < settings.getFlushBatchSize() && entries.hasNext()) {
+                    batch.add(entries.next());
+                }
+                apply(batch);
+                batch.forEach(entry -> unflushed.poll());
+            }
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Write-behind flush failed, will retry", e);
+        }
+    }
+
+    private void apply(List<WalletOperationLog.Entry> batch) {
+        Map<UUID, Long> credits = new LinkedHashMap<>();
+        batch.forEach(entry -> credits.merge(entry.getWalletId(), entry.getAmount(), Math::addExact));
+        long appliedSequence = batch.get(batch.size() - 1).getSequence();
+
+        flushLock.writeLock().lock();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Map<UUID, Wallet> wallets = new HashMap<>();
+                walletRepository.creditAll(credits).forEach(wallet -> wallets.put(wallet.getId(), wallet));
+                if (wallets.size() < credits.size()) {
+                    Map<UUID, Long> archived = new LinkedHashMap<>(credits);
+                    archived.keySet().removeAll(wallets.keySet());
+                    walletTiering.promote(archived.keySet());
+                    walletRepository.creditAll(archived).forEach(wallet -> wallets.put(wallet.getId(), wallet));
+                }
+                walletOperationRepository.appendAll(ledger(batch, wallets));
+                checkpointRepository.upsert(settings.getLogId(), appliedSequence);
+                wallets.values().forEach(wallet -> eventPublisher.publishEvent(WalletChangedEvent.updated(
+                        wallet.getId(), wallet.getBalance() - credits.get(wallet.getId()), wallet.getBalance(),
+                        wallet.getVersion())));
+                if (wallets.size() < credits.size()) {
+                    credits.keySet().stream().filter(id -> !wallets.containsKey(id)).forEach(id ->
+                            log.warn("Dropping write-behind deposits to missing wallet {}", id));
+                }
+            });
+            credits.forEach((id, amount) -> pending.merge(id, -amount,
+                    (current, delta) -> current + delta == 0 ? null : current + delta));
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+        operationLog.truncate(appliedSequence);
+    }
+
+    private List<WalletOperation> ledger(List<WalletOperationLog.Entry> batch, Map<UUID, Wallet> wallets) {
+        Map<UUID, Long> balances = new HashMap<>();
+        wallets.values().forEach(wallet -> balances.put(wallet.getId(), wallet.getBalance()));
+        WalletOperation[] operations = new WalletOperation[batch.size()];
+        for (int i = batch.size() - 1; i >= 0; i--) {
+            WalletOperationLog.Entry entry = batch.get(i);
+            Long balanceAfter = balances.get(entry.getWalletId());
+            if (balanceAfter != null) {
+                operations[i] = new WalletOperation(entry.getWalletId(), OperationType.DEPOSIT, entry.getAmount(),
+                        balanceAfter);
+                operations[i].setCreatedAt(entry.getAppendedAt());
+                balances.put(entry.getWalletId(), balanceAfter - entry.getAmount());
+            }
+        }
+        List<WalletOperation> ledger = new ArrayList<>(batch.size());
+        for (WalletOperation operation : operations) {
+            if (operation != null) {
+                ledger.add(operation);
+            }
+        }
+        return ledger;
+    }
+
+    private long flushedBalance(UUID id) throws WalletNotFoundException {
+        WalletBalanceCache.CachedBalance cached = walletBalanceCache.get(id);
+        if (cached != null) {
+            if (cached.isDeleted()) {
+                throw new WalletNotFoundException("Wallet with id " + id + " not found");
+            }
+            return Money.toMinorUnits(cached.getBalance());
+        }
+        Wallet wallet = walletTiering.findById(id)
+                .orElseThrow(() -> new WalletNotFoundException("Wallet with id " + id + " not found"));
+        walletBalanceCache.offer(id, wallet.getBalance(), wallet.getVersion());
+        return wallet.getBalance();
+    }
+}
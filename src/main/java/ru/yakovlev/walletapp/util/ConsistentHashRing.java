@@ -0,0 +1,36 @@
+package ru.yakovlev.walletapp.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.UUID;
+
+public class ConsistentHashRing {
+
+    private final NavigableMap<Long, String> ring = new TreeMap<>();
+
+    public ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("Hash ring needs at least one node");
+        }
+        for (String node : nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                UUID point = UUID.nameUUIDFromBytes((node + '#' + i).getBytes(StandardCharsets.UTF_8));
+                ring.put(mix(point.getMostSignificantBits() ^ point.getLeastSignificantBits()), node);
+            }
+        }
+    }
+
+    public String nodeFor(UUID key) {
+        Map.Entry<Long, String> entry = ring.ceilingEntry(mix(key.getMostSignificantBits() ^ key.getLeastSignificantBits()));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+}
@@ -0,0 +1,40 @@
+package ru.yakovlev.walletapp.util;
+
+import ru.yakovlev.walletapp.exception.InvalidCursorException;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.UUID;
+
+public class CursorCodec {
+
+    public static String encode(UUID id) {
+        return encode(id.getMostSignificantBits(), id.getLeastSignificantBits());
+    }
+
+    public static String encode(long first, long second) {
+        ByteBuffer buffer = ByteBuffer.allocate(16);
+        buffer.putLong(first);
+        buffer.putLong(second);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    public static UUID decode(String cursor) throws InvalidCursorException {
+        long[] values = decodePair(cursor);
+        return new UUID(values[0], values[1]);
+    }
+
+    public static long[] decodePair(String cursor) throws InvalidCursorException {
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Invalid cursor");
+        }
+        if (bytes.length != 16) {
+            throw new InvalidCursorException("Invalid cursor");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new long[]{buffer.getLong(), buffer.getLong()};
+    }
+}
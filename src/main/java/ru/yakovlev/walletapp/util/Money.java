@@ -0,0 +1,18 @@
+package ru.yakovlev.walletapp.util;
+
+import java.math.BigDecimal;
+
+public class Money {
+
+    public static final int SCALE = 2;
+
+    public static final int MAX_INTEGER_DIGITS = 16;
+
+    public static long toMinorUnits(BigDecimal amount) {
+        return amount.movePointRight(SCALE).longValueExact();
+    }
+
+    public static BigDecimal fromMinorUnits(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+}
@@ -0,0 +1,44 @@
+package ru.yakovlev.walletapp.util;
+
+import ru.yakovlev.walletapp.dto.TransferDTORequest;
+import ru.yakovlev.walletapp.exception.WalletBalanceOverflowException;
+import ru.yakovlev.walletapp.exception.WalletNotEnoughBalance;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+public class TransferNetting {
+
+    public static Map<UUID, Long> net(Collection<TransferDTORequest> transfers) {
+        Map<UUID, Long> deltas = new TreeMap<>();
+        for (TransferDTORequest transfer : transfers) {
+            long amount = Money.toMinorUnits(transfer.getAmount());
+            add(deltas, transfer.getFromWalletId(), -amount);
+            add(deltas, transfer.getToWalletId(), amount);
+        }
+        return deltas;
+    }
+
+    public static long apply(UUID walletId, long balance, long delta) throws WalletNotEnoughBalance {
+        long result;
+        try {
+            result = Math.addExact(balance, delta);
+        } catch (ArithmeticException e) {
+            throw new WalletBalanceOverflowException("Wallet with id " + walletId + " balance overflow");
+        }
+        if (result < 0) {
+            throw new WalletNotEnoughBalance("Wallet with id " + walletId + " not enough balance");
+        }
+        return result;
+    }
+
+    private static void add(Map<UUID, Long> deltas, UUID walletId, long amount) {
+        try {
+            deltas.merge(walletId, amount, Math::addExact);
+        } catch (ArithmeticException e) {
+            throw new WalletBalanceOverflowException("Wallet with id " + walletId + " balance overflow");
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package ru.yakovlev.walletapp.util;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.uuid.UuidValueGenerator;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class UuidV7Generator implements UuidValueGenerator {
+
+    private static final int SEQUENCE_BITS = 12;
+
+    private static final AtomicLong LAST_TIMESTAMP_AND_SEQUENCE = new AtomicLong();
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    public static UUID next() {
+        long timestampAndSequence = nextTimestampAndSequence();
+        long mostSigBits = (timestampAndSequence >>> SEQUENCE_BITS) << 16
+                | 0x7000L
+                | (timestampAndSequence & 0xFFFL);
+        long leastSigBits = RANDOM.nextLong() & 0x3FFFFFFFFFFFFFFFL | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+    public static UUID lowerBound(long epochMillis) {
+        return new UUID(epochMillis << 16 | 0x7000L, 0);
+    }
+
+    @Override
+    public UUID generateUuid(SharedSessionContractImplementor session) {
+        return next();
+    }
+
+    private static long nextTimestampAndSequence() {
+        long now = System.currentTimeMillis() << SEQUENCE_BITS;
+        while (true) {
+            long last = LAST_TIMESTAMP_AND_SEQUENCE.get();
+            long next = now > last ? now : last + 1;
+            if (LAST_TIMESTAMP_AND_SEQUENCE.compareAndSet(last, next)) {
+                return next;
+            }
+        }
+    }
+}
@@ -1,14 +1,26 @@
 package ru.yakovlev.walletapp.util;
 
 import ru.yakovlev.walletapp.dto.WalletDTOResponse;
+import ru.yakovlev.walletapp.dto.WalletOperationDTOResponse;
 import ru.yakovlev.walletapp.entity.Wallet;
+import ru.yakovlev.walletapp.entity.WalletOperation;
 
 public class WalletMapper {
 
     public static WalletDTOResponse toWalletDTOResponse(Wallet wallet) {
         WalletDTOResponse walletDTOResponse = new WalletDTOResponse();
         walletDTOResponse.setId(wallet.getId());
-        walletDTOResponse.setBalance(wallet.getBalance());
+        walletDTOResponse.setBalance(Money.fromMinorUnits(wallet.getBalance()));
         return walletDTOResponse;
     }
+
+    public static WalletOperationDTOResponse toWalletOperationDTOResponse(WalletOperation operation) {
+        WalletOperationDTOResponse operationDTOResponse = new WalletOperationDTOResponse();
+        operationDTOResponse.setOperationId(operation.getId());
+        operationDTOResponse.setOperationType(operation.getOperationType());
+        operationDTOResponse.setAmount(Money.fromMinorUnits(operation.getAmount()));
+        operationDTOResponse.setBalanceAfter(Money.fromMinorUnits(operation.getBalanceAfter()));
+        operationDTOResponse.setCreatedAt(operation.getCreatedAt());
+        return operationDTOResponse;
+    }
 }
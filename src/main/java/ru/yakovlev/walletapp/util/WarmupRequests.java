@@ -0,0 +1,23 @@
+package ru.yakovlev.walletapp.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.UUID;
+
+public class WarmupRequests {
+
+    public static final String HEADER = "X-Wallet-Warmup";
+
+    public static final String TOKEN = UUID.randomUUID().toString();
+
+    public static boolean isWarmup(HttpServletRequest request) {
+        return TOKEN.equals(request.getHeader(HEADER));
+    }
+
+    public static boolean isCurrentWarmup() {
+        return RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                && isWarmup(attributes.getRequest());
+    }
+}
@@ -0,0 +1,94 @@
+package ru.yakovlev.walletapp;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.NestedTestConfiguration;
+import ru.yakovlev.walletapp.service.WalletService;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+import static org.springframework.test.context.NestedTestConfiguration.EnclosingConfiguration.OVERRIDE;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ReactiveStackBenchmark {
+
+    private static EmbeddedPostgres postgres;
+
+    private final List<String> results = new ArrayList<>();
+
+    @BeforeAll
+    static void startDatabase() throws IOException {
+        postgres = EmbeddedPostgres.start();
+    }
+
+    @AfterAll
+    void printComparison() throws IOException {
+        results.forEach(System.out::println);
+        postgres.close();
+    }
+
+    static void database(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+        registry.add("spring.r2dbc.url", () -> "r2dbc:postgresql://localhost:" + postgres.getPort() + "/postgres");
+        registry.add("spring.r2dbc.username", () -> "postgres");
+        registry.add("spring.r2dbc.password", () -> "postgres");
+    }
+
+    @Nested
+    @NestedTestConfiguration(OVERRIDE)
+    @SpringBootTest(webEnvironment = RANDOM_PORT, properties = "spring.main.web-application-type=servlet")
+    class ServletJpa {
+
+        @LocalServerPort
+        private int port;
+
+        @Autowired
+        private WalletService walletService;
+
+        @DynamicPropertySource
+        static void properties(DynamicPropertyRegistry registry) {
+            database(registry);
+        }
+
+        @Test
+        void deposits() throws Exception {
+            results.add(RequestThreadingBenchmark.measure("spring mvc + jpa", port, walletService));
+        }
+    }
+
+    @Nested
+    @NestedTestConfiguration(OVERRIDE)
+    @SpringBootTest(webEnvironment = RANDOM_PORT, properties = "spring.main.web-application-type=reactive")
+    class WebFluxR2dbc {
+
+        @LocalServerPort
+        private int port;
+
+        @Autowired
+        private WalletService walletService;
+
+        @DynamicPropertySource
+        static void properties(DynamicPropertyRegistry registry) {
+            database(registry);
+        }
+
+        @Test
+        void deposits() throws Exception {
+            results.add(RequestThreadingBenchmark.measure("webflux + r2dbc", port, walletService));
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package ru.yakovlev.walletapp;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import ru.yakovlev.walletapp.dto.OperationStatus;
+import ru.yakovlev.walletapp.dto.WalletDTORequest;
+import ru.yakovlev.walletapp.dto.WalletDTOResponse;
+import ru.yakovlev.walletapp.dto.WalletOperationResultDTO;
+import ru.yakovlev.walletapp.dto.WalletStatsDTOResponse;
+import ru.yakovlev.walletapp.entity.OperationType;
+import ru.yakovlev.walletapp.service.WalletStatistics;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+@SpringBootTest(webEnvironment = RANDOM_PORT, properties = "spring.main.web-application-type=reactive")
+class ReactiveWalletAppTest {
+
+    private static EmbeddedPostgres postgres;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private WalletStatistics walletStatistics;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) throws IOException {
+        postgres = EmbeddedPostgres.start();
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+        registry.add("spring.r2dbc.url", () -> "r2dbc:postgresql://localhost:" + postgres.getPort() + "/postgres");
+        registry.add("spring.r2dbc.username", () -> "postgres");
+        registry.add("spring.r2dbc.password", () -> "postgres");
+    }
+
+    @AfterAll
+    static void stopDatabase() throws IOException {
+        postgres.close();
+    }
+
+    @Test
+    void concurrentWithdrawals_ShouldNeverOverdraw() {
+        UUID id = createWallet();
+        put(new WalletDTORequest(id, OperationType.DEPOSIT, new BigDecimal("100.00")), null)
+                .expectStatus().isOk();
+
+        List<Integer> statuses = Flux.range(0, 40)
+                .flatMap(i -> WebClient.create("http://localhost:" + port).put().uri("/api/v1/wallet")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(new WalletDTORequest(id, OperationType.WITHDRAW, new BigDecimal("7.50")))
+                        .exchangeToMono(response -> response.releaseBody().thenReturn(response.statusCode().value())),
+                        40)
+                .collectList()
+                .block();
+
+        assertThat(statuses).filteredOn(status -> status == 200).hasSize(13);
+        assertThat(statuses).filteredOn(status -> status == 409).hasSize(27);
+        webTestClient.get().uri("/api/v1/wallets/{id}", id)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.balance").isEqualTo(2.5);
+        webTestClient.get().uri("/api/v1/wallets/{id}/operations?limit=100", id)
+                .exchange()
+                .expectBody().jsonPath("$.items.length()").isEqualTo(14);
+    }
+
+    @Test
+    void idempotentRetry_ShouldApplyOnce() {
+        UUID id = createWallet();
+        WalletDTORequest deposit = new WalletDTORequest(id, OperationType.DEPOSIT, new BigDecimal("10.25"));
+
+        put(deposit, "reactive-retry").expectStatus().isOk();
+        put(deposit, "reactive-retry").expectStatus().isOk()
+                .expectBody().jsonPath("$.balance").isEqualTo(10.25);
+        put(new WalletDTORequest(id, OperationType.DEPOSIT, BigDecimal.ONE), "reactive-retry")
+                .expectStatus().isEqualTo(422);
+        put(new WalletDTORequest(UUID.randomUUID(), OperationType.DEPOSIT, BigDecimal.ONE), "missing-wallet")
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void allOrNothingBatch_ShouldRollBackEveryItem() {
+        UUID id = createWallet();
+        List<WalletOperationResultDTO> results = webTestClient.post()
+                .uri("/api/v1/wallets/operations?atomicity=ALL_OR_NOTHING")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(List.of(new WalletDTORequest(id, OperationType.DEPOSIT, BigDecimal.TEN),
+                        new WalletDTORequest(id, OperationType.WITHDRAW, new BigDecimal("20"))))
+                .exchange()
+                .expectStatus().isEqualTo(409)
+                .expectBodyList(WalletOperationResultDTO.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertThat(results).extracting(WalletOperationResultDTO::getStatus)
+                .containsExactly(OperationStatus.ROLLED_BACK, OperationStatus.NOT_ENOUGH_BALANCE);
+        webTestClient.get().uri("/api/v1/wallets/{id}", id)
+                .exchange()
+                .expectBody().jsonPath("$.balance").isEqualTo(0);
+
+        webTestClient.method(HttpMethod.DELETE).uri("/api/v1/wallet")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("\"" + id + "\"")
+                .exchange()
+                .expectStatus().isOk();
+        webTestClient.get().uri("/api/v1/wallets/{id}", id)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void walletChanges_ShouldKeepStatisticsInStep() {
+        WalletStatsDTOResponse before = walletStatistics.getStats();
+
+        UUID id = createWallet();
+        put(new WalletDTORequest(id, OperationType.DEPOSIT, new BigDecimal("30.00")), null).expectStatus().isOk();
+        put(new WalletDTORequest(id, OperationType.WITHDRAW, new BigDecimal("5.00")), "reactive-stats")
+                .expectStatus().isOk();
+        webTestClient.post().uri("/api/v1/wallets/operations?atomicity=ALL_OR_NOTHING")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(List.of(new WalletDTORequest(id, OperationType.DEPOSIT, BigDecimal.TEN),
+                        new WalletDTORequest(id, OperationType.WITHDRAW, new BigDecimal("100"))))
+                .exchange()
+                .expectStatus().isEqualTo(409);
+
+        WalletStatsDTOResponse changed = walletStatistics.getStats();
+        assertThat(changed.getWalletCount()).isEqualTo(before.getWalletCount() + 1);
+        assertThat(changed.getTotalBalance().subtract(before.getTotalBalance())).isEqualByComparingTo("25.00");
+
+        webTestClient.method(HttpMethod.DELETE).uri("/api/v1/wallet")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("\"" + id + "\"")
+                .exchange()
+                .expectStatus().isOk();
+
+        WalletStatsDTOResponse after = walletStatistics.getStats();
+        assertThat(after.getWalletCount()).isEqualTo(before.getWalletCount());
+        assertThat(after.getTotalBalance()).isEqualByComparingTo(before.getTotalBalance());
+    }
+
+    private UUID createWallet() {
+        return webTestClient.post().uri("/api/v1/wallet")
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(WalletDTOResponse.class)
+                .returnResult()
+                .getResponseBody()
+                .getId();
+    }
+
+    private WebTestClient.ResponseSpec put(WalletDTORequest request, String idempotencyKey) {
+        WebTestClient.RequestBodySpec spec = webTestClient.put().uri("/api/v1/wallet")
+                .contentType(MediaType.APPLICATION_JSON);
+        if (idempotencyKey != null) {
+            spec.header("Idempotency-Key", idempotencyKey);
+        }
+        return spec.bodyValue(request).exchange();
+    }
+}
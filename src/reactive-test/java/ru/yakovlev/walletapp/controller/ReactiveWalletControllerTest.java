@@ -0,0 +1,161 @@
+package ru.yakovlev.walletapp.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yakovlev.walletapp.dto.WalletDTORequest;
+import ru.yakovlev.walletapp.dto.WalletDTOResponse;
+import ru.yakovlev.walletapp.entity.OperationType;
+import ru.yakovlev.walletapp.exception.GlobalExceptionHandler;
+import ru.yakovlev.walletapp.exception.IdempotencyKeyReusedException;
+import ru.yakovlev.walletapp.exception.ReactiveExceptionHandler;
+import ru.yakovlev.walletapp.exception.WalletNotEnoughBalance;
+import ru.yakovlev.walletapp.exception.WalletNotFoundException;
+import ru.yakovlev.walletapp.service.ReactiveWalletService;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ReactiveWalletControllerTest {
+
+    private WebTestClient webTestClient;
+
+    @Mock
+    private ReactiveWalletService reactiveWalletService;
+
+    @InjectMocks
+    private ReactiveWalletController reactiveWalletController;
+
+    private UUID walletId;
+
+    @BeforeEach
+    void setUp() {
+        webTestClient = WebTestClient.bindToController(reactiveWalletController)
+                .controllerAdvice(new GlobalExceptionHandler(), new ReactiveExceptionHandler())
+                .build();
+
+        walletId = UUID.fromString("123e4567-e89b-12d3-a456-426614174000");
+    }
+
+    @Test
+    void getWalletById_WithExistingId_ShouldReturnWallet() {
+        when(reactiveWalletService.getWalletById(walletId))
+                .thenReturn(Mono.just(new WalletDTOResponse(walletId, new BigDecimal("1000.00"))));
+
+        webTestClient.get().uri("/api/v1/wallets/{WALLET_UUID}", walletId)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(walletId.toString())
+                .jsonPath("$.balance").isEqualTo(1000.00);
+    }
+
+    @Test
+    void getWalletById_WithNonExistingId_ShouldReturnNotFound() {
+        when(reactiveWalletService.getWalletById(walletId))
+                .thenReturn(Mono.error(new WalletNotFoundException("Wallet with id " + walletId + " not found")));
+
+        webTestClient.get().uri("/api/v1/wallets/{WALLET_UUID}", walletId)
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody(String.class).isEqualTo("Wallet with id " + walletId + " not found");
+    }
+
+    @Test
+    void getAllWallets_AsNdjson_ShouldStreamWallets() {
+        when(reactiveWalletService.getAllWallets())
+                .thenReturn(Flux.just(new WalletDTOResponse(walletId, BigDecimal.ONE)));
+
+        webTestClient.get().uri("/api/v1/wallets")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(WalletDTOResponse.class).hasSize(1);
+    }
+
+    @Test
+    void getWalletsPage_WithNonPositiveLimit_ShouldReturnBadRequest() {
+        webTestClient.get().uri("/api/v1/wallets?limit=0")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Validation failed");
+    }
+
+    @Test
+    void depositOrWithdrawal_WithInsufficientBalance_ShouldReturnConflict() {
+        when(reactiveWalletService.depositOrWithdraw(any(WalletDTORequest.class)))
+                .thenReturn(Mono.error(new WalletNotEnoughBalance("Wallet with id " + walletId + " not enough balance")));
+
+        webTestClient.put().uri("/api/v1/wallet")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new WalletDTORequest(walletId, OperationType.WITHDRAW, BigDecimal.TEN))
+                .exchange()
+                .expectStatus().isEqualTo(409)
+                .expectBody(String.class).isEqualTo("Wallet with id " + walletId + " not enough balance");
+    }
+
+    @Test
+    void depositOrWithdrawal_WithReusedIdempotencyKey_ShouldReturnUnprocessableEntity() {
+        when(reactiveWalletService.depositOrWithdraw(eq("retry-1"), any(WalletDTORequest.class)))
+                .thenReturn(Mono.error(new IdempotencyKeyReusedException(
+                        "Idempotency key retry-1 was already used for a different operation")));
+
+        webTestClient.put().uri("/api/v1/wallet")
+                .header("Idempotency-Key", "retry-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new WalletDTORequest(walletId, OperationType.DEPOSIT, BigDecimal.TEN))
+                .exchange()
+                .expectStatus().isEqualTo(422);
+    }
+
+    @Test
+    void depositOrWithdrawal_WithMissingFields_ShouldReturnValidationErrors() {
+        webTestClient.put().uri("/api/v1/wallet")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"id\": \"" + walletId + "\"}")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Validation failed")
+                .jsonPath("$.errors.amount").isEqualTo("Amount is required")
+                .jsonPath("$.errors.operationType").isEqualTo("Operation type is required");
+
+        verify(reactiveWalletService, never()).depositOrWithdraw(any(WalletDTORequest.class));
+    }
+
+    @Test
+    void depositOrWithdrawal_WithInvalidUuid_ShouldReturnBadRequest() {
+        webTestClient.put().uri("/api/v1/wallet")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"id\": \"not-a-uuid\", \"operationType\": \"DEPOSIT\", \"amount\": 1}")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody(String.class).isEqualTo("Invalid UUID format");
+    }
+
+    @Test
+    void depositOrWithdrawal_WithInvalidOperationType_ShouldReturnBadRequest() {
+        webTestClient.put().uri("/api/v1/wallet")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"id\": \"" + walletId + "\", \"operationType\": \"STEAL\", \"amount\": 1}")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody(String.class).isEqualTo("Invalid operation type. Allowed values: DEPOSIT, WITHDRAW");
+    }
+}
@@ -0,0 +1,112 @@
+package ru.yakovlev.walletapp.controller;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yakovlev.walletapp.dto.BatchAtomicity;
+import ru.yakovlev.walletapp.dto.OperationStatus;
+import ru.yakovlev.walletapp.dto.PageDTOResponse;
+import ru.yakovlev.walletapp.dto.WalletDTORequest;
+import ru.yakovlev.walletapp.dto.WalletDTOResponse;
+import ru.yakovlev.walletapp.dto.WalletOperationDTOResponse;
+import ru.yakovlev.walletapp.dto.WalletOperationResultDTO;
+import ru.yakovlev.walletapp.service.ReactiveWalletService;
+
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/v1")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveWalletController {
+
+    private final ReactiveWalletService reactiveWalletService;
+
+    public ReactiveWalletController(ReactiveWalletService reactiveWalletService) {
+        this.reactiveWalletService = reactiveWalletService;
+    }
+
+    @GetMapping("/wallets")
+    @ResponseStatus(HttpStatus.OK)
+    public Mono<List<WalletDTOResponse>> getAllWallets() {
+        return reactiveWalletService.getAllWallets().collectList();
+    }
+
+    @GetMapping(value = "/wallets", params = "limit")
+    @ResponseStatus(HttpStatus.OK)
+    public Mono<PageDTOResponse<WalletDTOResponse>> getWalletsPage(@RequestParam @Positive int limit,
+                                                                   @RequestParam(required = false) String cursor) {
+        return reactiveWalletService.getWalletsPage(cursor, limit);
+    }
+
+    @GetMapping(value = "/wallets", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<WalletDTOResponse> streamAllWallets() {
+        return reactiveWalletService.getAllWallets();
+    }
+
+    @GetMapping("/wallets/{WALLET_UUID}")
+    @ResponseStatus(HttpStatus.OK)
+    public Mono<WalletDTOResponse> getWalletById(@PathVariable UUID WALLET_UUID) {
+        return reactiveWalletService.getWalletById(WALLET_UUID);
+    }
+
+    @GetMapping("/wallets/{WALLET_UUID}/operations")
+    @ResponseStatus(HttpStatus.OK)
+    public Mono<PageDTOResponse<WalletOperationDTOResponse>> getWalletOperations(
+            @PathVariable UUID WALLET_UUID,
+            @RequestParam(defaultValue = "50") @Positive int limit,
+            @RequestParam(required = false) String cursor) {
+        return reactiveWalletService.getWalletOperations(WALLET_UUID, cursor, limit);
+    }
+
+    @PostMapping("/wallet")
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<WalletDTOResponse> createWallet() {
+        return reactiveWalletService.createNewWallet();
+    }
+
+    @DeleteMapping("/wallet")
+    @ResponseStatus(HttpStatus.OK)
+    public Mono<Void> deleteWalletById(@RequestBody UUID WALLET_UUID) {
+        return reactiveWalletService.deleteWalletById(WALLET_UUID);
+    }
+
+    @PutMapping("/wallet")
+    @ResponseStatus(HttpStatus.OK)
+    public Mono<WalletDTOResponse> depositOrWithdrawal(@RequestBody @Valid WalletDTORequest walletDTO,
+                                                       @RequestHeader(name = "Idempotency-Key", required = false)
+                                                       @Size(min = 1, max = 255) String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return reactiveWalletService.depositOrWithdraw(walletDTO);
+        }
+        return reactiveWalletService.depositOrWithdraw(idempotencyKey, walletDTO);
+    }
+
+    @PostMapping(value = "/wallets/operations", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<List<WalletOperationResultDTO>>> applyOperations(
+            @RequestBody List<@Valid WalletDTORequest> walletDTOs,
+            @RequestParam(defaultValue = "BEST_EFFORT") BatchAtomicity atomicity) {
+        return reactiveWalletService.applyAll(Flux.fromIterable(walletDTOs), atomicity)
+                .collectList()
+                .map(results -> {
+                    boolean rolledBack = results.stream()
+                            .anyMatch(result -> result.getStatus() == OperationStatus.ROLLED_BACK);
+                    return ResponseEntity.status(rolledBack ? HttpStatus.CONFLICT : HttpStatus.OK).body(results);
+                });
+    }
+
+    @PostMapping(value = "/wallets/operations",
+            consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<WalletOperationResultDTO> applyOperationsStream(
+            @RequestBody Flux<WalletDTORequest> walletDTOs,
+            @RequestParam(defaultValue = "BEST_EFFORT") BatchAtomicity atomicity) {
+        return reactiveWalletService.applyAll(walletDTOs, atomicity);
+    }
+}
@@ -0,0 +1,190 @@
+package ru.yakovlev.walletapp.repository;
+
+import io.r2dbc.spi.Readable;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yakovlev.walletapp.dto.WalletDTOResponse;
+import ru.yakovlev.walletapp.entity.IdempotencyRecord;
+import ru.yakovlev.walletapp.entity.OperationType;
+import ru.yakovlev.walletapp.entity.WalletOperation;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveWalletRepository {
+
+    private static final String DEPOSIT_SQL = "WITH updated AS ("
+            + "UPDATE wallets SET balance = balance + :amount, version = version + 1 "
+            + "WHERE wallet_id = :id AND balance <= 9223372036854775807 - :amount "
+            + "RETURNING wallet_id, balance, version"
+            + "), logged AS ("
+            + "INSERT INTO wallet_operations (wallet_id, operation_type, amount, balance_after) "
+            + "SELECT wallet_id, 'DEPOSIT', :amount, balance FROM updated"
+            + ") SELECT balance, version FROM updated";
+
+    private static final String WITHDRAW_SQL = "WITH updated AS ("
+            + "UPDATE wallets SET balance = balance - :amount, version = version + 1 "
+            + "WHERE wallet_id = :id AND balance >= :amount "
+            + "RETURNING wallet_id, balance, version"
+            + "), logged AS ("
+            + "INSERT INTO wallet_operations (wallet_id, operation_type, amount, balance_after) "
+            + "SELECT wallet_id, 'WITHDRAW', :amount, balance FROM updated"
+            + ") SELECT balance, version FROM updated";
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveWalletRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Flux<WalletDTOResponse> findAll() {
+        return databaseClient.sql("SELECT wallet_id, balance FROM wallets")
+                .map(ReactiveWalletRepository::toWallet)
+                .all();
+    }
+
+    public Flux<WalletDTOResponse> findPage(int limit) {
+        return databaseClient.sql("SELECT wallet_id, balance FROM wallets ORDER BY wallet_id LIMIT :limit")
+                .bind("limit", limit)
+                .map(ReactiveWalletRepository::toWallet)
+                .all();
+    }
+
+    public Flux<WalletDTOResponse> findPageAfter(UUID cursor, int limit) {
+        return databaseClient.sql("SELECT wallet_id, balance FROM wallets WHERE wallet_id > :cursor "
+                        + "ORDER BY wallet_id LIMIT :limit")
+                .bind("cursor", cursor)
+                .bind("limit", limit)
+                .map(ReactiveWalletRepository::toWallet)
+                .all();
+    }
+
+    public Mono<WalletDTOResponse> findById(UUID id) {
+        return databaseClient.sql("SELECT wallet_id, balance FROM wallets WHERE wallet_id = :id")
+                .bind("id", id)
+                .map(ReactiveWalletRepository::toWallet)
+                .one();
+    }
+
+    public Mono<Boolean> existsById(UUID id) {
+        return databaseClient.sql("SELECT EXISTS (SELECT 1 FROM wallets WHERE wallet_id = :id)")
+                .bind("id", id)
+                .map(row -> row.get(0, Boolean.class))
+                .one();
+    }
+
+    public Mono<WalletDTOResponse> insert(UUID id) {
+        return databaseClient.sql("INSERT INTO wallets (wallet_id, balance, version) VALUES (:id, 0, 0) "
+                        + "RETURNING wallet_id, balance")
+                .bind("id", id)
+                .map(ReactiveWalletRepository::toWallet)
+                .one();
+    }
+
+    public Mono<Long> deleteById(UUID id) {
+        return databaseClient.sql("DELETE FROM wallets WHERE wallet_id = :id RETURNING balance")
+                .bind("id", id)
+                .map(row -> row.get("balance", Long.class))
+                .one();
+    }
+
+    public Mono<BalanceSnapshot> deposit(UUID id, long amount) {
+        return updateBalance(DEPOSIT_SQL, id, amount);
+    }
+
+    public Mono<BalanceSnapshot> withdraw(UUID id, long amount) {
+        return updateBalance(WITHDRAW_SQL, id, amount);
+    }
+
+    public Flux<WalletOperation> findLatestOperations(UUID walletId, int limit) {
+        return databaseClient.sql("SELECT * FROM wallet_operations WHERE wallet_id = :walletId "
+                        + "ORDER BY created_at DESC, operation_id DESC LIMIT :limit")
+                .bind("walletId", walletId)
+                .bind("limit", limit)
+                .map(ReactiveWalletRepository::toOperation)
+                .all();
+    }
+
+    public Flux<WalletOperation> findLatestOperationsBefore(UUID walletId, Instant createdAt, long operationId,
+                                                            int limit) {
+        return databaseClient.sql("SELECT * FROM wallet_operations WHERE wallet_id = :walletId "
+                        + "AND created_at <= :createdAt "
+                        + "AND (created_at, operation_id) < (:createdAt, :operationId) "
+                        + "ORDER BY created_at DESC, operation_id DESC LIMIT :limit")
+                .bind("walletId", walletId)
+                .bind("createdAt", createdAt)
+                .bind("operationId", operationId)
+                .bind("limit", limit)
+                .map(ReactiveWalletRepository::toOperation)
+                .all();
+    }
+
+    public Mono<IdempotencyRecord> findIdempotencyRecord(String key) {
+        return databaseClient.sql("SELECT * FROM idempotency_keys WHERE idempotency_key = :key")
+                .bind("key", key)
+                .map(row -> new IdempotencyRecord(row.get("idempotency_key", String.class),
+                        row.get("wallet_id", UUID.class),
+                        OperationType.valueOf(row.get("operation_type", String.class)),
+                        row.get("amount", Long.class),
+                        row.get("balance", Long.class),
+                        row.get("created_at", Instant.class)))
+                .one();
+    }
+
+    public Mono<Long> insertIdempotencyRecordIfAbsent(String key, UUID walletId, String operationType,
+                                                      long amount, long balance) {
+        return databaseClient.sql("INSERT INTO idempotency_keys "
+                        + "(idempotency_key, wallet_id, operation_type, amount, balance) "
+                        + "VALUES (:key, :walletId, :operationType, :amount, :balance) "
+                        + "ON CONFLICT (idempotency_key) DO NOTHING")
+                .bind("key", key)
+                .bind("walletId", walletId)
+                .bind("operationType", operationType)
+                .bind("amount", amount)
+                .bind("balance", balance)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    private Mono<BalanceSnapshot> updateBalance(String sql, UUID id, long amount) {
+        return databaseClient.sql(sql)
+                .bind("id", id)
+                .bind("amount", amount)
+                .map(ReactiveWalletRepository::toSnapshot)
+                .one();
+    }
+
+    private static BalanceSnapshot toSnapshot(Readable row) {
+        long balance = row.get("balance", Long.class);
+        long version = row.get("version", Long.class);
+        return new BalanceSnapshot() {
+            @Override
+            public long getBalance() {
+                return balance;
+            }
+
+            @Override
+            public long getVersion() {
+                return version;
+            }
+        };
+    }
+
+    private static WalletDTOResponse toWallet(Readable row) {
+        return new WalletDTOResponse(row.get("wallet_id", UUID.class), row.get("balance", Long.class));
+    }
+
+    private static WalletOperation toOperation(Readable row) {
+        WalletOperation operation = new WalletOperation(row.get("wallet_id", UUID.class),
+                OperationType.valueOf(row.get("operation_type", String.class)),
+                row.get("amount", Long.class), row.get("balance_after", Long.class));
+        operation.setId(row.get("operation_id", Long.class));
+        operation.setCreatedAt(row.get("created_at", Instant.class));
+        return operation;
+    }
+}
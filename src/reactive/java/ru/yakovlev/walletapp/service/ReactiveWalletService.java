@@ -0,0 +1,279 @@
+package ru.yakovlev.walletapp.service;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yakovlev.walletapp.config.WalletProperties;
+import ru.yakovlev.walletapp.config.WalletShardRouter;
+import ru.yakovlev.walletapp.dto.BatchAtomicity;
+import ru.yakovlev.walletapp.dto.OperationStatus;
+import ru.yakovlev.walletapp.dto.PageDTOResponse;
+import ru.yakovlev.walletapp.dto.WalletDTORequest;
+import ru.yakovlev.walletapp.dto.WalletDTOResponse;
+import ru.yakovlev.walletapp.dto.WalletOperationDTOResponse;
+import ru.yakovlev.walletapp.dto.WalletOperationResultDTO;
+import ru.yakovlev.walletapp.entity.IdempotencyRecord;
+import ru.yakovlev.walletapp.entity.OperationType;
+import ru.yakovlev.walletapp.entity.WalletOperation;
+import ru.yakovlev.walletapp.exception.IdempotencyKeyReusedException;
+import ru.yakovlev.walletapp.exception.WalletBalanceOverflowException;
+import ru.yakovlev.walletapp.exception.WalletNotEnoughBalance;
+import ru.yakovlev.walletapp.exception.WalletNotFoundException;
+import ru.yakovlev.walletapp.repository.ReactiveWalletRepository;
+import ru.yakovlev.walletapp.util.CursorCodec;
+import ru.yakovlev.walletapp.util.Money;
+import ru.yakovlev.walletapp.util.UuidV7Generator;
+import ru.yakovlev.walletapp.util.WalletMapper;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveWalletService {
+
+    private final ReactiveWalletRepository reactiveWalletRepository;
+
+    private final TransactionalOperator transactionalOperator;
+
+    private final WalletMetrics walletMetrics;
+
+    private final WalletProperties walletProperties;
+
+    private final Validator validator;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ReactiveWalletService(ReactiveWalletRepository reactiveWalletRepository,
+                                 TransactionalOperator transactionalOperator,
+                                 WalletMetrics walletMetrics,
+                                 WalletProperties walletProperties,
+                                 Validator validator,
+                                 ApplicationEventPublisher eventPublisher,
+                                 WalletShardRouter walletShardRouter) {
+        if (walletShardRouter.isSharded()) {
+            throw new IllegalStateException("Sharding is not supported by the reactive stack");
+        }
+        if (walletProperties.getTiering().isEnabled()) {
+            throw new IllegalStateException("Cold storage tiering is not supported by the reactive stack");
+        }
+        this.reactiveWalletRepository = reactiveWalletRepository;
+        this.transactionalOperator = transactionalOperator;
+        this.walletMetrics = walletMetrics;
+        this.walletProperties = walletProperties;
+        this.validator = validator;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public Flux<WalletDTOResponse> getAllWallets() {
+        return reactiveWalletRepository.findAll();
+    }
+
+    public Mono<PageDTOResponse<WalletDTOResponse>> getWalletsPage(String cursor, int limit) {
+        int pageSize = Math.min(limit, walletProperties.getListing().getMaxPageSize());
+        Mono<List<WalletDTOResponse>> wallets = cursor == null
+                ? reactiveWalletRepository.findPage(pageSize + 1).collectList()
+                : Mono.fromCallable(() -> CursorCodec.decode(cursor))
+                .flatMap(after -> reactiveWalletRepository.findPageAfter(after, pageSize + 1).collectList());
+        return wallets.map(items -> {
+            if (items.size() <= pageSize) {
+                return new PageDTOResponse<>(items, null);
+            }
+            List<WalletDTOResponse> page = items.subList(0, pageSize);
+            return new PageDTOResponse<>(page, CursorCodec.encode(page.get(pageSize - 1).getId()));
+        });
+    }
+
+    public Mono<PageDTOResponse<WalletOperationDTOResponse>> getWalletOperations(UUID id, String cursor, int limit) {
+        int pageSize = Math.min(limit, walletProperties.getListing().getMaxPageSize());
+        return reactiveWalletRepository.existsById(id)
+                .flatMap(exists -> exists
+                        ? findOperations(id, cursor, pageSize + 1).collectList()
+                        : Mono.<List<WalletOperation>>error(notFound(id)))
+                .map(operations -> {
+                    String nextCursor = null;
+                    if (operations.size() > pageSize) {
+                        operations = operations.subList(0, pageSize);
+                        WalletOperation last = operations.get(pageSize - 1);
+                        nextCursor = CursorCodec.encode(ChronoUnit.MICROS.between(Instant.EPOCH, last.getCreatedAt()),
+                                last.getId());
+                    }
+                    return new PageDTOResponse<>(operations.stream()
+                            .map(WalletMapper::toWalletOperationDTOResponse)
+                            .toList(), nextCursor);
+                });
+    }
+
+    public Mono<WalletDTOResponse> getWalletById(UUID id) {
+        return reactiveWalletRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> notFound(id)));
+    }
+
+    public Mono<WalletDTOResponse> createNewWallet() {
+        return reactiveWalletRepository.insert(UuidV7Generator.next())
+                .doOnNext(wallet -> eventPublisher.publishEvent(WalletChangedEvent.created(wallet.getId(),
+                        Money.toMinorUnits(wallet.getBalance()), 0)));
+    }
+
+    public Mono<Void> deleteWalletById(UUID id) {
+        return reactiveWalletRepository.deleteById(id)
+                .switchIfEmpty(Mono.error(() -> notFound(id)))
+                .doOnNext(balance -> eventPublisher.publishEvent(WalletChangedEvent.deleted(id, balance)))
+                .then();
+    }
+
+    public Mono<WalletDTOResponse> depositOrWithdraw(WalletDTORequest walletDTORequest) {
+        return measured(walletDTORequest, apply(walletDTORequest, eventPublisher::publishEvent));
+    }
+
+    public Mono<WalletDTOResponse> depositOrWithdraw(String idempotencyKey, WalletDTORequest walletDTORequest) {
+        Mono<IdempotencyRecord> record = reactiveWalletRepository.findIdempotencyRecord(idempotencyKey)
+                .switchIfEmpty(Mono.defer(() -> applyOnce(idempotencyKey, walletDTORequest)))
+                .switchIfEmpty(Mono.defer(() -> reactiveWalletRepository.findIdempotencyRecord(idempotencyKey)))
+                .switchIfEmpty(Mono.error(() ->
+                        new IllegalStateException("Idempotency key " + idempotencyKey + " vanished")));
+        return measured(walletDTORequest, record.flatMap(stored -> {
+            if (!stored.getWalletId().equals(walletDTORequest.getId())
+                    || stored.getOperationType() != walletDTORequest.getOperationType()
+                    || stored.getAmount() != Money.toMinorUnits(walletDTORequest.getAmount())) {
+                return Mono.error(new IdempotencyKeyReusedException(
+                        "Idempotency key " + idempotencyKey + " was already used for a different operation"));
+            }
+            return Mono.just(new WalletDTOResponse(stored.getWalletId(), stored.getBalance()));
+        }));
+    }
+
+    public Flux<WalletOperationResultDTO> applyAll(Flux<WalletDTORequest> walletDTORequests,
+                                                   BatchAtomicity atomicity) {
+        if (atomicity == BatchAtomicity.BEST_EFFORT) {
+            return walletDTORequests.index()
+                    .concatMap(item -> applyItem(item.getT1().intValue(), item.getT2(),
+                            eventPublisher::publishEvent));
+        }
+        return Flux.defer(() -> {
+            List<WalletChangedEvent> changes = new ArrayList<>();
+            Flux<WalletOperationResultDTO> results = walletDTORequests.index()
+                    .concatMap(item -> applyItem(item.getT1().intValue(), item.getT2(), changes::add));
+            return transactionalOperator.execute(status -> results.collectList()
+                    .map(applied -> {
+                        if (applied.stream().anyMatch(result -> result.getStatus() != OperationStatus.APPLIED)) {
+                            status.setRollbackOnly();
+                            changes.clear();
+                            applied.stream()
+                                    .filter(result -> result.getStatus() == OperationStatus.APPLIED)
+                                    .forEach(result -> {
+                                        result.setStatus(OperationStatus.ROLLED_BACK);
+                                        result.setBalance(null);
+                                    });
+                        }
+                        return applied;
+                    }))
+                    .single()
+                    .doOnNext(applied -> changes.forEach(eventPublisher::publishEvent))
+                    .flatMapIterable(applied -> applied);
+        });
+    }
+
+    private Mono<WalletOperationResultDTO> applyItem(int index, WalletDTORequest walletDTORequest,
+                                                     Consumer<WalletChangedEvent> changes) {
+        Set<ConstraintViolation<WalletDTORequest>> violations = validator.validate(walletDTORequest);
+        if (!violations.isEmpty()) {
+            Map<String, String> errors = new HashMap<>();
+            violations.forEach(violation -> errors.put(violation.getPropertyPath().toString(), violation.getMessage()));
+            return Mono.just(new WalletOperationResultDTO(index, walletDTORequest.getId(),
+                    OperationStatus.INVALID, null, errors));
+        }
+        return apply(walletDTORequest, changes)
+                .map(response -> new WalletOperationResultDTO(index, response.getId(),
+                        OperationStatus.APPLIED, response.getBalance(), null))
+                .onErrorResume(WalletNotFoundException.class, e -> failed(index, walletDTORequest,
+                        OperationStatus.NOT_FOUND))
+                .onErrorResume(WalletNotEnoughBalance.class, e -> failed(index, walletDTORequest,
+                        OperationStatus.NOT_ENOUGH_BALANCE))
+                .onErrorResume(WalletBalanceOverflowException.class, e -> failed(index, walletDTORequest,
+                        OperationStatus.BALANCE_OVERFLOW));
+    }
+
+    private Mono<WalletDTOResponse> apply(WalletDTORequest walletDTORequest, Consumer<WalletChangedEvent> changes) {
+        UUID id = walletDTORequest.getId();
+        long amount = Money.toMinorUnits(walletDTORequest.getAmount());
+        boolean deposit = walletDTORequest.getOperationType() == OperationType.DEPOSIT;
+        return (deposit ? reactiveWalletRepository.deposit(id, amount) : reactiveWalletRepository.withdraw(id, amount))
+                .map(snapshot -> {
+                    long balance = snapshot.getBalance();
+                    changes.accept(WalletChangedEvent.updated(id, deposit ? balance - amount : balance + amount,
+                            balance, snapshot.getVersion()));
+                    return new WalletDTOResponse(id, balance);
+                })
+                .switchIfEmpty(Mono.defer(() -> reactiveWalletRepository.existsById(id)
+                        .flatMap(exists -> Mono.<WalletDTOResponse>error(!exists ? notFound(id)
+                                : deposit ? new WalletBalanceOverflowException("Wallet with id " + id + " balance overflow")
+                                : new WalletNotEnoughBalance("Wallet with id " + id + " not enough balance")))));
+    }
+
+    private Mono<IdempotencyRecord> applyOnce(String idempotencyKey, WalletDTORequest walletDTORequest) {
+        long amount = Money.toMinorUnits(walletDTORequest.getAmount());
+        return Mono.defer(() -> {
+            List<WalletChangedEvent> changes = new ArrayList<>(1);
+            return transactionalOperator.execute(status -> apply(walletDTORequest, changes::add)
+                            .flatMap(response -> {
+                                long balance = Money.toMinorUnits(response.getBalance());
+                                return reactiveWalletRepository.insertIdempotencyRecordIfAbsent(idempotencyKey,
+                                                response.getId(), walletDTORequest.getOperationType().name(),
+                                                amount, balance)
+                                        .flatMap(recorded -> {
+                                            if (recorded == 0) {
+                                                status.setRollbackOnly();
+                                                return Mono.empty();
+                                            }
+                                            return Mono.just(new IdempotencyRecord(idempotencyKey, response.getId(),
+                                                    walletDTORequest.getOperationType(), amount, balance,
+                                                    Instant.now()));
+                                        });
+                            }))
+                    .singleOrEmpty()
+                    .doOnNext(record -> changes.forEach(eventPublisher::publishEvent));
+        });
+    }
+
+    private Flux<WalletOperation> findOperations(UUID id, String cursor, int limit) {
+        if (cursor == null) {
+            return reactiveWalletRepository.findLatestOperations(id, limit);
+        }
+        return Mono.fromCallable(() -> CursorCodec.decodePair(cursor))
+                .flatMapMany(position -> reactiveWalletRepository.findLatestOperationsBefore(id,
+                        Instant.EPOCH.plus(position[0], ChronoUnit.MICROS), position[1], limit));
+    }
+
+    private Mono<WalletDTOResponse> measured(WalletDTORequest walletDTORequest, Mono<WalletDTOResponse> operation) {
+        return Mono.defer(() -> {
+            WalletMetrics.OperationSample sample = walletMetrics.start(walletDTORequest);
+            return operation
+                    .doOnSuccess(response -> sample.applied())
+                    .doOnError(sample::failed)
+                    .doOnCancel(() -> sample.failed(new CancellationException()));
+        });
+    }
+
+    private static Mono<WalletOperationResultDTO> failed(int index, WalletDTORequest walletDTORequest,
+                                                         OperationStatus status) {
+        return Mono.just(new WalletOperationResultDTO(index, walletDTORequest.getId(), status, null, null));
+    }
+
+    private static WalletNotFoundException notFound(UUID id) {
+        return new WalletNotFoundException("Wallet with id " + id + " not found");
+    }
+}
@@ -0,0 +1,203 @@
+package ru.yakovlev.walletapp;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.util.FileSystemUtils;
+import ru.yakovlev.walletapp.config.WalletReplicaRouter;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+@SpringBootTest(webEnvironment = RANDOM_PORT, properties = {
+        "wallet.replicas.enabled=true",
+        "wallet.replicas.max-lag=2s",
+        "wallet.replicas.lag-check-interval=100ms"
+})
+class ReplicatedWalletTest {
+
+    private static final Set<String> SKIPPED_FILES = Set.of("postmaster.pid", "postmaster.opts", "epg-lock");
+
+    private static EmbeddedPostgres primary;
+
+    private static EmbeddedPostgres replica;
+
+    private static Path replicaDirectory;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void databases(DynamicPropertyRegistry registry) throws Exception {
+        primary = EmbeddedPostgres.start();
+        replicaDirectory = Files.createTempDirectory("wallet-replica");
+        JdbcTemplate primaryJdbc = new JdbcTemplate(primary.getPostgresDatabase());
+        Path primaryDirectory = Path.of(primaryJdbc.queryForObject("SHOW data_directory", String.class));
+        primaryJdbc.execute("SELECT pg_start_backup('wallet-replica', true)");
+        try {
+            copyDataDirectory(primaryDirectory, replicaDirectory);
+        } finally {
+            primaryJdbc.execute("SELECT pg_stop_backup()");
+        }
+        Files.createFile(replicaDirectory.resolve("standby.signal"));
+        Files.writeString(replicaDirectory.resolve("postgresql.auto.conf"),
+                "primary_conninfo = 'host=localhost port=" + primary.getPort() + " user=postgres'\n",
+                StandardOpenOption.APPEND);
+        replica = EmbeddedPostgres.builder()
+                .setDataDirectory(replicaDirectory)
+                .setCleanDataDirectory(false)
+                .start();
+
+        registry.add("spring.datasource.url", () -> primary.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+        registry.add("wallet.replicas.nodes.r1.url", () -> replica.getJdbcUrl("postgres", "postgres"));
+        registry.add("wallet.replicas.nodes.r1.username", () -> "postgres");
+        registry.add("wallet.replicas.nodes.r1.password", () -> "postgres");
+    }
+
+    @AfterAll
+    static void stopDatabases() throws IOException {
+        replica.close();
+        primary.close();
+        FileSystemUtils.deleteRecursively(replicaDirectory);
+    }
+
+    @Test
+    void reads_ShouldUseReplicaUnlessStaleForSessionOrLagging() throws Exception {
+        HttpResponse<String> created = send(HttpRequest.newBuilder(uri("/wallet"))
+                .POST(HttpRequest.BodyPublishers.noBody()));
+        assertThat(created.statusCode()).isEqualTo(201);
+        String walletId = objectMapper.readTree(created.body()).get("id").asText();
+        String createdToken = created.headers().firstValue(WalletReplicaRouter.SESSION_TOKEN_HEADER).orElseThrow();
+        await(() -> servedByReplica(() -> operations(walletId, createdToken)));
+
+        JdbcTemplate replicaJdbc = new JdbcTemplate(replica.getPostgresDatabase());
+        replicaJdbc.execute("SELECT pg_wal_replay_pause()");
+        try {
+            await(() -> "paused".equals(replicaJdbc.queryForObject(
+                    "SELECT pg_get_wal_replay_pause_state()", String.class)));
+            HttpResponse<String> deposited = send(HttpRequest.newBuilder(uri("/wallet"))
+                    .header("Content-Type", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofString(
+                            "{\"id\":\"" + walletId + "\",\"operationType\":\"DEPOSIT\",\"amount\":5}")));
+            assertThat(deposited.statusCode()).isEqualTo(200);
+            String depositedToken = deposited.headers().firstValue(WalletReplicaRouter.SESSION_TOKEN_HEADER)
+                    .orElseThrow();
+
+            double replicaReads = reads("r1");
+            assertThat(operations(walletId, null).get("items")).isEmpty();
+            assertThat(reads("r1")).isGreaterThan(replicaReads);
+
+            double primaryReads = reads("primary");
+            assertThat(operations(walletId, depositedToken).get("items")).hasSize(1);
+            assertThat(reads("primary")).isGreaterThan(primaryReads);
+
+            await(() -> lagSeconds() > 2);
+            replicaReads = reads("r1");
+            assertThat(operations(walletId, null).get("items")).hasSize(1);
+            assertThat(reads("r1")).isEqualTo(replicaReads);
+        } finally {
+            replicaJdbc.execute("SELECT pg_wal_replay_resume()");
+        }
+        await(() -> lagSeconds() < 2 && servedByReplica(() -> operations(walletId, null)));
+    }
+
+    private JsonNode operations(String walletId, String sessionToken) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri("/wallets/" + walletId + "/operations"));
+        if (sessionToken != null) {
+            request.header(WalletReplicaRouter.SESSION_TOKEN_HEADER, sessionToken);
+        }
+        HttpResponse<String> response = send(request);
+        assertThat(response.statusCode()).isEqualTo(200);
+        return objectMapper.readTree(response.body());
+    }
+
+    private boolean servedByReplica(Read read) {
+        double before = reads("r1");
+        try {
+            read.run();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return reads("r1") > before;
+    }
+
+    private double reads(String target) {
+        return meterRegistry.get("wallet.replicas.reads").tag("target", target).counter().count();
+    }
+
+    private double lagSeconds() {
+        return meterRegistry.get("wallet.replicas.lag").tag("replica", "r1").gauge().value();
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+        return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + "/api/v1" + path);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(15);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(50);
+        }
+    }
+
+    private static void copyDataDirectory(Path source, Path target) throws IOException {
+        Path statistics = source.resolve("pg_stat_tmp");
+        List<Path> paths;
+        try (Stream<Path> walk = Files.walk(source)) {
+            paths = walk.filter(path -> !SKIPPED_FILES.contains(path.getFileName().toString()))
+                    .filter(path -> !path.startsWith(statistics) || path.equals(statistics))
+                    .toList();
+        }
+        for (Path path : paths) {
+            Path copy = target.resolve(source.relativize(path).toString());
+            if (Files.isDirectory(path)) {
+                Files.createDirectories(copy);
+            } else {
+                Files.copy(path, copy);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Read {
+
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,147 @@
+package ru.yakovlev.walletapp;
+
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.NestedTestConfiguration;
+import ru.yakovlev.walletapp.service.WalletService;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+import static org.springframework.test.context.NestedTestConfiguration.EnclosingConfiguration.OVERRIDE;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class RequestThreadingBenchmark {
+
+    private static final int CONCURRENCY = Integer.getInteger("benchmark.concurrency", 1000);
+
+    private static final int WALLETS = Integer.getInteger("benchmark.wallets", 1000);
+
+    private static final Duration WARMUP = Duration.ofSeconds(Long.getLong("benchmark.warmupSeconds", 5));
+
+    private static final Duration MEASUREMENT = Duration.ofSeconds(Long.getLong("benchmark.seconds", 20));
+
+    private final List<String> results = new ArrayList<>();
+
+    @AfterAll
+    void printComparison() {
+        results.forEach(System.out::println);
+    }
+
+    @Nested
+    @NestedTestConfiguration(OVERRIDE)
+    @SpringBootTest(webEnvironment = RANDOM_PORT,
+            properties = {"spring.jpa.show-sql=false", "spring.threads.virtual.enabled=false"})
+    @AutoConfigureEmbeddedDatabase
+    class PlatformThreads {
+
+        @LocalServerPort
+        private int port;
+
+        @Autowired
+        private WalletService walletService;
+
+        @Test
+        void deposits() throws Exception {
+            results.add(measure("platform threads", port, walletService));
+        }
+    }
+
+    @Nested
+    @NestedTestConfiguration(OVERRIDE)
+    @SpringBootTest(webEnvironment = RANDOM_PORT,
+            properties = {"spring.jpa.show-sql=false", "spring.threads.virtual.enabled=true"})
+    @AutoConfigureEmbeddedDatabase
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    class VirtualThreads {
+
+        @LocalServerPort
+        private int port;
+
+        @Autowired
+        private WalletService walletService;
+
+        @Test
+        void deposits() throws Exception {
+            results.add(measure("virtual threads", port, walletService));
+        }
+    }
+
+    static String measure(String name, int port, WalletService walletService) throws Exception {
+        List<UUID> wallets = new ArrayList<>(WALLETS);
+        for (int i = 0; i < WALLETS; i++) {
+            wallets.add(walletService.createNewWallet().getId());
+        }
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        URI uri = URI.create("http://localhost:" + port + "/api/v1/wallet");
+
+        run(client, uri, wallets, WARMUP);
+        long begin = System.nanoTime();
+        Run run = run(client, uri, wallets, MEASUREMENT);
+        double seconds = (System.nanoTime() - begin) / 1e9;
+
+        long[] latencies = run.latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        return String.format("%s, %d in flight: %.0f req/s, %d errors, p50 %.1f ms, p99 %.1f ms",
+                name, CONCURRENCY, latencies.length / seconds, run.errors.get(),
+                percentile(latencies, 0.50), percentile(latencies, 0.99));
+    }
+
+    private static Run run(HttpClient client, URI uri, List<UUID> wallets, Duration duration) throws Exception {
+        Run run = new Run();
+        Semaphore inFlight = new Semaphore(CONCURRENCY);
+        long deadline = System.nanoTime() + duration.toNanos();
+        while (System.nanoTime() < deadline) {
+            inFlight.acquire();
+            UUID walletId = wallets.get(ThreadLocalRandom.current().nextInt(wallets.size()));
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .header("Content-Type", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofString(
+                            "{\"id\":\"" + walletId + "\",\"operationType\":\"DEPOSIT\",\"amount\":1}"))
+                    .build();
+            long start = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, failure) -> {
+                if (failure != null || response.statusCode() != 200) {
+                    run.errors.incrementAndGet();
+                } else {
+                    run.latencies.add(System.nanoTime() - start);
+                }
+                inFlight.release();
+            });
+        }
+        inFlight.acquire(CONCURRENCY);
+        return run;
+    }
+
+    private static double percentile(long[] sortedNanos, double quantile) {
+        if (sortedNanos.length == 0) {
+            return Double.NaN;
+        }
+        return sortedNanos[(int) Math.min(sortedNanos.length - 1, quantile * sortedNanos.length)] / 1e6;
+    }
+
+    private static final class Run {
+
+        private final ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+
+        private final AtomicLong errors = new AtomicLong();
+    }
+}
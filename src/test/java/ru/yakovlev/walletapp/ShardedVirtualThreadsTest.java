@@ -0,0 +1,140 @@
+package ru.yakovlev.walletapp;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import ru.yakovlev.walletapp.config.ConnectionPermitDataSource;
+import ru.yakovlev.walletapp.config.ShardDataSources;
+import ru.yakovlev.walletapp.config.WalletShardRouter;
+import ru.yakovlev.walletapp.dto.WalletDTORequest;
+import ru.yakovlev.walletapp.entity.OperationType;
+import ru.yakovlev.walletapp.service.WalletService;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "wallet.sharding.enabled=true",
+        "wallet.sharding.virtual-nodes=64",
+        "spring.threads.virtual.enabled=true",
+        "wallet.virtual-threads.acquire-timeout=2s"
+})
+@EnabledForJreRange(min = JRE.JAVA_21)
+class ShardedVirtualThreadsTest {
+
+    private static final int POOL_SIZE = 8;
+
+    private static final Map<String, EmbeddedPostgres> SHARDS = new LinkedHashMap<>();
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ShardDataSources shardDataSources;
+
+    @Autowired
+    private WalletShardRouter walletShardRouter;
+
+    @Autowired
+    private WalletService walletService;
+
+    @DynamicPropertySource
+    static void shards(DynamicPropertyRegistry registry) throws IOException {
+        for (String shard : List.of("a", "b")) {
+            EmbeddedPostgres postgres = EmbeddedPostgres.start();
+            SHARDS.put(shard, postgres);
+            registry.add("wallet.sharding.shards." + shard + ".url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+            registry.add("wallet.sharding.shards." + shard + ".username", () -> "postgres");
+            registry.add("wallet.sharding.shards." + shard + ".password", () -> "postgres");
+            registry.add("wallet.sharding.shards." + shard + ".maximum-pool-size", () -> POOL_SIZE);
+        }
+    }
+
+    @AfterAll
+    static void stopShards() throws IOException {
+        for (EmbeddedPostgres postgres : SHARDS.values()) {
+            postgres.close();
+        }
+    }
+
+    @Test
+    void connectionPermits_ShouldBeSizedPerShardPool() throws Exception {
+        assertThat(dataSource).isNotInstanceOf(ConnectionPermitDataSource.class);
+        assertThat(shardDataSources.asMap().values()).allSatisfy(shard -> assertThat(shard)
+                .isInstanceOfSatisfying(ConnectionPermitDataSource.class,
+                        permits -> assertThat(permits.getAvailablePermits()).isEqualTo(POOL_SIZE)));
+
+        int holders = POOL_SIZE * SHARDS.size();
+        CyclicBarrier allHeld = new CyclicBarrier(holders);
+        ExecutorService executor = Executors.newFixedThreadPool(holders);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < holders; i++) {
+                String shard = i % 2 == 0 ? "a" : "b";
+                futures.add(executor.submit(() -> {
+                    try (WalletShardRouter.Binding ignored = walletShardRouter.bind(shard);
+                         Connection connection = dataSource.getConnection();
+                         Statement statement = connection.createStatement()) {
+                        statement.execute("SELECT 1");
+                        allHeld.await(10, TimeUnit.SECONDS);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void concurrentOperations_ShouldSpreadAcrossShards() throws Exception {
+        List<UUID> wallets = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            wallets.add(walletService.createNewWallet().getId());
+        }
+        assertThat(wallets).extracting(walletShardRouter::shardOf).contains("a", "b");
+
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                UUID id = wallets.get(i % wallets.size());
+                futures.add(executor.submit(() -> walletService.depositOrWithdraw(
+                        new WalletDTORequest(id, OperationType.DEPOSIT, BigDecimal.ONE))));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (UUID id : wallets) {
+            assertThat(walletService.getWalletById(id).getBalance()).isEqualByComparingTo("10");
+        }
+    }
+}
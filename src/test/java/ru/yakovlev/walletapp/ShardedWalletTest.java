@@ -0,0 +1,279 @@
+package ru.yakovlev.walletapp;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yakovlev.walletapp.config.WalletShardRouter;
+import ru.yakovlev.walletapp.dto.BatchAtomicity;
+import ru.yakovlev.walletapp.dto.OperationStatus;
+import ru.yakovlev.walletapp.dto.PageDTOResponse;
+import ru.yakovlev.walletapp.dto.WalletDTORequest;
+import ru.yakovlev.walletapp.dto.WalletDTOResponse;
+import ru.yakovlev.walletapp.dto.WalletOperationResultDTO;
+import ru.yakovlev.walletapp.entity.OperationType;
+import ru.yakovlev.walletapp.exception.WalletNotFoundException;
+import ru.yakovlev.walletapp.service.WalletBatchService;
+import ru.yakovlev.walletapp.service.WalletService;
+import ru.yakovlev.walletapp.service.WalletShardRebalancer;
+import ru.yakovlev.walletapp.service.WalletStatistics;
+import ru.yakovlev.walletapp.util.ConsistentHashRing;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {"wallet.sharding.enabled=true", "wallet.sharding.virtual-nodes=64"})
+@AutoConfigureMockMvc
+class ShardedWalletTest {
+
+    private static final Map<String, EmbeddedPostgres> SHARDS = new LinkedHashMap<>();
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private WalletBatchService walletBatchService;
+
+    @Autowired
+    private WalletShardRouter walletShardRouter;
+
+    @Autowired
+    private WalletShardRebalancer walletShardRebalancer;
+
+    @Autowired
+    private WalletStatistics walletStatistics;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @DynamicPropertySource
+    static void shards(DynamicPropertyRegistry registry) throws IOException {
+        for (String shard : List.of("a", "b", "c")) {
+            EmbeddedPostgres postgres = EmbeddedPostgres.start();
+            SHARDS.put(shard, postgres);
+            registry.add("wallet.sharding.shards." + shard + ".url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+            registry.add("wallet.sharding.shards." + shard + ".username", () -> "postgres");
+            registry.add("wallet.sharding.shards." + shard + ".password", () -> "postgres");
+        }
+        registry.add("wallet.sharding.shards.c.joining", () -> "true");
+    }
+
+    @AfterAll
+    static void stopShards() throws IOException {
+        for (EmbeddedPostgres postgres : SHARDS.values()) {
+            postgres.close();
+        }
+    }
+
+    @Test
+    void walletOperations_ShouldRouteToOwningShard() throws Exception {
+        List<UUID> created = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            created.add(walletService.createNewWallet().getId());
+        }
+        for (UUID id : created) {
+            assertThat(shardsHolding(id)).containsExactly(walletShardRouter.shardOf(id));
+            walletService.depositOrWithdraw(new WalletDTORequest(id, OperationType.DEPOSIT, BigDecimal.TEN));
+            assertThat(walletService.getWalletById(id).getBalance()).isEqualByComparingTo("10");
+        }
+        assertThat(created).extracting(walletShardRouter::shardOf).contains("a", "b", "c");
+
+        List<WalletOperationResultDTO> results = walletBatchService.applyAll(created.stream()
+                .map(id -> new WalletDTORequest(id, OperationType.WITHDRAW, BigDecimal.ONE))
+                .toList(), BatchAtomicity.BEST_EFFORT);
+        assertThat(results).extracting(WalletOperationResultDTO::getStatus).containsOnly(OperationStatus.APPLIED);
+        assertThat(results).extracting(WalletOperationResultDTO::getIndex)
+                .containsExactlyElementsOf(IntStream.range(0, created.size()).boxed().toList());
+
+        assertThat(walletService.getAllWallets()).extracting(WalletDTOResponse::getId).containsAll(created);
+        assertThat(allPages()).containsAll(created).doesNotHaveDuplicates();
+
+        walletService.deleteWalletById(created.get(0));
+        assertThat(shardsHolding(created.get(0))).isEmpty();
+        assertThatThrownBy(() -> walletService.getWalletById(created.get(0)))
+                .isInstanceOf(WalletNotFoundException.class);
+    }
+
+    @Test
+    void httpRequests_ShouldReachWalletOnNonDefaultShard() throws Exception {
+        UUID id;
+        do {
+            id = walletService.createNewWallet().getId();
+        } while (!walletShardRouter.shardOf(id).equals("b"));
+        walletService.depositOrWithdraw(new WalletDTORequest(id, OperationType.DEPOSIT, BigDecimal.TEN));
+
+        mockMvc.perform(get("/api/v1/wallets/{id}", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(id.toString()))
+                .andExpect(jsonPath("$.balance", is(10.0)));
+        mockMvc.perform(get("/api/v1/wallets/{id}/operations", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)));
+        mockMvc.perform(delete("/api/v1/wallet")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("\"" + id + "\""))
+                .andExpect(status().isOk());
+
+        assertThat(shardsHolding(id)).isEmpty();
+    }
+
+    @Test
+    void joiningShard_ShouldBeFilledOnlineByRebalancer() throws Exception {
+        ConsistentHashRing previousRing = new ConsistentHashRing(List.of("a", "b"), 64);
+        List<UUID> legacy = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            UUID id = UUID.randomUUID();
+            JdbcTemplate shard = jdbc(previousRing.nodeFor(id));
+            shard.update("INSERT INTO wallets (wallet_id, balance) VALUES (?, 500)", id);
+            shard.update("INSERT INTO wallet_operations (wallet_id, operation_type, amount, balance_after) "
+                    + "VALUES (?, 'DEPOSIT', 500, 500)", id);
+            legacy.add(id);
+        }
+        List<UUID> moving = legacy.stream().filter(id -> walletShardRouter.shardOf(id).equals("c")).toList();
+        assertThat(moving).isNotEmpty();
+
+        for (UUID id : moving) {
+            walletService.depositOrWithdraw(new WalletDTORequest(id, OperationType.DEPOSIT, BigDecimal.ONE));
+            assertThat(walletService.getWalletById(id).getBalance()).isEqualByComparingTo("6");
+        }
+
+        Map<String, Integer> moved = walletShardRebalancer.rebalance();
+
+        assertThat(moved.values().stream().mapToInt(Integer::intValue).sum()).isEqualTo(moving.size());
+        for (UUID id : legacy) {
+            assertThat(shardsHolding(id)).containsExactly(walletShardRouter.shardOf(id));
+        }
+        for (UUID id : moving) {
+            assertThat(jdbc("c").queryForObject("SELECT count(*) FROM wallet_operations WHERE wallet_id = ?",
+                    Integer.class, id)).isEqualTo(2);
+            walletService.depositOrWithdraw(new WalletDTORequest(id, OperationType.WITHDRAW, BigDecimal.ONE));
+            assertThat(walletService.getWalletOperations(id, null, 10).getItems()).hasSize(3);
+        }
+        assertThat(jdbc("c").queryForObject("SELECT sum(balance) FROM wallets WHERE wallet_id = ANY(?::uuid[])",
+                Long.class, (Object) moving.stream().map(UUID::toString).toArray(String[]::new)))
+                .isEqualTo(500L * moving.size());
+    }
+
+    @Test
+    void rebalance_ShouldMoveStatisticsWithWallets() throws Exception {
+        walletStatistics.flush();
+        Map<String, List<Long>> before = statsDrift();
+        ConsistentHashRing previousRing = new ConsistentHashRing(List.of("a", "b"), 64);
+        List<UUID> moving = new ArrayList<>();
+        while (moving.size() < 5) {
+            UUID id = UUID.randomUUID();
+            if (!walletShardRouter.shardOf(id).equals("c")) {
+                continue;
+            }
+            JdbcTemplate shard = jdbc(previousRing.nodeFor(id));
+            shard.update("INSERT INTO wallets (wallet_id, balance) VALUES (?, 500)", id);
+            shard.update("INSERT INTO wallet_stats (bucket, wallet_count, balance_sum) VALUES (2, 1, 500) "
+                    + "ON CONFLICT (bucket) DO UPDATE SET wallet_count = wallet_stats.wallet_count + 1, "
+                    + "balance_sum = wallet_stats.balance_sum + 500");
+            moving.add(id);
+        }
+        for (UUID id : moving) {
+            walletService.depositOrWithdraw(new WalletDTORequest(id, OperationType.DEPOSIT, BigDecimal.ONE));
+        }
+
+        walletShardRebalancer.rebalance();
+        walletStatistics.flush();
+
+        assertThat(statsDrift()).isEqualTo(before);
+    }
+
+    @Test
+    void listings_WithWalletLeftOnBothShardsByInterruptedMove_ShouldReturnOwnerCopyOnce() throws Exception {
+        ConsistentHashRing previousRing = new ConsistentHashRing(List.of("a", "b"), 64);
+        UUID duplicated = walletOwnedBy("c");
+        UUID misplaced = walletOwnedBy("c");
+        jdbc(previousRing.nodeFor(duplicated)).update("INSERT INTO wallets (wallet_id, balance) VALUES (?, 500)",
+                duplicated);
+        jdbc("c").update("INSERT INTO wallets (wallet_id, balance) VALUES (?, 501)", duplicated);
+        jdbc(previousRing.nodeFor(misplaced)).update("INSERT INTO wallets (wallet_id, balance) VALUES (?, 700)",
+                misplaced);
+        try {
+            List<WalletDTOResponse> streamed = new ArrayList<>();
+            walletService.forEachWallet(streamed::add);
+
+            for (List<WalletDTOResponse> wallets : List.of(walletService.getAllWallets(), streamed)) {
+                assertThat(wallets.stream().filter(wallet -> wallet.getId().equals(duplicated)))
+                        .singleElement()
+                        .satisfies(wallet -> assertThat(wallet.getBalance()).isEqualByComparingTo("5.01"));
+                assertThat(wallets.stream().filter(wallet -> wallet.getId().equals(misplaced))).hasSize(1);
+            }
+            assertThat(allPages().stream().filter(id -> id.equals(duplicated) || id.equals(misplaced))).hasSize(2);
+        } finally {
+            for (String shard : SHARDS.keySet()) {
+                jdbc(shard).update("DELETE FROM wallets WHERE wallet_id IN (?, ?)", duplicated, misplaced);
+            }
+        }
+    }
+
+    private UUID walletOwnedBy(String shard) {
+        UUID id;
+        do {
+            id = UUID.randomUUID();
+        } while (!walletShardRouter.shardOf(id).equals(shard));
+        return id;
+    }
+
+    private Map<String, List<Long>> statsDrift() {
+        Map<String, List<Long>> drift = new LinkedHashMap<>();
+        for (String shard : SHARDS.keySet()) {
+            Map<String, Object> row = jdbc(shard).queryForMap("SELECT "
+                    + "(SELECT count(*) FROM wallets) + (SELECT count(*) FROM wallets_cold) "
+                    + "- (SELECT coalesce(sum(wallet_count), 0) FROM wallet_stats) AS wallet_count, "
+                    + "((SELECT coalesce(sum(balance), 0) FROM wallets) + (SELECT coalesce(sum(balance), 0) "
+                    + "FROM wallets_cold) - (SELECT coalesce(sum(balance_sum), 0) FROM wallet_stats))::bigint "
+                    + "AS balance_sum");
+            drift.put(shard, List.of(((Number) row.get("wallet_count")).longValue(),
+                    ((Number) row.get("balance_sum")).longValue()));
+        }
+        return drift;
+    }
+
+    private List<String> shardsHolding(UUID id) {
+        return SHARDS.keySet().stream()
+                .filter(shard -> jdbc(shard).queryForObject("SELECT count(*) FROM wallets WHERE wallet_id = ?",
+                        Integer.class, id) > 0)
+                .toList();
+    }
+
+    private List<UUID> allPages() throws Exception {
+        List<UUID> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            PageDTOResponse<WalletDTOResponse> page = walletService.getWalletsPage(cursor, 7);
+            page.getItems().forEach(wallet -> ids.add(wallet.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return ids;
+    }
+
+    private static JdbcTemplate jdbc(String shard) {
+        return new JdbcTemplate(SHARDS.get(shard).getPostgresDatabase());
+    }
+}
@@ -0,0 +1,175 @@
+package ru.yakovlev.walletapp;
+
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import ru.yakovlev.walletapp.dto.WalletDTORequest;
+import ru.yakovlev.walletapp.entity.OperationType;
+import ru.yakovlev.walletapp.service.WalletService;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+@SpringBootTest(webEnvironment = RANDOM_PORT, properties = {
+        "wallet.admission.enabled=true",
+        "wallet.admission.per-wallet-limit=2",
+        "wallet.admission.retry-after=2s",
+        "server.tomcat.threads.max=8"
+})
+@AutoConfigureEmbeddedDatabase
+class WalletAdmissionTest {
+
+    private static final int HOT_REQUESTS = 24;
+
+    private static final int COLD_REQUESTS = 20;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void saturatedHotWallet_ShouldBeShedWhileColdWalletLatencyStaysFlat() throws Exception {
+        UUID hotId = walletService.createNewWallet().getId();
+        UUID coldId = walletService.createNewWallet().getId();
+        long[] baseline = coldDeposits(coldId);
+
+        List<CompletableFuture<HttpResponse<String>>> hot = new ArrayList<>();
+        long[] saturated;
+        try (Connection locker = dataSource.getConnection()) {
+            locker.setAutoCommit(false);
+            try (PreparedStatement lock = locker.prepareStatement(
+                    "SELECT wallet_id FROM wallets WHERE wallet_id = ? FOR UPDATE")) {
+                lock.setObject(1, hotId);
+                lock.executeQuery().close();
+            }
+            for (int i = 0; i < HOT_REQUESTS; i++) {
+                hot.add(httpClient.sendAsync(deposit(hotId), HttpResponse.BodyHandlers.ofString()));
+            }
+            awaitRejections(hot, HOT_REQUESTS - 2);
+
+            saturated = coldDeposits(coldId);
+            locker.rollback();
+        }
+
+        List<HttpResponse<String>> hotResponses = new ArrayList<>();
+        for (CompletableFuture<HttpResponse<String>> response : hot) {
+            hotResponses.add(response.get(30, TimeUnit.SECONDS));
+        }
+        assertThat(hotResponses).filteredOn(response -> response.statusCode() == 200).hasSize(2);
+        assertThat(hotResponses).filteredOn(response -> response.statusCode() == 429)
+                .hasSize(HOT_REQUESTS - 2)
+                .allSatisfy(response -> assertThat(response.headers().firstValue("Retry-After")).hasValue("2"));
+        assertThat(median(saturated)).isLessThan(Math.max(5 * median(baseline), TimeUnit.MILLISECONDS.toNanos(200)));
+        assertThat(Arrays.stream(saturated).max().getAsLong()).isLessThan(TimeUnit.SECONDS.toNanos(2));
+    }
+
+    @Test
+    void saturatedHotWallet_ShouldShedBatchesAimedAtIt() throws Exception {
+        UUID hotId = walletService.createNewWallet().getId();
+        UUID sourceId = walletService.createNewWallet().getId();
+        walletService.depositOrWithdraw(new WalletDTORequest(sourceId, OperationType.DEPOSIT, new BigDecimal("100")));
+
+        List<CompletableFuture<HttpResponse<String>>> hot = new ArrayList<>();
+        try (Connection locker = dataSource.getConnection()) {
+            locker.setAutoCommit(false);
+            try (PreparedStatement lock = locker.prepareStatement(
+                    "SELECT wallet_id FROM wallets WHERE wallet_id = ? FOR UPDATE")) {
+                lock.setObject(1, hotId);
+                lock.executeQuery().close();
+            }
+            for (int i = 0; i < HOT_REQUESTS; i++) {
+                hot.add(httpClient.sendAsync(i % 2 == 0 ? operationsBatch(hotId) : transferBatch(sourceId, hotId),
+                        HttpResponse.BodyHandlers.ofString()));
+            }
+            awaitRejections(hot, HOT_REQUESTS - 2);
+            locker.rollback();
+        }
+
+        List<HttpResponse<String>> hotResponses = new ArrayList<>();
+        for (CompletableFuture<HttpResponse<String>> response : hot) {
+            hotResponses.add(response.get(30, TimeUnit.SECONDS));
+        }
+        assertThat(hotResponses).filteredOn(response -> response.statusCode() == 200).hasSize(2);
+        assertThat(hotResponses).filteredOn(response -> response.statusCode() == 429).hasSize(HOT_REQUESTS - 2);
+    }
+
+    private long[] coldDeposits(UUID coldId) throws Exception {
+        long[] latencies = new long[COLD_REQUESTS];
+        for (int i = 0; i < COLD_REQUESTS; i++) {
+            long started = System.nanoTime();
+            HttpResponse<String> response = httpClient.send(deposit(coldId), HttpResponse.BodyHandlers.ofString());
+            latencies[i] = System.nanoTime() - started;
+            assertThat(response.statusCode()).isEqualTo(200);
+        }
+        return latencies;
+    }
+
+    private HttpRequest deposit(UUID walletId) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/wallet"))
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(
+                        "{\"id\":\"" + walletId + "\",\"operationType\":\"DEPOSIT\",\"amount\":1}"))
+                .build();
+    }
+
+    private HttpRequest operationsBatch(UUID walletId) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/wallets/operations"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "[{\"id\":\"" + walletId + "\",\"operationType\":\"DEPOSIT\",\"amount\":1}]"))
+                .build();
+    }
+
+    private HttpRequest transferBatch(UUID fromWalletId, UUID toWalletId) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/transfers/batch"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("[{\"fromWalletId\":\"" + fromWalletId
+                        + "\",\"toWalletId\":\"" + toWalletId + "\",\"amount\":1}]"))
+                .build();
+    }
+
+    private static void awaitRejections(List<CompletableFuture<HttpResponse<String>>> responses, int expected)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (rejected(responses) < expected && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(rejected(responses)).isEqualTo(expected);
+    }
+
+    private static long rejected(List<CompletableFuture<HttpResponse<String>>> responses) {
+        return responses.stream()
+                .filter(response -> response.isDone() && response.join().statusCode() == 429)
+                .count();
+    }
+
+    private static long median(long[] latencies) {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
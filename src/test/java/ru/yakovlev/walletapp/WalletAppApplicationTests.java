@@ -1,9 +1,11 @@
 package ru.yakovlev.walletapp;
 
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
 @SpringBootTest
+@AutoConfigureEmbeddedDatabase
 class WalletAppApplicationTests {
 
     @Test
@@ -0,0 +1,106 @@
+package ru.yakovlev.walletapp;
+
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import ru.yakovlev.walletapp.dto.WalletDTORequest;
+import ru.yakovlev.walletapp.dto.WalletDTOResponse;
+import ru.yakovlev.walletapp.entity.OperationType;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+@SpringBootTest(webEnvironment = RANDOM_PORT)
+@AutoConfigureEmbeddedDatabase
+class WalletConcurrencyTest {
+
+    private static final int THREADS = 32;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    void parallelDepositsAndWithdrawals_ShouldNotLoseUpdates() throws Exception {
+        UUID walletId = createWallet();
+        deposit(walletId, BigDecimal.valueOf(1000));
+
+        List<HttpStatus> statuses = runInParallel(walletId, 1000, 1000);
+
+        assertThat(statuses).allMatch(status -> status == HttpStatus.OK);
+        assertThat(getBalance(walletId)).isEqualByComparingTo(BigDecimal.valueOf(1000));
+    }
+
+    @Test
+    void parallelWithdrawals_ShouldNeverOverdraw() throws Exception {
+        UUID walletId = createWallet();
+
+        List<HttpStatus> statuses = runInParallel(walletId, 500, 1000);
+
+        long withdrawn = statuses.stream().filter(status -> status == HttpStatus.OK).count() - 500;
+        assertThat(statuses).allMatch(status -> status == HttpStatus.OK || status == HttpStatus.CONFLICT);
+        assertThat(withdrawn).isBetween(0L, 500L);
+        assertThat(getBalance(walletId)).isEqualByComparingTo(BigDecimal.valueOf(500 - withdrawn));
+    }
+
+    private List<HttpStatus> runInParallel(UUID walletId, int deposits, int withdrawals) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<OperationType> operations = new ArrayList<>();
+        operations.addAll(Collections.nCopies(deposits, OperationType.DEPOSIT));
+        operations.addAll(Collections.nCopies(withdrawals, OperationType.WITHDRAW));
+        Collections.shuffle(operations, new Random(42));
+
+        List<Future<HttpStatus>> futures = new ArrayList<>();
+        try {
+            for (OperationType type : operations) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return put(new WalletDTORequest(walletId, type, BigDecimal.ONE));
+                }));
+            }
+            start.countDown();
+            List<HttpStatus> statuses = new ArrayList<>();
+            for (Future<HttpStatus> future : futures) {
+                statuses.add(future.get());
+            }
+            return statuses;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private UUID createWallet() {
+        return restTemplate.postForObject("/api/v1/wallet", null, WalletDTOResponse.class).getId();
+    }
+
+    private void deposit(UUID walletId, BigDecimal amount) {
+        assertThat(put(new WalletDTORequest(walletId, OperationType.DEPOSIT, amount))).isEqualTo(HttpStatus.OK);
+    }
+
+    private HttpStatus put(WalletDTORequest request) {
+        ResponseEntity<String> response = restTemplate.exchange("/api/v1/wallet", HttpMethod.PUT,
+                new HttpEntity<>(request), String.class);
+        return HttpStatus.valueOf(response.getStatusCode().value());
+    }
+
+    private BigDecimal getBalance(UUID walletId) {
+        return restTemplate.getForObject("/api/v1/wallets/{id}", WalletDTOResponse.class, walletId).getBalance();
+    }
+}
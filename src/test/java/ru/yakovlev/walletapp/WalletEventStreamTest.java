@@ -0,0 +1,137 @@
+package ru.yakovlev.walletapp;
+
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import ru.yakovlev.walletapp.dto.WalletDTORequest;
+import ru.yakovlev.walletapp.entity.OperationType;
+import ru.yakovlev.walletapp.service.WalletEventBroadcaster;
+import ru.yakovlev.walletapp.service.WalletService;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+@SpringBootTest(webEnvironment = RANDOM_PORT)
+@AutoConfigureEmbeddedDatabase
+class WalletEventStreamTest {
+
+    private static final String END_OF_STREAM = "<eof>";
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private WalletEventBroadcaster walletEventBroadcaster;
+
+    @Test
+    void walletStream_ShouldEmitSnapshotChangesAndDeletion() throws Exception {
+        UUID walletId = walletService.createNewWallet().getId();
+        int subscriptions = walletEventBroadcaster.subscriptionCount();
+        BlockingQueue<String> stream = open("/api/v1/wallets/" + walletId + "/events", null);
+
+        assertThat(nextEvent(stream)).containsExactly("event:snapshot",
+                "data:{\"id\":\"" + walletId + "\",\"balance\":0.00,\"version\":0,\"deleted\":false}", "id:0");
+
+        walletService.depositOrWithdraw(new WalletDTORequest(walletId, OperationType.DEPOSIT, new BigDecimal("12.50")));
+        assertThat(nextEvent(stream)).containsExactly("event:balance",
+                "data:{\"id\":\"" + walletId + "\",\"balance\":12.50,\"version\":1,\"deleted\":false}", "id:1");
+
+        walletService.deleteWalletById(walletId);
+        assertThat(nextEvent(stream)).containsExactly("event:deleted",
+                "data:{\"id\":\"" + walletId + "\",\"balance\":null,\"version\":null,\"deleted\":true}");
+        assertThat(stream.poll(10, TimeUnit.SECONDS)).isEqualTo(END_OF_STREAM);
+        awaitSubscriptions(subscriptions);
+    }
+
+    @Test
+    void walletStream_WithLastEventId_ShouldResumeAfterSeenVersion() throws Exception {
+        UUID walletId = walletService.createNewWallet().getId();
+        walletService.depositOrWithdraw(new WalletDTORequest(walletId, OperationType.DEPOSIT, BigDecimal.ONE));
+
+        BlockingQueue<String> stale = open("/api/v1/wallets/" + walletId + "/events", "0");
+        assertThat(nextEvent(stale)).contains("id:1", "event:snapshot");
+
+        int subscriptions = walletEventBroadcaster.subscriptionCount();
+        BlockingQueue<String> current = open("/api/v1/wallets/" + walletId + "/events", "1");
+        awaitSubscriptions(subscriptions + 1);
+        walletService.depositOrWithdraw(new WalletDTORequest(walletId, OperationType.DEPOSIT, BigDecimal.ONE));
+        assertThat(nextEvent(current)).contains("id:2", "event:balance");
+    }
+
+    @Test
+    void multiWalletStream_ShouldEmitChangesOfEverySubscribedWallet() throws Exception {
+        UUID firstId = walletService.createNewWallet().getId();
+        UUID secondId = walletService.createNewWallet().getId();
+        BlockingQueue<String> stream = open("/api/v1/wallets/events?ids=" + firstId + "&ids=" + secondId, null);
+
+        assertThat(nextEvent(stream)).contains("event:snapshot");
+        assertThat(nextEvent(stream)).contains("event:snapshot");
+
+        walletService.depositOrWithdraw(new WalletDTORequest(secondId, OperationType.DEPOSIT, BigDecimal.TEN));
+        List<String> event = nextEvent(stream);
+        assertThat(event).contains("event:balance");
+        assertThat(event).noneMatch(line -> line.startsWith("id:"));
+        assertThat(event.get(event.size() - 1)).contains(secondId.toString(), "\"balance\":10.00");
+    }
+
+    private BlockingQueue<String> open(String path, String lastEventId) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Accept", "text/event-stream");
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+        BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+        httpClient.sendAsync(request.build(), HttpResponse.BodyHandlers.ofLines())
+                .thenAccept(response -> {
+                    try (Stream<String> body = response.body()) {
+                        body.forEach(lines::add);
+                    } finally {
+                        lines.add(END_OF_STREAM);
+                    }
+                });
+        return lines;
+    }
+
+    private void awaitSubscriptions(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (walletEventBroadcaster.subscriptionCount() != expected && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(walletEventBroadcaster.subscriptionCount()).isEqualTo(expected);
+    }
+
+    private List<String> nextEvent(BlockingQueue<String> stream) throws InterruptedException {
+        List<String> event = new ArrayList<>();
+        while (true) {
+            String line = stream.poll(10, TimeUnit.SECONDS);
+            assertThat(line).as("event stream line").isNotNull().isNotEqualTo(END_OF_STREAM);
+            if (line.isEmpty()) {
+                if (!event.isEmpty()) {
+                    return event;
+                }
+            } else if (!line.startsWith(":")) {
+                event.add(line);
+            }
+        }
+    }
+}
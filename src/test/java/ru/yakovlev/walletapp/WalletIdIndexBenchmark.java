@@ -0,0 +1,57 @@
+package ru.yakovlev.walletapp;
+
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yakovlev.walletapp.util.UuidV7Generator;
+
+import java.util.UUID;
+import java.util.function.Supplier;
+
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureEmbeddedDatabase
+class WalletIdIndexBenchmark {
+
+    private static final long ROWS = Long.getLong("benchmark.rows", 10_000_000);
+
+    private static final int BATCH = Integer.getInteger("benchmark.batch", 10_000);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void randomVersusTimeOrderedPrimaryKeys() {
+        String v4 = run("v4", UUID::randomUUID);
+        String v7 = run("v7", UuidV7Generator::next);
+
+        System.out.println(v4);
+        System.out.println(v7);
+    }
+
+    private String run(String name, Supplier<UUID> ids) {
+        String table = "wallet_id_bench_" + name;
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + table);
+        jdbcTemplate.execute("CREATE TABLE " + table
+                + " (wallet_id uuid PRIMARY KEY, balance numeric NOT NULL DEFAULT 0)");
+        try {
+            long begin = System.nanoTime();
+            for (long inserted = 0; inserted < ROWS; inserted += BATCH) {
+                UUID[] batch = new UUID[(int) Math.min(BATCH, ROWS - inserted)];
+                for (int i = 0; i < batch.length; i++) {
+                    batch[i] = ids.get();
+                }
+                jdbcTemplate.update("INSERT INTO " + table + " (wallet_id) SELECT unnest(?::uuid[])",
+                        (Object) batch);
+            }
+            double seconds = (System.nanoTime() - begin) / 1e9;
+            Long indexBytes = jdbcTemplate.queryForObject(
+                    "SELECT pg_relation_size(?::regclass)", Long.class, table + "_pkey");
+            return String.format("%s: %d rows in %.1f s (%.0f rows/s), primary key index %.1f MB (%.1f bytes/row)",
+                    name, ROWS, seconds, ROWS / seconds, indexBytes / 1048576.0, (double) indexBytes / ROWS);
+        } finally {
+            jdbcTemplate.execute("DROP TABLE " + table);
+        }
+    }
+}
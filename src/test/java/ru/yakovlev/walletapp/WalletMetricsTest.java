@@ -0,0 +1,118 @@
+package ru.yakovlev.walletapp;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import ru.yakovlev.walletapp.dto.WalletDTORequest;
+import ru.yakovlev.walletapp.entity.OperationType;
+import ru.yakovlev.walletapp.service.WalletMetrics;
+import ru.yakovlev.walletapp.service.WalletService;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+@SpringBootTest(webEnvironment = RANDOM_PORT)
+@AutoConfigureEmbeddedDatabase
+@AutoConfigureObservability
+class WalletMetricsTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private WalletMetrics walletMetrics;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void operations_ShouldBeTimedByTypeAndOutcome() {
+        UUID walletId = walletService.createNewWallet().getId();
+
+        assertThat(put(walletId, OperationType.DEPOSIT, BigDecimal.TEN)).isEqualTo(HttpStatus.OK);
+        assertThat(put(walletId, OperationType.WITHDRAW, BigDecimal.valueOf(100))).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(put(UUID.randomUUID(), OperationType.DEPOSIT, BigDecimal.ONE)).isEqualTo(HttpStatus.NOT_FOUND);
+
+        assertThat(operations("DEPOSIT", "applied")).isPositive();
+        assertThat(operations("WITHDRAW", "not_enough_balance")).isPositive();
+        assertThat(operations("DEPOSIT", "not_found")).isPositive();
+        assertThat(meterRegistry.get("wallet.transactions").tag("read_only", "false").tag("outcome", "commit")
+                .timer().count()).isPositive();
+    }
+
+    @Test
+    void prometheusEndpoint_ShouldExposeLatencyHistograms() {
+        UUID walletId = walletService.createNewWallet().getId();
+        put(walletId, OperationType.DEPOSIT, BigDecimal.ONE);
+
+        String scrape = restTemplate.getForObject("/actuator/prometheus", String.class);
+
+        assertThat(scrape)
+                .contains("wallet_operations_seconds_bucket{")
+                .contains("wallet_transactions_seconds_bucket{")
+                .contains("http_server_requests_seconds_bucket{")
+                .contains("uri=\"/api/v1/wallet\"");
+    }
+
+    @Test
+    void concurrentOperationsOnOneWallet_ShouldBeCountedAsContention() throws Exception {
+        UUID walletId = walletService.createNewWallet().getId();
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                workers.add(executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < 20; j++) {
+                        walletService.depositOrWithdraw(
+                                new WalletDTORequest(walletId, OperationType.DEPOSIT, BigDecimal.ONE));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        walletMetrics.publishHotWallets();
+
+        assertThat(meterRegistry.get("wallet.contention").counter().count()).isPositive();
+        assertThat(meterRegistry.get("wallet.contention.hot").tag("wallet", walletId.toString())
+                .gauge().value()).isPositive();
+    }
+
+    private HttpStatus put(UUID walletId, OperationType type, BigDecimal amount) {
+        return HttpStatus.valueOf(restTemplate.exchange("/api/v1/wallet", HttpMethod.PUT,
+                        new HttpEntity<>(new WalletDTORequest(walletId, type, amount)), String.class)
+                .getStatusCode().value());
+    }
+
+    private long operations(String type, String outcome) {
+        return meterRegistry.get("wallet.operations").tag("type", type).tag("outcome", outcome).timer().count();
+    }
+}
@@ -0,0 +1,148 @@
+package ru.yakovlev.walletapp;
+
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import ru.yakovlev.walletapp.dto.TransferDTORequest;
+import ru.yakovlev.walletapp.dto.WalletDTORequest;
+import ru.yakovlev.walletapp.dto.WalletDTOResponse;
+import ru.yakovlev.walletapp.entity.OperationType;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+@SpringBootTest(webEnvironment = RANDOM_PORT)
+@AutoConfigureEmbeddedDatabase
+class WalletTransferTest {
+
+    private static final int THREADS = 32;
+    private static final int WALLETS = 5;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    void parallelOpposingTransfers_ShouldConserveMoneyWithoutDeadlocks() throws Exception {
+        List<UUID> wallets = new ArrayList<>();
+        for (int i = 0; i < WALLETS; i++) {
+            UUID walletId = createWallet();
+            deposit(walletId, BigDecimal.valueOf(100));
+            wallets.add(walletId);
+        }
+
+        Random random = new Random(42);
+        List<Object> requests = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            int from = random.nextInt(WALLETS);
+            int to = (from + 1 + random.nextInt(WALLETS - 1)) % WALLETS;
+            TransferDTORequest transfer = new TransferDTORequest(wallets.get(from), wallets.get(to),
+                    BigDecimal.valueOf(1 + random.nextInt(30)));
+            requests.add(i % 10 == 0
+                    ? List.of(transfer, new TransferDTORequest(wallets.get(to), wallets.get(from), BigDecimal.ONE))
+                    : transfer);
+        }
+
+        List<HttpStatus> statuses = runInParallel(requests);
+
+        assertThat(statuses).allMatch(status -> status == HttpStatus.OK || status == HttpStatus.CONFLICT);
+        assertThat(statuses).contains(HttpStatus.OK);
+        BigDecimal total = BigDecimal.ZERO;
+        for (UUID walletId : wallets) {
+            BigDecimal balance = getBalance(walletId);
+            assertThat(balance).isNotNegative();
+            total = total.add(balance);
+        }
+        assertThat(total).isEqualByComparingTo(BigDecimal.valueOf(100L * WALLETS));
+    }
+
+    @Test
+    void transferBatch_ShouldNetOpposingTransfersBeforeCheckingBalance() {
+        UUID first = createWallet();
+        UUID second = createWallet();
+        deposit(first, BigDecimal.TEN);
+
+        ResponseEntity<String> response = post("/api/v1/transfers/batch", List.of(
+                new TransferDTORequest(second, first, new BigDecimal("50.00")),
+                new TransferDTORequest(first, second, new BigDecimal("55.50"))));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(getBalance(first)).isEqualByComparingTo("4.50");
+        assertThat(getBalance(second)).isEqualByComparingTo("5.50");
+    }
+
+    @Test
+    void transfer_WithInsufficientOrMissingWallet_ShouldLeaveBalancesUntouched() {
+        UUID first = createWallet();
+        UUID second = createWallet();
+        deposit(first, BigDecimal.TEN);
+
+        assertThat(post("/api/v1/transfers", new TransferDTORequest(first, second, new BigDecimal("10.01")))
+                .getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(post("/api/v1/transfers", new TransferDTORequest(first, UUID.randomUUID(), BigDecimal.ONE))
+                .getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(getBalance(first)).isEqualByComparingTo(BigDecimal.TEN);
+        assertThat(getBalance(second)).isEqualByComparingTo(BigDecimal.ZERO);
+
+        assertThat(post("/api/v1/transfers", new TransferDTORequest(first, second, BigDecimal.TEN))
+                .getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(getBalance(first)).isEqualByComparingTo(BigDecimal.ZERO);
+        assertThat(getBalance(second)).isEqualByComparingTo(BigDecimal.TEN);
+    }
+
+    private List<HttpStatus> runInParallel(List<Object> requests) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<HttpStatus>> futures = new ArrayList<>();
+        try {
+            for (Object request : requests) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    String url = request instanceof List ? "/api/v1/transfers/batch" : "/api/v1/transfers";
+                    return HttpStatus.valueOf(post(url, request).getStatusCode().value());
+                }));
+            }
+            start.countDown();
+            List<HttpStatus> statuses = new ArrayList<>();
+            for (Future<HttpStatus> future : futures) {
+                statuses.add(future.get());
+            }
+            return statuses;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private UUID createWallet() {
+        return restTemplate.postForObject("/api/v1/wallet", null, WalletDTOResponse.class).getId();
+    }
+
+    private void deposit(UUID walletId, BigDecimal amount) {
+        ResponseEntity<String> response = restTemplate.exchange("/api/v1/wallet", HttpMethod.PUT,
+                new HttpEntity<>(new WalletDTORequest(walletId, OperationType.DEPOSIT, amount)), String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    private ResponseEntity<String> post(String url, Object body) {
+        return restTemplate.postForEntity(url, body, String.class);
+    }
+
+    private BigDecimal getBalance(UUID walletId) {
+        return restTemplate.getForObject("/api/v1/wallets/{id}", WalletDTOResponse.class, walletId).getBalance();
+    }
+}
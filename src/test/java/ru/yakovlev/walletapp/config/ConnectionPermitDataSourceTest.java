@@ -0,0 +1,59 @@
+package ru.yakovlev.walletapp.config;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ConnectionPermitDataSourceTest {
+
+    private final DataSource target = mock(DataSource.class);
+
+    @Test
+    void getConnection_ShouldHoldPermitUntilClose() throws Exception {
+        Connection connection = mock(Connection.class);
+        when(target.getConnection()).thenReturn(connection);
+        ConnectionPermitDataSource dataSource = new ConnectionPermitDataSource(target, 1, Duration.ofMillis(10));
+
+        Connection first = dataSource.getConnection();
+        assertThat(dataSource.getAvailablePermits()).isZero();
+        assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+
+        first.close();
+        first.close();
+
+        verify(connection, times(2)).close();
+        assertThat(dataSource.getAvailablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    void getConnection_WhenTargetFails_ShouldReturnPermit() throws Exception {
+        when(target.getConnection()).thenThrow(new SQLException("pool exhausted"));
+        ConnectionPermitDataSource dataSource = new ConnectionPermitDataSource(target, 1, Duration.ofMillis(10));
+
+        assertThatThrownBy(dataSource::getConnection).hasMessage("pool exhausted");
+
+        assertThat(dataSource.getAvailablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    void connectionProxy_ShouldUnwrapToItselfAndCompareByIdentity() throws Exception {
+        when(target.getConnection()).thenReturn(mock(Connection.class));
+        ConnectionPermitDataSource dataSource = new ConnectionPermitDataSource(target, 2, Duration.ofMillis(10));
+
+        Connection connection = dataSource.getConnection();
+
+        assertThat(connection.unwrap(Connection.class)).isSameAs(connection);
+        assertThat(connection).isEqualTo(connection).isNotEqualTo(dataSource.getConnection());
+    }
+}
@@ -0,0 +1,55 @@
+package ru.yakovlev.walletapp.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.env.MockEnvironment;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class VirtualThreadsConfigTest {
+
+    private final BeanPostProcessor postProcessor =
+            VirtualThreadsConfig.connectionPermitPostProcessor(new MockEnvironment());
+
+    @Test
+    void physicalPools_ShouldGetPermitsOfTheirOwnSize() {
+        HikariDataSource primary = new HikariDataSource();
+        primary.setMaximumPoolSize(30);
+        WalletProperties.Replica replica = new WalletProperties.Replica();
+        replica.setUrl("jdbc:postgresql://localhost:5432/wallet_db");
+        replica.setMaximumPoolSize(25);
+        ReplicaDataSources replicas = new ReplicaDataSources(Map.of("r1", replica));
+
+        Object wrappedPrimary = postProcessor.postProcessAfterInitialization(primary, "primaryDataSource");
+        Object processedReplicas = postProcessor.postProcessAfterInitialization(replicas, "replicaDataSources");
+
+        assertThat(wrappedPrimary).isInstanceOfSatisfying(ConnectionPermitDataSource.class,
+                permits -> assertThat(permits.getAvailablePermits()).isEqualTo(30));
+        assertThat(processedReplicas).isSameAs(replicas);
+        assertThat(replicas.get("r1")).isInstanceOfSatisfying(ConnectionPermitDataSource.class,
+                permits -> assertThat(permits.getAvailablePermits()).isEqualTo(25));
+        replicas.close();
+        primary.close();
+    }
+
+    @Test
+    void lazyAndRoutingProxies_ShouldNotTakePermits() throws Exception {
+        DataSource primary = mock(DataSource.class);
+        when(primary.getConnection()).thenReturn(mock(Connection.class));
+        ReplicaRoutingDataSource routing =
+                new ReplicaRoutingDataSource(primary, new ReplicaDataSources(Map.of()), null);
+        LazyConnectionDataSourceProxy lazy = new LazyConnectionDataSourceProxy(primary);
+        lazy.setReadOnlyDataSource(routing);
+
+        assertThat(postProcessor.postProcessAfterInitialization(lazy, "dataSource")).isSameAs(lazy);
+        assertThat(postProcessor.postProcessAfterInitialization(routing, "replicaRouting")).isSameAs(routing);
+    }
+}
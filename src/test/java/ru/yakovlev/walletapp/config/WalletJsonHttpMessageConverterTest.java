@@ -0,0 +1,104 @@
+package ru.yakovlev.walletapp.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import ru.yakovlev.walletapp.dto.TransferDTORequest;
+import ru.yakovlev.walletapp.dto.WalletDTORequest;
+import ru.yakovlev.walletapp.dto.WalletDTOResponse;
+import ru.yakovlev.walletapp.entity.OperationType;
+import ru.yakovlev.walletapp.exception.RequestBodyError;
+import ru.yakovlev.walletapp.exception.WalletRequestNotReadableException;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WalletJsonHttpMessageConverterTest {
+
+    private static final UUID WALLET_ID = UUID.fromString("123e4567-e89b-12d3-a456-426614174000");
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private final WalletJsonHttpMessageConverter converter = new WalletJsonHttpMessageConverter(objectMapper);
+
+    private final MappingJackson2HttpMessageConverter jackson = new MappingJackson2HttpMessageConverter(objectMapper);
+
+    @Test
+    void write_ShouldMatchJacksonOutputByteForByte() throws Exception {
+        List<WalletDTOResponse> responses = List.of(
+                new WalletDTOResponse(WALLET_ID, BigDecimal.valueOf(1000.00)),
+                new WalletDTOResponse(WALLET_ID, 1250L),
+                new WalletDTOResponse(WALLET_ID, new BigDecimal("1E+3")),
+                new WalletDTOResponse(WALLET_ID, new BigDecimal("-0.01")),
+                new WalletDTOResponse(null, null));
+
+        for (WalletDTOResponse response : responses) {
+            MockHttpOutputMessage expected = new MockHttpOutputMessage();
+            jackson.write(response, MediaType.APPLICATION_JSON, expected);
+            MockHttpOutputMessage actual = new MockHttpOutputMessage();
+            converter.write(response, MediaType.APPLICATION_JSON, actual);
+
+            assertThat(actual.getBodyAsBytes()).isEqualTo(expected.getBodyAsBytes());
+            assertThat(actual.getHeaders().getContentType()).isEqualTo(expected.getHeaders().getContentType());
+        }
+    }
+
+    @Test
+    void read_ShouldMatchJacksonBinding() throws Exception {
+        List<String> bodies = List.of(
+                "{\"id\":\"" + WALLET_ID + "\",\"operationType\":\"DEPOSIT\",\"amount\":12.50}",
+                "{\"amount\":\"7\",\"unknown\":{\"nested\":[1,2]},\"operationType\":\"WITHDRAW\",\"id\":null}",
+                "{\"id\":\"" + WALLET_ID + "\",\"operationType\":1,\"amount\":1e2}",
+                "{}");
+
+        for (String body : bodies) {
+            assertThat(converter.read(WalletDTORequest.class, input(body)))
+                    .isEqualTo(jackson.read(WalletDTORequest.class, input(body)));
+        }
+        assertThat(converter.read(WalletDTORequest.class, input(bodies.get(0))))
+                .isEqualTo(new WalletDTORequest(WALLET_ID, OperationType.DEPOSIT, new BigDecimal("12.50")));
+    }
+
+    @Test
+    void read_WithInvalidInput_ShouldReportErrorCode() {
+        assertError("{\"id\":\"not-a-uuid\",\"operationType\":\"DEPOSIT\"}", RequestBodyError.INVALID_UUID);
+        assertError("{\"id\":42}", RequestBodyError.INVALID_UUID);
+        assertError("{\"operationType\":\"STEAL\"}", RequestBodyError.INVALID_OPERATION_TYPE);
+        assertError("{\"amount\":\"ten\"}", RequestBodyError.MALFORMED);
+        assertError("{ invalid json }", RequestBodyError.MALFORMED);
+        assertError("[]", RequestBodyError.MALFORMED);
+    }
+
+    @Test
+    void supports_OnlyWalletRequestReadsAndWalletResponseWrites() {
+        assertThat(converter.canRead(WalletDTORequest.class, MediaType.APPLICATION_JSON)).isTrue();
+        assertThat(converter.canRead(WalletDTOResponse.class, MediaType.APPLICATION_JSON)).isFalse();
+        assertThat(converter.canRead(TransferDTORequest.class, MediaType.APPLICATION_JSON)).isFalse();
+        assertThat(converter.canWrite(WalletDTOResponse.class, MediaType.APPLICATION_JSON)).isTrue();
+        assertThat(converter.canWrite(WalletDTORequest.class, MediaType.APPLICATION_JSON)).isFalse();
+        assertThat(converter.canWrite(WalletDTOResponse.class, MediaType.APPLICATION_XML)).isFalse();
+    }
+
+    private void assertError(String body, RequestBodyError error) {
+        assertThatThrownBy(() -> converter.read(WalletDTORequest.class, input(body)))
+                .isInstanceOfSatisfying(WalletRequestNotReadableException.class,
+                        e -> assertThat(e.getError()).isEqualTo(error));
+        assertThatThrownBy(() -> jackson.read(WalletDTORequest.class, input(body)))
+                .satisfies(e -> assertThat(RequestBodyError.of(e)).isEqualTo(error));
+    }
+
+    private static MockHttpInputMessage input(String body) {
+        MockHttpInputMessage message = new MockHttpInputMessage(body.getBytes(StandardCharsets.UTF_8));
+        message.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return message;
+    }
+}
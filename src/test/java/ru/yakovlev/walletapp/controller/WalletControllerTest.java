@@ -8,23 +8,63 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.yakovlev.walletapp.config.WalletJsonHttpMessageConverter;
+import ru.yakovlev.walletapp.config.WalletReplicaRouter;
+import ru.yakovlev.walletapp.dto.BatchAtomicity;
+import ru.yakovlev.walletapp.dto.BulkWalletDTORequest;
+import ru.yakovlev.walletapp.dto.OperationStatus;
+import ru.yakovlev.walletapp.dto.PageDTOResponse;
+import ru.yakovlev.walletapp.dto.TransferDTORequest;
+import ru.yakovlev.walletapp.dto.TransferDTOResponse;
+import ru.yakovlev.walletapp.dto.UnreadableWalletDTORequest;
 import ru.yakovlev.walletapp.dto.WalletDTORequest;
 import ru.yakovlev.walletapp.dto.WalletDTOResponse;
+import ru.yakovlev.walletapp.dto.WalletOperationDTOResponse;
+import ru.yakovlev.walletapp.dto.BalanceBucketDTOResponse;
+import ru.yakovlev.walletapp.dto.WalletOperationResultDTO;
+import ru.yakovlev.walletapp.dto.WalletStatsDTOResponse;
 import ru.yakovlev.walletapp.entity.OperationType;
+import ru.yakovlev.walletapp.exception.CrossShardTransferException;
+import ru.yakovlev.walletapp.exception.EventSubscriptionLimitException;
 import ru.yakovlev.walletapp.exception.GlobalExceptionHandler;
+import ru.yakovlev.walletapp.exception.IdempotencyKeyReusedException;
+import ru.yakovlev.walletapp.exception.InvalidCursorException;
+import ru.yakovlev.walletapp.exception.ProvisioningJobNotFoundException;
+import ru.yakovlev.walletapp.exception.ProvisioningNotSupportedException;
+import ru.yakovlev.walletapp.exception.WalletBalanceOverflowException;
 import ru.yakovlev.walletapp.exception.WalletNotEnoughBalance;
 import ru.yakovlev.walletapp.exception.WalletNotFoundException;
+import ru.yakovlev.walletapp.exception.WalletOverloadedException;
+import ru.yakovlev.walletapp.service.WalletAdmissionControl;
+import ru.yakovlev.walletapp.service.WalletBatchService;
+import ru.yakovlev.walletapp.service.WalletEventBroadcaster;
+import ru.yakovlev.walletapp.service.WalletProvisioningService;
 import ru.yakovlev.walletapp.service.WalletService;
+import ru.yakovlev.walletapp.service.WalletStatistics;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Consumer;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -37,6 +77,24 @@ public class WalletControllerTest {
     @Mock
     private WalletService walletService;
 
+    @Mock
+    private WalletBatchService walletBatchService;
+
+    @Mock
+    private WalletProvisioningService walletProvisioningService;
+
+    @Mock
+    private WalletEventBroadcaster walletEventBroadcaster;
+
+    @Mock
+    private WalletAdmissionControl walletAdmissionControl;
+
+    @Mock
+    private WalletReplicaRouter walletReplicaRouter;
+
+    @Mock
+    private WalletStatistics walletStatistics;
+
     @InjectMocks
     private WalletController walletController;
 
@@ -46,12 +104,14 @@ public class WalletControllerTest {
 
     @BeforeEach
     void setUp() {
+        objectMapper = new ObjectMapper();
+
         mockMvc = MockMvcBuilders.standaloneSetup(walletController)
                 .setControllerAdvice(new GlobalExceptionHandler())
+                .setMessageConverters(new WalletJsonHttpMessageConverter(Jackson2ObjectMapperBuilder.json().build()),
+                        new StringHttpMessageConverter(), new MappingJackson2HttpMessageConverter())
                 .build();
 
-        objectMapper = new ObjectMapper();
-
         walletId = UUID.fromString("123e4567-e89b-12d3-a456-426614174000");
 
         walletResponse = new WalletDTOResponse();
@@ -79,6 +139,85 @@ public class WalletControllerTest {
         verify(walletService, times(1)).getAllWallets();
     }
 
+    @Test
+    void getWalletStats_ShouldReturnTotalsAndDistribution() throws Exception {
+        when(walletStatistics.getStats()).thenReturn(new WalletStatsDTOResponse(3, new BigDecimal("15.50"), List.of(
+                new BalanceBucketDTOResponse(new BigDecimal("0.00"), new BigDecimal("0.01"), 1, new BigDecimal("0.00")),
+                new BalanceBucketDTOResponse(new BigDecimal("10.00"), null, 2, new BigDecimal("15.50")))));
+
+        mockMvc.perform(get("/api/v1/wallets/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.walletCount", is(3)))
+                .andExpect(jsonPath("$.totalBalance", is(15.50)))
+                .andExpect(jsonPath("$.distribution", hasSize(2)))
+                .andExpect(jsonPath("$.distribution[1].from", is(10.00)))
+                .andExpect(jsonPath("$.distribution[1].to", nullValue()))
+                .andExpect(jsonPath("$.distribution[1].walletCount", is(2)));
+
+        verify(walletService, never()).getWalletById(any());
+    }
+
+    @Test
+    void getWalletsPage_ShouldReturnItemsAndNextCursor() throws Exception {
+        when(walletService.getWalletsPage("abc", 1))
+                .thenReturn(new PageDTOResponse<>(List.of(walletResponse), "next"));
+
+        mockMvc.perform(get("/api/v1/wallets")
+                        .param("limit", "1")
+                        .param("cursor", "abc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].id", is(walletId.toString())))
+                .andExpect(jsonPath("$.nextCursor", is("next")));
+
+        verify(walletService, never()).getAllWallets();
+    }
+
+    @Test
+    void getWalletsPage_WithInvalidCursor_ShouldReturnBadRequest() throws Exception {
+        when(walletService.getWalletsPage("broken", 10)).thenThrow(new InvalidCursorException("Invalid cursor"));
+
+        mockMvc.perform(get("/api/v1/wallets")
+                        .param("limit", "10")
+                        .param("cursor", "broken"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Invalid cursor"));
+    }
+
+    @Test
+    void getWalletsPage_WithNonPositiveLimit_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/v1/wallets")
+                        .param("limit", "0"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("Validation failed")));
+
+        verify(walletService, never()).getWalletsPage(any(), anyInt());
+    }
+
+    @Test
+    void getWalletOperations_ShouldReturnHistoryPage() throws Exception {
+        WalletOperationDTOResponse operation = new WalletOperationDTOResponse(
+                7L, OperationType.DEPOSIT, BigDecimal.TEN, BigDecimal.TEN, null);
+        when(walletService.getWalletOperations(walletId, null, 50))
+                .thenReturn(new PageDTOResponse<>(List.of(operation), "next"));
+
+        mockMvc.perform(get("/api/v1/wallets/{WALLET_UUID}/operations", walletId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].operationId", is(7)))
+                .andExpect(jsonPath("$.items[0].operationType", is("DEPOSIT")))
+                .andExpect(jsonPath("$.nextCursor", is("next")));
+    }
+
+    @Test
+    void getWalletOperations_WithNonExistingWallet_ShouldReturnNotFound() throws Exception {
+        when(walletService.getWalletOperations(walletId, null, 50))
+                .thenThrow(new WalletNotFoundException("Wallet with id " + walletId + " not found"));
+
+        mockMvc.perform(get("/api/v1/wallets/{WALLET_UUID}/operations", walletId))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void getWalletById_WithExistingId_ShouldReturnWallet() throws Exception {
         when(walletService.getWalletById(walletId)).thenReturn(walletResponse);
@@ -214,6 +353,34 @@ public class WalletControllerTest {
         verify(walletService, times(1)).depositOrWithdraw(any(WalletDTORequest.class));
     }
 
+    @Test
+    void depositOrWithdrawal_WithIdempotencyKey_ShouldUseIdempotentPath() throws Exception {
+        WalletDTORequest request = new WalletDTORequest(walletId, OperationType.DEPOSIT, BigDecimal.TEN);
+        when(walletService.depositOrWithdraw(eq("retry-1"), any(WalletDTORequest.class))).thenReturn(walletResponse);
+
+        mockMvc.perform(put("/api/v1/wallet")
+                        .header("Idempotency-Key", "retry-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is(walletId.toString())));
+
+        verify(walletService, never()).depositOrWithdraw(any(WalletDTORequest.class));
+    }
+
+    @Test
+    void depositOrWithdrawal_WithReusedIdempotencyKey_ShouldReturnUnprocessableEntity() throws Exception {
+        WalletDTORequest request = new WalletDTORequest(walletId, OperationType.DEPOSIT, BigDecimal.TEN);
+        when(walletService.depositOrWithdraw(eq("retry-1"), any(WalletDTORequest.class)))
+                .thenThrow(new IdempotencyKeyReusedException("Idempotency key retry-1 was already used for a different operation"));
+
+        mockMvc.perform(put("/api/v1/wallet")
+                        .header("Idempotency-Key", "retry-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
     @Test
     void depositOrWithdrawal_WithInvalidJson_ShouldReturnBadRequest() throws Exception {
         String invalidJson = "{ invalid json }";
@@ -299,4 +466,304 @@ public class WalletControllerTest {
 
         verify(walletService, never()).depositOrWithdraw(any(WalletDTORequest.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    void depositOrWithdrawal_WithTooManyDecimalPlaces_ShouldReturnBadRequest() throws Exception {
+        String invalidJson = """
+            {
+                "id": "%s",
+                "operationType": "DEPOSIT",
+                "amount": 0.001
+            }
+            """.formatted(walletId);
+
+        mockMvc.perform(put("/api/v1/wallet")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(invalidJson))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors.amount", is("Amount must have at most 2 decimal places")));
+
+        verify(walletService, never()).depositOrWithdraw(any(WalletDTORequest.class));
+    }
+
+    @Test
+    void depositOrWithdrawal_WithBalanceOverflow_ShouldReturnConflict() throws Exception {
+        WalletDTORequest request = new WalletDTORequest(walletId, OperationType.DEPOSIT, BigDecimal.TEN);
+        when(walletService.depositOrWithdraw(any(WalletDTORequest.class)))
+                .thenThrow(new WalletBalanceOverflowException("Wallet with id " + walletId + " balance overflow"));
+
+        mockMvc.perform(put("/api/v1/wallet")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isConflict())
+                .andExpect(content().string(containsString("balance overflow")));
+    }
+
+    @Test
+    void applyOperations_ShouldReturnResultPerItem() throws Exception {
+        List<WalletDTORequest> requests = List.of(
+                new WalletDTORequest(walletId, OperationType.DEPOSIT, BigDecimal.valueOf(100.00)),
+                new WalletDTORequest(walletId, OperationType.WITHDRAW, BigDecimal.valueOf(5000.00)));
+        when(walletBatchService.applyAll(anyList(), eq(BatchAtomicity.BEST_EFFORT))).thenReturn(List.of(
+                new WalletOperationResultDTO(0, walletId, OperationStatus.APPLIED, BigDecimal.valueOf(1100.00), null),
+                new WalletOperationResultDTO(1, walletId, OperationStatus.NOT_ENOUGH_BALANCE, null, null)));
+
+        mockMvc.perform(post("/api/v1/wallets/operations")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requests)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].status", is("APPLIED")))
+                .andExpect(jsonPath("$[0].balance", is(1100.00)))
+                .andExpect(jsonPath("$[1].status", is("NOT_ENOUGH_BALANCE")))
+                .andExpect(jsonPath("$[1].balance").doesNotExist());
+
+        verify(walletBatchService, times(1)).applyAll(anyList(), eq(BatchAtomicity.BEST_EFFORT));
+    }
+
+    @Test
+    void applyOperations_WhenAllOrNothingRolledBack_ShouldReturnConflict() throws Exception {
+        List<WalletDTORequest> requests = List.of(
+                new WalletDTORequest(walletId, OperationType.DEPOSIT, BigDecimal.valueOf(100.00)),
+                new WalletDTORequest(UUID.randomUUID(), OperationType.DEPOSIT, BigDecimal.valueOf(100.00)));
+        when(walletBatchService.applyAll(anyList(), eq(BatchAtomicity.ALL_OR_NOTHING))).thenReturn(List.of(
+                new WalletOperationResultDTO(0, walletId, OperationStatus.ROLLED_BACK, null, null),
+                new WalletOperationResultDTO(1, requests.get(1).getId(), OperationStatus.NOT_FOUND, null, null)));
+
+        mockMvc.perform(post("/api/v1/wallets/operations")
+                        .param("atomicity", "ALL_OR_NOTHING")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requests)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$[0].status", is("ROLLED_BACK")))
+                .andExpect(jsonPath("$[1].status", is("NOT_FOUND")));
+    }
+
+    @Test
+    void applyOperations_WithInvalidElement_ShouldReturnBadRequest() throws Exception {
+        List<WalletDTORequest> requests = List.of(
+                new WalletDTORequest(walletId, OperationType.DEPOSIT, BigDecimal.valueOf(100.00)),
+                new WalletDTORequest(walletId, OperationType.DEPOSIT, BigDecimal.valueOf(-100.00)));
+
+        mockMvc.perform(post("/api/v1/wallets/operations")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requests)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("Validation failed")))
+                .andExpect(jsonPath("$.errors['[1].amount']", is("Amount must be positive")));
+
+        verify(walletBatchService, never()).applyAll(anyList(), any(BatchAtomicity.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void applyOperationsStream_WithMalformedLine_ShouldReportItAndKeepTheRest() throws Exception {
+        doAnswer(invocation -> {
+            Iterator<WalletDTORequest> requests = invocation.getArgument(0);
+            Consumer<List<WalletOperationResultDTO>> consumer = invocation.getArgument(2);
+            List<WalletOperationResultDTO> results = new ArrayList<>();
+            while (requests.hasNext()) {
+                WalletDTORequest request = requests.next();
+                results.add(request instanceof UnreadableWalletDTORequest unreadable
+                        ? new WalletOperationResultDTO(results.size(), null, OperationStatus.INVALID, null,
+                        Map.of("request", unreadable.getError()))
+                        : new WalletOperationResultDTO(results.size(), request.getId(), OperationStatus.APPLIED,
+                        request.getAmount(), null));
+            }
+            consumer.accept(results);
+            return null;
+        }).when(walletBatchService).apply(any(Iterator.class), eq(BatchAtomicity.BEST_EFFORT), any(Consumer.class));
+
+        String valid = "{\"id\":\"" + walletId + "\",\"operationType\":\"DEPOSIT\",\"amount\":10}";
+        MvcResult started = mockMvc.perform(post("/api/v1/wallets/operations")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .content(valid + "\n{\"id\":\n" + valid + "\n"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk());
+
+        List<WalletOperationResultDTO> results = new ArrayList<>();
+        for (String line : started.getResponse().getContentAsString().split("\n")) {
+            results.add(objectMapper.readValue(line, WalletOperationResultDTO.class));
+        }
+        assertThat(results).extracting(WalletOperationResultDTO::getStatus).containsExactly(
+                OperationStatus.APPLIED, OperationStatus.INVALID, OperationStatus.APPLIED);
+        assertThat(results.get(1).getErrors()).containsEntry("request", "Invalid request body format");
+    }
+
+    @Test
+    void transfer_ShouldReturnBothWallets() throws Exception {
+        UUID targetId = UUID.randomUUID();
+        TransferDTORequest request = new TransferDTORequest(walletId, targetId, BigDecimal.valueOf(100.00));
+        when(walletService.transfer(any(TransferDTORequest.class))).thenReturn(new TransferDTOResponse(
+                new WalletDTOResponse(walletId, BigDecimal.valueOf(900.00)),
+                new WalletDTOResponse(targetId, BigDecimal.valueOf(100.00))));
+
+        mockMvc.perform(post("/api/v1/transfers")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.fromWallet.balance", is(900.00)))
+                .andExpect(jsonPath("$.toWallet.id", is(targetId.toString())));
+    }
+
+    @Test
+    void transfer_ToSameWallet_ShouldReturnBadRequest() throws Exception {
+        TransferDTORequest request = new TransferDTORequest(walletId, walletId, BigDecimal.TEN);
+
+        mockMvc.perform(post("/api/v1/transfers")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors.distinctWallets", is("Source and target wallets must differ")));
+
+        verify(walletService, never()).transfer(any(TransferDTORequest.class));
+    }
+
+    @Test
+    void transfer_AcrossShards_ShouldReturnUnprocessableEntity() throws Exception {
+        TransferDTORequest request = new TransferDTORequest(walletId, UUID.randomUUID(), BigDecimal.TEN);
+        when(walletService.transfer(any(TransferDTORequest.class)))
+                .thenThrow(new CrossShardTransferException("Transferred wallets are stored on different shards"));
+
+        mockMvc.perform(post("/api/v1/transfers")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(content().string("Transferred wallets are stored on different shards"));
+    }
+
+    @Test
+    void provisionWallets_WithZeroCount_ShouldReturnBadRequest() throws Exception {
+        BulkWalletDTORequest request = new BulkWalletDTORequest("job-1", 0, BigDecimal.TEN);
+
+        mockMvc.perform(post("/api/v1/wallets/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors.count", notNullValue()));
+
+        verify(walletProvisioningService, never()).start(any(BulkWalletDTORequest.class));
+    }
+
+    @Test
+    void provisionWallets_WhenSharded_ShouldReturnNotImplemented() throws Exception {
+        BulkWalletDTORequest request = new BulkWalletDTORequest("job-1", 10, BigDecimal.TEN);
+        WalletAdmissionControl.Permit permit = mock(WalletAdmissionControl.Permit.class);
+        when(walletAdmissionControl.admitStream()).thenReturn(permit);
+        when(walletProvisioningService.start(any(BulkWalletDTORequest.class)))
+                .thenThrow(new ProvisioningNotSupportedException("Bulk provisioning is not supported with sharding"));
+
+        mockMvc.perform(post("/api/v1/wallets/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isNotImplemented())
+                .andExpect(content().string("Bulk provisioning is not supported with sharding"));
+        verify(permit).close();
+    }
+
+    @Test
+    void getProvisioningJob_WithUnknownJob_ShouldReturnNotFound() throws Exception {
+        when(walletProvisioningService.getJob("missing"))
+                .thenThrow(new ProvisioningJobNotFoundException("Provisioning job missing not found"));
+
+        mockMvc.perform(get("/api/v1/wallets/bulk/missing"))
+                .andExpect(status().isNotFound())
+                .andExpect(content().string("Provisioning job missing not found"));
+    }
+
+    @Test
+    void streamWalletEvents_OverSubscriptionLimit_ShouldReturnServiceUnavailable() throws Exception {
+        when(walletEventBroadcaster.subscribe(anyList(), anyMap()))
+                .thenThrow(new EventSubscriptionLimitException("Too many open event streams, please retry later"));
+
+        mockMvc.perform(get("/api/v1/wallets/{id}/events", walletId).accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(content().string("Too many open event streams, please retry later"));
+    }
+
+    @Test
+    void depositOrWithdrawal_WhenWalletOverloaded_ShouldReturnTooManyRequestsWithRetryAfter() throws Exception {
+        when(walletAdmissionControl.admit(walletId)).thenThrow(new WalletOverloadedException(
+                "Too many requests in flight for wallet " + walletId + ", please retry later", Duration.ofSeconds(2)));
+
+        mockMvc.perform(put("/api/v1/wallet")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"id\": \"" + walletId + "\", \"operationType\": \"DEPOSIT\", \"amount\": 1}"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "2"))
+                .andExpect(content().string("Too many requests in flight for wallet " + walletId
+                        + ", please retry later"));
+
+        verify(walletService, never()).depositOrWithdraw(any(WalletDTORequest.class));
+    }
+
+    @Test
+    void getWalletById_WhenOverloaded_ShouldReturnTooManyRequests() throws Exception {
+        when(walletAdmissionControl.admit()).thenThrow(
+                new WalletOverloadedException("Too many requests in flight, please retry later", Duration.ofMillis(200)));
+
+        mockMvc.perform(get("/api/v1/wallets/{id}", walletId))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "1"));
+
+        verify(walletService, never()).getWalletById(any());
+    }
+
+    @Test
+    void depositOrWithdrawal_WithReplicasEnabled_ShouldReturnSessionToken() throws Exception {
+        when(walletReplicaRouter.isEnabled()).thenReturn(true);
+        when(walletService.depositOrWithdraw(any(WalletDTORequest.class))).thenReturn(walletResponse);
+        when(walletService.getSessionToken()).thenReturn("0/16B3748");
+
+        mockMvc.perform(put("/api/v1/wallet")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"id\": \"" + walletId + "\", \"operationType\": \"DEPOSIT\", \"amount\": 1}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(WalletReplicaRouter.SESSION_TOKEN_HEADER, "0/16B3748"));
+    }
+
+    @Test
+    void getWalletById_WithSessionToken_ShouldReadAfterToken() throws Exception {
+        when(walletService.getWalletById(walletId)).thenReturn(walletResponse);
+
+        mockMvc.perform(get("/api/v1/wallets/{id}", walletId)
+                        .header(WalletReplicaRouter.SESSION_TOKEN_HEADER, "0/16B3748"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(WalletReplicaRouter.SESSION_TOKEN_HEADER));
+
+        verify(walletReplicaRouter).readAfter("0/16B3748");
+    }
+
+    @Test
+    void depositOrWithdrawal_WithInvalidUuid_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(put("/api/v1/wallet")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"id\": \"not-a-uuid\", \"operationType\": \"DEPOSIT\", \"amount\": 1}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Invalid UUID format"));
+
+        verify(walletService, never()).depositOrWithdraw(any(WalletDTORequest.class));
+    }
+
+    @Test
+    void depositOrWithdrawal_WithInvalidOperationType_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(put("/api/v1/wallet")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"id\": \"" + walletId + "\", \"operationType\": \"STEAL\", \"amount\": 1}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Invalid operation type. Allowed values: DEPOSIT, WITHDRAW"));
+
+        verify(walletService, never()).depositOrWithdraw(any(WalletDTORequest.class));
+    }
+
+    @Test
+    void deleteWallet_WithInvalidUuid_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(delete("/api/v1/wallet")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("\"not-a-uuid\""))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Invalid UUID format"));
+    }
+}
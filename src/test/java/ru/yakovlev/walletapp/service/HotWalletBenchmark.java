@@ -0,0 +1,91 @@
+package ru.yakovlev.walletapp.service;
+
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.yakovlev.walletapp.dto.WalletDTORequest;
+import ru.yakovlev.walletapp.entity.OperationType;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureEmbeddedDatabase
+class HotWalletBenchmark {
+
+    private static final int THREADS = Integer.getInteger("benchmark.threads", 64);
+
+    private static final Duration WARMUP = Duration.ofSeconds(Long.getLong("benchmark.warmupSeconds", 5));
+
+    private static final Duration MEASUREMENT = Duration.ofSeconds(Long.getLong("benchmark.seconds", 20));
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private WalletOperationService walletOperationService;
+
+    @Autowired
+    private WalletOperationCoalescer walletOperationCoalescer;
+
+    @Test
+    void singleHotWallet_WithAndWithoutCoalescing() throws Exception {
+        UUID walletId = walletService.createNewWallet().getId();
+        WalletDTORequest deposit = new WalletDTORequest(walletId, OperationType.DEPOSIT, BigDecimal.ONE);
+
+        run("direct", () -> walletOperationService.apply(deposit), WARMUP);
+        double direct = run("direct", () -> walletOperationService.apply(deposit), MEASUREMENT);
+        run("coalesced", () -> walletOperationCoalescer.submit(deposit), WARMUP);
+        double coalesced = run("coalesced", () -> walletOperationCoalescer.submit(deposit), MEASUREMENT);
+
+        System.out.printf("hot wallet, %d threads: direct %.0f ops/s, coalesced %.0f ops/s (x%.2f)%n",
+                THREADS, direct, coalesced, coalesced / direct);
+    }
+
+    private double run(String name, Operation operation, Duration duration) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Future<Long>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    long count = 0;
+                    while (running.get()) {
+                        operation.execute();
+                        count++;
+                    }
+                    return count;
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            Thread.sleep(duration.toMillis());
+            running.set(false);
+            long total = 0;
+            for (Future<Long> future : futures) {
+                total += future.get();
+            }
+            double seconds = (System.nanoTime() - begin) / 1e9;
+            System.out.printf("%s: %d ops in %.1f s%n", name, total, seconds);
+            return total / seconds;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Operation {
+        void execute() throws Exception;
+    }
+}
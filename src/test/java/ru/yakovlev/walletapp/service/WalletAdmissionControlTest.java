@@ -0,0 +1,140 @@
+package ru.yakovlev.walletapp.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.yakovlev.walletapp.config.WalletProperties;
+import ru.yakovlev.walletapp.exception.WalletOverloadedException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WalletAdmissionControlTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void admit_OverPerWalletLimit_ShouldRejectOnlyThatWallet() throws Exception {
+        WalletAdmissionControl admission = admissionControl(10, 2);
+        UUID hot = UUID.randomUUID();
+
+        WalletAdmissionControl.Permit first = admission.admit(hot);
+        WalletAdmissionControl.Permit second = admission.admit(hot);
+        assertThatThrownBy(() -> admission.admit(hot))
+                .isInstanceOfSatisfying(WalletOverloadedException.class,
+                        e -> assertThat(e.getRetryAfter()).isEqualTo(Duration.ofSeconds(3)));
+        assertThatThrownBy(() -> admission.admit(List.of(UUID.randomUUID(), hot)))
+                .isInstanceOf(WalletOverloadedException.class);
+        admission.admit(UUID.randomUUID()).close();
+
+        first.close();
+        admission.admit(hot).close();
+        second.close();
+        assertThat(meterRegistry.get("wallet.admission.rejected").tag("reason", "wallet").counter().count())
+                .isEqualTo(2);
+        assertThat(meterRegistry.get("wallet.admission.in_flight").gauge().value()).isZero();
+    }
+
+    @Test
+    void admit_OverConcurrencyLimit_ShouldShedAndReleaseWalletSlots() throws Exception {
+        WalletAdmissionControl admission = admissionControl(3, 1);
+        List<WalletAdmissionControl.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            permits.add(admission.admit());
+        }
+        UUID walletId = UUID.randomUUID();
+
+        assertThatThrownBy(() -> admission.admit(walletId)).isInstanceOf(WalletOverloadedException.class);
+        assertThat(meterRegistry.get("wallet.admission.rejected").tag("reason", "limit").counter().count())
+                .isEqualTo(1);
+
+        permits.get(0).close();
+        admission.admit(walletId).close();
+    }
+
+    @Test
+    void onSample_ShouldGrowWhileLatencyIsStableAndBackOffWhenItRises() {
+        WalletAdmissionControl admission = admissionControl(20, 4);
+
+        for (int i = 0; i < 50; i++) {
+            admission.onSample(TimeUnit.MILLISECONDS.toNanos(2), admission.getLimit());
+        }
+        int grown = admission.getLimit();
+        assertThat(grown).isGreaterThan(20);
+
+        for (int i = 0; i < 50; i++) {
+            admission.onSample(TimeUnit.MILLISECONDS.toNanos(2), 1);
+        }
+        assertThat(admission.getLimit()).isEqualTo(grown);
+
+        for (int i = 0; i < 30; i++) {
+            admission.onSample(TimeUnit.MILLISECONDS.toNanos(100), admission.getLimit());
+        }
+        assertThat(admission.getLimit()).isLessThan(grown / 2).isGreaterThanOrEqualTo(4);
+        assertThat(meterRegistry.get("wallet.admission.limit").gauge().value()).isEqualTo(admission.getLimit());
+    }
+
+    @Test
+    void onSample_FromManyThreads_ShouldFoldSamplesWithoutBlocking() throws Exception {
+        WalletAdmissionControl admission = admissionControl(20, 4);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < 10_000; j++) {
+                        admission.onSample(TimeUnit.MILLISECONDS.toNanos(2), admission.getLimit());
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(admission.getLimit()).isEqualTo(200);
+
+        for (int i = 0; i < 30; i++) {
+            admission.onSample(TimeUnit.MILLISECONDS.toNanos(100), admission.getLimit());
+        }
+        assertThat(admission.getLimit()).isLessThan(100);
+    }
+
+    @Test
+    void admit_WhenDisabled_ShouldNeverReject() throws Exception {
+        WalletProperties walletProperties = new WalletProperties();
+        walletProperties.getAdmission().setPerWalletLimit(1);
+        WalletAdmissionControl admission = new WalletAdmissionControl(walletProperties, meterRegistry);
+        UUID walletId = UUID.randomUUID();
+
+        admission.admit(walletId);
+        admission.admit(walletId).close();
+        assertThat(meterRegistry.get("wallet.admission.in_flight").gauge().value()).isZero();
+    }
+
+    private WalletAdmissionControl admissionControl(int initialLimit, int perWalletLimit) {
+        WalletProperties walletProperties = new WalletProperties();
+        WalletProperties.Admission settings = walletProperties.getAdmission();
+        settings.setEnabled(true);
+        settings.setInitialLimit(initialLimit);
+        settings.setMinLimit(Math.min(initialLimit, 4));
+        settings.setPerWalletLimit(perWalletLimit);
+        settings.setRetryAfter(Duration.ofSeconds(3));
+        return new WalletAdmissionControl(walletProperties, meterRegistry);
+    }
+}
@@ -0,0 +1,114 @@
+package ru.yakovlev.walletapp.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.yakovlev.walletapp.dto.BatchAtomicity;
+import ru.yakovlev.walletapp.dto.WalletDTORequest;
+import ru.yakovlev.walletapp.dto.WalletDTOResponse;
+import ru.yakovlev.walletapp.entity.OperationType;
+import ru.yakovlev.walletapp.exception.WalletNotFoundException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@AutoConfigureEmbeddedDatabase
+class WalletBalanceCacheTest {
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private WalletBatchService walletBatchService;
+
+    @Autowired
+    private WalletBalanceCache walletBalanceCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void readAfterOwnWrite_UnderConcurrentUpdates_ShouldNeverSeeOlderBalance() throws Exception {
+        UUID walletId = walletService.createNewWallet().getId();
+        int threads = 8;
+        int operationsPerThread = 25;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                boolean batch = i % 2 == 0;
+                workers.add(executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < operationsPerThread; j++) {
+                        WalletDTORequest deposit = new WalletDTORequest(walletId, OperationType.DEPOSIT, BigDecimal.ONE);
+                        BigDecimal written = batch
+                                ? walletBatchService.applyAll(List.of(deposit), BatchAtomicity.BEST_EFFORT)
+                                        .get(0).getBalance()
+                                : walletService.depositOrWithdraw(deposit).getBalance();
+                        assertThat(walletService.getWalletById(walletId).getBalance())
+                                .isGreaterThanOrEqualTo(written);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(walletService.getWalletById(walletId).getBalance())
+                .isEqualByComparingTo(BigDecimal.valueOf(threads * operationsPerThread));
+    }
+
+    @Test
+    void staleOffer_ShouldNotOverwriteNewerBalance() throws Exception {
+        UUID walletId = walletService.createNewWallet().getId();
+        walletService.depositOrWithdraw(new WalletDTORequest(walletId, OperationType.DEPOSIT, BigDecimal.TEN));
+
+        walletBalanceCache.offer(walletId, 0, 0);
+
+        assertThat(walletService.getWalletById(walletId).getBalance()).isEqualByComparingTo("10");
+    }
+
+    @Test
+    void deletedWallet_ShouldStayDeletedDespiteStaleOffer() throws Exception {
+        UUID walletId = walletService.createNewWallet().getId();
+        walletService.deleteWalletById(walletId);
+
+        walletBalanceCache.offer(walletId, 100, 5);
+
+        assertThatThrownBy(() -> walletService.getWalletById(walletId)).isInstanceOf(WalletNotFoundException.class);
+    }
+
+    @Test
+    void repeatedReads_ShouldBeServedFromCache() throws Exception {
+        WalletDTOResponse wallet = walletService.createNewWallet();
+        double hitsBefore = hits();
+
+        walletService.getWalletById(wallet.getId());
+        walletService.getWalletById(wallet.getId());
+
+        assertThat(hits() - hitsBefore).isEqualTo(2);
+    }
+
+    private double hits() {
+        return meterRegistry.get("cache.gets").tag("cache", "wallet.balances").tag("result", "hit")
+                .functionCounter().count();
+    }
+}
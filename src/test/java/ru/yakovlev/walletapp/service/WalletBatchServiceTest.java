@@ -0,0 +1,103 @@
+package ru.yakovlev.walletapp.service;
+
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.yakovlev.walletapp.dto.BatchAtomicity;
+import ru.yakovlev.walletapp.dto.OperationStatus;
+import ru.yakovlev.walletapp.dto.UnreadableWalletDTORequest;
+import ru.yakovlev.walletapp.dto.WalletDTORequest;
+import ru.yakovlev.walletapp.dto.WalletOperationResultDTO;
+import ru.yakovlev.walletapp.entity.OperationType;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "wallet.batch.chunk-size=2")
+@AutoConfigureEmbeddedDatabase
+class WalletBatchServiceTest {
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private WalletBatchService walletBatchService;
+
+    @Test
+    void bestEffort_ShouldApplyEverySucceedingItemAcrossChunks() throws Exception {
+        UUID first = walletService.createNewWallet().getId();
+        UUID second = walletService.createNewWallet().getId();
+
+        List<WalletOperationResultDTO> results = walletBatchService.applyAll(List.of(
+                new WalletDTORequest(first, OperationType.DEPOSIT, BigDecimal.TEN),
+                new WalletDTORequest(second, OperationType.WITHDRAW, BigDecimal.ONE),
+                new WalletDTORequest(UUID.randomUUID(), OperationType.DEPOSIT, BigDecimal.ONE),
+                new WalletDTORequest(first, OperationType.WITHDRAW, BigDecimal.valueOf(3)),
+                new WalletDTORequest(second, OperationType.DEPOSIT, null)),
+                BatchAtomicity.BEST_EFFORT);
+
+        assertThat(results).extracting(WalletOperationResultDTO::getIndex).containsExactly(0, 1, 2, 3, 4);
+        assertThat(results).extracting(WalletOperationResultDTO::getStatus).containsExactly(
+                OperationStatus.APPLIED,
+                OperationStatus.NOT_ENOUGH_BALANCE,
+                OperationStatus.NOT_FOUND,
+                OperationStatus.APPLIED,
+                OperationStatus.INVALID);
+        assertThat(results.get(3).getBalance()).isEqualByComparingTo("7");
+        assertThat(results.get(4).getErrors()).containsEntry("amount", "Amount is required");
+        assertThat(walletService.getWalletById(first).getBalance()).isEqualByComparingTo("7");
+    }
+
+    @Test
+    void bestEffort_WithUnreadableItem_ShouldReportItAndApplyItsChunk() throws Exception {
+        UUID walletId = walletService.createNewWallet().getId();
+
+        List<WalletOperationResultDTO> results = walletBatchService.applyAll(List.of(
+                new WalletDTORequest(walletId, OperationType.DEPOSIT, BigDecimal.TEN),
+                new UnreadableWalletDTORequest("Invalid request body format"),
+                new WalletDTORequest(walletId, OperationType.DEPOSIT, BigDecimal.ONE)),
+                BatchAtomicity.BEST_EFFORT);
+
+        assertThat(results).extracting(WalletOperationResultDTO::getStatus).containsExactly(
+                OperationStatus.APPLIED,
+                OperationStatus.INVALID,
+                OperationStatus.APPLIED);
+        assertThat(results.get(1).getErrors()).containsEntry("request", "Invalid request body format");
+        assertThat(walletService.getWalletById(walletId).getBalance()).isEqualByComparingTo("11");
+    }
+
+    @Test
+    void allOrNothing_ShouldRollBackEveryItemWhenOneFails() throws Exception {
+        UUID walletId = walletService.createNewWallet().getId();
+
+        List<WalletOperationResultDTO> results = walletBatchService.applyAll(List.of(
+                new WalletDTORequest(walletId, OperationType.DEPOSIT, BigDecimal.TEN),
+                new WalletDTORequest(walletId, OperationType.WITHDRAW, BigDecimal.ONE),
+                new WalletDTORequest(walletId, OperationType.WITHDRAW, BigDecimal.TEN)),
+                BatchAtomicity.ALL_OR_NOTHING);
+
+        assertThat(results).extracting(WalletOperationResultDTO::getStatus).containsExactly(
+                OperationStatus.ROLLED_BACK,
+                OperationStatus.ROLLED_BACK,
+                OperationStatus.NOT_ENOUGH_BALANCE);
+        assertThat(walletService.getWalletById(walletId).getBalance()).isEqualByComparingTo("0");
+    }
+
+    @Test
+    void allOrNothing_ShouldCommitWhenEveryItemSucceeds() throws Exception {
+        UUID walletId = walletService.createNewWallet().getId();
+
+        List<WalletOperationResultDTO> results = walletBatchService.applyAll(List.of(
+                new WalletDTORequest(walletId, OperationType.DEPOSIT, BigDecimal.TEN),
+                new WalletDTORequest(walletId, OperationType.WITHDRAW, BigDecimal.ONE),
+                new WalletDTORequest(walletId, OperationType.WITHDRAW, BigDecimal.valueOf(4))),
+                BatchAtomicity.ALL_OR_NOTHING);
+
+        assertThat(results).extracting(WalletOperationResultDTO::getStatus).containsOnly(OperationStatus.APPLIED);
+        assertThat(walletService.getWalletById(walletId).getBalance()).isEqualByComparingTo("5");
+    }
+}
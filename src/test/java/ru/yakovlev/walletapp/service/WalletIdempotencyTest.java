@@ -0,0 +1,109 @@
+package ru.yakovlev.walletapp.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yakovlev.walletapp.dto.WalletDTORequest;
+import ru.yakovlev.walletapp.dto.WalletDTOResponse;
+import ru.yakovlev.walletapp.entity.OperationType;
+import ru.yakovlev.walletapp.exception.IdempotencyKeyReusedException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@AutoConfigureEmbeddedDatabase
+class WalletIdempotencyTest {
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void retryWithSameKey_ShouldReturnOriginalResponseWithoutApplyingAgain() throws Exception {
+        UUID walletId = walletService.createNewWallet().getId();
+        WalletDTORequest deposit = new WalletDTORequest(walletId, OperationType.DEPOSIT, BigDecimal.TEN);
+        String key = UUID.randomUUID().toString();
+
+        WalletDTOResponse first = walletService.depositOrWithdraw(key, deposit);
+        walletService.depositOrWithdraw(new WalletDTORequest(walletId, OperationType.DEPOSIT, BigDecimal.ONE));
+        WalletDTOResponse retry = walletService.depositOrWithdraw(key, deposit);
+
+        assertThat(retry.getBalance()).isEqualByComparingTo("10");
+        assertThat(first.getBalance()).isEqualByComparingTo("10");
+        assertThat(walletService.getWalletById(walletId).getBalance()).isEqualByComparingTo("11");
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "wallet.idempotency").tag("result", "hit")
+                .functionCounter().count()).isPositive();
+    }
+
+    @Test
+    void concurrentRequestsWithSameKey_ShouldExecuteOnce() throws Exception {
+        UUID walletId = walletService.createNewWallet().getId();
+        WalletDTORequest deposit = new WalletDTORequest(walletId, OperationType.DEPOSIT, BigDecimal.TEN);
+        String key = UUID.randomUUID().toString();
+        int threads = 16;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<WalletDTOResponse>> responses = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                responses.add(executor.submit(() -> {
+                    start.await();
+                    return walletService.depositOrWithdraw(key, deposit);
+                }));
+            }
+            start.countDown();
+            for (Future<WalletDTOResponse> response : responses) {
+                assertThat(response.get().getBalance()).isEqualByComparingTo("10");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(walletService.getWalletById(walletId).getBalance()).isEqualByComparingTo("10");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM wallet_operations WHERE wallet_id = ?", Integer.class, walletId)).isEqualTo(1);
+    }
+
+    @Test
+    void keyKnownOnlyToDurableTable_ShouldReturnStoredResponse() throws Exception {
+        UUID walletId = walletService.createNewWallet().getId();
+        String key = UUID.randomUUID().toString();
+        jdbcTemplate.update("INSERT INTO idempotency_keys (idempotency_key, wallet_id, operation_type, amount, balance) "
+                + "VALUES (?, ?, 'DEPOSIT', 500, 500)", key, walletId);
+
+        WalletDTOResponse response = walletService.depositOrWithdraw(key,
+                new WalletDTORequest(walletId, OperationType.DEPOSIT, BigDecimal.valueOf(5)));
+
+        assertThat(response.getBalance()).isEqualByComparingTo("5");
+        assertThat(walletService.getWalletById(walletId).getBalance()).isEqualByComparingTo("0");
+    }
+
+    @Test
+    void sameKeyForDifferentOperation_ShouldBeRejected() throws Exception {
+        UUID walletId = walletService.createNewWallet().getId();
+        String key = UUID.randomUUID().toString();
+        walletService.depositOrWithdraw(key, new WalletDTORequest(walletId, OperationType.DEPOSIT, BigDecimal.TEN));
+
+        assertThatThrownBy(() -> walletService.depositOrWithdraw(key,
+                new WalletDTORequest(walletId, OperationType.DEPOSIT, BigDecimal.ONE)))
+                .isInstanceOf(IdempotencyKeyReusedException.class);
+    }
+}
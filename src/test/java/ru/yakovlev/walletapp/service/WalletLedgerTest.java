@@ -0,0 +1,99 @@
+package ru.yakovlev.walletapp.service;
+
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yakovlev.walletapp.dto.BatchAtomicity;
+import ru.yakovlev.walletapp.dto.PageDTOResponse;
+import ru.yakovlev.walletapp.dto.WalletDTORequest;
+import ru.yakovlev.walletapp.dto.WalletOperationDTOResponse;
+import ru.yakovlev.walletapp.entity.OperationType;
+import ru.yakovlev.walletapp.exception.WalletNotEnoughBalance;
+import ru.yakovlev.walletapp.exception.WalletNotFoundException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@AutoConfigureEmbeddedDatabase
+class WalletLedgerTest {
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private WalletBatchService walletBatchService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void everyAppliedOperation_ShouldAppendOneLedgerRow() throws Exception {
+        UUID walletId = walletService.createNewWallet().getId();
+
+        walletService.depositOrWithdraw(new WalletDTORequest(walletId, OperationType.DEPOSIT, BigDecimal.TEN));
+        walletService.depositOrWithdraw(new WalletDTORequest(walletId, OperationType.WITHDRAW, BigDecimal.ONE));
+        assertThatThrownBy(() -> walletService.depositOrWithdraw(
+                new WalletDTORequest(walletId, OperationType.WITHDRAW, BigDecimal.valueOf(100))))
+                .isInstanceOf(WalletNotEnoughBalance.class);
+        walletBatchService.applyAll(List.of(
+                new WalletDTORequest(walletId, OperationType.DEPOSIT, BigDecimal.valueOf(5)),
+                new WalletDTORequest(walletId, OperationType.WITHDRAW, BigDecimal.valueOf(50)),
+                new WalletDTORequest(walletId, OperationType.WITHDRAW, BigDecimal.valueOf(4))),
+                BatchAtomicity.BEST_EFFORT);
+
+        List<WalletOperationDTOResponse> history = walletService.getWalletOperations(walletId, null, 10).getItems();
+
+        assertThat(history).extracting(WalletOperationDTOResponse::getOperationType).containsExactly(
+                OperationType.WITHDRAW, OperationType.DEPOSIT, OperationType.WITHDRAW, OperationType.DEPOSIT);
+        assertThat(history).extracting(operation -> operation.getBalanceAfter().intValue())
+                .containsExactly(10, 14, 9, 10);
+        assertThat(history).allSatisfy(operation -> assertThat(operation.getCreatedAt()).isNotNull());
+    }
+
+    @Test
+    void ledgerRows_ShouldLandInTheCurrentMonthPartition() throws Exception {
+        UUID walletId = walletService.createNewWallet().getId();
+        walletService.depositOrWithdraw(new WalletDTORequest(walletId, OperationType.DEPOSIT, BigDecimal.ONE));
+
+        Integer inDefault = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM wallet_operations_default WHERE wallet_id = ?", Integer.class, walletId);
+        Integer total = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM wallet_operations WHERE wallet_id = ?", Integer.class, walletId);
+
+        assertThat(inDefault).isZero();
+        assertThat(total).isEqualTo(1);
+    }
+
+    @Test
+    void history_ShouldPageWithKeysetCursor() throws Exception {
+        UUID walletId = walletService.createNewWallet().getId();
+        for (int i = 1; i <= 5; i++) {
+            walletService.depositOrWithdraw(
+                    new WalletDTORequest(walletId, OperationType.DEPOSIT, BigDecimal.valueOf(i)));
+        }
+
+        List<Long> visited = new ArrayList<>();
+        String cursor = null;
+        do {
+            PageDTOResponse<WalletOperationDTOResponse> page = walletService.getWalletOperations(walletId, cursor, 2);
+            page.getItems().forEach(operation -> visited.add(operation.getOperationId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertThat(visited).hasSize(5).doesNotHaveDuplicates().isSortedAccordingTo((a, b) -> Long.compare(b, a));
+    }
+
+    @Test
+    void history_ForUnknownWallet_ShouldFail() {
+        assertThatThrownBy(() -> walletService.getWalletOperations(UUID.randomUUID(), null, 10))
+                .isInstanceOf(WalletNotFoundException.class);
+    }
+}
@@ -0,0 +1,88 @@
+package ru.yakovlev.walletapp.service;
+
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yakovlev.walletapp.dto.PageDTOResponse;
+import ru.yakovlev.walletapp.dto.WalletDTORequest;
+import ru.yakovlev.walletapp.dto.WalletDTOResponse;
+import ru.yakovlev.walletapp.entity.OperationType;
+import ru.yakovlev.walletapp.exception.InvalidCursorException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "wallet.listing.max-page-size=3")
+@AutoConfigureEmbeddedDatabase
+class WalletListingTest {
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void keysetPages_ShouldVisitEveryWalletOnceInIdOrder() throws Exception {
+        for (int i = 0; i < 7; i++) {
+            walletService.createNewWallet();
+        }
+        List<UUID> expected = walletService.getAllWallets().stream()
+                .map(WalletDTOResponse::getId)
+                .sorted()
+                .toList();
+
+        List<UUID> visited = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            PageDTOResponse<WalletDTOResponse> page = walletService.getWalletsPage(cursor, 100);
+            assertThat(page.getItems()).hasSizeLessThanOrEqualTo(3);
+            page.getItems().forEach(wallet -> visited.add(wallet.getId()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(visited).doesNotHaveDuplicates().containsExactlyInAnyOrderElementsOf(expected);
+        assertThat(pages).isEqualTo((expected.size() + 2) / 3);
+    }
+
+    @Test
+    void newWallets_ShouldGetTimeOrderedIds_AndLegacyRandomIdsShouldStillWork() throws Exception {
+        List<UUID> created = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            created.add(walletService.createNewWallet().getId());
+        }
+        UUID legacyId = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO wallets (wallet_id, balance) VALUES (?, 0)", legacyId);
+
+        assertThat(created).allMatch(id -> id.version() == 7).isSorted();
+        assertThat(walletService.depositOrWithdraw(
+                new WalletDTORequest(legacyId, OperationType.DEPOSIT, BigDecimal.ONE)).getBalance())
+                .isEqualByComparingTo("1");
+    }
+
+    @Test
+    void forEachWallet_ShouldStreamEveryWallet() {
+        walletService.createNewWallet();
+        List<UUID> streamed = new ArrayList<>();
+
+        walletService.forEachWallet(wallet -> streamed.add(wallet.getId()));
+
+        assertThat(streamed).containsExactlyInAnyOrderElementsOf(
+                walletService.getAllWallets().stream().map(WalletDTOResponse::getId).toList());
+    }
+
+    @Test
+    void getWalletsPage_WithMalformedCursor_ShouldFail() {
+        assertThatThrownBy(() -> walletService.getWalletsPage("not-a-cursor", 10))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+}
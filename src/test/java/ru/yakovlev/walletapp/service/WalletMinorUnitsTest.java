@@ -0,0 +1,67 @@
+package ru.yakovlev.walletapp.service;
+
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yakovlev.walletapp.dto.BatchAtomicity;
+import ru.yakovlev.walletapp.dto.OperationStatus;
+import ru.yakovlev.walletapp.dto.WalletDTORequest;
+import ru.yakovlev.walletapp.dto.WalletOperationResultDTO;
+import ru.yakovlev.walletapp.entity.OperationType;
+import ru.yakovlev.walletapp.exception.WalletBalanceOverflowException;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@AutoConfigureEmbeddedDatabase
+class WalletMinorUnitsTest {
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private WalletBatchService walletBatchService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void balances_ShouldBeStoredAsMinorUnits() throws Exception {
+        UUID walletId = walletService.createNewWallet().getId();
+
+        walletService.depositOrWithdraw(new WalletDTORequest(walletId, OperationType.DEPOSIT, new BigDecimal("10.25")));
+        walletService.depositOrWithdraw(new WalletDTORequest(walletId, OperationType.WITHDRAW, new BigDecimal("0.05")));
+
+        assertThat(jdbcTemplate.queryForObject("SELECT balance FROM wallets WHERE wallet_id = ?", Long.class, walletId))
+                .isEqualTo(1020L);
+        assertThat(jdbcTemplate.queryForList("SELECT amount FROM wallet_operations WHERE wallet_id = ? "
+                + "ORDER BY operation_id", Long.class, walletId)).containsExactly(1025L, 5L);
+        assertThat(walletService.getWalletById(walletId).getBalance()).isEqualTo(new BigDecimal("10.20"));
+    }
+
+    @Test
+    void depositBeyondLongRange_ShouldBeRejectedWithoutChangingBalance() throws Exception {
+        UUID walletId = walletService.createNewWallet().getId();
+        jdbcTemplate.update("UPDATE wallets SET balance = ? WHERE wallet_id = ?", Long.MAX_VALUE - 50, walletId);
+
+        assertThatThrownBy(() -> walletService.depositOrWithdraw(
+                new WalletDTORequest(walletId, OperationType.DEPOSIT, BigDecimal.ONE)))
+                .isInstanceOf(WalletBalanceOverflowException.class);
+        List<WalletOperationResultDTO> results = walletBatchService.applyAll(List.of(
+                new WalletDTORequest(walletId, OperationType.DEPOSIT, BigDecimal.ONE),
+                new WalletDTORequest(walletId, OperationType.DEPOSIT, new BigDecimal("0.50"))),
+                BatchAtomicity.BEST_EFFORT);
+
+        assertThat(results).extracting(WalletOperationResultDTO::getStatus)
+                .containsExactly(OperationStatus.BALANCE_OVERFLOW, OperationStatus.APPLIED);
+        assertThat(jdbcTemplate.queryForObject("SELECT balance FROM wallets WHERE wallet_id = ?", Long.class, walletId))
+                .isEqualTo(Long.MAX_VALUE);
+    }
+}
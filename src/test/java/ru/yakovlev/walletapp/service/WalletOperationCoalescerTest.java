@@ -0,0 +1,107 @@
+package ru.yakovlev.walletapp.service;
+
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.yakovlev.walletapp.dto.OperationStatus;
+import ru.yakovlev.walletapp.dto.WalletDTORequest;
+import ru.yakovlev.walletapp.entity.OperationType;
+import ru.yakovlev.walletapp.exception.WalletNotEnoughBalance;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "wallet.coalescing.enabled=true",
+        "wallet.coalescing.max-batch-size=16",
+        "wallet.coalescing.max-linger=2ms"
+})
+@AutoConfigureEmbeddedDatabase
+class WalletOperationCoalescerTest {
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private WalletOperationService walletOperationService;
+
+    @Test
+    void applyInOrder_ShouldRejectOnlyTheWithdrawalThatOverdrawsMidBatch() {
+        UUID walletId = walletService.createNewWallet().getId();
+        UUID missingId = UUID.randomUUID();
+
+        List<OperationResult> results = walletOperationService.applyInOrder(List.of(
+                new WalletDTORequest(walletId, OperationType.DEPOSIT, BigDecimal.TEN),
+                new WalletDTORequest(walletId, OperationType.WITHDRAW, BigDecimal.valueOf(15)),
+                new WalletDTORequest(missingId, OperationType.DEPOSIT, BigDecimal.ONE),
+                new WalletDTORequest(walletId, OperationType.WITHDRAW, BigDecimal.valueOf(4)),
+                new WalletDTORequest(walletId, OperationType.DEPOSIT, BigDecimal.ONE)));
+
+        assertThat(results).extracting(OperationResult::getStatus).containsExactly(
+                OperationStatus.APPLIED,
+                OperationStatus.NOT_ENOUGH_BALANCE,
+                OperationStatus.NOT_FOUND,
+                OperationStatus.APPLIED,
+                OperationStatus.APPLIED);
+        assertThat(results.get(0).getBalance()).isEqualByComparingTo("10");
+        assertThat(results.get(3).getBalance()).isEqualByComparingTo("6");
+        assertThat(results.get(4).getBalance()).isEqualByComparingTo("7");
+    }
+
+    @Test
+    void concurrentOperations_ShouldEachGetTheirOwnResult() throws Exception {
+        UUID walletId = walletService.createNewWallet().getId();
+        int deposits = 300;
+        int withdrawals = 600;
+
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < deposits + withdrawals; i++) {
+                OperationType type = i % 3 == 0 ? OperationType.DEPOSIT : OperationType.WITHDRAW;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        walletService.depositOrWithdraw(new WalletDTORequest(walletId, type, BigDecimal.ONE));
+                        return true;
+                    } catch (WalletNotEnoughBalance e) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+
+            long applied = 0;
+            for (Future<Boolean> future : futures) {
+                if (getUnchecked(future)) {
+                    applied++;
+                }
+            }
+            long withdrawn = applied - deposits;
+            assertThat(withdrawn).isBetween(0L, (long) deposits);
+            assertThat(walletService.getWalletById(walletId).getBalance())
+                    .isEqualByComparingTo(BigDecimal.valueOf(deposits - withdrawn));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static boolean getUnchecked(Future<Boolean> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw new AssertionError(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package ru.yakovlev.walletapp.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WalletOperationLogTest {
+
+    private static final UUID WALLET_ID = UUID.fromString("123e4567-e89b-12d3-a456-426614174000");
+
+    private static final Instant APPENDED_AT = Instant.parse("2026-03-01T12:30:45.123456Z");
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void reopen_ShouldRecoverOnlyEntriesAfterAppliedSequence() throws IOException {
+        try (WalletOperationLog log = new WalletOperationLog(directory, 4096, 0)) {
+            for (int i = 1; i <= 5; i++) {
+                log.sync(log.append(WALLET_ID, i * 100L, APPENDED_AT));
+            }
+        }
+
+        try (WalletOperationLog log = new WalletOperationLog(directory, 4096, 3)) {
+            List<WalletOperationLog.Entry> entries = log.recoveredEntries();
+
+            assertThat(entries).extracting(WalletOperationLog.Entry::getSequence).containsExactly(4L, 5L);
+            assertThat(entries).extracting(WalletOperationLog.Entry::getAmount).containsExactly(400L, 500L);
+            assertThat(entries).allSatisfy(entry -> {
+                assertThat(entry.getWalletId()).isEqualTo(WALLET_ID);
+                assertThat(entry.getAppendedAt()).isEqualTo(APPENDED_AT);
+            });
+            assertThat(log.append(WALLET_ID, 1, APPENDED_AT)).isEqualTo(6);
+        }
+    }
+
+    @Test
+    void reopen_WithTornRecord_ShouldStopAtLastValidEntry() throws IOException {
+        try (WalletOperationLog log = new WalletOperationLog(directory, 4096, 0)) {
+            log.append(WALLET_ID, 1, APPENDED_AT);
+            log.sync(log.append(WALLET_ID, 2, APPENDED_AT));
+        }
+        try (RandomAccessFile file = new RandomAccessFile(segments().get(0).toFile(), "rw")) {
+            file.seek(WalletOperationLog.RECORD_SIZE + 24);
+            file.writeLong(999);
+        }
+
+        try (WalletOperationLog log = new WalletOperationLog(directory, 4096, 0)) {
+            assertThat(log.recoveredEntries()).extracting(WalletOperationLog.Entry::getAmount).containsExactly(1L);
+            log.sync(log.append(WALLET_ID, 3, APPENDED_AT));
+        }
+        try (WalletOperationLog log = new WalletOperationLog(directory, 4096, 0)) {
+            assertThat(log.recoveredEntries()).extracting(WalletOperationLog.Entry::getAmount)
+                    .containsExactly(1L, 3L);
+        }
+    }
+
+    @Test
+    void truncate_ShouldDeleteOnlyFullyAppliedSealedSegments() throws IOException {
+        try (WalletOperationLog log = new WalletOperationLog(directory, 2L * WalletOperationLog.RECORD_SIZE, 0)) {
+            for (int i = 1; i <= 5; i++) {
+                log.append(WALLET_ID, i, APPENDED_AT);
+            }
+            assertThat(log.segmentCount()).isEqualTo(3);
+
+            log.truncate(3);
+            assertThat(log.segmentCount()).isEqualTo(2);
+            assertThat(segments()).hasSize(2);
+
+            log.truncate(5);
+            assertThat(log.segmentCount()).isEqualTo(1);
+        }
+
+        try (WalletOperationLog log = new WalletOperationLog(directory, 2L * WalletOperationLog.RECORD_SIZE, 5)) {
+            assertThat(log.recoveredEntries()).isEmpty();
+            assertThat(log.append(WALLET_ID, 6, APPENDED_AT)).isEqualTo(6);
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+}
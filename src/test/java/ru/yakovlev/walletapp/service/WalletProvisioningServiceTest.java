@@ -0,0 +1,103 @@
+package ru.yakovlev.walletapp.service;
+
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yakovlev.walletapp.dto.BulkWalletDTORequest;
+import ru.yakovlev.walletapp.dto.ProvisioningJobDTOResponse;
+import ru.yakovlev.walletapp.dto.WalletDTOResponse;
+import ru.yakovlev.walletapp.exception.ProvisioningJobConflictException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "wallet.provisioning.chunk-size=3")
+@AutoConfigureEmbeddedDatabase
+class WalletProvisioningServiceTest {
+
+    @Autowired
+    private WalletProvisioningService walletProvisioningService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void provision_ShouldCreateRequestedWalletsWithLedgerEntries() throws Exception {
+        List<WalletDTOResponse> wallets = provision(new BulkWalletDTORequest("bulk-ledger", 7, new BigDecimal("2.50")));
+
+        assertThat(wallets).hasSize(7);
+        assertThat(wallets).extracting(WalletDTOResponse::getId).doesNotHaveDuplicates();
+        assertThat(wallets).allSatisfy(wallet -> assertThat(wallet.getBalance()).isEqualByComparingTo("2.50"));
+        assertThat(count("SELECT count(*) FROM wallets WHERE provisioning_job_id = 'bulk-ledger' AND balance = 250"))
+                .isEqualTo(7);
+        assertThat(count("SELECT count(*) FROM wallet_operations o JOIN wallets w USING (wallet_id) "
+                + "WHERE w.provisioning_job_id = 'bulk-ledger' AND o.amount = 250 AND o.balance_after = 250"))
+                .isEqualTo(7);
+
+        ProvisioningJobDTOResponse job = walletProvisioningService.getJob("bulk-ledger");
+        assertThat(job.getCreatedCount()).isEqualTo(7);
+        assertThat(job.isCompleted()).isTrue();
+    }
+
+    @Test
+    void provision_WithSameJobId_ShouldResumeWithoutCreatingExtraWallets() throws Exception {
+        jdbcTemplate.update("INSERT INTO wallet_provisioning_jobs (job_id, requested_count, initial_balance, "
+                + "created_count) VALUES ('bulk-resume', 5, 0, 3)");
+        for (int i = 0; i < 3; i++) {
+            jdbcTemplate.update("INSERT INTO wallets (wallet_id, balance, version, provisioning_job_id) "
+                    + "VALUES (?, 0, 0, 'bulk-resume')", UUID.randomUUID());
+        }
+
+        List<WalletDTOResponse> wallets = provision(new BulkWalletDTORequest("bulk-resume", 5, null));
+        List<WalletDTOResponse> replayed = provision(new BulkWalletDTORequest("bulk-resume", 5, null));
+
+        assertThat(wallets).hasSize(5).extracting(WalletDTOResponse::getId).doesNotHaveDuplicates();
+        assertThat(replayed).extracting(WalletDTOResponse::getId)
+                .containsExactlyInAnyOrderElementsOf(wallets.stream().map(WalletDTOResponse::getId).toList());
+        assertThat(count("SELECT count(*) FROM wallets WHERE provisioning_job_id = 'bulk-resume'")).isEqualTo(5);
+        assertThat(walletProvisioningService.getJob("bulk-resume").getCreatedCount()).isEqualTo(5);
+    }
+
+    @Test
+    void start_WithDifferentParameters_ShouldConflict() throws Exception {
+        provision(new BulkWalletDTORequest("bulk-conflict", 2, BigDecimal.ONE));
+
+        assertThatThrownBy(() -> walletProvisioningService.start(
+                new BulkWalletDTORequest("bulk-conflict", 3, BigDecimal.ONE)))
+                .isInstanceOf(ProvisioningJobConflictException.class);
+        assertThat(count("SELECT count(*) FROM wallets WHERE provisioning_job_id = 'bulk-conflict'")).isEqualTo(2);
+    }
+
+    @Test
+    void start_WhileLeaseIsHeld_ShouldConflictUntilItExpires() throws Exception {
+        BulkWalletDTORequest request = new BulkWalletDTORequest("bulk-lease", 4, null);
+        walletProvisioningService.start(request);
+
+        assertThatThrownBy(() -> walletProvisioningService.start(request))
+                .isInstanceOf(ProvisioningJobConflictException.class)
+                .hasMessageContaining("already running");
+
+        jdbcTemplate.update("UPDATE wallet_provisioning_jobs SET lease_expires_at = now() - INTERVAL '1 second' "
+                + "WHERE job_id = 'bulk-lease'");
+        assertThat(provision(request)).hasSize(4);
+        assertThat(count("SELECT count(*) FROM wallet_provisioning_jobs "
+                + "WHERE job_id = 'bulk-lease' AND lease_token IS NULL")).isEqualTo(1);
+    }
+
+    private List<WalletDTOResponse> provision(BulkWalletDTORequest request) throws Exception {
+        List<WalletDTOResponse> wallets = new ArrayList<>();
+        walletProvisioningService.provision(walletProvisioningService.start(request), wallets::addAll);
+        return wallets;
+    }
+
+    private int count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Integer.class);
+    }
+}
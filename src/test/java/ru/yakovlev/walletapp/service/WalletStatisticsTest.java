@@ -0,0 +1,100 @@
+package ru.yakovlev.walletapp.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yakovlev.walletapp.dto.BalanceBucketDTOResponse;
+import ru.yakovlev.walletapp.dto.WalletDTORequest;
+import ru.yakovlev.walletapp.dto.WalletStatsDTOResponse;
+import ru.yakovlev.walletapp.entity.OperationType;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "wallet.stats.verify-chunk-size=2")
+@AutoConfigureEmbeddedDatabase
+class WalletStatisticsTest {
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private WalletStatistics walletStatistics;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void stats_ShouldFollowWalletChangesAndMatchTable() throws Exception {
+        WalletStatsDTOResponse before = walletStatistics.getStats();
+        UUID first = walletService.createNewWallet().getId();
+        UUID second = walletService.createNewWallet().getId();
+        UUID third = walletService.createNewWallet().getId();
+        walletService.depositOrWithdraw(new WalletDTORequest(first, OperationType.DEPOSIT, new BigDecimal("250.00")));
+        walletService.depositOrWithdraw(new WalletDTORequest(second, OperationType.DEPOSIT, new BigDecimal("0.50")));
+        walletService.depositOrWithdraw(new WalletDTORequest(first, OperationType.WITHDRAW, new BigDecimal("50.00")));
+        walletService.deleteWalletById(third);
+
+        WalletStatsDTOResponse stats = walletStatistics.getStats();
+        assertThat(stats.getWalletCount()).isEqualTo(before.getWalletCount() + 2);
+        assertThat(stats.getTotalBalance()).isEqualByComparingTo(before.getTotalBalance().add(new BigDecimal("200.50")));
+        assertThat(bucketCount(stats, "100.00") - bucketCount(before, "100.00")).isEqualTo(1);
+        assertThat(bucketCount(stats, "0.01") - bucketCount(before, "0.01")).isEqualTo(1);
+        assertMatchesTable(stats);
+
+        walletStatistics.flush();
+        assertMatchesTable(walletStatistics.getStats());
+        assertThat(recordedCount()).isEqualTo(stats.getWalletCount());
+    }
+
+    @Test
+    void verify_ShouldRepairDriftOnlyOnceConfirmed() throws Exception {
+        UUID walletId = walletService.createNewWallet().getId();
+        walletService.createNewWallet();
+        walletService.createNewWallet();
+        walletStatistics.verify();
+        double repairs = meterRegistry.get("wallet.stats.repairs").counter().count();
+
+        jdbcTemplate.update("UPDATE wallets SET balance = balance + 12345 WHERE wallet_id = ?", walletId);
+        WalletStatsDTOResponse drifted = walletStatistics.getStats();
+
+        walletStatistics.verify();
+        assertThat(walletStatistics.getStats()).isEqualTo(drifted);
+        assertThat(meterRegistry.get("wallet.stats.repairs").counter().count()).isEqualTo(repairs);
+
+        walletStatistics.verify();
+        assertMatchesTable(walletStatistics.getStats());
+        assertThat(meterRegistry.get("wallet.stats.repairs").counter().count()).isEqualTo(repairs + 1);
+    }
+
+    private void assertMatchesTable(WalletStatsDTOResponse stats) {
+        Map<String, Object> actual = jdbcTemplate.queryForMap(
+                "SELECT count(*) AS wallet_count, coalesce(sum(balance), 0) AS balance_sum FROM wallets");
+        assertThat(stats.getWalletCount()).isEqualTo(((Number) actual.get("wallet_count")).longValue());
+        assertThat(stats.getTotalBalance())
+                .isEqualByComparingTo(((BigDecimal) actual.get("balance_sum")).movePointLeft(2));
+        assertThat(stats.getDistribution().stream().mapToLong(BalanceBucketDTOResponse::getWalletCount).sum())
+                .isEqualTo(stats.getWalletCount());
+    }
+
+    private long recordedCount() {
+        return jdbcTemplate.queryForObject("SELECT coalesce(sum(wallet_count), 0) FROM wallet_stats", Long.class);
+    }
+
+    private static long bucketCount(WalletStatsDTOResponse stats, String from) {
+        return stats.getDistribution().stream()
+                .filter(bucket -> bucket.getFrom().compareTo(new BigDecimal(from)) == 0)
+                .mapToLong(BalanceBucketDTOResponse::getWalletCount)
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,134 @@
+package ru.yakovlev.walletapp.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yakovlev.walletapp.dto.PageDTOResponse;
+import ru.yakovlev.walletapp.dto.TransferDTORequest;
+import ru.yakovlev.walletapp.dto.WalletDTORequest;
+import ru.yakovlev.walletapp.dto.WalletDTOResponse;
+import ru.yakovlev.walletapp.entity.OperationType;
+import ru.yakovlev.walletapp.exception.WalletNotFoundException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {"wallet.tiering.enabled=true", "wallet.tiering.dormant-after=1s"})
+@AutoConfigureEmbeddedDatabase
+class WalletTieringTest {
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private WalletTiering walletTiering;
+
+    @Autowired
+    private WalletStatistics walletStatistics;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void archive_ShouldMoveOnlyDormantWalletsAndKeepThemVisible() throws Exception {
+        UUID funded = walletService.createNewWallet().getId();
+        walletService.depositOrWithdraw(new WalletDTORequest(funded, OperationType.DEPOSIT, new BigDecimal("40.00")));
+        UUID empty = walletService.createNewWallet().getId();
+        Thread.sleep(1_200);
+        UUID recent = walletService.createNewWallet().getId();
+        walletService.depositOrWithdraw(new WalletDTORequest(recent, OperationType.DEPOSIT, new BigDecimal("5.00")));
+        walletStatistics.verify();
+        double repairs = meterRegistry.get("wallet.stats.repairs").counter().count();
+
+        walletTiering.archive();
+
+        assertThat(isCold(funded)).isTrue();
+        assertThat(isCold(empty)).isTrue();
+        assertThat(isCold(recent)).isFalse();
+        assertThat(meterRegistry.get("wallet.tiering.archived").counter().count()).isGreaterThanOrEqualTo(2);
+        assertThat(meterRegistry.get("wallet.tiering.size").tag("tier", "cold").gauge().value()).isPositive();
+
+        assertThat(walletService.getAllWallets()).extracting(WalletDTOResponse::getId)
+                .contains(funded, empty, recent);
+        assertThat(pageThroughWallets()).contains(funded, empty, recent).doesNotHaveDuplicates();
+        assertThat(walletService.getWalletOperations(funded, null, 10).getItems()).hasSize(1);
+
+        walletStatistics.verify();
+        walletStatistics.verify();
+        assertThat(meterRegistry.get("wallet.stats.repairs").counter().count()).isEqualTo(repairs);
+    }
+
+    @Test
+    void archive_ShouldJudgeLegacyV4WalletsByCreationTime() throws Exception {
+        UUID dormant = legacyWallet();
+        Thread.sleep(1_200);
+        UUID recent = legacyWallet();
+
+        walletTiering.archive();
+
+        assertThat(isCold(dormant)).isTrue();
+        assertThat(isCold(recent)).isFalse();
+        assertThat(walletService.getWalletById(dormant).getBalance()).isEqualByComparingTo("0");
+        assertThat(isCold(dormant)).isFalse();
+    }
+
+    @Test
+    void operations_ShouldPromoteArchivedWallets() throws Exception {
+        UUID source = walletService.createNewWallet().getId();
+        walletService.depositOrWithdraw(new WalletDTORequest(source, OperationType.DEPOSIT, new BigDecimal("100.00")));
+        UUID target = walletService.createNewWallet().getId();
+        UUID deleted = walletService.createNewWallet().getId();
+        Thread.sleep(1_200);
+        walletTiering.archive();
+        assertThat(isCold(source)).isTrue();
+        double promoted = meterRegistry.get("wallet.tiering.promoted").counter().count();
+
+        walletService.transfer(new TransferDTORequest(source, target, new BigDecimal("30.00")));
+
+        assertThat(isCold(source)).isFalse();
+        assertThat(isCold(target)).isFalse();
+        assertThat(meterRegistry.get("wallet.tiering.promoted").counter().count()).isEqualTo(promoted + 2);
+        assertThat(walletService.getWalletById(source).getBalance()).isEqualByComparingTo("70.00");
+        assertThat(walletService.getWalletById(target).getBalance()).isEqualByComparingTo("30.00");
+
+        walletTiering.archive();
+        assertThat(isCold(source)).isFalse();
+
+        walletService.deleteWalletById(deleted);
+        assertThat(isCold(deleted)).isFalse();
+        assertThatThrownBy(() -> walletService.getWalletById(deleted)).isInstanceOf(WalletNotFoundException.class);
+    }
+
+    private UUID legacyWallet() {
+        UUID legacyId = UUID.randomUUID();
+        jdbcTemplate.update("UPDATE wallets SET wallet_id = ? WHERE wallet_id = ?",
+                legacyId, walletService.createNewWallet().getId());
+        return legacyId;
+    }
+
+    private boolean isCold(UUID id) {
+        return walletTiering.isArchived(id);
+    }
+
+    private List<UUID> pageThroughWallets() throws Exception {
+        List<UUID> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            PageDTOResponse<WalletDTOResponse> page = walletService.getWalletsPage(cursor, 2);
+            page.getItems().forEach(wallet -> ids.add(wallet.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return ids;
+    }
+}
@@ -0,0 +1,49 @@
+package ru.yakovlev.walletapp.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+@SpringBootTest(webEnvironment = RANDOM_PORT,
+        properties = {"wallet.warmup.enabled=true", "wallet.warmup.iterations=3"})
+@AutoConfigureEmbeddedDatabase
+@AutoConfigureObservability
+class WalletWarmupTest {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private WalletWarmup walletWarmup;
+
+    @Test
+    void startup_ShouldExerciseWalletEndpointsWithoutSideEffects() {
+        assertThat(walletWarmup.getCompletedIterations()).isEqualTo(3);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM wallets", Long.class)).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM wallet_operations", Long.class)).isZero();
+    }
+
+    @Test
+    void startup_ShouldKeepWarmupTrafficOutOfMetrics() {
+        assertThat(requests("/api/v1/wallets/{WALLET_UUID}")).isZero();
+        assertThat(requests("/api/v1/wallet")).isZero();
+        assertThat(meterRegistry.find("wallet.operations").timers()).isEmpty();
+    }
+
+    private long requests(String uri) {
+        return meterRegistry.find("http.server.requests").tag("uri", uri).timers().stream()
+                .mapToLong(Timer::count)
+                .sum();
+    }
+}
@@ -0,0 +1,167 @@
+package ru.yakovlev.walletapp.service;
+
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.unit.DataSize;
+import ru.yakovlev.walletapp.config.WalletProperties;
+import ru.yakovlev.walletapp.config.WalletShardRouter;
+import ru.yakovlev.walletapp.dto.TransferDTORequest;
+import ru.yakovlev.walletapp.dto.WalletDTORequest;
+import ru.yakovlev.walletapp.entity.OperationType;
+import ru.yakovlev.walletapp.exception.WalletNotEnoughBalance;
+import ru.yakovlev.walletapp.repository.WalletOperationRepository;
+import ru.yakovlev.walletapp.repository.WalletRepository;
+import ru.yakovlev.walletapp.repository.WriteBehindCheckpointRepository;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {"wallet.write-behind.enabled=true", "wallet.write-behind.flush-interval=1h"})
+@AutoConfigureEmbeddedDatabase
+class WalletWriteBehindTest {
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private WalletWriteBehind walletWriteBehind;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private WalletOperationRepository walletOperationRepository;
+
+    @Autowired
+    private WriteBehindCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private WalletBalanceCache walletBalanceCache;
+
+    @Autowired
+    private WalletTiering walletTiering;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private WalletShardRouter walletShardRouter;
+
+    @DynamicPropertySource
+    static void logDirectory(DynamicPropertyRegistry registry) throws IOException {
+        Path directory = Files.createTempDirectory("write-behind");
+        registry.add("wallet.write-behind.directory", directory::toString);
+    }
+
+    @Test
+    void deposit_ShouldBeAcknowledgedBeforeFlushAndDrainedLater() throws Exception {
+        UUID walletId = walletService.createNewWallet().getId();
+
+        assertThat(walletService.depositOrWithdraw(deposit(walletId, "1.50")).getBalance())
+                .isEqualByComparingTo("1.50");
+        assertThat(walletService.depositOrWithdraw(deposit(walletId, "2.25")).getBalance())
+                .isEqualByComparingTo("3.75");
+        assertThat(storedBalance(walletId)).isZero();
+        assertThat(walletService.getWalletById(walletId).getBalance()).isEqualByComparingTo("3.75");
+
+        walletWriteBehind.flush();
+
+        assertThat(storedBalance(walletId)).isEqualTo(375);
+        assertThat(walletService.getWalletById(walletId).getBalance()).isEqualByComparingTo("3.75");
+        assertThat(walletService.getWalletOperations(walletId, null, 10).getItems())
+                .extracting(operation -> operation.getBalanceAfter().toPlainString())
+                .containsExactly("3.75", "1.50");
+    }
+
+    @Test
+    void withdrawalAndTransfer_ShouldSeePendingCredits() throws Exception {
+        UUID walletId = walletService.createNewWallet().getId();
+        UUID targetId = walletService.createNewWallet().getId();
+        walletService.depositOrWithdraw(deposit(walletId, "10"));
+
+        assertThat(walletService.depositOrWithdraw(
+                new WalletDTORequest(walletId, OperationType.WITHDRAW, new BigDecimal("7"))).getBalance())
+                .isEqualByComparingTo("3");
+
+        walletService.depositOrWithdraw(deposit(walletId, "5"));
+        walletService.transfer(new TransferDTORequest(walletId, targetId, new BigDecimal("8")));
+        assertThat(storedBalance(walletId)).isZero();
+        assertThat(storedBalance(targetId)).isEqualTo(800);
+
+        assertThatThrownBy(() -> walletService.depositOrWithdraw(
+                new WalletDTORequest(walletId, OperationType.WITHDRAW, BigDecimal.ONE)))
+                .isInstanceOf(WalletNotEnoughBalance.class);
+    }
+
+    @Test
+    void restart_ShouldReplayUnflushedLogOnceAndTruncateSegments() throws Exception {
+        UUID walletId = walletService.createNewWallet().getId();
+        Path directory = Files.createTempDirectory("write-behind-replay");
+        Instant appendedAt = Instant.parse("2026-03-01T12:30:45.123456Z");
+        try (WalletOperationLog log = new WalletOperationLog(directory, 2L * WalletOperationLog.RECORD_SIZE, 0)) {
+            log.append(walletId, 100, appendedAt);
+            log.append(walletId, 200, appendedAt.plusSeconds(1));
+            log.sync(log.append(walletId, 300, appendedAt.plusSeconds(2)));
+        }
+
+        restart(directory);
+        restart(directory);
+
+        assertThat(storedBalance(walletId)).isEqualTo(600);
+        assertThat(walletService.getWalletOperations(walletId, null, 10).getItems()).hasSize(3);
+        assertThat(jdbcTemplate.queryForList("SELECT created_at FROM wallet_operations WHERE wallet_id = ? "
+                + "ORDER BY amount", Timestamp.class, walletId))
+                .extracting(Timestamp::toInstant)
+                .containsExactly(appendedAt, appendedAt.plusSeconds(1), appendedAt.plusSeconds(2));
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT applied_sequence FROM write_behind_checkpoints WHERE log_id = 'replay'", Long.class))
+                .isEqualTo(3);
+        try (Stream<Path> segments = Files.list(directory)) {
+            assertThat(segments).hasSize(1);
+        }
+    }
+
+    private void restart(Path directory) throws IOException {
+        WalletProperties walletProperties = new WalletProperties();
+        walletProperties.getWriteBehind().setEnabled(true);
+        walletProperties.getWriteBehind().setLogId("replay");
+        walletProperties.getWriteBehind().setDirectory(directory);
+        walletProperties.getWriteBehind().setSegmentSize(DataSize.ofBytes(2L * WalletOperationLog.RECORD_SIZE));
+        WalletWriteBehind restarted = new WalletWriteBehind(walletRepository, walletOperationRepository,
+                checkpointRepository, walletBalanceCache, walletTiering, eventPublisher, transactionManager, walletProperties,
+                walletShardRouter);
+        restarted.start();
+        restarted.stop();
+    }
+
+    private WalletDTORequest deposit(UUID walletId, String amount) {
+        return new WalletDTORequest(walletId, OperationType.DEPOSIT, new BigDecimal(amount));
+    }
+
+    private long storedBalance(UUID walletId) {
+        return jdbcTemplate.queryForObject("SELECT balance FROM wallets WHERE wallet_id = ?", Long.class, walletId);
+    }
+}
@@ -0,0 +1,30 @@
+package ru.yakovlev.walletapp.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MoneyTest {
+
+    @Test
+    void toMinorUnits_ShouldScaleExactly() {
+        assertThat(Money.toMinorUnits(new BigDecimal("1000.50"))).isEqualTo(100050);
+        assertThat(Money.toMinorUnits(new BigDecimal("0.01"))).isEqualTo(1);
+        assertThat(Money.toMinorUnits(new BigDecimal("1E+2"))).isEqualTo(10000);
+        assertThat(Money.toMinorUnits(new BigDecimal("7.100"))).isEqualTo(710);
+    }
+
+    @Test
+    void toMinorUnits_WithTooManyDecimalPlaces_ShouldFail() {
+        assertThatThrownBy(() -> Money.toMinorUnits(new BigDecimal("0.001"))).isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void fromMinorUnits_ShouldRoundTrip() {
+        assertThat(Money.fromMinorUnits(100050)).isEqualTo(new BigDecimal("1000.50"));
+        assertThat(Money.toMinorUnits(Money.fromMinorUnits(Long.MAX_VALUE))).isEqualTo(Long.MAX_VALUE);
+    }
+}
@@ -0,0 +1,80 @@
+package ru.yakovlev.walletapp.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UuidV7GeneratorTest {
+
+    @Test
+    void next_ShouldProduceVersion7WithCurrentTimestamp() {
+        long before = System.currentTimeMillis();
+        UUID uuid = UuidV7Generator.next();
+        long after = System.currentTimeMillis();
+
+        assertThat(uuid.version()).isEqualTo(7);
+        assertThat(uuid.variant()).isEqualTo(2);
+        assertThat(uuid.getMostSignificantBits() >>> 16).isBetween(before, after + 1);
+    }
+
+    @Test
+    void next_WithinOneMillisecond_ShouldBeStrictlyIncreasing() {
+        UUID previous = UuidV7Generator.next();
+        for (int i = 0; i < 100_000; i++) {
+            UUID current = UuidV7Generator.next();
+            assertThat(current).isGreaterThan(previous);
+            previous = current;
+        }
+    }
+
+    @Test
+    void lowerBound_ShouldSortBetweenEarlierAndLaterIds() throws Exception {
+        UUID earlier = UuidV7Generator.next();
+        Thread.sleep(2);
+        long boundary = System.currentTimeMillis();
+        Thread.sleep(2);
+        UUID later = UuidV7Generator.next();
+
+        UUID bound = UuidV7Generator.lowerBound(boundary);
+        assertThat(bound.getMostSignificantBits() >>> 16).isEqualTo(boundary);
+        assertThat(earlier).isLessThan(bound);
+        assertThat(later).isGreaterThan(bound);
+    }
+
+    @Test
+    void next_FromManyThreads_ShouldBeUniqueAndIncreasingPerThread() throws Exception {
+        int threads = 8;
+        int perThread = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<List<UUID>>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    List<UUID> generated = new ArrayList<>(perThread);
+                    for (int j = 0; j < perThread; j++) {
+                        generated.add(UuidV7Generator.next());
+                    }
+                    return generated;
+                }));
+            }
+            Set<UUID> all = new HashSet<>();
+            for (Future<List<UUID>> future : futures) {
+                List<UUID> generated = future.get();
+                assertThat(generated).isSorted();
+                all.addAll(generated);
+            }
+            assertThat(all).hasSize(threads * perThread);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}